@@ -0,0 +1,64 @@
+/*
+ * Copyright 2009, 2010 University of Paderborn
+ *
+ * This file is part of vMAGIC.
+ *
+ * vMAGIC is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * vMAGIC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with vMAGIC. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Authors: Ralf Fuest <rfuest@users.sourceforge.net>
+ *          Christopher Pohl <cpohl@users.sourceforge.net>
+ */
+
+package de.upb.hni.vmagic.benchmarks;
+
+import de.upb.hni.vmagic.expression.Expression;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Copy benchmarks.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class CopyBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int size;
+    private Expression expression;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        expression = Corpus.createExpression(size);
+    }
+
+    @Benchmark
+    public Expression copyExpression() {
+        return expression.copy();
+    }
+}
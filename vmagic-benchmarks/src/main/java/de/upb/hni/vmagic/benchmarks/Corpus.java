@@ -0,0 +1,433 @@
+/*
+ * Copyright 2009, 2010 University of Paderborn
+ *
+ * This file is part of vMAGIC.
+ *
+ * vMAGIC is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * vMAGIC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with vMAGIC. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Authors: Ralf Fuest <rfuest@users.sourceforge.net>
+ *          Christopher Pohl <cpohl@users.sourceforge.net>
+ */
+
+package de.upb.hni.vmagic.benchmarks;
+
+import de.upb.hni.vmagic.builtin.Standard;
+import de.upb.hni.vmagic.expression.And;
+import de.upb.hni.vmagic.expression.Expression;
+import de.upb.hni.vmagic.expression.Or;
+import de.upb.hni.vmagic.expression.Xor;
+import de.upb.hni.vmagic.object.Signal;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Deterministic VHDL benchmark corpus.
+ * The generated sources only depend on the size parameter, which makes the
+ * results of different benchmark runs comparable.
+ */
+public class Corpus {
+
+    /**
+     * Prevent instantiation.
+     */
+    private Corpus() {
+    }
+
+    /**
+     * Creates the source of a file which contains a package, an entity and an
+     * architecture.
+     * @param size the number of signals and concurrent statements in the architecture
+     * @return the VHDL source
+     */
+    public static String createFile(int size) {
+        StringBuilder sb = new StringBuilder();
+
+        sb.append("library ieee;\n");
+        sb.append("use ieee.std_logic_1164.all;\n\n");
+        sb.append("-- shared declarations\n");
+        sb.append("package corpus_pkg is\n");
+        sb.append("    type state_t is (IDLE, LOAD, RUN, DONE);\n");
+        sb.append("    constant ENABLED : std_logic := '1';\n");
+        sb.append("    function invert(x : std_logic) return std_logic;\n");
+        sb.append("end corpus_pkg;\n\n");
+        sb.append("package body corpus_pkg is\n");
+        sb.append("    function invert(x : std_logic) return std_logic is\n");
+        sb.append("    begin\n");
+        sb.append("        return not x;\n");
+        sb.append("    end invert;\n");
+        sb.append("end corpus_pkg;\n\n");
+
+        sb.append("library ieee;\n");
+        sb.append("use ieee.std_logic_1164.all;\n");
+        sb.append("use work.corpus_pkg.all;\n\n");
+        sb.append("entity corpus is\n");
+        sb.append("    port (\n");
+        sb.append("        clk : in std_logic;\n");
+        sb.append("        din : in std_logic;\n");
+        sb.append("        dout : out std_logic\n");
+        sb.append("    );\n");
+        sb.append("end corpus;\n\n");
+
+        sb.append("architecture rtl of corpus is\n");
+        sb.append("    signal state : state_t;\n");
+        for (int i = 0; i < size; i++) {
+            sb.append("    signal s").append(i).append(" : std_logic; -- signal ").append(i).append('\n');
+        }
+        sb.append("begin\n");
+        sb.append("    s0 <= din;\n");
+        for (int i = 1; i < size; i++) {
+            switch (i % 3) {
+                case 0:
+                    sb.append("    s").append(i).append(" <= s").append(i - 1).append(" and din;\n");
+                    break;
+
+                case 1:
+                    sb.append("    s").append(i).append(" <= invert(s").append(i - 1).append(");\n");
+                    break;
+
+                default:
+                    sb.append("    s").append(i).append(" <= s").append(i - 1)
+                            .append(" when state = RUN else ENABLED;\n");
+                    break;
+            }
+        }
+        sb.append("\n    fsm : process (clk)\n");
+        sb.append("    begin\n");
+        sb.append("        if rising_edge(clk) then\n");
+        sb.append("            case state is\n");
+        sb.append("                when IDLE => state <= LOAD;\n");
+        sb.append("                when LOAD => state <= RUN;\n");
+        sb.append("                when RUN => state <= DONE;\n");
+        sb.append("                when others => state <= IDLE;\n");
+        sb.append("            end case;\n");
+        sb.append("        end if;\n");
+        sb.append("    end process fsm;\n\n");
+        sb.append("    dout <= s").append(size - 1).append(";\n");
+        sb.append("end rtl;\n");
+
+        return sb.toString();
+    }
+
+    /**
+     * Creates the source of a file which uses a wider range of VHDL
+     * constructs than <code>createFile</code>: records, arrays, aggregates,
+     * subprograms, processes with sequential statements, component
+     * instantiations, generate statements and selected and conditional
+     * signal assignments. The names, ranges and association lists exercise
+     * the syntactic predicates of the parser.
+     * @param size the number of processes, instances and generate statements
+     *        in the architecture
+     * @return the VHDL source
+     */
+    public static String createDesign(int size) {
+        StringBuilder sb = new StringBuilder();
+
+        sb.append("library ieee;\n");
+        sb.append("use ieee.std_logic_1164.all;\n\n");
+        sb.append("package design_pkg is\n");
+        sb.append("    type word_t is array (7 downto 0) of std_logic;\n");
+        sb.append("    type regs_t is array (0 to 15) of word_t;\n");
+        sb.append("    type pair_t is record\n");
+        sb.append("        count : integer range 0 to 255;\n");
+        sb.append("        data : word_t;\n");
+        sb.append("    end record;\n");
+        sb.append("    constant ZERO : word_t := (others => '0');\n");
+        sb.append("    function parity(w : word_t) return std_logic;\n");
+        sb.append("    procedure clear(signal w : out word_t);\n");
+        sb.append("end design_pkg;\n\n");
+        sb.append("package body design_pkg is\n");
+        sb.append("    function parity(w : word_t) return std_logic is\n");
+        sb.append("        variable p : std_logic := '0';\n");
+        sb.append("    begin\n");
+        sb.append("        for i in w'range loop\n");
+        sb.append("            p := p xor w(i);\n");
+        sb.append("        end loop;\n");
+        sb.append("        return p;\n");
+        sb.append("    end parity;\n\n");
+        sb.append("    procedure clear(signal w : out word_t) is\n");
+        sb.append("    begin\n");
+        sb.append("        w <= (others => '0');\n");
+        sb.append("    end clear;\n");
+        sb.append("end design_pkg;\n\n");
+
+        sb.append("library ieee;\n");
+        sb.append("use ieee.std_logic_1164.all;\n");
+        sb.append("use work.design_pkg.all;\n\n");
+        sb.append("entity design is\n");
+        sb.append("    generic (WIDTH : integer := 8);\n");
+        sb.append("    port (clk, rst : in std_logic; din : in word_t; dout : out word_t);\n");
+        sb.append("end design;\n\n");
+
+        sb.append("architecture rtl of design is\n");
+        sb.append("    component stage is\n");
+        sb.append("        generic (WIDTH : integer := 8);\n");
+        sb.append("        port (clk, rst : in std_logic; din : in word_t; dout : out word_t);\n");
+        sb.append("    end component;\n");
+        sb.append("    signal regs : regs_t;\n");
+        sb.append("    signal w0 : word_t;\n");
+        for (int i = 1; i <= size; i++) {
+            sb.append("    signal w").append(i).append(" : word_t;\n");
+            sb.append("    signal c").append(i).append(" : integer range 0 to 255 := 0;\n");
+            sb.append("    signal p").append(i).append(" : pair_t;\n");
+            sb.append("    signal s").append(i).append(" : std_logic;\n");
+        }
+        sb.append("begin\n");
+        sb.append("    w0 <= din;\n");
+        for (int i = 1; i <= size; i++) {
+            String w = "w" + i;
+            String c = "c" + i;
+            sb.append("\n");
+            sb.append("    u").append(i).append(" : stage\n");
+            sb.append("        generic map (WIDTH => 8)\n");
+            sb.append("        port map (clk => clk, rst => rst, din => w").append(i - 1)
+                    .append(", dout => ").append(w).append(");\n\n");
+            sb.append("    proc").append(i).append(" : process (clk, rst)\n");
+            sb.append("        variable v : integer range 0 to 255;\n");
+            sb.append("    begin\n");
+            sb.append("        if rst = '1' then\n");
+            sb.append("            ").append(c).append(" <= 0;\n");
+            sb.append("            p").append(i).append(" <= (count => 0, data => ZERO);\n");
+            sb.append("        elsif clk'event and clk = '1' then\n");
+            sb.append("            v := ").append(c).append(" + 1;\n");
+            sb.append("            case v mod 4 is\n");
+            sb.append("                when 0 => regs(").append(i % 16).append(") <= ").append(w).append(";\n");
+            sb.append("                when 1 | 2 => regs(").append(i % 16).append(")(3 downto 0) <= ")
+                    .append(w).append("(7 downto 4);\n");
+            sb.append("                when others => null;\n");
+            sb.append("            end case;\n");
+            sb.append("            for j in 0 to 7 loop\n");
+            sb.append("                if ").append(w).append("(j) = '1' and v < 16#f0# then\n");
+            sb.append("                    v := v + j * 2;\n");
+            sb.append("                end if;\n");
+            sb.append("            end loop;\n");
+            sb.append("            ").append(c).append(" <= v;\n");
+            sb.append("            p").append(i).append(".count <= v;\n");
+            sb.append("            p").append(i).append(".data <= ").append(w).append(";\n");
+            sb.append("        end if;\n");
+            sb.append("    end process proc").append(i).append(";\n\n");
+            sb.append("    s").append(i).append(" <= parity(").append(w).append(") when ").append(c)
+                    .append(" > 127 else '0';\n\n");
+            sb.append("    with ").append(c).append(" select\n");
+            sb.append("        regs(").append((i + 8) % 16).append(") <= ").append(w).append(" when 0 | 1,\n");
+            sb.append("            (others => s").append(i).append(") when 2 to 7,\n");
+            sb.append("            ZERO when others;\n\n");
+            sb.append("    gen").append(i).append(" : for k in 0 to 3 generate\n");
+            sb.append("        regs(k)(k) <= ").append(w).append("(k) xor ").append(w).append("(k + 4);\n");
+            sb.append("    end generate gen").append(i).append(";\n");
+        }
+        sb.append("\n    dout <= w").append(size).append(";\n");
+        sb.append("end rtl;\n");
+
+        return sb.toString();
+    }
+
+    /**
+     * Creates the source of a file which contains an entity and an
+     * architecture with nested block statements.
+     * The signal <code>s0_0</code> is declared in the architecture and
+     * <code>s[depth]_0</code> in the innermost block, which is labeled
+     * <code>b[depth]</code>.
+     * @param depth the number of nested blocks
+     * @param width the number of signals declared in every declarative region
+     * @return the VHDL source
+     */
+    public static String createNestedBlocks(int depth, int width) {
+        StringBuilder sb = new StringBuilder();
+
+        sb.append("entity nested is\n");
+        sb.append("    port (din : in bit; dout : out bit);\n");
+        sb.append("end nested;\n\n");
+        sb.append("architecture rtl of nested is\n");
+        appendSignals(sb, 0, width);
+        sb.append("begin\n");
+        for (int level = 1; level <= depth; level++) {
+            indent(sb, level);
+            sb.append('b').append(level).append(" : block\n");
+            appendSignals(sb, level, width);
+            indent(sb, level);
+            sb.append("begin\n");
+        }
+        for (int level = depth; level >= 1; level--) {
+            indent(sb, level + 1);
+            sb.append('s').append(level).append("_0 <= s").append(level - 1).append("_0 xor din;\n");
+            indent(sb, level);
+            sb.append("end block b").append(level).append(";\n");
+        }
+        sb.append("    dout <= s0_0;\n");
+        sb.append("end rtl;\n");
+
+        return sb.toString();
+    }
+
+    private static void appendSignals(StringBuilder sb, int level, int width) {
+        for (int i = 0; i < width; i++) {
+            indent(sb, level + 1);
+            sb.append("signal s").append(level).append('_').append(i).append(" : bit;\n");
+        }
+    }
+
+    private static void indent(StringBuilder sb, int level) {
+        for (int i = 0; i < level; i++) {
+            sb.append("    ");
+        }
+    }
+
+    /**
+     * Creates a balanced expression tree of logical operators.
+     * @param size the number of leaves
+     * @return the expression
+     */
+    public static Expression createExpression(int size) {
+        Signal[] signals = new Signal[Math.min(size, 64)];
+        for (int i = 0; i < signals.length; i++) {
+            signals[i] = new Signal("s" + i, Standard.BIT);
+        }
+
+        return createExpression(signals, 0, size);
+    }
+
+    private static Expression createExpression(Signal[] signals, int begin, int end) {
+        if (end - begin == 1) {
+            return signals[begin % signals.length];
+        }
+
+        int middle = (begin + end) >>> 1;
+        Expression left = createExpression(signals, begin, middle);
+        Expression right = createExpression(signals, middle, end);
+
+        switch (middle % 3) {
+            case 0:
+                return new And(left, right);
+
+            case 1:
+                return new Or(left, right);
+
+            default:
+                return new Xor(left, right);
+        }
+    }
+
+    /**
+     * Creates the source of a file of a generated project. The file contains
+     * the package <code>pkg[index]</code>, the entity <code>unit[index]</code>
+     * and its architecture. Except for the first file, the architecture uses
+     * the package and instantiates the entity of the previous file, so that
+     * every file depends on the file before it.
+     * @param index the index of the file in the project
+     * @param size the number of signals and concurrent statements in the architecture
+     * @return the VHDL source
+     */
+    public static String createProjectFile(int index, int size) {
+        StringBuilder sb = new StringBuilder();
+        String pkg = "pkg" + index;
+        String unit = "unit" + index;
+
+        sb.append("library ieee;\n");
+        sb.append("use ieee.std_logic_1164.all;\n\n");
+        sb.append("package ").append(pkg).append(" is\n");
+        sb.append("    constant ENABLED : std_logic := '1';\n");
+        sb.append("    function invert(x : std_logic) return std_logic;\n");
+        sb.append("end ").append(pkg).append(";\n\n");
+        sb.append("package body ").append(pkg).append(" is\n");
+        sb.append("    function invert(x : std_logic) return std_logic is\n");
+        sb.append("    begin\n");
+        sb.append("        return not x;\n");
+        sb.append("    end invert;\n");
+        sb.append("end ").append(pkg).append(";\n\n");
+
+        sb.append("library ieee;\n");
+        sb.append("use ieee.std_logic_1164.all;\n");
+        sb.append("use work.").append(pkg).append(".all;\n");
+        if (index > 0) {
+            sb.append("use work.pkg").append(index - 1).append(";\n");
+        }
+        sb.append('\n');
+        sb.append("entity ").append(unit).append(" is\n");
+        sb.append("    port (\n");
+        sb.append("        din : in std_logic;\n");
+        sb.append("        dout : out std_logic\n");
+        sb.append("    );\n");
+        sb.append("end ").append(unit).append(";\n\n");
+
+        sb.append("architecture rtl of ").append(unit).append(" is\n");
+        for (int i = 0; i < size; i++) {
+            sb.append("    signal s").append(i).append(" : std_logic;\n");
+        }
+        sb.append("begin\n");
+        if (index > 0) {
+            sb.append("    previous : entity work.unit").append(index - 1)
+                    .append(" port map (din => din, dout => s0);\n");
+        } else {
+            sb.append("    s0 <= din;\n");
+        }
+        for (int i = 1; i < size; i++) {
+            if (i % 2 == 0 && index > 0) {
+                sb.append("    s").append(i).append(" <= s").append(i - 1)
+                        .append(" and pkg").append(index - 1).append(".ENABLED;\n");
+            } else {
+                sb.append("    s").append(i).append(" <= invert(s").append(i - 1).append(");\n");
+            }
+        }
+        sb.append("    dout <= s").append(size - 1).append(";\n");
+        sb.append("end rtl;\n");
+
+        return sb.toString();
+    }
+
+    /**
+     * Writes a generated file.
+     * @param file the output file
+     * @param size the number of signals and concurrent statements in the architecture
+     * @throws IOException if the file could not be written
+     */
+    public static void writeFile(File file, int size) throws IOException {
+        write(file, createFile(size));
+    }
+
+    /**
+     * Writes the files of a generated project.
+     * @param directory the output directory
+     * @param files the number of files
+     * @param size the number of signals and concurrent statements in each architecture
+     * @return the names of the written files in dependency order
+     * @throws IOException if a file could not be written
+     * @see #createProjectFile(int, int)
+     */
+    public static List<String> writeProject(File directory, int files, int size) throws IOException {
+        List<String> fileNames = new ArrayList<String>();
+        for (int i = 0; i < files; i++) {
+            File file = new File(directory, "unit" + i + ".vhd");
+            write(file, createProjectFile(i, size));
+            fileNames.add(file.getPath());
+        }
+        return fileNames;
+    }
+
+    private static void write(File file, String source) throws IOException {
+        OutputStream out = new FileOutputStream(file);
+        try {
+            Writer writer = new OutputStreamWriter(out, "ISO-8859-1");
+            writer.write(source);
+            writer.flush();
+        } finally {
+            out.close();
+        }
+    }
+}
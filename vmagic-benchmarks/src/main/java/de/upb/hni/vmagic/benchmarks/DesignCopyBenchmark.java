@@ -0,0 +1,111 @@
+/*
+ * Copyright 2009, 2010 University of Paderborn
+ *
+ * This file is part of vMAGIC.
+ *
+ * vMAGIC is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * vMAGIC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with vMAGIC. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Authors: Ralf Fuest <rfuest@users.sourceforge.net>
+ *          Christopher Pohl <cpohl@users.sourceforge.net>
+ */
+
+package de.upb.hni.vmagic.benchmarks;
+
+import de.upb.hni.vmagic.VhdlFile;
+import de.upb.hni.vmagic.concurrent.ConcurrentStatement;
+import de.upb.hni.vmagic.concurrent.ProcessStatement;
+import de.upb.hni.vmagic.libraryunit.Architecture;
+import de.upb.hni.vmagic.libraryunit.LibraryUnit;
+import de.upb.hni.vmagic.output.VhdlOutput;
+import de.upb.hni.vmagic.parser.VhdlParser;
+import de.upb.hni.vmagic.parser.VhdlParserException;
+import de.upb.hni.vmagic.parser.VhdlParserSettings;
+import de.upb.hni.vmagic.statement.NullStatement;
+import de.upb.hni.vmagic.util.DesignVariant;
+import de.upb.hni.vmagic.util.ElementCopier;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Design copy benchmarks.
+ * Compares deep copies of a file and of an architecture with printing and
+ * reparsing the file and with a copy-on-write variant which modifies a single
+ * process.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class DesignCopyBenchmark {
+
+    @Param({"10", "100"})
+    public int size;
+    private VhdlParserSettings settings;
+    private VhdlFile file;
+    private Architecture architecture;
+    private ProcessStatement process;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, VhdlParserException {
+        settings = new VhdlParserSettings();
+        file = VhdlParser.parseString(Corpus.createDesign(size), settings);
+        List<LibraryUnit> elements = file.getElements();
+        architecture = (Architecture) elements.get(elements.size() - 1);
+        for (ConcurrentStatement statement : architecture.getStatements()) {
+            if (statement instanceof ProcessStatement) {
+                process = (ProcessStatement) statement;
+            }
+        }
+    }
+
+    @Benchmark
+    public VhdlFile copyFile() {
+        return ElementCopier.deepCopy(file);
+    }
+
+    @Benchmark
+    public Architecture copyArchitecture() {
+        return ElementCopier.deepCopy(architecture);
+    }
+
+    @Benchmark
+    public VhdlFile printAndReparse() throws IOException, VhdlParserException {
+        return VhdlParser.parseString(VhdlOutput.toVhdlString(file), settings);
+    }
+
+    @Benchmark
+    public VhdlFile editVariant() {
+        DesignVariant<VhdlFile> variant = new DesignVariant<VhdlFile>(file);
+        VhdlFile variantFile = variant.editRoot();
+        Architecture variantArchitecture = variant.edit(variantFile, architecture);
+        ProcessStatement variantProcess = variant.edit(variantArchitecture, process);
+        variantProcess.getStatements().add(new NullStatement());
+        return variantFile;
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2009, 2010 University of Paderborn
+ *
+ * This file is part of vMAGIC.
+ *
+ * vMAGIC is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * vMAGIC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with vMAGIC. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Authors: Ralf Fuest <rfuest@users.sourceforge.net>
+ *          Christopher Pohl <cpohl@users.sourceforge.net>
+ */
+
+package de.upb.hni.vmagic.benchmarks;
+
+import de.upb.hni.vmagic.parser.antlr.TreeAdaptorWithoutErrorNodes;
+import de.upb.hni.vmagic.parser.antlr.VhdlAntlrLexer;
+import de.upb.hni.vmagic.parser.antlr.VhdlAntlrParser;
+import de.upb.hni.vmagic.parser.util.CaseInsensitiveStringStream;
+import java.util.concurrent.TimeUnit;
+import org.antlr.runtime.CommonTokenStream;
+import org.antlr.runtime.RecognitionException;
+import org.antlr.runtime.tree.CommonTree;
+import org.antlr.runtime.tree.CommonTreeAdaptor;
+import org.antlr.runtime.tree.TreeAdaptor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Grammar benchmarks.
+ * Measures the syntax tree construction for the simple corpus of
+ * <code>Corpus.createFile</code> and for the design corpus of
+ * <code>Corpus.createDesign</code>, which depends on the syntactic predicates
+ * and the memoization of the parser. Run with <code>-prof gc</code> to
+ * compare the allocation rate of different grammar versions.
+ * <code>GrammarCheck</code> checks that a grammar version creates the same
+ * syntax trees as the grammar which memoized all rules.
+ * <p>
+ * The <code>adaptor</code> parameter compares the default ANTLR tree adaptor
+ * with the adaptor which is used by the parser. <code>TreeAdaptorCheck</code>
+ * checks that both adaptors create the same syntax tree.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class GrammarBenchmark {
+
+    @Param({"file", "design"})
+    public String corpus;
+    @Param({"100", "1000"})
+    public int size;
+    @Param({"common", "compact"})
+    public String adaptor;
+    private String source;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        if (corpus.equals("design")) {
+            source = Corpus.createDesign(size);
+        } else {
+            source = Corpus.createFile(size);
+        }
+    }
+
+    private CommonTree parse(TreeAdaptor treeAdaptor) throws RecognitionException {
+        VhdlAntlrLexer lexer = new VhdlAntlrLexer(new CaseInsensitiveStringStream(source));
+        lexer.setSkipWhitespace(true);
+        lexer.setSkipComments(true);
+        VhdlAntlrParser parser = new VhdlAntlrParser(new CommonTokenStream(lexer));
+        parser.setTreeAdaptor(treeAdaptor);
+        return (CommonTree) parser.design_file().getTree();
+    }
+
+    @Benchmark
+    public CommonTree parse() throws RecognitionException {
+        if (adaptor.equals("common")) {
+            return parse(new CommonTreeAdaptor());
+        } else {
+            return parse(new TreeAdaptorWithoutErrorNodes());
+        }
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2009, 2010 University of Paderborn
+ *
+ * This file is part of vMAGIC.
+ *
+ * vMAGIC is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * vMAGIC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with vMAGIC. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Authors: Ralf Fuest <rfuest@users.sourceforge.net>
+ *          Christopher Pohl <cpohl@users.sourceforge.net>
+ */
+
+
+package de.upb.hni.vmagic.benchmarks;
+
+import de.upb.hni.vmagic.parser.antlr.VhdlAntlrLexer;
+import de.upb.hni.vmagic.parser.antlr.VhdlAntlrParser;
+import de.upb.hni.vmagic.parser.util.CaseInsensitiveStringStream;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.antlr.runtime.CommonTokenStream;
+import org.antlr.runtime.RecognitionException;
+import org.antlr.runtime.tree.Tree;
+
+/**
+ * Equivalence check for the VhdlAntlr grammar.
+ * Parses the benchmark corpora and a file with statements which are
+ * distinguished by syntactic predicates and compares the SHA-1 digest of
+ * <code>toStringTree</code> of every syntax tree with a saved baseline. The
+ * baseline was created with the grammar which memoized all rules and used
+ * syntactic predicates for all labelled concurrent statements and name parts,
+ * so that changes to memoization, backtracking and predicates can be checked
+ * against it. The check is run with
+ * <code>java -cp benchmarks.jar de.upb.hni.vmagic.benchmarks.GrammarCheck</code>
+ * and exits with status 1 if a syntax tree differs. With the argument
+ * <code>-print</code> the digests of the current grammar are printed instead.
+ */
+public class GrammarCheck {
+
+    private static final int[] SIZES = {1, 10, 100, 1000};
+    private static final String[][] BASELINE = {
+        {"file 1", "38f417725454577f525915cbae23b629f2df34a5"},
+        {"design 1", "9d68767d4c8e3c9308b9fe9d5ad843fb8325cd9b"},
+        {"file 10", "55d0b394ab9858deee23799acf0ccf2b6a67e12e"},
+        {"design 10", "6214c8f7c2b9ac6631b71112652acd4cc018eba1"},
+        {"file 100", "15be54a9d85bb8998da999d6aa5624de0de09c2d"},
+        {"design 100", "bf4779f06df891af2c275926db49b99396b6d90c"},
+        {"file 1000", "719929338587efac5ab2379c75ef35adcf259b5c"},
+        {"design 1000", "daa8ab13c567c24ba835d30b7369fc24aff9ef77"},
+        {"nested blocks", "814595d48b24165240f1b3cdc65e0438d7d52f4f"},
+        {"predicates", "9b05ee8538ae7efef7011177860235c1574fc928"}
+    };
+    private static final String PREDICATES =
+            "entity e is generic (n : integer := 4); port (a : in bit_vector(0 to 7); b : out bit); end;\n"
+            + "architecture r of e is\n"
+            + "  signal s, t : bit_vector(7 downto 0);\n"
+            + "  type arr is array (natural range <>) of bit;\n"
+            + "  subtype sub is arr(0 to 3);\n"
+            + "  component c port (x : in bit); end component;\n"
+            + "begin\n"
+            + "  lbl1: foo;\n"
+            + "  lbl2: foo(a, b);\n"
+            + "  lbl3: c port map (x => a(0));\n"
+            + "  lbl4: component c port map (a(1));\n"
+            + "  lbl5: entity work.e generic map (n => 2) port map (a, b);\n"
+            + "  lbl6: work.pkg.proc(s(3 downto 0));\n"
+            + "  lbl7: s(1) <= a(2) after 1 ns;\n"
+            + "  lbl8: (s(0), s(1)) <= t(1 downto 0);\n"
+            + "  lbl9: postponed assert a(0) = '1' report \"x\";\n"
+            + "  lbl10: process (a) begin s <= t; end process;\n"
+            + "  lbl11: with a(0) select b <= '1' when '0', '0' when others;\n"
+            + "  foo(a);\n"
+            + "  work.pkg.proc(s);\n"
+            + "  s(t'range) <= t;\n"
+            + "  b <= a(a'low) when s'event and s'last_value(0) = '1' else '0';\n"
+            + "  g: for i in s'range generate x: c port map (s(i)); end generate;\n"
+            + "  g2: for i in 0 to n - 1 generate end generate;\n"
+            + "  g3: for i in sub'range generate end generate;\n"
+            + "  blk: block begin s(integer'(3)) <= bit'('1'); end block;\n"
+            + "  p: process\n"
+            + "    variable v : arr(1 to 4);\n"
+            + "  begin\n"
+            + "    v(1 to 2) := v(3 to 4);\n"
+            + "    v := (others => '0');\n"
+            + "    (v(1), v(2)) := v(3 to 4);\n"
+            + "    proc(v(1), x => v(2));\n"
+            + "    s <= t(7 downto 4) & t(3 downto 0);\n"
+            + "    wait until rising_edge(a(0));\n"
+            + "  end process;\n"
+            + "end;\n";
+
+    /**
+     * Prevent instantiation.
+     */
+    private GrammarCheck() {
+    }
+
+    /**
+     * Runs the check.
+     * @param args <code>-print</code> to print the digests of the current grammar
+     * @throws RecognitionException if a syntax error occurs
+     */
+    public static void main(String[] args) throws RecognitionException {
+        Map<String, String> sources = new LinkedHashMap<String, String>();
+        for (int size : SIZES) {
+            sources.put("file " + size, Corpus.createFile(size));
+            sources.put("design " + size, Corpus.createDesign(size));
+        }
+        sources.put("nested blocks", Corpus.createNestedBlocks(20, 10));
+        sources.put("predicates", PREDICATES);
+
+        if (args.length == 1 && args[0].equals("-print")) {
+            for (Map.Entry<String, String> entry : sources.entrySet()) {
+                System.out.println(entry.getKey() + ' ' + digest(parse(entry.getValue())));
+            }
+            return;
+        }
+
+        int failures = 0;
+        for (String[] expected : BASELINE) {
+            String actual = digest(parse(sources.get(expected[0])));
+            if (!expected[1].equals(actual)) {
+                System.out.println(expected[0] + ": syntax tree differs from the baseline");
+                failures++;
+            }
+        }
+
+        if (failures != 0) {
+            System.out.println(failures + " syntax trees differ");
+            System.exit(1);
+        }
+        System.out.println("all syntax trees are equal");
+    }
+
+    private static String parse(String source) throws RecognitionException {
+        VhdlAntlrLexer lexer = new VhdlAntlrLexer(new CaseInsensitiveStringStream(source));
+        lexer.setSkipWhitespace(true);
+        lexer.setSkipComments(true);
+        VhdlAntlrParser parser = new VhdlAntlrParser(new CommonTokenStream(lexer));
+        Tree tree = (Tree) parser.design_file().getTree();
+        if (lexer.getNumberOfSyntaxErrors() != 0 || parser.getNumberOfSyntaxErrors() != 0) {
+            throw new IllegalStateException("syntax error in the corpus");
+        }
+        return tree.toStringTree();
+    }
+
+    private static String digest(String tree) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            StringBuilder sb = new StringBuilder();
+            for (byte b : digest.digest(tree.getBytes("UTF-8"))) {
+                sb.append(Character.forDigit((b >> 4) & 0xF, 16));
+                sb.append(Character.forDigit(b & 0xF, 16));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        } catch (UnsupportedEncodingException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2009, 2010 University of Paderborn
+ *
+ * This file is part of vMAGIC.
+ *
+ * vMAGIC is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * vMAGIC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with vMAGIC. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Authors: Ralf Fuest <rfuest@users.sourceforge.net>
+ *          Christopher Pohl <cpohl@users.sourceforge.net>
+ */
+
+package de.upb.hni.vmagic.benchmarks;
+
+import de.upb.hni.vmagic.VhdlFile;
+import de.upb.hni.vmagic.output.CustomCodeFormat;
+import de.upb.hni.vmagic.output.VhdlOutput;
+import de.upb.hni.vmagic.parser.VhdlParser;
+import de.upb.hni.vmagic.parser.VhdlParserException;
+import de.upb.hni.vmagic.parser.VhdlParserSettings;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * VHDL output benchmarks.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class OutputBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int size;
+    @Param({"false", "true"})
+    public boolean align;
+    @Param({"false", "true"})
+    public boolean comments;
+    private VhdlFile file;
+    private CustomCodeFormat format;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, VhdlParserException {
+        VhdlParserSettings settings = new VhdlParserSettings();
+        settings.setParseComments(comments);
+        file = VhdlParser.parseString(Corpus.createFile(size), settings);
+
+        format = new CustomCodeFormat();
+        format.setAlign(align);
+    }
+
+    @Benchmark
+    public String toVhdlString() {
+        return VhdlOutput.toVhdlString(file, format);
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2009, 2010 University of Paderborn
+ *
+ * This file is part of vMAGIC.
+ *
+ * vMAGIC is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * vMAGIC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with vMAGIC. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Authors: Ralf Fuest <rfuest@users.sourceforge.net>
+ *          Christopher Pohl <cpohl@users.sourceforge.net>
+ */
+
+package de.upb.hni.vmagic.benchmarks;
+
+import de.upb.hni.vmagic.LibraryDeclarativeRegion;
+import de.upb.hni.vmagic.RootDeclarativeRegion;
+import de.upb.hni.vmagic.VhdlFile;
+import de.upb.hni.vmagic.parser.VhdlParser;
+import de.upb.hni.vmagic.parser.VhdlParserException;
+import de.upb.hni.vmagic.parser.VhdlParserSettings;
+import de.upb.hni.vmagic.parser.antlr.MetaClassCreator;
+import de.upb.hni.vmagic.parser.antlr.TreeAdaptorWithoutErrorNodes;
+import de.upb.hni.vmagic.parser.antlr.VhdlAntlrLexer;
+import de.upb.hni.vmagic.parser.antlr.VhdlAntlrParser;
+import de.upb.hni.vmagic.parser.antlr.VhdlFastLexer;
+import de.upb.hni.vmagic.parser.util.CaseInsensitiveStringStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.antlr.runtime.CommonTokenStream;
+import org.antlr.runtime.RecognitionException;
+import org.antlr.runtime.tree.CommonTree;
+import org.antlr.runtime.tree.CommonTreeNodeStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parser benchmarks.
+ * The lexer, the parser and the meta class creator are measured separately.
+ * The lexer generated by ANTLR is compared with the hand written lexer.
+ * The input of every phase is created once by the setup method.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ParseBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int size;
+    private String source;
+    private VhdlParserSettings settings;
+    private VhdlParserSettings fastLexerSettings;
+    private CommonTokenStream tokens;
+    private CommonTree tree;
+
+    @Setup(Level.Trial)
+    public void setUp() throws RecognitionException {
+        source = Corpus.createFile(size);
+        settings = new VhdlParserSettings();
+        fastLexerSettings = new VhdlParserSettings();
+        fastLexerSettings.setFastLexer(true);
+
+        tokens = lex();
+        tree = parse();
+    }
+
+    @Benchmark
+    public CommonTokenStream lex() {
+        CommonTokenStream ts = new CommonTokenStream(new VhdlAntlrLexer(new CaseInsensitiveStringStream(source)));
+        ts.fill();
+        return ts;
+    }
+
+    @Benchmark
+    public CommonTokenStream lexWithFastLexer() {
+        CommonTokenStream ts = new CommonTokenStream(new VhdlFastLexer(new CaseInsensitiveStringStream(source)));
+        ts.fill();
+        return ts;
+    }
+
+    @Benchmark
+    public CommonTree parse() throws RecognitionException {
+        tokens.seek(0);
+        VhdlAntlrParser parser = new VhdlAntlrParser(tokens);
+        parser.setTreeAdaptor(new TreeAdaptorWithoutErrorNodes());
+        return (CommonTree) parser.design_file().getTree();
+    }
+
+    @Benchmark
+    public VhdlFile createMetaClasses() throws RecognitionException {
+        RootDeclarativeRegion rootScope = new RootDeclarativeRegion();
+        LibraryDeclarativeRegion libraryScope = new LibraryDeclarativeRegion("work");
+        rootScope.getLibraries().add(libraryScope);
+
+        CommonTreeNodeStream nodes = new CommonTreeNodeStream(tree);
+        nodes.setTokenStream(tokens);
+        return new MetaClassCreator(nodes, settings, rootScope, libraryScope).design_file();
+    }
+
+    @Benchmark
+    public VhdlFile parseString() throws IOException, VhdlParserException {
+        return VhdlParser.parseString(source, settings);
+    }
+
+    @Benchmark
+    public VhdlFile parseStringWithFastLexer() throws IOException, VhdlParserException {
+        return VhdlParser.parseString(source, fastLexerSettings);
+    }
+}
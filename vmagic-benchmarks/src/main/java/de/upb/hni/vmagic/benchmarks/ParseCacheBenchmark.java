@@ -0,0 +1,113 @@
+/*
+ * Copyright 2009, 2010 University of Paderborn
+ *
+ * This file is part of vMAGIC.
+ *
+ * vMAGIC is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * vMAGIC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with vMAGIC. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Authors: Ralf Fuest <rfuest@users.sourceforge.net>
+ *          Christopher Pohl <cpohl@users.sourceforge.net>
+ */
+
+package de.upb.hni.vmagic.benchmarks;
+
+import de.upb.hni.vmagic.VhdlFile;
+import de.upb.hni.vmagic.parser.VhdlParser;
+import de.upb.hni.vmagic.parser.VhdlParserException;
+import de.upb.hni.vmagic.parser.VhdlParserSettings;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares parsing a file with loading it from the parse cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ParseCacheBenchmark {
+
+    @Param({"1000", "10000"})
+    public int size;
+    @Param({"false", "true"})
+    public boolean comments;
+    private File directory;
+    private String fileName;
+    private VhdlParserSettings parseSettings;
+    private VhdlParserSettings cacheSettings;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, VhdlParserException {
+        directory = File.createTempFile("vmagic", "benchmark");
+        if (!directory.delete() || !directory.mkdir()) {
+            throw new IOException("could not create " + directory);
+        }
+        File file = new File(directory, "corpus.vhd");
+        Corpus.writeFile(file, size);
+        fileName = file.getPath();
+
+        parseSettings = new VhdlParserSettings();
+        parseSettings.setParseComments(comments);
+        parseSettings.setAddPositionInformation(comments);
+
+        cacheSettings = new VhdlParserSettings();
+        cacheSettings.setParseComments(comments);
+        cacheSettings.setAddPositionInformation(comments);
+        cacheSettings.setCacheDirectory(new File(directory, "cache"));
+
+        //creates the cache entry
+        VhdlParser.parseFile(fileName, cacheSettings);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        delete(directory);
+    }
+
+    @Benchmark
+    public VhdlFile parse() throws IOException, VhdlParserException {
+        return VhdlParser.parseFile(fileName, parseSettings);
+    }
+
+    @Benchmark
+    public VhdlFile loadCached() throws IOException, VhdlParserException {
+        return VhdlParser.parseFile(fileName, cacheSettings);
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
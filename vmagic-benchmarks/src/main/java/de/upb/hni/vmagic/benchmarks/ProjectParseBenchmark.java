@@ -0,0 +1,110 @@
+/*
+ * Copyright 2009, 2010 University of Paderborn
+ *
+ * This file is part of vMAGIC.
+ *
+ * vMAGIC is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * vMAGIC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with vMAGIC. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Authors: Ralf Fuest <rfuest@users.sourceforge.net>
+ *          Christopher Pohl <cpohl@users.sourceforge.net>
+ */
+package de.upb.hni.vmagic.benchmarks;
+
+import de.upb.hni.vmagic.RootDeclarativeRegion;
+import de.upb.hni.vmagic.VhdlFile;
+import de.upb.hni.vmagic.parser.VhdlParserException;
+import de.upb.hni.vmagic.parser.VhdlParserSettings;
+import de.upb.hni.vmagic.parser.VhdlProjectParser;
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures how the project parser scales with the number of threads which
+ * create the syntax trees. The generated project is a chain of files in
+ * which every file depends on the previous one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ProjectParseBenchmark {
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+    @Param({"64"})
+    public int files;
+    @Param({"500"})
+    public int size;
+    private File directory;
+    private Map<String, List<String>> project;
+    private VhdlParserSettings settings;
+    private ForkJoinPool pool;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = File.createTempFile("vmagic", "benchmark");
+        if (!directory.delete() || !directory.mkdir()) {
+            throw new IOException("could not create " + directory);
+        }
+        //the files are passed in reverse order to exercise the dependency sort
+        List<String> fileNames = Corpus.writeProject(directory, files, size);
+        Collections.reverse(fileNames);
+        project = Collections.singletonMap("work", fileNames);
+
+        settings = new VhdlParserSettings();
+        settings.setPrintErrors(false);
+        pool = new ForkJoinPool(threads);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+        delete(directory);
+    }
+
+    @Benchmark
+    public Map<String, VhdlFile> parseProject() throws IOException, VhdlParserException {
+        return VhdlProjectParser.parseFiles(project, settings, new RootDeclarativeRegion(), pool);
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2009, 2010 University of Paderborn
+ *
+ * This file is part of vMAGIC.
+ *
+ * vMAGIC is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * vMAGIC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with vMAGIC. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Authors: Ralf Fuest <rfuest@users.sourceforge.net>
+ *          Christopher Pohl <cpohl@users.sourceforge.net>
+ */
+
+package de.upb.hni.vmagic.benchmarks;
+
+import de.upb.hni.vmagic.VhdlFile;
+import de.upb.hni.vmagic.concurrent.BlockStatement;
+import de.upb.hni.vmagic.concurrent.ConcurrentStatement;
+import de.upb.hni.vmagic.libraryunit.Architecture;
+import de.upb.hni.vmagic.libraryunit.LibraryUnit;
+import de.upb.hni.vmagic.parser.VhdlParser;
+import de.upb.hni.vmagic.parser.VhdlParserException;
+import de.upb.hni.vmagic.parser.VhdlParserSettings;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Identifier resolution benchmarks.
+ * All identifiers are resolved in the scope of the innermost block of a
+ * nested block structure.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ResolveBenchmark {
+
+    @Param({"4", "16", "64"})
+    public int depth;
+    @Param({"8", "128"})
+    public int width;
+    private de.upb.hni.vmagic.Scope scope;
+    private String localIdentifier;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, VhdlParserException {
+        VhdlFile file = VhdlParser.parseString(Corpus.createNestedBlocks(depth, width), new VhdlParserSettings());
+        List<LibraryUnit> elements = file.getElements();
+        Architecture architecture = (Architecture) elements.get(elements.size() - 1);
+
+        List<ConcurrentStatement> statements = architecture.getStatements();
+        BlockStatement block = null;
+        while (!statements.isEmpty() && statements.get(0) instanceof BlockStatement) {
+            block = (BlockStatement) statements.get(0);
+            statements = block.getStatements();
+        }
+
+        scope = block.getScope();
+        localIdentifier = "s" + depth + "_" + (width - 1);
+    }
+
+    @Benchmark
+    public Object resolveLocal() {
+        return scope.resolve(localIdentifier);
+    }
+
+    @Benchmark
+    public Object resolveArchitectureSignal() {
+        return scope.resolve("s0_0");
+    }
+
+    @Benchmark
+    public Object resolvePort() {
+        return scope.resolve("din");
+    }
+
+    @Benchmark
+    public Object resolveBuiltin() {
+        return scope.resolve("bit");
+    }
+
+    @Benchmark
+    public Object resolveUndeclared() {
+        return scope.resolve("undeclared");
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2009, 2010 University of Paderborn
+ *
+ * This file is part of vMAGIC.
+ *
+ * vMAGIC is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * vMAGIC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with vMAGIC. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Authors: Ralf Fuest <rfuest@users.sourceforge.net>
+ *          Christopher Pohl <cpohl@users.sourceforge.net>
+ */
+
+package de.upb.hni.vmagic.benchmarks;
+
+import de.upb.hni.vmagic.declaration.BlockDeclarativeItem;
+import de.upb.hni.vmagic.declaration.SignalDeclaration;
+import de.upb.hni.vmagic.libraryunit.Architecture;
+import de.upb.hni.vmagic.libraryunit.Entity;
+import de.upb.hni.vmagic.object.Signal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Identifier resolution benchmarks with interleaved modifications.
+ * Identifiers are resolved in an architecture with a large number of signal
+ * declarations while the same or another architecture is modified.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ResolveMutationBenchmark {
+
+    @Param({"10000", "50000"})
+    public int declarations;
+    private Architecture architecture;
+    private Signal otherSignal;
+    private Signal localSignal;
+    private String[] identifiers;
+    private int next;
+    private int appended;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        architecture = createArchitecture(declarations);
+        otherSignal = firstSignal(createArchitecture(declarations));
+        localSignal = firstSignal(architecture);
+
+        identifiers = new String[1024];
+        for (int i = 0; i < identifiers.length; i++) {
+            identifiers[i] = "S" + ((i * 7919) % declarations);
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void removeAppendedDeclarations() {
+        List<BlockDeclarativeItem> list = architecture.getDeclarations();
+        for (; appended > 0; appended--) {
+            list.remove(list.size() - 1);
+        }
+    }
+
+    private static Architecture createArchitecture(int declarations) {
+        Architecture architecture = new Architecture("rtl", new Entity("e"));
+        for (int i = 0; i < declarations; i++) {
+            architecture.getDeclarations().add(new SignalDeclaration(new Signal("s" + i, null)));
+        }
+        return architecture;
+    }
+
+    private static Signal firstSignal(Architecture architecture) {
+        return ((SignalDeclaration) architecture.getDeclarations().get(0)).getObjects().get(0);
+    }
+
+    private String nextIdentifier() {
+        next = (next + 1) & (identifiers.length - 1);
+        return identifiers[next];
+    }
+
+    @Benchmark
+    public Object resolve() {
+        return architecture.getScope().resolveLocal(nextIdentifier());
+    }
+
+    @Benchmark
+    public Object renameInOtherDesignAndResolve() {
+        otherSignal.setIdentifier(next % 2 == 0 ? "a" : "b");
+        return architecture.getScope().resolveLocal(nextIdentifier());
+    }
+
+    @Benchmark
+    public Object appendAndResolve() {
+        architecture.getDeclarations().add(new SignalDeclaration(new Signal("appended", null)));
+        appended++;
+        return architecture.getScope().resolveLocal(nextIdentifier());
+    }
+
+    @Benchmark
+    public Object renameLocalAndResolve() {
+        localSignal.setIdentifier(next % 2 == 0 ? "a" : "b");
+        return architecture.getScope().resolveLocal(nextIdentifier());
+    }
+}
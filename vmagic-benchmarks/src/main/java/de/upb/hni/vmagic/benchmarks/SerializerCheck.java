@@ -0,0 +1,200 @@
+/*
+ * Copyright 2009, 2010 University of Paderborn
+ *
+ * This file is part of vMAGIC.
+ *
+ * vMAGIC is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * vMAGIC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with vMAGIC. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Authors: Ralf Fuest <rfuest@users.sourceforge.net>
+ *          Christopher Pohl <cpohl@users.sourceforge.net>
+ */
+
+
+package de.upb.hni.vmagic.benchmarks;
+
+import de.upb.hni.vmagic.Annotations;
+import de.upb.hni.vmagic.LibraryDeclarativeRegion;
+import de.upb.hni.vmagic.RootDeclarativeRegion;
+import de.upb.hni.vmagic.VhdlElement;
+import de.upb.hni.vmagic.VhdlFile;
+import de.upb.hni.vmagic.output.VhdlOutput;
+import de.upb.hni.vmagic.parser.ParseError;
+import de.upb.hni.vmagic.parser.VhdlParser;
+import de.upb.hni.vmagic.parser.VhdlParserException;
+import de.upb.hni.vmagic.parser.VhdlParserSettings;
+import de.upb.hni.vmagic.parser.annotation.PositionInformation;
+import de.upb.hni.vmagic.parser.annotation.SourcePositions;
+import de.upb.hni.vmagic.util.ElementWalker;
+import de.upb.hni.vmagic.util.VhdlSerializer;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+
+/**
+ * Round trip check for <code>VhdlSerializer</code>.
+ * Parses the benchmark corpora, a file with resolve errors and all files given
+ * on the command line without annotations, with position information, comments
+ * and parse errors, and with packed source positions. Every file is written
+ * and read again and the VHDL output, the parse errors and the positions of
+ * all elements must be equal. The check is run with
+ * <code>java -cp benchmarks.jar de.upb.hni.vmagic.benchmarks.SerializerCheck [files]</code>
+ * and exits with status 1 if a file differs.
+ */
+public class SerializerCheck {
+
+    private static final int[] SIZES = {1, 10, 100, 1000};
+    private static final String RESOLVE_ERRORS =
+            "entity e is\n"
+            + "  port (a : in bit; b : out bit);\n"
+            + "end;\n"
+            + "architecture rtl of e is\n"
+            + "  signal s : unknown_type;\n"
+            + "begin\n"
+            + "  b <= a and c;\n"
+            + "  d <= a;\n"
+            + "  u : entity work.unknown_entity port map (a, b);\n"
+            + "end;\n";
+
+    /**
+     * Prevent instantiation.
+     */
+    private SerializerCheck() {
+    }
+
+    /**
+     * Runs the check.
+     * @param args the files which are checked in addition to the benchmark corpora
+     * @throws IOException if a file couldn't be read
+     * @throws VhdlParserException if a syntax error occurs
+     */
+    public static void main(String[] args) throws IOException, VhdlParserException {
+        VhdlParserSettings[] settings = {
+            createSettings(false, false),
+            createSettings(true, false),
+            createSettings(true, true)
+        };
+        String[] settingNames = {"without annotations", "with annotations", "with packed positions"};
+
+        int failures = 0;
+        for (int i = 0; i < settings.length; i++) {
+            for (int size : SIZES) {
+                failures += check("file " + size, Corpus.createFile(size), settings[i],
+                        settingNames[i], false);
+                failures += check("design " + size, Corpus.createDesign(size), settings[i],
+                        settingNames[i], false);
+            }
+            failures += check("nested blocks", Corpus.createNestedBlocks(20, 10), settings[i],
+                    settingNames[i], false);
+            failures += check("resolve errors", RESOLVE_ERRORS, settings[i], settingNames[i],
+                    settings[i].isEmitResolveErrors());
+
+            for (String fileName : args) {
+                String source = new String(Files.readAllBytes(new File(fileName).toPath()), "ISO-8859-1");
+                failures += check(fileName, source, settings[i], settingNames[i], false);
+            }
+        }
+
+        if (failures != 0) {
+            System.out.println(failures + " files differ");
+            System.exit(1);
+        }
+        System.out.println("all files are equal");
+    }
+
+    private static VhdlParserSettings createSettings(boolean annotations, boolean packed) {
+        VhdlParserSettings settings = new VhdlParserSettings();
+        settings.setPrintErrors(false);
+        settings.setEmitResolveErrors(annotations);
+        settings.setAddPositionInformation(annotations);
+        settings.setPackedSourcePositions(packed);
+        settings.setParseComments(annotations);
+        return settings;
+    }
+
+    private static int check(String name, String source, VhdlParserSettings settings,
+            String settingName, boolean expectErrors) throws IOException, VhdlParserException {
+        VhdlFile file = parse(source, settings);
+        String expected = describe(file);
+        if (expectErrors && VhdlParser.getParseErrors(file).isEmpty()) {
+            System.out.println(name + " " + settingName + ": no parse errors");
+            return 1;
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        VhdlSerializer.writeFile(file, out);
+        RootDeclarativeRegion rootScope = new RootDeclarativeRegion();
+        LibraryDeclarativeRegion libraryScope = new LibraryDeclarativeRegion("work");
+        rootScope.getLibraries().add(libraryScope);
+        VhdlFile copy = VhdlSerializer.readFile(new ByteArrayInputStream(out.toByteArray()),
+                rootScope, libraryScope);
+        String actual = describe(copy);
+        if (expected.equals(actual)) {
+            return 0;
+        }
+
+        int index = 0;
+        while (index < expected.length() && index < actual.length()
+                && expected.charAt(index) == actual.charAt(index)) {
+            index++;
+        }
+        System.out.println(name + " " + settingName + ": files differ at offset " + index);
+        return 1;
+    }
+
+    private static VhdlFile parse(String source, VhdlParserSettings settings)
+            throws IOException, VhdlParserException {
+        RootDeclarativeRegion rootScope = new RootDeclarativeRegion();
+        LibraryDeclarativeRegion libraryScope = new LibraryDeclarativeRegion("work");
+        rootScope.getLibraries().add(libraryScope);
+        InputStream in = new ByteArrayInputStream(source.getBytes("ISO-8859-1"));
+        return VhdlParser.parseStream(in, settings, rootScope, libraryScope);
+    }
+
+    private static String describe(VhdlFile file) {
+        final StringBuilder sb = new StringBuilder(VhdlOutput.toVhdlString(file));
+
+        for (ParseError error : VhdlParser.getParseErrors(file)) {
+            sb.append(error.getType()).append(' ').append(error.getMessage());
+            append(sb, error.getPosition());
+            sb.append('\n');
+        }
+
+        final SourcePositions positions = Annotations.getAnnotation(file, SourcePositions.class);
+        new ElementWalker() {
+
+            @Override
+            protected boolean enter(VhdlElement element) {
+                sb.append(element.getClass().getSimpleName());
+                if (positions != null) {
+                    append(sb, positions.getPosition(element));
+                } else {
+                    append(sb, Annotations.getAnnotation(element, PositionInformation.class));
+                }
+                sb.append('\n');
+                return true;
+            }
+        }.walk(file);
+
+        return sb.toString();
+    }
+
+    private static void append(StringBuilder sb, PositionInformation position) {
+        if (position != null) {
+            sb.append(' ').append(position.getBegin()).append('-').append(position.getEnd());
+        }
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2009, 2010 University of Paderborn
+ *
+ * This file is part of vMAGIC.
+ *
+ * vMAGIC is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * vMAGIC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with vMAGIC. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Authors: Ralf Fuest <rfuest@users.sourceforge.net>
+ *          Christopher Pohl <cpohl@users.sourceforge.net>
+ */
+
+package de.upb.hni.vmagic.benchmarks;
+
+import de.upb.hni.vmagic.parser.antlr.TreeAdaptorWithoutErrorNodes;
+import de.upb.hni.vmagic.parser.antlr.VhdlAntlrLexer;
+import de.upb.hni.vmagic.parser.antlr.VhdlAntlrParser;
+import de.upb.hni.vmagic.parser.util.CaseInsensitiveFileStream;
+import de.upb.hni.vmagic.parser.util.CaseInsensitiveStringStream;
+import java.io.IOException;
+import org.antlr.runtime.CharStream;
+import org.antlr.runtime.CommonTokenStream;
+import org.antlr.runtime.RecognitionException;
+import org.antlr.runtime.tree.CommonTreeAdaptor;
+import org.antlr.runtime.tree.Tree;
+import org.antlr.runtime.tree.TreeAdaptor;
+
+/**
+ * Equivalence check for the tree adaptor of the parser.
+ * <code>TreeAdaptorWithoutErrorNodes</code> reuses nil nodes and shares the
+ * tokens of imaginary nodes, which must not change the syntax trees. The check
+ * parses the benchmark corpora and all files given on the command line with the
+ * default ANTLR tree adaptor and with <code>TreeAdaptorWithoutErrorNodes</code>
+ * and compares the syntax trees. The text, token range, line, column, parent
+ * and child index of every node must be equal. The check is run with
+ * <code>java -cp benchmarks.jar de.upb.hni.vmagic.benchmarks.TreeAdaptorCheck [files]</code>
+ * and exits with status 1 if a tree differs. Only the syntax trees are compared,
+ * the meta classes are created from them by <code>MetaClassCreator</code> as
+ * before.
+ */
+public class TreeAdaptorCheck {
+
+    private static final int[] SIZES = {1, 10, 100, 1000};
+
+    /**
+     * Prevent instantiation.
+     */
+    private TreeAdaptorCheck() {
+    }
+
+    /**
+     * Runs the check.
+     * @param args the files which are checked in addition to the benchmark corpora
+     * @throws IOException if a file couldn't be read
+     * @throws RecognitionException if a syntax error occurs
+     */
+    public static void main(String[] args) throws IOException, RecognitionException {
+        int failures = 0;
+
+        for (int size : SIZES) {
+            String file = Corpus.createFile(size);
+            failures += check("file " + size, new CaseInsensitiveStringStream(file),
+                    new CaseInsensitiveStringStream(file));
+            String design = Corpus.createDesign(size);
+            failures += check("design " + size, new CaseInsensitiveStringStream(design),
+                    new CaseInsensitiveStringStream(design));
+        }
+        String nested = Corpus.createNestedBlocks(20, 10);
+        failures += check("nested blocks", new CaseInsensitiveStringStream(nested),
+                new CaseInsensitiveStringStream(nested));
+
+        for (String fileName : args) {
+            failures += check(fileName, new CaseInsensitiveFileStream(fileName),
+                    new CaseInsensitiveFileStream(fileName));
+        }
+
+        if (failures != 0) {
+            System.out.println(failures + " syntax trees differ");
+            System.exit(1);
+        }
+        System.out.println("all syntax trees are equal");
+    }
+
+    private static int check(String name, CharStream expectedInput, CharStream actualInput)
+            throws RecognitionException {
+        String expected = describe(parse(expectedInput, new CommonTreeAdaptor()));
+        String actual = describe(parse(actualInput, new TreeAdaptorWithoutErrorNodes()));
+        if (expected.equals(actual)) {
+            return 0;
+        }
+
+        int index = 0;
+        while (index < expected.length() && index < actual.length()
+                && expected.charAt(index) == actual.charAt(index)) {
+            index++;
+        }
+        System.out.println(name + ": syntax trees differ at offset " + index);
+        return 1;
+    }
+
+    private static Tree parse(CharStream input, TreeAdaptor treeAdaptor) throws RecognitionException {
+        VhdlAntlrLexer lexer = new VhdlAntlrLexer(input);
+        lexer.setSkipWhitespace(true);
+        lexer.setSkipComments(true);
+        VhdlAntlrParser parser = new VhdlAntlrParser(new CommonTokenStream(lexer));
+        parser.setTreeAdaptor(treeAdaptor);
+        return (Tree) parser.design_file().getTree();
+    }
+
+    private static String describe(Tree tree) {
+        StringBuilder sb = new StringBuilder();
+        describe(tree, sb);
+        return sb.toString();
+    }
+
+    private static void describe(Tree tree, StringBuilder sb) {
+        sb.append('(').append(tree.getText());
+        sb.append(' ').append(tree.getType());
+        sb.append(' ').append(tree.getTokenStartIndex());
+        sb.append(' ').append(tree.getTokenStopIndex());
+        sb.append(' ').append(tree.getLine());
+        sb.append(':').append(tree.getCharPositionInLine());
+        sb.append(' ').append(tree.getChildIndex());
+        for (int i = 0; i < tree.getChildCount(); i++) {
+            Tree child = tree.getChild(i);
+            if (child.getParent() != tree) {
+                sb.append(" <wrong parent>");
+            }
+            sb.append(' ');
+            describe(child, sb);
+        }
+        sb.append(')');
+    }
+}
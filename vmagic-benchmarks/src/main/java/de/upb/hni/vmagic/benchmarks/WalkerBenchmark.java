@@ -0,0 +1,186 @@
+/*
+ * Copyright 2009, 2010 University of Paderborn
+ *
+ * This file is part of vMAGIC.
+ *
+ * vMAGIC is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * vMAGIC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with vMAGIC. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Authors: Ralf Fuest <rfuest@users.sourceforge.net>
+ *          Christopher Pohl <cpohl@users.sourceforge.net>
+ */
+
+package de.upb.hni.vmagic.benchmarks;
+
+import de.upb.hni.vmagic.AssociationElement;
+import de.upb.hni.vmagic.Range;
+import de.upb.hni.vmagic.VhdlElement;
+import de.upb.hni.vmagic.VhdlFile;
+import de.upb.hni.vmagic.concurrent.ConcurrentStatement;
+import de.upb.hni.vmagic.concurrent.ProcessStatement;
+import de.upb.hni.vmagic.declaration.DeclarativeItem;
+import de.upb.hni.vmagic.declaration.SignalDeclaration;
+import de.upb.hni.vmagic.expression.BinaryExpression;
+import de.upb.hni.vmagic.expression.Expression;
+import de.upb.hni.vmagic.expression.FunctionCall;
+import de.upb.hni.vmagic.expression.Literal;
+import de.upb.hni.vmagic.expression.Name;
+import de.upb.hni.vmagic.libraryunit.LibraryUnit;
+import de.upb.hni.vmagic.parser.VhdlParser;
+import de.upb.hni.vmagic.parser.VhdlParserException;
+import de.upb.hni.vmagic.parser.VhdlParserSettings;
+import de.upb.hni.vmagic.statement.IfStatement;
+import de.upb.hni.vmagic.statement.SequentialStatement;
+import de.upb.hni.vmagic.statement.SignalAssignment;
+import de.upb.hni.vmagic.util.CompositeElementWalker;
+import de.upb.hni.vmagic.util.ParallelElementWalker;
+import de.upb.hni.vmagic.util.ParallelElementWalker.Reducer;
+import de.upb.hni.vmagic.util.ParallelElementWalker.SubtreeWalker;
+import de.upb.hni.vmagic.util.ParallelElementWalker.WalkerFactory;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Tree walking benchmarks.
+ * Compares running multiple analyses in separate walks with running them in
+ * a single walk using a composite walker and with running each analysis
+ * in a parallel walk.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class WalkerBenchmark {
+
+    private static final Class<?>[] COUNTED_CLASSES = {
+        Expression.class, SequentialStatement.class, ConcurrentStatement.class,
+        DeclarativeItem.class, Name.class, BinaryExpression.class,
+        Literal.class, SignalAssignment.class, IfStatement.class,
+        ProcessStatement.class, SignalDeclaration.class, FunctionCall.class,
+        LibraryUnit.class, AssociationElement.class, Range.class
+    };
+    private static final Reducer<Integer> SUM = new Reducer<Integer>() {
+
+        public Integer reduce(Integer first, Integer second) {
+            return first + second;
+        }
+    };
+
+    @Param({"200"})
+    public int size;
+    @Param({"1", "5", "15"})
+    public int analyses;
+    private VhdlFile file;
+    private CountingWalker[] walkers;
+    private CompositeElementWalker compositeWalker;
+    private List<ParallelElementWalker<Integer>> parallelWalkers;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, VhdlParserException {
+        file = VhdlParser.parseString(Corpus.createDesign(size), new VhdlParserSettings());
+
+        walkers = new CountingWalker[analyses];
+        for (int i = 0; i < analyses; i++) {
+            //every other analysis doesn't look inside of expressions
+            walkers[i] = new CountingWalker(COUNTED_CLASSES[i % COUNTED_CLASSES.length], i % 2 == 1);
+        }
+        compositeWalker = new CompositeElementWalker(walkers);
+
+        parallelWalkers = new ArrayList<ParallelElementWalker<Integer>>();
+        for (CountingWalker walker : walkers) {
+            final Class<?> clazz = walker.clazz;
+            final boolean skipExpressions = walker.skipExpressions;
+            parallelWalkers.add(new ParallelElementWalker<Integer>(new WalkerFactory<Integer>() {
+
+                public SubtreeWalker<Integer> createWalker() {
+                    return new CountingWalker(clazz, skipExpressions);
+                }
+            }, SUM));
+        }
+    }
+
+    @Benchmark
+    public int separateWalks() {
+        int count = 0;
+        for (CountingWalker walker : walkers) {
+            walker.count = 0;
+            walker.walk(file);
+            count += walker.count;
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int compositeWalk() {
+        for (CountingWalker walker : walkers) {
+            walker.count = 0;
+        }
+        compositeWalker.walk(file);
+
+        int count = 0;
+        for (CountingWalker walker : walkers) {
+            count += walker.count;
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int parallelWalks() {
+        int count = 0;
+        for (ParallelElementWalker<Integer> walker : parallelWalkers) {
+            count += walker.walk(file);
+        }
+        return count;
+    }
+
+    private static class CountingWalker extends SubtreeWalker<Integer> {
+
+        private final Class<?> clazz;
+        private final boolean skipExpressions;
+        private int count;
+
+        public CountingWalker(Class<?> clazz, boolean skipExpressions) {
+            this.clazz = clazz;
+            this.skipExpressions = skipExpressions;
+        }
+
+        @Override
+        protected boolean enter(VhdlElement element) {
+            if (clazz.isInstance(element)) {
+                count++;
+            }
+            return !(skipExpressions && element instanceof Expression);
+        }
+
+        @Override
+        public Integer getResult() {
+            return count;
+        }
+    }
+}
@@ -109,10 +109,9 @@ alias_declaration returns [Alias value]
 
 //TODO: handle different literal types?
 alias_designator returns [String value]
-@after { $value = $alias_designator.text; }
-    :   identifier
-    |   CHARACTER_LITERAL
-    |   STRING_LITERAL
+    :   identifier        { $value = $identifier.value; }
+    |   CHARACTER_LITERAL { $value = intern($CHARACTER_LITERAL); }
+    |   STRING_LITERAL    { $value = intern($STRING_LITERAL); }
     ;
 
 allocator returns [Expression value]
@@ -127,26 +126,58 @@ allocator returns [Expression value]
         )
     ;
 
-architecture_body returns [Architecture value]
+//an existing architecture can be passed to the rule to create its content
+architecture_body[Architecture body] returns [Architecture value]
 @init { DeclarativeRegion oldScope = currentScope; }
 @after {
     currentScope = oldScope;
-    addAnnotations($value, $architecture_body.start);
+    //the annotations of an existing architecture were added when it was created
+    if ($body == null) {
+        addAnnotations($value, $architecture_body.start);
+    }
 }
     :   ^( ARCHITECTURE
             identifier entity=name
             {
-                $value = new Architecture($identifier.text, $entity.value.toEntity(currentScope));
-                $value.setParent(oldScope);
+                if ($body == null) {
+                    $value = new Architecture($identifier.value, $entity.value.toEntity(currentScope));
+                    $value.setParent(oldScope);
+                } else {
+                    $value = $body;
+                }
                 currentScope = $value;
             }
             ( d=block_declarative_item { $value.getDeclarations().add($d.value); } )*
             { addListEndComments($d.value, $d.start); }
-            ( s=concurrent_statement { $value.getStatements().add($s.value); } )*
+            ( s=concurrent_statement { addConcurrentStatement($value, $s.value); } )*
             { addListEndComments($s.value, $s.start); }
         )
     ;
 
+//architecture_header and architecture_statement are used to create architectures
+//in streaming mode
+architecture_header[VhdlFile file] returns [Architecture value]
+@init { currentScope = $file; }
+    :   architecture_body[null] { $value = $architecture_body.value; }
+    ;
+
+//deferred_body creates the content of an architecture or package body that was
+//created without its declarations and statements
+deferred_body[LibraryUnit body]
+@init { currentScope = $body.getParent(); }
+    :   architecture_body[(Architecture) $body]
+    |   package_body[(PackageBody) $body]
+    ;
+
+architecture_statement[Architecture architecture]
+@init {
+    DeclarativeRegion oldScope = currentScope;
+    currentScope = $architecture;
+}
+@after { currentScope = oldScope; }
+    :   s=concurrent_statement { addConcurrentStatement($architecture, $s.value); }
+    ;
+
 assertion_statement[String label] returns [AssertionStatement value]
 @after { addAnnotations($value, $start); }
     :   ^( ASSERT
@@ -178,13 +209,13 @@ association_list returns [List<AssociationElement> value = new ArrayList<Associa
 attribute_declaration returns [Attribute value]
 @after { addAnnotations($value, $start); }
     :   ^( ATTRIBUTE_DECLARATION identifier type_mark=name )
-        { $value = new Attribute($identifier.text, $type_mark.value.toTypeMark(currentScope)); }
+        { $value = new Attribute($identifier.value, $type_mark.value.toTypeMark(currentScope)); }
     ;
 
 //TODO: remove dummy attribute
 attribute_designator returns [Attribute value]
 @after { addAnnotations($value, $start); }
-    :   identifier { $value = new Attribute($identifier.text, UnresolvedType.NO_NAME); }
+    :   identifier { $value = new Attribute($identifier.value, UnresolvedType.NO_NAME); }
     ;
 
 attribute_specification returns [AttributeSpecification value]
@@ -310,7 +341,7 @@ component_declaration returns [Component value]
     :   ^( COMPONENT 
             identifier
             {
-                $value = new Component($identifier.text);
+                $value = new Component($identifier.value);
                 $value.setParent(oldScope);
                 currentScope = $value;
             }
@@ -338,7 +369,7 @@ component_instantiation_statement[String label] returns [AbstractComponentInstan
 component_specification returns [ComponentSpecification value]
 @init { List<String> identifiers = new ArrayList<String>(); }
 @after { addAnnotations($value, $start); }
-    :   ^( INSTANTIATION_LIST ( identifier { identifiers.add($identifier.text); } )+ )
+    :   ^( INSTANTIATION_LIST ( identifier { identifiers.add($identifier.value); } )+ )
         comp1=name
         {
             $value = ComponentSpecification.create($comp1.value.toComponent(currentScope),
@@ -410,9 +441,9 @@ concurrent_statement returns [ConcurrentStatement value]
 @after { addAnnotations($value, $start); }
     :   ^( LABEL_STATEMENT identifier
             (
-                    s1=concurrent_statement_optional_label[$identifier.text]
+                    s1=concurrent_statement_optional_label[$identifier.value]
                     { $value = $s1.value; }
-                |   s2=concurrent_statement_with_label[$identifier.text]
+                |   s2=concurrent_statement_with_label[$identifier.value]
                     { $value = $s2.value; }
             )
         )
@@ -468,7 +499,7 @@ configuration_declaration returns [Configuration value]
             { addListEndComments($cdi.value, $cdi.start); }
             bc=block_configuration
             {
-                $value = new Configuration($identifier.text, $entity.value.toEntity(currentScope), $bc.value);
+                $value = new Configuration($identifier.value, $entity.value.toEntity(currentScope), $bc.value);
                 $value.getDeclarations().addAll(declarations);
             }
         )
@@ -529,31 +560,40 @@ design_file returns [VhdlFile value]
 @init {
     $value = new VhdlFile();
     libraryScope.getFiles().add($value);
-    currentScope = $value;
+}
+    :   design_unit[$value]* EOF
+    ;
+
+design_unit[VhdlFile file]
+    :   context_clause[$file]
+        library_unit   { addLibraryUnit($file, $library_unit.value, $library_unit.start); }
+    ;
+
+context_clause[VhdlFile file]
+@init {
+    currentScope = $file;
 }
     :   (
-            ( 
-                context_item
-                {
-                    //TODO: replace hack
-                    if ($context_item.value instanceof LibraryClause) {
-                        LibraryClause lc = (LibraryClause)$context_item.value;
-                        for (String library : lc.getLibraries()) {
-                            if (library.equalsIgnoreCase("ieee")) {
-                                rootScope.getLibraries().add(de.upb.hni.vmagic.builtin.Libraries.IEEE);
-                            }
+            context_item
+            {
+                //TODO: replace hack
+                if ($context_item.value instanceof LibraryClause) {
+                    LibraryClause lc = (LibraryClause)$context_item.value;
+                    for (String library : lc.getLibraries()) {
+                        if (library.equalsIgnoreCase("ieee")
+                                && !rootScope.getLibraries().contains(de.upb.hni.vmagic.builtin.Libraries.IEEE)) {
+                            rootScope.getLibraries().add(de.upb.hni.vmagic.builtin.Libraries.IEEE);
                         }
                     }
-                    $value.getElements().add($context_item.value);
                 }
-            )*
-            library_unit   { $value.getElements().add($library_unit.value); }
-        )* EOF
+                $file.getElements().add($context_item.value);
+            }
+        )*
     ;
 
-designator
-    :   identifier
-    |   STRING_LITERAL
+designator returns [String value]
+    :   identifier     { $value = $identifier.value; }
+    |   STRING_LITERAL { $value = intern($STRING_LITERAL); }
     ;
 
 direction returns [Range.Direction value]
@@ -594,9 +634,9 @@ entity_aspect returns [EntityAspect value]
     :   ^( ENTITY entity=name architecture=identifier? )
         {
             Entity dummyEntity = new Entity($entity.text);
-            if ($architecture.text != null) {
+            if ($architecture.value != null) {
                 //TODO: remove dummy architecture
-                Architecture dummy = new Architecture($architecture.text, dummyEntity);
+                Architecture dummy = new Architecture($architecture.value, dummyEntity);
                 $value = EntityAspect.architecture(dummy);
             } else {
                 $value = EntityAspect.entity(dummyEntity);
@@ -640,7 +680,7 @@ entity_declaration returns [Entity value]
     :   ^( ENTITY
             identifier
             {
-                $value = new Entity($identifier.text);
+                $value = new Entity($identifier.value);
                 $value.setParent(oldScope);
                 currentScope = $value;
             }
@@ -691,11 +731,11 @@ entity_statement returns [EntityStatement value]
 @after { addAnnotations($value, $start); }
     :   ^( ENTITY_STATEMENT identifier? ( POSTPONED { isPostponed = true; } )?
             (
-                    cas=concurrent_assertion_statement[$identifier.text]
+                    cas=concurrent_assertion_statement[$identifier.value]
                     { $value = $cas.value; }
-                |   ps=process_statement[$identifier.text]
+                |   ps=process_statement[$identifier.value]
                     { $value = $ps.value; }
-                |   cpcs=concurrent_procedure_call_statement[$identifier.text]
+                |   cpcs=concurrent_procedure_call_statement[$identifier.value]
                     { $value = $cpcs.value; }
             )
             {
@@ -716,8 +756,8 @@ enumeration_type_definition[String ident] returns [EnumerationType value]
 @init { $value = new EnumerationType($ident); }
     :   ^( ENUMERATION_TYPE_DEFINITION
             (
-                    identifier           { $value.createLiteral($identifier.text); }
-                |   cl=CHARACTER_LITERAL { $value.createLiteral($cl.text); }
+                    identifier           { $value.createLiteral($identifier.value); }
+                |   cl=CHARACTER_LITERAL { $value.createLiteral(intern($cl)); }
             )+
         )
     ;
@@ -793,7 +833,7 @@ generate_statement[String label] returns [AbstractGenerateStatement value]
 
 generation_scheme[String label] returns [AbstractGenerateStatement value]
     :   FOR identifier discrete_range
-        { $value = new ForGenerateStatement($label, $identifier.text, $discrete_range.value); }
+        { $value = new ForGenerateStatement($label, $identifier.value, $discrete_range.value); }
     |   IF expression
         { $value = new IfGenerateStatement($label, $expression.value); }
     ;
@@ -824,7 +864,7 @@ group_declaration returns [Group value]
             identifier group_template=name
             {
                 GroupTemplate dummy = new GroupTemplate($group_template.text);
-                $value = new Group($identifier.text, dummy);
+                $value = new Group($identifier.value, dummy);
             }
             ( gc=group_constituent { $value.getConstituents().add($gc.text); } )+
         )
@@ -833,7 +873,7 @@ group_declaration returns [Group value]
 group_template_declaration returns [GroupTemplate value]
 @after { addAnnotations($value, $start); }
     :   ^( GROUP_TEMPLATE_DECLARATION
-            identifier { $value = new GroupTemplate($identifier.text); }
+            identifier { $value = new GroupTemplate($identifier.value); }
             (
                 ec=entity_class { $value.getEntityClasses().add($ec.value); }
                 ( BOX { $value.setRepeatLast(true); } )?
@@ -841,13 +881,13 @@ group_template_declaration returns [GroupTemplate value]
         )
     ;
 
-identifier
-    :   BASIC_IDENTIFIER
-    |   EXTENDED_IDENTIFIER
+identifier returns [String value]
+    :   BASIC_IDENTIFIER    { $value = intern($BASIC_IDENTIFIER); }
+    |   EXTENDED_IDENTIFIER { $value = intern($EXTENDED_IDENTIFIER); }
     ;
 
 identifier_list returns [List<String> value = new ArrayList<String>()]
-    :   ( identifier { $value.add($identifier.text); } )+
+    :   ( identifier { $value.add($identifier.value); } )+
     ;
 
 if_statement[String label] returns [IfStatement value]
@@ -901,7 +941,7 @@ instantiated_unit[String label] returns [AbstractComponentInstantiation value]
                     architecture=identifier
                     {
                         //TODO: remove dummy architecture
-                        Architecture arch = new Architecture($architecture.text, $entity.value.toEntity(currentScope));
+                        Architecture arch = new Architecture($architecture.value, $entity.value.toEntity(currentScope));
                         $value = new ArchitectureInstantiation($label, arch);
                     }
                 |
@@ -1033,7 +1073,7 @@ iteration_scheme returns [LoopStatement value]
     :   ^( WHILE expression )
         { $value = new WhileStatement($expression.value); }
     |   ^( FOR identifier discrete_range )
-        { $value = new ForStatement($identifier.text, $discrete_range.value); }
+        { $value = new ForStatement($identifier.value, $discrete_range.value); }
     |   UNCONDITIONAL_LOOP
         { $value = new LoopStatement(); }
     ;
@@ -1045,15 +1085,15 @@ library_clause returns [LibraryClause value]
     ;
 
 library_unit returns [LibraryUnit value]
-    :   architecture_body         { $value = $architecture_body.value; }
-    |   package_body              { $value = $package_body.value; }
+    :   architecture_body[null]   { $value = $architecture_body.value; }
+    |   package_body[null]        { $value = $package_body.value; }
     |   entity_declaration        { $value = $entity_declaration.value; }
     |   configuration_declaration { $value = $configuration_declaration.value; }
     |   package_declaration       { $value = $package_declaration.value; }
     ;
 
 logical_name_list returns [List<String> value = new ArrayList<String>()]
-    :   ( identifier { $value.add($identifier.text); } )+
+    :   ( identifier { $value.add($identifier.value); } )+
     ;
 
 logical_operator returns [ExpressionType value]
@@ -1110,7 +1150,7 @@ multiplying_operator returns [ExpressionType value]
 name returns [TemporaryName value]
     :   ^( NAME
             (       identifier
-                    { $value = new TemporaryName(this, $name.start, $identifier.text); }
+                    { $value = new TemporaryName(this, $name.start, $identifier.value); }
                 |   STRING_LITERAL
                     {
                         String literal = $STRING_LITERAL.text;
@@ -1138,7 +1178,7 @@ name returns [TemporaryName value]
 name_attribute_part returns [TemporaryName.Part value]
     :   ^( NAME_ATTRIBUTE_PART signature? identifier expression? )
         {
-            $value = TemporaryName.Part.createAttribute($identifier.text, $expression.value,
+            $value = TemporaryName.Part.createAttribute($identifier.value, $expression.value,
                 $signature.value);
         }
     ;
@@ -1151,10 +1191,9 @@ name_indexed_part returns [TemporaryName.Part value]
         { $value = TemporaryName.Part.createIndexed(indices); }
     ;
 
-//TODO: don't use suffix.text
 name_selected_part returns [TemporaryName.Part value]
     :   ^( NAME_SELECTED_PART suffix )
-        { $value = TemporaryName.Part.createSelected($suffix.text); }
+        { $value = TemporaryName.Part.createSelected($suffix.value); }
     ;
 
 name_slice_part returns [TemporaryName.Part value]
@@ -1181,17 +1220,25 @@ null_statement[String label] returns [NullStatement value = new NullStatement()]
         { $value.setLabel($label); }
     ;
 
-package_body returns [PackageBody value]
+//an existing package body can be passed to the rule to create its content
+package_body[PackageBody body] returns [PackageBody value]
 @init { DeclarativeRegion oldScope = currentScope; }
 @after {
     currentScope = oldScope;
-    addAnnotations($value, $start);
+    //the annotations of an existing package body were added when it was created
+    if ($body == null) {
+        addAnnotations($value, $start);
+    }
 }
     :   ^( PACKAGE_BODY
             psn=package_simple_name
             {
-                $value = new PackageBody($psn.value);
-                $value.setParent(oldScope);
+                if ($body == null) {
+                    $value = new PackageBody($psn.value);
+                    $value.setParent(oldScope);
+                } else {
+                    $value = $body;
+                }
                 currentScope = $value;
             }
             ( pbdi=package_body_declarative_item { $value.getDeclarations().add($pbdi.value); } )*
@@ -1222,7 +1269,7 @@ package_declaration returns [PackageDeclaration value]
     :   ^( PACKAGE
             identifier
             {
-                $value = new PackageDeclaration($identifier.text);
+                $value = new PackageDeclaration($identifier.value);
                 $value.setParent(oldScope);
                 currentScope = $value;
             }
@@ -1254,14 +1301,14 @@ physical_type_definition[String ident] returns [PhysicalType value]
 @after { addAnnotations($value, $start); }
     :   ^( PHYSICAL_TYPE_DEFINITION
             range_constraint baseUnit=identifier
-            { $value = new PhysicalType($ident, $range_constraint.value, $baseUnit.text); }
+            { $value = new PhysicalType($ident, $range_constraint.value, $baseUnit.value); }
             (
                 unit=identifier
                 (
                         al=abstract_literal n1=name
-                        { $value.createUnit($unit.text, $al.value, $n1.text); }
+                        { $value.createUnit($unit.value, $al.value, $n1.text); }
                     |   n2=name
-                        { $value.createUnit($unit.text, $n2.text); }
+                        { $value.createUnit($unit.value, $n2.text); }
                 )
             )*
         )
@@ -1479,7 +1526,7 @@ sensitivity_list returns [List<Signal> value = new ArrayList<Signal>()]
     ;
 
 sequential_statement returns [SequentialStatement value]
-    :   ^( LABEL_STATEMENT identifier sequential_statement2[$identifier.text] )
+    :   ^( LABEL_STATEMENT identifier sequential_statement2[$identifier.value] )
         { $value = $sequential_statement2.value; }
     |   sequential_statement2[null]
         { $value = $sequential_statement2.value; }
@@ -1639,14 +1686,14 @@ subprogram_declarative_item returns [SubprogramDeclarativeItem value]
 subprogram_specification returns [SubprogramDeclaration value]
 @init { boolean impure = false; }
     :   ^( PROCEDURE
-            designator { $value = new ProcedureDeclaration($designator.text); }
+            designator { $value = new ProcedureDeclaration($designator.value); }
             ( id=interface_declaration { $value.getParameters().add($id.value); } )*
         )
     |   ^( FUNCTION
             PURE? ( IMPURE { impure = true; } )? designator type_mark=name
             {
                 SubtypeIndication type = $type_mark.value.toTypeMark(currentScope);
-                FunctionDeclaration fd = new FunctionDeclaration($designator.text, type);
+                FunctionDeclaration fd = new FunctionDeclaration($designator.value, type);
                 fd.setImpure(impure);
                 $value = fd;
             }
@@ -1657,7 +1704,7 @@ subprogram_specification returns [SubprogramDeclaration value]
 subtype_declaration returns [Subtype value]
 @after { addAnnotations($value, $start); }
     :   ^( SUBTYPE identifier subtype_indication )
-        { $value = new Subtype($identifier.text, $subtype_indication.value); }
+        { $value = new Subtype($identifier.value, $subtype_indication.value); }
     ;
 
 //TODO: fix name/constraint ambiguity
@@ -1678,11 +1725,11 @@ subtype_indication returns [SubtypeIndication value]
         )
     ;
 
-suffix
-    :   identifier
-    |   CHARACTER_LITERAL
-    |   STRING_LITERAL
-    |   ALL
+suffix returns [String value]
+    :   identifier        { $value = $identifier.value; }
+    |   CHARACTER_LITERAL { $value = intern($CHARACTER_LITERAL); }
+    |   STRING_LITERAL    { $value = intern($STRING_LITERAL); }
+    |   ALL               { $value = intern($ALL); }
     ;
 
 target_signal returns [SignalAssignmentTarget value]
@@ -1703,10 +1750,10 @@ term returns [Expression value]
     ;
 
 type_declaration returns [Type value]
-    :   ^( FULL_TYPE_DECLARATION identifier type_definition[$identifier.text] )
+    :   ^( FULL_TYPE_DECLARATION identifier type_definition[$identifier.value] )
         { $value = $type_definition.value; }
     |   ^( INCOMPLETE_TYPE_DECLARATION identifier )
-        { $value = new IncompleteType($identifier.text); }
+        { $value = new IncompleteType($identifier.value); }
     ;
 
 type_definition[String identifier] returns [Type value]
@@ -1796,11 +1843,11 @@ waveform_element returns [WaveformElement value]
 loop_label returns [LoopStatement value]
     :   identifier
         {
-            $value = resolve($identifier.text, LoopStatement.class);
+            $value = resolve($identifier.value, LoopStatement.class);
             if ($value == null) {
-                resolveError($identifier.start, ParseError.Type.UNKNOWN_LOOP, $identifier.text);
+                resolveError($identifier.start, ParseError.Type.UNKNOWN_LOOP, $identifier.value);
                 $value = new LoopStatement();
-                $value.setLabel($identifier.text);
+                $value.setLabel($identifier.value);
             }
         }
     ;
@@ -1808,10 +1855,10 @@ loop_label returns [LoopStatement value]
 package_simple_name returns [PackageDeclaration value]
     :   identifier
         {
-            $value = resolve($identifier.text, PackageDeclaration.class);
+            $value = resolve($identifier.value, PackageDeclaration.class);
             if ($value == null) {
-                resolveError($identifier.start, ParseError.Type.UNKNOWN_PACKAGE, $identifier.text);
-                $value = new PackageDeclaration($identifier.text);
+                resolveError($identifier.start, ParseError.Type.UNKNOWN_PACKAGE, $identifier.value);
+                $value = new PackageDeclaration($identifier.value);
             }
         }
     ;
@@ -31,8 +31,9 @@
 
 grammar VhdlAntlr;
 
+//only the rules which are frequently reparsed while backtracking are memoized
 options {
-    memoize = true;
+    memoize = false;
     output = AST;
     ASTLabelType = CommonTree;
 }
@@ -249,8 +250,106 @@ tokens {
 // java members
 //-------------------------------------------------------------------
 
+@parser::members {
+    private boolean skipBodies = false;
+    private boolean collectMetrics = false;
+    private int speculativeRuleCount = 0;
+    private int memoizationHitCount = 0;
+
+    /**
+     * Sets if the declarations and statements of architectures and package
+     * bodies are skipped. The syntax trees of skipped bodies only contain the
+     * identifiers, the token range of the whole unit is still available from
+     * the tree.
+     * @param skipBodies <code>true</code>, if the bodies should be skipped
+     */
+    public void setSkipBodies(boolean skipBodies) {
+        this.skipBodies = skipBodies;
+    }
+
+    /**
+     * Sets if the parser counts the rules which are invoked while
+     * backtracking and the memoization hits.
+     * @param collectMetrics <code>true</code>, if the metrics should be collected
+     */
+    public void setCollectMetrics(boolean collectMetrics) {
+        this.collectMetrics = collectMetrics;
+        speculativeRuleCount = 0;
+        memoizationHitCount = 0;
+    }
+
+    /**
+     * Returns the number of rule invocations while backtracking.
+     * @return the number of speculative rule invocations
+     */
+    public int getSpeculativeRuleCount() {
+        return speculativeRuleCount;
+    }
+
+    /**
+     * Returns the number of speculative rule invocations which were skipped
+     * because the result was memoized.
+     * @return the number of memoization hits
+     */
+    public int getMemoizationHitCount() {
+        return memoizationHitCount;
+    }
+
+    @Override
+    public boolean alreadyParsedRule(IntStream input, int ruleIndex) {
+        boolean parsed = super.alreadyParsedRule(input, ruleIndex);
+        if (collectMetrics) {
+            speculativeRuleCount++;
+            if (parsed) {
+                memoizationHitCount++;
+            }
+        }
+        return parsed;
+    }
+
+    /**
+     * Prepares the parser for a new token stream. Unlike
+     * <code>setTokenStream</code> this method keeps the memoization tables
+     * of the previous input and only clears them, so that they can be
+     * reused when the parser is used for many inputs.
+     * @param input the new token stream
+     */
+    public void reuse(TokenStream input) {
+        Map<Integer, Integer>[] ruleMemo = state.ruleMemo.clone();
+        setTokenStream(input);
+        for (int i = 0; i < ruleMemo.length; i++) {
+            if (ruleMemo[i] != null) {
+                ruleMemo[i].clear();
+                state.ruleMemo[i] = ruleMemo[i];
+            }
+        }
+    }
+}
+
 @lexer::members {
     public static final int CHANNEL_COMMENT = 80;
+
+    private boolean skipWhitespace = false;
+    private boolean skipComments = false;
+
+    /**
+     * Sets if whitespace tokens are discarded instead of being emitted on
+     * the hidden channel. Discarded tokens are never created and are
+     * therefore not kept by the token stream.
+     * @param skipWhitespace <code>true</code>, if whitespace should be discarded
+     */
+    public void setSkipWhitespace(boolean skipWhitespace) {
+        this.skipWhitespace = skipWhitespace;
+    }
+
+    /**
+     * Sets if comment tokens are discarded instead of being emitted on
+     * the comment channel.
+     * @param skipComments <code>true</code>, if comments should be discarded
+     */
+    public void setSkipComments(boolean skipComments) {
+        this.skipComments = skipComments;
+    }
 }
 
 //-------------------------------------------------------------------
@@ -316,19 +415,37 @@ allocator
     ;
 
 //TODO: check repeated label
+//the declarations and statements are skipped if skipBodies is set
 architecture_body
     :   ARCHITECTURE identifier OF entity=name IS
-        adp=architecture_declarative_part?
-        BEGIN
-        asp=architecture_statement_part?
-        END ARCHITECTURE? identifier? SEMI
-        -> ^( ARCHITECTURE identifier $entity $adp? $asp? )
+        (   options { k = 1; }
+        :   {skipBodies}?=> . { BodySkipper.skip(input, true); }
+            -> ^( ARCHITECTURE identifier $entity )
+        |   adp=architecture_declarative_part?
+            BEGIN
+            asp=architecture_statement_part?
+            END ARCHITECTURE? identifier? SEMI
+            -> ^( ARCHITECTURE identifier $entity $adp? $asp? )
+        )
     ;
 
 architecture_declarative_part
 	:   block_declarative_item+
 	;
 
+//architecture_header and architecture_end are used instead of architecture_body
+//to parse the statements of an architecture separately in streaming mode
+architecture_header
+    :   ARCHITECTURE identifier OF entity=name IS
+        adp=architecture_declarative_part?
+        BEGIN
+        -> ^( ARCHITECTURE identifier $entity $adp? )
+    ;
+
+architecture_end
+    :   END ARCHITECTURE? identifier? SEMI
+    ;
+
 architecture_statement_part
 	:   concurrent_statement+
 	;
@@ -476,6 +593,7 @@ choice
     ;
 
 choices
+    options { memoize = true; }
     :   choice ( ( BAR | EXCLAMATION ) choice )*
         -> ^( CHOICES choice+ )
     ;
@@ -525,11 +643,13 @@ concurrent_procedure_call_statement
     ;
 
 //a procedure call statement might be a component instantiation
+//backtracking is only used if the statement starts with a name, which means
+//that processes and other keyword statements aren't parsed twice
 concurrent_statement
     :   (
             identifier COLON
-            (
-                    (concurrent_statement_optional_label)=> concurrent_statement_optional_label
+            ( options { backtrack = true; } :
+                    concurrent_statement_optional_label
                     -> ^( LABEL_STATEMENT identifier concurrent_statement_optional_label )
                 |   concurrent_statement_with_label
                     -> ^( LABEL_STATEMENT identifier concurrent_statement_with_label )
@@ -553,7 +673,7 @@ concurrent_statement_optional_label
 concurrent_statement_optional_label_2
     :   process_statement
     |   (target LE)=> conditional_signal_assignment
-    |   (concurrent_procedure_call_statement)=> concurrent_procedure_call_statement
+    |   concurrent_procedure_call_statement
     |   concurrent_assertion_statement
     |   selected_signal_assignment
     ;
@@ -812,6 +932,7 @@ exit_statement
     ;
 
 expression
+    options { memoize = true; }
     :   expression2
         -> ^( EXPRESSION expression2 )
     ;
@@ -1113,8 +1234,11 @@ multiplying_operator
     |   REM
     ;
 
+//the parts are predicted without backtracking if they start with a dot or
+//an apostrophe
 name
-    :   name_prefix ( (name_part)=> name_part )*
+    options { memoize = true; }
+    :   name_prefix ( options { backtrack = true; } : name_part )*
         -> ^( NAME name_prefix name_part* )
     ;
 
@@ -1129,6 +1253,7 @@ name_without_parens
     ;
 
 name_part
+    options { memoize = true; }
     :   name_selected_part
     |   (LPAREN name constraint? RPAREN)=>
         LPAREN name
@@ -1209,11 +1334,16 @@ signal_assignment_options
     ;
 
 //TODO: check repeated label
+//the declarations are skipped if skipBodies is set
 package_body
     :   PACKAGE BODY identifier IS
-        package_body_declarative_part?
-        END ( PACKAGE BODY )? identifier? SEMI
-        -> ^( PACKAGE_BODY identifier? package_body_declarative_part? )
+        (   options { k = 1; }
+        :   {skipBodies}?=> . { BodySkipper.skip(input, false); }
+            -> ^( PACKAGE_BODY identifier )
+        |   package_body_declarative_part?
+            END ( PACKAGE BODY )? identifier? SEMI
+            -> ^( PACKAGE_BODY identifier? package_body_declarative_part? )
+        )
     ;
 
 package_body_declarative_item
@@ -1571,6 +1701,7 @@ signature_type_marks
     ;
 
 simple_expression
+    options { memoize = true; }
     :   simple_expression2
         -> ^( EXPRESSION simple_expression2 )
     ;
@@ -1673,6 +1804,7 @@ suffix
     ;
 
 target
+    options { memoize = true; }
     :   name
     |   aggregate
     ;
@@ -1742,11 +1874,11 @@ waveform_element
 //-------------------------------------------------------------------
 
 WHITESPACE
-    :   ( '\t' | ' ' | '\n' | '\r' )+ { $channel = HIDDEN; }
+    :   ( '\t' | ' ' | '\n' | '\r' )+ { if (skipWhitespace) skip(); else $channel = HIDDEN; }
     ;
 
 COMMENT
-    :   '--' ( ~( '\n' | '\r' ) )* { $channel = CHANNEL_COMMENT; }
+    :   '--' ( ~( '\n' | '\r' ) )* { if (skipComments) skip(); else $channel = CHANNEL_COMMENT; }
     ;
 
 BASIC_IDENTIFIER
@@ -1762,13 +1894,13 @@ EXTENDED_IDENTIFIER
 DECIMAL_LITERAL
     :   INTEGER
         (
-                ( '.' INTEGER )? EXPONENT?
-            |   ('#' BASED_INTEGER ( '.' BASED_INTEGER )? '#' EXPONENT?)=>
+                ('#' BASED_INTEGER ( '.' BASED_INTEGER )? '#' EXPONENT?)=>
                 '#' BASED_INTEGER ( '.' BASED_INTEGER )? '#' EXPONENT?
                 { $type = BASED_LITERAL; }
             |   (':' BASED_INTEGER ( '.' BASED_INTEGER )? ':' EXPONENT?)=>
                 ':' BASED_INTEGER ( '.' BASED_INTEGER )? ':' EXPONENT?
                 { $type = BASED_LITERAL; }
+            |   ( '.' INTEGER )? EXPONENT?
         )
     ;
 
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2009, 2010 University of Paderborn
+ *
+ * This file is part of vMAGIC parser.
+ *
+ * vMAGIC is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * vMAGIC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with vMAGIC. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Authors: Ralf Fuest <rfuest@users.sourceforge.net>
+ *          Christopher Pohl <cpohl@users.sourceforge.net>
+ */
+package de.upb.hni.vmagic.parser;
+
+import de.upb.hni.vmagic.concurrent.ConcurrentStatement;
+import de.upb.hni.vmagic.libraryunit.Architecture;
+import de.upb.hni.vmagic.libraryunit.LibraryUnit;
+
+/**
+ * Listener for design units which are parsed in streaming mode.
+ * In streaming mode every library unit is passed to the listener as soon as
+ * it is created. Architectures and package bodies aren't added to the parsed
+ * file afterwards, so that they can be garbage collected when the listener
+ * doesn't keep a reference. Context items, entities, package declarations and
+ * configurations are still added to the file because they can be referenced
+ * by the following design units.
+ */
+public abstract class DesignUnitListener {
+
+    /**
+     * Called for every parsed library unit.
+     * The parent of the library unit is set to the parsed file, even if the
+     * library unit isn't added to the file.
+     * @param libraryUnit the library unit
+     */
+    public abstract void libraryUnitParsed(LibraryUnit libraryUnit);
+
+    /**
+     * Returns if the concurrent statements in architectures are passed to
+     * this listener instead of being added to the architecture. The default
+     * implementation returns <code>false</code>.
+     * @return <code>true</code>, if concurrent statements should be passed to this listener
+     */
+    public boolean isStreamConcurrentStatements() {
+        return false;
+    }
+
+    /**
+     * Called for every concurrent statement in the statement part of an
+     * architecture if <code>isStreamConcurrentStatements</code> returns
+     * <code>true</code>. The architecture is passed to the listener after
+     * all statements and doesn't contain the statements. The parent of the
+     * statement is set to the architecture. The default implementation does
+     * nothing.
+     * @param architecture the architecture which contains the statement
+     * @param statement the concurrent statement
+     */
+    public void concurrentStatementParsed(Architecture architecture, ConcurrentStatement statement) {
+    }
+}
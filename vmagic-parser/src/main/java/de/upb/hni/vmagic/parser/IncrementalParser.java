@@ -0,0 +1,623 @@
+/*
+ * Copyright 2009, 2010 University of Paderborn
+ *
+ * This file is part of vMAGIC parser.
+ *
+ * vMAGIC is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * vMAGIC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with vMAGIC. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Authors: Ralf Fuest <rfuest@users.sourceforge.net>
+ *          Christopher Pohl <cpohl@users.sourceforge.net>
+ */
+package de.upb.hni.vmagic.parser;
+
+import de.upb.hni.vmagic.Annotations;
+import de.upb.hni.vmagic.LibraryDeclarativeRegion;
+import de.upb.hni.vmagic.RootDeclarativeRegion;
+import de.upb.hni.vmagic.VhdlElement;
+import de.upb.hni.vmagic.VhdlFile;
+import de.upb.hni.vmagic.libraryunit.LibraryUnit;
+import de.upb.hni.vmagic.output.VhdlOutput;
+import de.upb.hni.vmagic.parser.annotation.ParseErrors;
+import de.upb.hni.vmagic.parser.annotation.PositionInformation;
+import de.upb.hni.vmagic.parser.annotation.SourcePosition;
+import de.upb.hni.vmagic.parser.annotation.SourcePositions;
+import de.upb.hni.vmagic.parser.antlr.CommentIndex;
+import de.upb.hni.vmagic.parser.antlr.MetaClassCreator;
+import de.upb.hni.vmagic.parser.antlr.TreeAdaptorWithoutErrorNodes;
+import de.upb.hni.vmagic.parser.antlr.VhdlAntlrParser;
+import de.upb.hni.vmagic.parser.util.CaseInsensitiveStringStream;
+import de.upb.hni.vmagic.util.Identifiers;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.antlr.runtime.CharStream;
+import org.antlr.runtime.CommonToken;
+import org.antlr.runtime.CommonTokenStream;
+import org.antlr.runtime.Lexer;
+import org.antlr.runtime.RecognitionException;
+import org.antlr.runtime.Token;
+import org.antlr.runtime.tree.CommonTreeNodeStream;
+import org.antlr.runtime.tree.Tree;
+
+/**
+ * Incremental parser.
+ * The incremental parser keeps the source and the design units of every file
+ * it has parsed. If a file is parsed again only the design units whose text
+ * was changed are parsed and their meta classes are replaced in the existing
+ * <code>VhdlFile</code>. The positions of the following design units are
+ * updated if position information is enabled.
+ * <p>
+ * Design units in other files of this parser which depend on a changed
+ * entity, package or configuration are parsed again if the VHDL output of
+ * the changed unit differs from the previous version. Otherwise they keep
+ * referencing the declarations of the previous version.
+ * <p>
+ * An incremental parser is not thread safe.
+ */
+public class IncrementalParser {
+
+    private final VhdlParserSettings settings;
+    private final RootDeclarativeRegion rootScope;
+    private final LibraryDeclarativeRegion libraryScope;
+    private final Map<String, Document> documents = new LinkedHashMap<String, Document>();
+
+    /**
+     * Creates an incremental parser.
+     * @param settings the parser settings
+     * @param rootScope the root declarative region
+     * @param libraryScope the library the parsed files are added to
+     */
+    public IncrementalParser(VhdlParserSettings settings, RootDeclarativeRegion rootScope,
+            LibraryDeclarativeRegion libraryScope) {
+        this.settings = settings;
+        this.rootScope = rootScope;
+        this.libraryScope = libraryScope;
+    }
+
+    /**
+     * Parses a file. If the file was parsed before only the changed design
+     * units are parsed again.
+     * @param fileName the file name
+     * @return the parsed file, which is the same instance for every call with
+     *         the same file name
+     * @throws IOException if the file could not be read
+     * @throws VhdlParserException if the file could not be parsed
+     */
+    public VhdlFile parseFile(String fileName) throws IOException, VhdlParserException {
+        return parse(fileName, readFile(fileName));
+    }
+
+    /**
+     * Parses the source of a file. If a source with the same file name was
+     * parsed before only the changed design units are parsed again.
+     * @param fileName the file name
+     * @param source the content of the file
+     * @return the parsed file, which is the same instance for every call with
+     *         the same file name
+     * @throws VhdlParserException if the source could not be parsed
+     */
+    public VhdlFile parse(String fileName, String source) throws VhdlParserException {
+        Document document = documents.get(fileName);
+        if (document == null) {
+            document = new Document();
+            libraryScope.getFiles().add(document.file);
+            if (settings.isAddPositionInformation() && settings.isPackedSourcePositions()) {
+                document.positions = new SourcePositions();
+                Annotations.putAnnotation(document.file, SourcePositions.class, document.positions);
+            }
+            documents.put(fileName, document);
+        }
+
+        Set<String> changedUnits = new HashSet<String>();
+        Set<Unit> parsedUnits = new HashSet<Unit>();
+        update(document, source, changedUnits, parsedUnits);
+        updateDependants(changedUnits, parsedUnits);
+
+        return document.file;
+    }
+
+    /**
+     * Returns a file which was parsed by this parser.
+     * @param fileName the file name
+     * @return the file or <code>null</code>, if no file with this name was parsed
+     */
+    public VhdlFile getFile(String fileName) {
+        Document document = documents.get(fileName);
+        return document == null ? null : document.file;
+    }
+
+    /**
+     * Removes a file from this parser and from the library.
+     * Design units in other files that depend on units in the removed file
+     * are parsed again.
+     * @param fileName the file name
+     * @throws VhdlParserException if a dependant design unit could not be parsed
+     */
+    public void remove(String fileName) throws VhdlParserException {
+        Document document = documents.remove(fileName);
+        if (document == null) {
+            return;
+        }
+
+        libraryScope.getFiles().remove(document.file);
+
+        Set<String> changedUnits = new HashSet<String>();
+        for (Unit unit : document.units) {
+            changedUnits.addAll(unit.providedUnits);
+        }
+        updateDependants(changedUnits, new HashSet<Unit>());
+    }
+
+    private String readFile(String fileName) throws IOException {
+        File file = new File(fileName);
+        byte[] content = new byte[(int) file.length()];
+        InputStream in = new FileInputStream(file);
+        try {
+            int offset = 0;
+            while (offset < content.length) {
+                int count = in.read(content, offset, content.length - offset);
+                if (count == -1) {
+                    break;
+                }
+                offset += count;
+            }
+        } finally {
+            in.close();
+        }
+
+        if (settings.isMemoryMapFiles()) {
+            return new String(content, "ISO-8859-1");
+        } else {
+            return new String(content);
+        }
+    }
+
+    /**
+     * Parses the design units of a document that were changed by the new source.
+     */
+    private void update(Document document, String source, Set<String> changedUnits,
+            Set<Unit> parsedUnits) throws VhdlParserException {
+        String oldSource = document.source;
+        int oldLength = oldSource.length();
+        int newLength = source.length();
+        int maxLength = Math.min(oldLength, newLength);
+
+        int prefix = 0;
+        while (prefix < maxLength && oldSource.charAt(prefix) == source.charAt(prefix)) {
+            prefix++;
+        }
+        if (prefix == oldLength && prefix == newLength) {
+            return;
+        }
+
+        int suffix = 0;
+        while (suffix < maxLength - prefix
+                && oldSource.charAt(oldLength - 1 - suffix) == source.charAt(newLength - 1 - suffix)) {
+            suffix++;
+        }
+
+        Edit edit = new Edit(prefix, oldLength - suffix, newLength - oldLength,
+                countLines(source, prefix, newLength - suffix)
+                - countLines(oldSource, prefix, oldLength - suffix), true);
+
+        //a unit is affected if the change touches the unit or the space around it,
+        //which contains the comments that belong to the unit
+        List<Unit> units = document.units;
+        int first = 0;
+        while (first < units.size() - 1 && units.get(first + 1).begin < edit.begin) {
+            first++;
+        }
+        int last = units.size() - 1;
+        while (last > first && units.get(last - 1).end > edit.oldEnd) {
+            last--;
+        }
+
+        document.source = source;
+        splice(document, first, last, edit, changedUnits, parsedUnits);
+        if (document.positions != null) {
+            document.positions.setSource(new CaseInsensitiveStringStream(source));
+        }
+    }
+
+    /**
+     * Parses the design units again that depend on changed design units.
+     */
+    private void updateDependants(Set<String> changedUnits, Set<Unit> parsedUnits)
+            throws VhdlParserException {
+        LinkedList<String> work = new LinkedList<String>(changedUnits);
+        Set<String> done = new HashSet<String>();
+
+        while (!work.isEmpty()) {
+            String changedUnit = work.removeFirst();
+            if (!done.add(changedUnit)) {
+                continue;
+            }
+
+            for (Document document : documents.values()) {
+                List<Unit> dependants = new ArrayList<Unit>();
+                for (Unit unit : document.units) {
+                    if (!parsedUnits.contains(unit) && unit.requiredUnits.contains(changedUnit)) {
+                        dependants.add(unit);
+                    }
+                }
+
+                for (Unit dependant : dependants) {
+                    int index = document.units.indexOf(dependant);
+                    if (index == -1) {
+                        continue;
+                    }
+
+                    //the reparsed unit contains new objects, so the units
+                    //that depend on it must be parsed again as well
+                    Set<String> replacedUnits = new HashSet<String>();
+                    Edit edit = new Edit(dependant.begin, dependant.end, 0, 0, false);
+                    splice(document, index, index, edit, replacedUnits, parsedUnits);
+                    work.addAll(replacedUnits);
+                    for (Unit unit : document.units) {
+                        if (parsedUnits.contains(unit)) {
+                            work.addAll(unit.providedUnits);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Replaces the design units <code>first</code> to <code>last</code> by
+     * parsing the source of the document from the end of the unit before
+     * <code>first</code>. Parsing continues after <code>last</code> until the
+     * end of a parsed unit matches the end of an old unit.
+     */
+    private void splice(Document document, int first, int last, Edit edit,
+            Set<String> changedUnits, Set<Unit> parsedUnits) throws VhdlParserException {
+        VhdlFile file = document.file;
+        List<Unit> units = document.units;
+        List<LibraryUnit> elements = file.getElements();
+
+        int start = first > 0 ? units.get(first - 1).end : 0;
+        int elementIndex = 0;
+        for (int i = 0; i < first; i++) {
+            elementIndex += units.get(i).elements.size();
+        }
+
+        List<Unit> removedUnits = new ArrayList<Unit>();
+        int next = first;
+        while (next <= last) {
+            removeUnit(elements, elementIndex, units.get(next++), removedUnits);
+        }
+
+        CharStream stream = new CaseInsensitiveStringStream(document.source);
+        stream.seek(start);
+        Lexer lexer = VhdlParser.createLexer(settings, stream);
+        //the comments are copied, otherwise every version of the source
+        //would be kept alive by the comments of its design units
+        CommentIndex comments = settings.isParseComments() ? new CommentIndex(lexer, true) : null;
+        CommonTokenStream tokens = new CommonTokenStream(comments != null ? comments : lexer);
+        VhdlAntlrParser parser = new VhdlAntlrParser(tokens);
+        parser.setTreeAdaptor(new TreeAdaptorWithoutErrorNodes());
+        MetaClassCreator mcc = null;
+        SourcePositions newPositions = document.positions == null ? null : new SourcePositions();
+
+        List<Unit> newUnits = new ArrayList<Unit>();
+        List<ParseError> newErrors = new ArrayList<ParseError>();
+        boolean aligned = false;
+        try {
+            while (tokens.LA(1) != Token.EOF) {
+                VhdlAntlrParser.design_unit_return result = parser.design_unit();
+                Tree tree = (Tree) result.getTree();
+
+                //stop if the parser couldn't recover from a syntax error
+                if (tree == null || result.stop == null) {
+                    break;
+                }
+
+                Unit unit = new Unit(((CommonToken) result.start).getStartIndex(),
+                        ((CommonToken) result.stop).getStopIndex() + 1);
+                UnitDependencies dependencies = new UnitDependencies(
+                        libraryScope.getIdentifier(), getLibraryNames());
+                dependencies.addTree(tree);
+                unit.providedUnits.addAll(dependencies.getProvidedUnits());
+                unit.requiredUnits.addAll(dependencies.getRequiredUnits());
+
+                if (settings.isLazyBodies()) {
+                    VhdlParser.removeBodies(tree);
+                }
+
+                CommonTreeNodeStream nodes = new CommonTreeNodeStream(tree);
+                nodes.setTokenStream(tokens);
+                if (mcc == null) {
+                    mcc = new MetaClassCreator(nodes, settings, rootScope, libraryScope);
+                    mcc.setSourcePositions(newPositions);
+                    mcc.setCommentIndex(comments);
+                } else {
+                    mcc.setTreeNodeStream(nodes);
+                }
+                mcc.setPositionElements(settings.isAddPositionInformation() && newPositions == null
+                        ? unit.positionElements : null);
+
+                int errorCount = mcc.getErrors().size();
+                int size = elements.size();
+                mcc.design_unit(file);
+
+                //the meta class creator appends the elements to the file
+                unit.elements.addAll(elements.subList(size, elements.size()));
+                for (int i = elements.size() - 1; i >= size; i--) {
+                    elements.remove(i);
+                }
+                elements.addAll(elementIndex, unit.elements);
+                elementIndex += unit.elements.size();
+
+                unit.errors.addAll(mcc.getErrors().subList(errorCount, mcc.getErrors().size()));
+                newErrors.addAll(unit.errors);
+                if (!unit.providedUnits.isEmpty() && !unit.elements.isEmpty()) {
+                    unit.declarations = VhdlOutput.toVhdlString(unit.elements.get(unit.elements.size() - 1));
+                }
+
+                newUnits.add(unit);
+                parsedUnits.add(unit);
+
+                //remove the old units that overlap the new unit
+                while (next < units.size() && edit.map(units.get(next).begin) < unit.end) {
+                    removeUnit(elements, elementIndex, units.get(next++), removedUnits);
+                }
+
+                if (next > last && next > 0 && edit.map(units.get(next - 1).end) == unit.end) {
+                    if (next == units.size() || !edit.textChanged
+                            || containsLineBreak(document.source, unit.end, edit.map(units.get(next).begin))) {
+                        aligned = true;
+                        break;
+                    }
+                }
+            }
+        } catch (RecognitionException ex) {
+            throw new VhdlParserException(ex.getMessage());
+        }
+
+        if (!aligned) {
+            while (next < units.size()) {
+                removeUnit(elements, elementIndex, units.get(next++), removedUnits);
+            }
+        }
+
+        if (document.positions != null) {
+            updatePositions(document.positions, removedUnits, next < units.size() ? units.get(next) : null,
+                    edit, newPositions);
+        }
+
+        List<Unit> result = new ArrayList<Unit>(units.size() - removedUnits.size() + newUnits.size());
+        result.addAll(units.subList(0, first));
+        result.addAll(newUnits);
+        for (Unit unit : units.subList(next, units.size())) {
+            shift(unit, edit);
+            result.add(unit);
+        }
+        document.units = result;
+
+        addChangedUnits(removedUnits, newUnits, changedUnits);
+        updateErrors(document, newErrors);
+    }
+
+    /**
+     * Replaces the positions of the removed units by the positions of the
+     * new units and moves the positions of the following units.
+     */
+    private static void updatePositions(SourcePositions positions, List<Unit> removedUnits,
+            Unit nextUnit, Edit edit, SourcePositions newPositions) {
+        if (!removedUnits.isEmpty()) {
+            positions.removeRange(removedUnits.get(0).begin,
+                    removedUnits.get(removedUnits.size() - 1).end);
+        }
+        if (nextUnit != null) {
+            positions.shift(nextUnit.begin, edit.delta);
+        }
+        positions.addAll(newPositions);
+    }
+
+    private void removeUnit(List<LibraryUnit> elements, int index, Unit unit, List<Unit> removedUnits) {
+        for (int i = 0; i < unit.elements.size(); i++) {
+            elements.remove(index);
+        }
+        removedUnits.add(unit);
+    }
+
+    private Set<String> getLibraryNames() {
+        Set<String> names = new HashSet<String>();
+        for (LibraryDeclarativeRegion library : rootScope.getLibraries()) {
+            names.add(Identifiers.getKey(library.getIdentifier()));
+        }
+        return names;
+    }
+
+    /**
+     * Adds the provided units whose declarations differ between the removed
+     * and the new units.
+     */
+    private static void addChangedUnits(List<Unit> removedUnits, List<Unit> newUnits,
+            Set<String> changedUnits) {
+        Map<String, String> oldDeclarations = new HashMap<String, String>();
+        for (Unit unit : removedUnits) {
+            for (String key : unit.providedUnits) {
+                oldDeclarations.put(key, unit.declarations);
+            }
+        }
+
+        Map<String, String> newDeclarations = new HashMap<String, String>();
+        for (Unit unit : newUnits) {
+            for (String key : unit.providedUnits) {
+                newDeclarations.put(key, unit.declarations);
+            }
+        }
+
+        for (Map.Entry<String, String> entry : oldDeclarations.entrySet()) {
+            String declarations = newDeclarations.get(entry.getKey());
+            if (declarations == null || !declarations.equals(entry.getValue())) {
+                changedUnits.add(entry.getKey());
+            }
+        }
+        for (String key : newDeclarations.keySet()) {
+            if (!oldDeclarations.containsKey(key)) {
+                changedUnits.add(key);
+            }
+        }
+    }
+
+    /**
+     * Moves a unit that follows the changed part of the source.
+     */
+    private void shift(Unit unit, Edit edit) {
+        if (edit.delta == 0 && edit.lineDelta == 0) {
+            return;
+        }
+
+        unit.begin += edit.delta;
+        unit.end += edit.delta;
+
+        for (VhdlElement element : unit.positionElements) {
+            PositionInformation position = Annotations.getAnnotation(element, PositionInformation.class);
+            if (position != null) {
+                Annotations.putAnnotation(element, PositionInformation.class, shift(position, edit));
+            }
+        }
+
+        for (int i = 0; i < unit.errors.size(); i++) {
+            ParseError error = unit.errors.get(i);
+            unit.errors.set(i, new ParseError(shift(error.getPosition(), edit),
+                    error.getType(), error.getMessage()));
+        }
+    }
+
+    private static PositionInformation shift(PositionInformation position, Edit edit) {
+        return new PositionInformation(shift(position.getBegin(), edit), shift(position.getEnd(), edit));
+    }
+
+    private static SourcePosition shift(SourcePosition position, Edit edit) {
+        return new SourcePosition(position.getLine() + edit.lineDelta, position.getColumn(),
+                position.getIndex() + edit.delta);
+    }
+
+    /**
+     * Replaces the parse errors annotation of the file.
+     */
+    private void updateErrors(Document document, List<ParseError> newErrors) {
+        List<ParseError> errors = new ArrayList<ParseError>();
+        for (Unit unit : document.units) {
+            errors.addAll(unit.errors);
+        }
+
+        Annotations.putAnnotation(document.file, ParseErrors.class,
+                errors.isEmpty() ? null : new ParseErrors(errors));
+
+        if (settings.isPrintErrors() && !newErrors.isEmpty()) {
+            VhdlParser.reportErrors(newErrors);
+        }
+    }
+
+    private static int countLines(String s, int begin, int end) {
+        int count = 0;
+        for (int i = begin; i < end; i++) {
+            if (s.charAt(i) == '\n') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static boolean containsLineBreak(String s, int begin, int end) {
+        for (int i = begin; i < end; i++) {
+            if (s.charAt(i) == '\n') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Parsed file.
+     */
+    private static class Document {
+
+        private final VhdlFile file = new VhdlFile();
+        private String source = "";
+        private List<Unit> units = Collections.emptyList();
+        private SourcePositions positions;
+    }
+
+    /**
+     * Design unit including its context clause.
+     */
+    private static class Unit {
+
+        private int begin;
+        private int end;
+        private final List<LibraryUnit> elements = new ArrayList<LibraryUnit>();
+        private final List<ParseError> errors = new ArrayList<ParseError>();
+        private final List<VhdlElement> positionElements = new ArrayList<VhdlElement>();
+        private final Set<String> providedUnits = new HashSet<String>();
+        private final Set<String> requiredUnits = new HashSet<String>();
+        private String declarations;
+
+        public Unit(int begin, int end) {
+            this.begin = begin;
+            this.end = end;
+        }
+    }
+
+    /**
+     * Changed part of a source.
+     * The part from <code>begin</code> to <code>oldEnd</code> in the old
+     * source was replaced by a part that is <code>delta</code> characters and
+     * <code>lineDelta</code> lines longer.
+     */
+    private static class Edit {
+
+        private final int begin;
+        private final int oldEnd;
+        private final int delta;
+        private final int lineDelta;
+        private final boolean textChanged;
+
+        public Edit(int begin, int oldEnd, int delta, int lineDelta, boolean textChanged) {
+            this.begin = begin;
+            this.oldEnd = oldEnd;
+            this.delta = delta;
+            this.lineDelta = lineDelta;
+            this.textChanged = textChanged;
+        }
+
+        /**
+         * Maps an offset in the old source to the new source.
+         * Offsets inside the changed part are mapped to -1.
+         */
+        public int map(int offset) {
+            if (offset <= begin) {
+                return offset;
+            } else if (offset >= oldEnd) {
+                return offset + delta;
+            } else {
+                return -1;
+            }
+        }
+    }
+}
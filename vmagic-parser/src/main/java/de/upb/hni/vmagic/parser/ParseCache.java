@@ -0,0 +1,272 @@
+/*
+ * Copyright 2009, 2010 University of Paderborn
+ *
+ * This file is part of vMAGIC parser.
+ *
+ * vMAGIC is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * vMAGIC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with vMAGIC. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Authors: Ralf Fuest <rfuest@users.sourceforge.net>
+ *          Christopher Pohl <cpohl@users.sourceforge.net>
+ */
+package de.upb.hni.vmagic.parser;
+
+import de.upb.hni.vmagic.LibraryDeclarativeRegion;
+import de.upb.hni.vmagic.NamedEntity;
+import de.upb.hni.vmagic.RootDeclarativeRegion;
+import de.upb.hni.vmagic.VhdlFile;
+import de.upb.hni.vmagic.builtin.Libraries;
+import de.upb.hni.vmagic.libraryunit.LibraryClause;
+import de.upb.hni.vmagic.libraryunit.LibraryUnit;
+import de.upb.hni.vmagic.util.Identifiers;
+import de.upb.hni.vmagic.util.VhdlSerializer;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * On-disk cache for parsed files.
+ * The cache entries are serialized with <code>VhdlSerializer</code> and are
+ * stored in a directory. An entry is identified by a hash of the file content
+ * and the parser settings which influence the created meta classes. If an
+ * entry cannot be read, for example because a referenced design unit in another
+ * file no longer exists or a field of a serialized class was changed, the file
+ * is parsed again and the entry is replaced. Errors while an entry is stored
+ * aren't ignored, because they would disable the cache for the file without
+ * notice.
+ * <p>
+ * Every entry contains the design units the file might depend on which didn't
+ * exist when the file was parsed. References to these units were resolved to
+ * dummy objects or not at all. If one of these units exists when the entry is
+ * loaded the file is parsed again.
+ */
+class ParseCache {
+
+    private static final String SUFFIX = ".vmc";
+    //part of the key, must be changed if the format of the entries is changed;
+    //changed fields of the model classes are detected by VhdlSerializer
+    private static final byte FORMAT_VERSION = 2;
+    private final File directory;
+    private final String key;
+
+    /**
+     * Creates the cache entry for a file.
+     * @param directory the cache directory
+     * @param fileName the name of the parsed file
+     * @param settings the parser settings
+     * @throws IOException if the file could not be read
+     */
+    ParseCache(File directory, String fileName, VhdlParserSettings settings) throws IOException {
+        this.directory = directory;
+        this.key = createKey(fileName, settings);
+    }
+
+    /**
+     * Loads the cached file.
+     * @param rootScope the root declarative region
+     * @param libraryScope the library the file is added to
+     * @return the file, or <code>null</code> if the cache doesn't contain a
+     *         valid entry
+     */
+    VhdlFile load(RootDeclarativeRegion rootScope, LibraryDeclarativeRegion libraryScope) {
+        File entry = new File(directory, key + SUFFIX);
+        if (!entry.isFile()) {
+            return null;
+        }
+
+        try {
+            InputStream in = new FileInputStream(entry);
+            try {
+                DataInputStream din = new DataInputStream(in);
+                Set<String> existingUnits = getExistingUnits(rootScope, libraryScope);
+                int count = din.readInt();
+                for (int i = 0; i < count; i++) {
+                    if (existingUnits.contains(din.readUTF())) {
+                        return null;
+                    }
+                }
+
+                VhdlFile file = VhdlSerializer.readFile(in, rootScope, libraryScope);
+                addBuiltinLibraries(file, rootScope);
+                return file;
+            } finally {
+                in.close();
+            }
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Stores a parsed file in the cache.
+     * @param file the parsed file
+     * @param missingUnits the units returned by <code>getMissingUnits</code>
+     *        before the file was parsed
+     * @throws IOException if the entry could not be written, for example
+     *         because the file contains an object which cannot be serialized
+     */
+    void store(VhdlFile file, Set<String> missingUnits) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("could not create cache directory " + directory);
+        }
+
+        File entry = new File(directory, key + SUFFIX);
+        File tempEntry = File.createTempFile(key, ".tmp", directory);
+        try {
+            OutputStream out = new FileOutputStream(tempEntry);
+            try {
+                DataOutputStream dout = new DataOutputStream(out);
+                dout.writeInt(missingUnits.size());
+                for (String unit : missingUnits) {
+                    dout.writeUTF(unit);
+                }
+                VhdlSerializer.writeFile(file, out);
+            } finally {
+                out.close();
+            }
+            //another parser might have stored the same entry in the meantime
+            if (!tempEntry.renameTo(entry) && !(entry.delete() && tempEntry.renameTo(entry))
+                    && !entry.isFile()) {
+                throw new IOException("could not create cache entry " + entry);
+            }
+        } finally {
+            tempEntry.delete();
+        }
+    }
+
+    /**
+     * Returns the units a syntax tree might depend on which don't exist in a
+     * root declarative region. Units in the library of the file are returned
+     * without the library name, so that they are found if the entry is loaded
+     * into a library with another name.
+     * @param syntaxTree the syntax tree
+     * @param rootScope the root declarative region
+     * @param libraryScope the library the file is added to
+     * @return the keys of the missing units
+     */
+    static Set<String> getMissingUnits(SyntaxTree syntaxTree, RootDeclarativeRegion rootScope,
+            LibraryDeclarativeRegion libraryScope) {
+        Set<String> libraryNames = new HashSet<String>();
+        for (LibraryDeclarativeRegion library : rootScope.getLibraries()) {
+            libraryNames.add(Identifiers.getKey(library.getIdentifier()));
+        }
+
+        String libraryKey = Identifiers.getKey(libraryScope.getIdentifier());
+        UnitDependencies dependencies =
+                new UnitDependencies(libraryScope.getIdentifier(), libraryNames);
+        dependencies.addTree(syntaxTree.getTree());
+
+        Set<String> existingUnits = getExistingUnits(rootScope, libraryScope);
+        Set<String> missingUnits = new HashSet<String>();
+        for (String unit : dependencies.getRequiredUnits()) {
+            if (unit.startsWith(libraryKey + '.')) {
+                unit = unit.substring(libraryKey.length());
+            }
+            if (!existingUnits.contains(unit)) {
+                missingUnits.add(unit);
+            }
+        }
+        for (String unit : dependencies.getProvidedUnits()) {
+            missingUnits.remove(unit.substring(libraryKey.length()));
+        }
+
+        return missingUnits;
+    }
+
+    /**
+     * Returns the keys of all units in a root declarative region. The units in
+     * the library of the file are contained with and without the library name.
+     */
+    private static Set<String> getExistingUnits(RootDeclarativeRegion rootScope,
+            LibraryDeclarativeRegion libraryScope) {
+        Set<String> units = new HashSet<String>();
+        for (LibraryDeclarativeRegion library : rootScope.getLibraries()) {
+            String libraryKey = Identifiers.getKey(library.getIdentifier());
+            for (VhdlFile file : library.getFiles()) {
+                for (LibraryUnit unit : file.getElements()) {
+                    if (unit instanceof NamedEntity) {
+                        String unitKey = '.' + Identifiers.getKey(((NamedEntity) unit).getIdentifier());
+                        units.add(libraryKey + unitKey);
+                        if (library == libraryScope) {
+                            units.add(unitKey);
+                        }
+                    }
+                }
+            }
+        }
+        return units;
+    }
+
+    /**
+     * Adds the builtin IEEE library to the root declarative region if the file
+     * contains a library clause for it, like the meta class creator does.
+     */
+    private static void addBuiltinLibraries(VhdlFile file, RootDeclarativeRegion rootScope) {
+        for (LibraryUnit unit : file.getElements()) {
+            if (unit instanceof LibraryClause) {
+                for (String library : ((LibraryClause) unit).getLibraries()) {
+                    if (library.equalsIgnoreCase("ieee")
+                            && !rootScope.getLibraries().contains(Libraries.IEEE)) {
+                        rootScope.getLibraries().add(Libraries.IEEE);
+                    }
+                }
+            }
+        }
+    }
+
+    private static String createKey(String fileName, VhdlParserSettings settings) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+
+        digest.update(new byte[] {
+                    FORMAT_VERSION,
+                    (byte) (settings.isCreateDummyObjects() ? 1 : 0),
+                    (byte) (settings.isEmitResolveErrors() ? 1 : 0),
+                    (byte) (settings.isAddPositionInformation() ? 1 : 0),
+                    (byte) (settings.isPackedSourcePositions() ? 1 : 0),
+                    (byte) (settings.isParseComments() ? 1 : 0),
+                    (byte) (settings.isMemoryMapFiles() ? 1 : 0)
+                });
+
+        InputStream in = new FileInputStream(fileName);
+        try {
+            byte[] buffer = new byte[8192];
+            int count;
+            while ((count = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, count);
+            }
+        } finally {
+            in.close();
+        }
+
+        StringBuilder sb = new StringBuilder();
+        for (byte b : digest.digest()) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16));
+            sb.append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+}
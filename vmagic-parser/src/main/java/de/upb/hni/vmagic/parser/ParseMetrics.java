@@ -0,0 +1,186 @@
+/*
+ * Copyright 2009, 2010 University of Paderborn
+ *
+ * This file is part of vMAGIC parser.
+ *
+ * vMAGIC is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * vMAGIC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with vMAGIC. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Authors: Ralf Fuest <rfuest@users.sourceforge.net>
+ *          Christopher Pohl <cpohl@users.sourceforge.net>
+ */
+package de.upb.hni.vmagic.parser;
+
+/**
+ * Metrics of a parsed file.
+ * The metrics are collected if a <code>ParseMetricsListener</code> is set in
+ * the parser settings and are passed to the listener after the file was
+ * parsed. All durations are measured in nanoseconds.
+ *
+ * @see ParseMetricsListener
+ */
+public class ParseMetrics {
+
+    private final String sourceName;
+    private long lexTime;
+    private long parseTime;
+    private long metaClassTime;
+    private int tokenCount;
+    private int speculativeRuleCount;
+    private int memoizationHitCount;
+    private int resolveCount;
+    private int resolveMissCount;
+    private int dummyObjectCount;
+
+    ParseMetrics(String sourceName) {
+        this.sourceName = sourceName;
+    }
+
+    /**
+     * Returns the name of the parsed source.
+     * @return the file name or <code>null</code>, if the source wasn't read
+     *         from a file
+     */
+    public String getSourceName() {
+        return sourceName;
+    }
+
+    /**
+     * Returns the time which was used by the lexer.
+     * @return the lexing time in nanoseconds
+     */
+    public long getLexTime() {
+        return lexTime;
+    }
+
+    void setLexTime(long lexTime) {
+        this.lexTime = lexTime;
+    }
+
+    /**
+     * Returns the time which was used by the parser to create the syntax tree,
+     * excluding the lexing time.
+     * @return the parsing time in nanoseconds
+     */
+    public long getParseTime() {
+        return parseTime;
+    }
+
+    void setParseTime(long parseTime) {
+        this.parseTime = parseTime;
+    }
+
+    /**
+     * Returns the time which was used to create the meta class instances
+     * from the syntax tree.
+     * @return the meta class creation time in nanoseconds
+     */
+    public long getMetaClassTime() {
+        return metaClassTime;
+    }
+
+    void setMetaClassTime(long metaClassTime) {
+        this.metaClassTime = metaClassTime;
+    }
+
+    /**
+     * Returns the number of tokens in the token stream, including comments
+     * if comments are parsed.
+     * @return the number of tokens
+     */
+    public int getTokenCount() {
+        return tokenCount;
+    }
+
+    void setTokenCount(int tokenCount) {
+        this.tokenCount = tokenCount;
+    }
+
+    /**
+     * Returns the number of grammar rules which were invoked while the parser
+     * was backtracking. A high number compared to the number of tokens
+     * indicates input which causes the parser to backtrack excessively.
+     * @return the number of speculative rule invocations
+     */
+    public int getSpeculativeRuleCount() {
+        return speculativeRuleCount;
+    }
+
+    void setSpeculativeRuleCount(int speculativeRuleCount) {
+        this.speculativeRuleCount = speculativeRuleCount;
+    }
+
+    /**
+     * Returns the number of speculative rule invocations which were skipped
+     * because their result was memoized.
+     * @return the number of memoization hits
+     */
+    public int getMemoizationHitCount() {
+        return memoizationHitCount;
+    }
+
+    void setMemoizationHitCount(int memoizationHitCount) {
+        this.memoizationHitCount = memoizationHitCount;
+    }
+
+    /**
+     * Returns the number of name lookups while the meta class instances were
+     * created.
+     * @return the number of resolve calls
+     */
+    public int getResolveCount() {
+        return resolveCount;
+    }
+
+    void setResolveCount(int resolveCount) {
+        this.resolveCount = resolveCount;
+    }
+
+    /**
+     * Returns the number of name lookups which didn't find a declaration of
+     * the requested kind. A name can be looked up multiple times for
+     * different kinds of declarations, so a miss doesn't always cause a
+     * resolve error.
+     * @return the number of resolve misses
+     */
+    public int getResolveMissCount() {
+        return resolveMissCount;
+    }
+
+    void setResolveMissCount(int resolveMissCount) {
+        this.resolveMissCount = resolveMissCount;
+    }
+
+    /**
+     * Returns the number of dummy objects which were created for unresolved
+     * names.
+     * @return the number of dummy objects
+     * @see VhdlParserSettings#setCreateDummyObjects(boolean)
+     */
+    public int getDummyObjectCount() {
+        return dummyObjectCount;
+    }
+
+    void setDummyObjectCount(int dummyObjectCount) {
+        this.dummyObjectCount = dummyObjectCount;
+    }
+
+    @Override
+    public String toString() {
+        return "ParseMetrics{" + "sourceName=" + sourceName + ", lexTime=" + lexTime
+                + ", parseTime=" + parseTime + ", metaClassTime=" + metaClassTime
+                + ", tokenCount=" + tokenCount + ", speculativeRuleCount=" + speculativeRuleCount
+                + ", memoizationHitCount=" + memoizationHitCount + ", resolveCount=" + resolveCount
+                + ", resolveMissCount=" + resolveMissCount + ", dummyObjectCount=" + dummyObjectCount + '}';
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2009, 2010 University of Paderborn
+ *
+ * This file is part of vMAGIC parser.
+ *
+ * vMAGIC is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * vMAGIC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with vMAGIC. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Authors: Ralf Fuest <rfuest@users.sourceforge.net>
+ *          Christopher Pohl <cpohl@users.sourceforge.net>
+ */
+package de.upb.hni.vmagic.parser;
+
+/**
+ * Listener for the metrics of parsed files.
+ * If a metrics listener is set in the parser settings the parser measures
+ * the duration of the lexer, parser and meta class creation phases and
+ * counts the tokens, the backtracking of the parser and the resolved names.
+ * Without a listener none of these metrics are collected.
+ * <p>
+ * The metrics are collected by <code>VhdlParser</code>,
+ * <code>VhdlProjectParser</code> and <code>VhdlParserSession</code>. Files
+ * which are loaded from the parse cache or parsed in streaming mode, and
+ * bodies which are created lazily, aren't reported. The listener is called
+ * from the thread which creates the meta class instances of the file.
+ *
+ * @see VhdlParserSettings#setMetricsListener(ParseMetricsListener)
+ */
+public abstract class ParseMetricsListener {
+
+    /**
+     * Called after a file was parsed.
+     * @param metrics the metrics of the parsed file
+     */
+    public abstract void fileParsed(ParseMetrics metrics);
+}
@@ -0,0 +1,283 @@
+/*
+ * Copyright 2009, 2010 University of Paderborn
+ *
+ * This file is part of vMAGIC parser.
+ *
+ * vMAGIC is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * vMAGIC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with vMAGIC. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Authors: Ralf Fuest <rfuest@users.sourceforge.net>
+ *          Christopher Pohl <cpohl@users.sourceforge.net>
+ */
+package de.upb.hni.vmagic.parser;
+
+import de.upb.hni.vmagic.Annotations;
+import de.upb.hni.vmagic.LibraryDeclarativeRegion;
+import de.upb.hni.vmagic.RootDeclarativeRegion;
+import de.upb.hni.vmagic.VhdlFile;
+import de.upb.hni.vmagic.libraryunit.Architecture;
+import de.upb.hni.vmagic.parser.annotation.SourcePositions;
+import de.upb.hni.vmagic.parser.antlr.CommentIndex;
+import de.upb.hni.vmagic.parser.antlr.MetaClassCreator;
+import de.upb.hni.vmagic.parser.antlr.TreeAdaptorWithoutErrorNodes;
+import de.upb.hni.vmagic.parser.antlr.VhdlAntlrParser;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import org.antlr.runtime.CharStream;
+import org.antlr.runtime.CommonTokenStream;
+import org.antlr.runtime.Lexer;
+import org.antlr.runtime.ParserRuleReturnScope;
+import org.antlr.runtime.RecognitionException;
+import org.antlr.runtime.Token;
+import org.antlr.runtime.TokenSource;
+import org.antlr.runtime.tree.CommonTreeNodeStream;
+
+/**
+ * Parser for the streaming mode.
+ * The input is parsed in pieces: design units or, if the listener requests
+ * the concurrent statements, the header, the statements and the end of an
+ * architecture. A new token stream and parser are used for every piece, so
+ * that the tokens, the memoization tables and the syntax tree of a piece can
+ * be garbage collected after its meta classes were created. The comments of
+ * a piece are removed from the comment index when the piece is finished.
+ * <p>
+ * If packed source positions are enabled the <code>SourcePositions</code>
+ * annotation of the file contains the positions of all elements in the
+ * file and keeps the design units alive which were passed to the listener.
+ * The memory used by the parser therefore only stays bounded by the size of
+ * the largest design unit if the positions are stored in annotations of the
+ * elements.
+ */
+class StreamingParser {
+
+    private final VhdlParserSettings settings;
+    private final RootDeclarativeRegion rootScope;
+    private final LibraryDeclarativeRegion libraryScope;
+    private final DesignUnitListener listener;
+    private final TokenSource source;
+    private final CommentIndex comments;
+    private final SourcePositions positions;
+    private List<Token> pendingTokens = Collections.emptyList();
+    private CommonTokenStream tokens;
+    private VhdlAntlrParser parser;
+    private MetaClassCreator mcc;
+    private Token pieceStart;
+
+    public StreamingParser(VhdlParserSettings settings, CharStream stream,
+            RootDeclarativeRegion rootScope, LibraryDeclarativeRegion libraryScope,
+            DesignUnitListener listener) {
+        this.settings = settings;
+        this.rootScope = rootScope;
+        this.libraryScope = libraryScope;
+        this.listener = listener;
+        Lexer lexer = VhdlParser.createLexer(settings, stream);
+        if (settings.isParseComments()) {
+            comments = new CommentIndex(lexer);
+            source = comments;
+        } else {
+            comments = null;
+            source = lexer;
+        }
+        positions = VhdlParser.createSourcePositions(settings, stream);
+    }
+
+    public VhdlFile parse() throws VhdlParserException {
+        VhdlFile file = new VhdlFile();
+        libraryScope.getFiles().add(file);
+        if (positions != null) {
+            Annotations.putAnnotation(file, SourcePositions.class, positions);
+        }
+
+        try {
+            while (true) {
+                nextPiece();
+                if (tokens.LA(1) == Token.EOF) {
+                    break;
+                }
+
+                boolean parsed;
+                if (listener.isStreamConcurrentStatements() && isArchitecture()) {
+                    parsed = parseArchitecture(file);
+                } else {
+                    parsed = parseDesignUnit(file);
+                }
+
+                if (!parsed) {
+                    throw new VhdlParserException("line " + pieceStart.getLine()
+                            + ": syntax error, the design unit could not be parsed");
+                }
+            }
+        } catch (RecognitionException ex) {
+            throw new VhdlParserException(ex.getMessage());
+        }
+
+        if (mcc != null) {
+            VhdlParser.addErrors(settings, file, mcc.getErrors());
+        }
+
+        return file;
+    }
+
+    /**
+     * Creates a new token stream and parser for the next piece of the input.
+     */
+    private void nextPiece() {
+        tokens = new CommonTokenStream(new PendingTokenSource(pendingTokens, source));
+        parser = new VhdlAntlrParser(tokens);
+        parser.setTreeAdaptor(new TreeAdaptorWithoutErrorNodes());
+        parser.setSkipBodies(settings.isLazyBodies());
+        pieceStart = tokens.LT(1);
+    }
+
+    /**
+     * Keeps the tokens which were read after the end of the current piece.
+     * @return <code>false</code>, if the parser didn't consume any token
+     */
+    private boolean endPiece(ParserRuleReturnScope result) {
+        if (result.stop == null) {
+            return false;
+        }
+
+        List<? extends Token> buffer = tokens.getTokens();
+        pendingTokens = new ArrayList<Token>(
+                buffer.subList(result.stop.getTokenIndex() + 1, buffer.size()));
+        if (comments != null) {
+            comments.remove(buffer.subList(0, result.stop.getTokenIndex() + 1));
+        }
+        return true;
+    }
+
+    /**
+     * Prepares the meta class creator for a syntax tree.
+     */
+    private void setTree(Object tree) {
+        CommonTreeNodeStream nodes = new CommonTreeNodeStream(tree);
+        nodes.setTokenStream(tokens);
+
+        if (mcc == null) {
+            mcc = new MetaClassCreator(nodes, settings, rootScope, libraryScope);
+            mcc.setDesignUnitListener(listener);
+            mcc.setSourcePositions(positions);
+            mcc.setCommentIndex(comments);
+        } else {
+            mcc.setTreeNodeStream(nodes);
+        }
+    }
+
+    /**
+     * Returns if the next library unit is an architecture. The context
+     * clause can only contain names, so the first keyword that starts a
+     * library unit is searched.
+     */
+    private boolean isArchitecture() {
+        for (int i = 1;; i++) {
+            switch (tokens.LA(i)) {
+                case VhdlAntlrParser.ARCHITECTURE:
+                    return true;
+
+                case VhdlAntlrParser.ENTITY:
+                case VhdlAntlrParser.CONFIGURATION:
+                case VhdlAntlrParser.PACKAGE:
+                case Token.EOF:
+                    return false;
+
+                default:
+                    break;
+            }
+        }
+    }
+
+    private boolean parseDesignUnit(VhdlFile file) throws RecognitionException {
+        VhdlAntlrParser.design_unit_return result = parser.design_unit();
+        if (result.getTree() == null) {
+            return false;
+        }
+
+        setTree(result.getTree());
+        mcc.design_unit(file);
+
+        return endPiece(result);
+    }
+
+    private boolean parseArchitecture(VhdlFile file) throws RecognitionException {
+        VhdlAntlrParser.context_clause_return context = parser.context_clause();
+        if (context.getTree() != null) {
+            setTree(context.getTree());
+            mcc.context_clause(file);
+        }
+
+        VhdlAntlrParser.architecture_header_return header = parser.architecture_header();
+        if (header.getTree() == null) {
+            return false;
+        }
+        setTree(header.getTree());
+        Architecture architecture = mcc.architecture_header(file);
+        if (architecture == null || !endPiece(header)) {
+            return false;
+        }
+
+        while (true) {
+            nextPiece();
+            int next = tokens.LA(1);
+            if (next == VhdlAntlrParser.END || next == Token.EOF) {
+                break;
+            }
+
+            VhdlAntlrParser.concurrent_statement_return statement = parser.concurrent_statement();
+            if (statement.getTree() != null) {
+                setTree(statement.getTree());
+                mcc.architecture_statement(architecture);
+            }
+
+            if (!endPiece(statement)) {
+                return false;
+            }
+        }
+
+        VhdlAntlrParser.architecture_end_return end = parser.architecture_end();
+
+        architecture.setParent(file);
+        listener.libraryUnitParsed(architecture);
+
+        return endPiece(end);
+    }
+
+    /**
+     * Token source which returns the tokens that were already read for the
+     * previous piece before the tokens of the lexer.
+     */
+    private static class PendingTokenSource implements TokenSource {
+
+        private final LinkedList<Token> pendingTokens;
+        private final TokenSource source;
+
+        public PendingTokenSource(List<Token> pendingTokens, TokenSource source) {
+            this.pendingTokens = new LinkedList<Token>(pendingTokens);
+            this.source = source;
+        }
+
+        public Token nextToken() {
+            if (!pendingTokens.isEmpty()) {
+                return pendingTokens.removeFirst();
+            }
+
+            return source.nextToken();
+        }
+
+        public String getSourceName() {
+            return source.getSourceName();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2009, 2010 University of Paderborn
+ *
+ * This file is part of vMAGIC parser.
+ *
+ * vMAGIC is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * vMAGIC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with vMAGIC. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Authors: Ralf Fuest <rfuest@users.sourceforge.net>
+ *          Christopher Pohl <cpohl@users.sourceforge.net>
+ */
+package de.upb.hni.vmagic.parser;
+
+import de.upb.hni.vmagic.parser.antlr.CommentIndex;
+import org.antlr.runtime.CharStream;
+import org.antlr.runtime.CommonTokenStream;
+import org.antlr.runtime.tree.CommonTree;
+
+/**
+ * Result of the first parser pass.
+ * The syntax tree is created by the <code>VhdlAntlrParser</code> and is
+ * independent of any declarative region. The meta class instances are created
+ * from the syntax tree in a second pass.
+ */
+class SyntaxTree {
+
+    private final CharStream input;
+    private final CommonTokenStream tokens;
+    private final CommonTree tree;
+    private final CommentIndex commentIndex;
+    private final ParseMetrics metrics;
+
+    SyntaxTree(CharStream input, CommonTokenStream tokens, CommonTree tree, CommentIndex commentIndex,
+            ParseMetrics metrics) {
+        this.input = input;
+        this.tokens = tokens;
+        this.tree = tree;
+        this.commentIndex = commentIndex;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Returns the input the syntax tree was created from.
+     * @return the input
+     */
+    CharStream getInput() {
+        return input;
+    }
+
+    /**
+     * Returns the token stream the syntax tree was created from.
+     * @return the token stream
+     */
+    CommonTokenStream getTokens() {
+        return tokens;
+    }
+
+    /**
+     * Returns the root node of the syntax tree.
+     * @return the root node
+     */
+    CommonTree getTree() {
+        return tree;
+    }
+
+    /**
+     * Returns the index of the comments in the token stream.
+     * @return the comment index or <code>null</code>, if comments aren't parsed
+     */
+    CommentIndex getCommentIndex() {
+        return commentIndex;
+    }
+
+    /**
+     * Returns the metrics of the first pass.
+     * @return the metrics or <code>null</code>, if no metrics listener is set
+     */
+    ParseMetrics getMetrics() {
+        return metrics;
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2009, 2010 University of Paderborn
+ *
+ * This file is part of vMAGIC parser.
+ *
+ * vMAGIC is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * vMAGIC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with vMAGIC. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Authors: Ralf Fuest <rfuest@users.sourceforge.net>
+ *          Christopher Pohl <cpohl@users.sourceforge.net>
+ */
+package de.upb.hni.vmagic.parser;
+
+import de.upb.hni.vmagic.parser.antlr.VhdlAntlrParser;
+import de.upb.hni.vmagic.util.Identifiers;
+import java.util.HashSet;
+import java.util.Set;
+import org.antlr.runtime.tree.Tree;
+
+/**
+ * Design units declared and used by a syntax tree.
+ * The units are identified by keys of the form <code>library.unit</code>
+ * with case folded identifiers. The dependencies are an approximation:
+ * every simple name could reference a unit in the same library and every
+ * selected name with a library prefix could reference a unit in that library.
+ */
+class UnitDependencies {
+
+    private final String libraryKey;
+    private final Set<String> libraryNames;
+    private final Set<String> providedUnits = new HashSet<String>();
+    private final Set<String> requiredUnits = new HashSet<String>();
+
+    /**
+     * Creates an empty set of dependencies.
+     * @param libraryName the name of the library the syntax tree belongs to
+     * @param libraryNames the case folded names of all known libraries
+     */
+    public UnitDependencies(String libraryName, Set<String> libraryNames) {
+        this.libraryKey = Identifiers.getKey(libraryName);
+        this.libraryNames = libraryNames;
+    }
+
+    /**
+     * Returns the keys of the declared units.
+     * @return the provided unit keys
+     */
+    public Set<String> getProvidedUnits() {
+        return providedUnits;
+    }
+
+    /**
+     * Returns the keys of the units which might be used.
+     * @return the required unit keys
+     */
+    public Set<String> getRequiredUnits() {
+        return requiredUnits;
+    }
+
+    /**
+     * Adds the dependencies of a design file or design unit syntax tree.
+     * @param tree the syntax tree
+     */
+    public void addTree(Tree tree) {
+        if (tree.isNil()) {
+            for (int i = 0; i < tree.getChildCount(); i++) {
+                addUnit(tree.getChild(i));
+            }
+        } else {
+            addUnit(tree);
+        }
+    }
+
+    private String unitKey(String libraryName, String unit) {
+        return libraryName + '.' + Identifiers.getKey(unit);
+    }
+
+    private String localUnitKey(String unit) {
+        return unitKey(libraryKey, unit);
+    }
+
+    /**
+     * Adds the units declared and used by a library unit.
+     */
+    private void addUnit(Tree unit) {
+        switch (unit.getType()) {
+            case VhdlAntlrParser.ENTITY:
+            case VhdlAntlrParser.PACKAGE:
+            case VhdlAntlrParser.CONFIGURATION:
+                providedUnits.add(localUnitKey(unit.getChild(0).getText()));
+                break;
+
+            case VhdlAntlrParser.PACKAGE_BODY:
+                if (unit.getChildCount() > 0) {
+                    requiredUnits.add(localUnitKey(unit.getChild(0).getText()));
+                }
+                break;
+
+            default:
+                break;
+        }
+
+        addNameDependencies(unit);
+    }
+
+    /**
+     * Adds all units that are referenced by names in a subtree.
+     */
+    private void addNameDependencies(Tree tree) {
+        if (tree.getType() == VhdlAntlrParser.NAME && tree.getChildCount() > 0) {
+            String prefix = tree.getChild(0).getText();
+            requiredUnits.add(localUnitKey(prefix));
+
+            String prefixKey = Identifiers.getKey(prefix);
+            if (tree.getChildCount() > 1
+                    && tree.getChild(1).getType() == VhdlAntlrParser.NAME_SELECTED_PART
+                    && tree.getChild(1).getChildCount() > 0) {
+                String suffix = tree.getChild(1).getChild(0).getText();
+                if (prefixKey.equals("work")) {
+                    requiredUnits.add(localUnitKey(suffix));
+                } else if (libraryNames.contains(prefixKey)) {
+                    requiredUnits.add(unitKey(prefixKey, suffix));
+                }
+            }
+        }
+
+        for (int i = 0; i < tree.getChildCount(); i++) {
+            addNameDependencies(tree.getChild(i));
+        }
+    }
+}
@@ -27,22 +27,28 @@ import de.upb.hni.vmagic.RootDeclarativeRegion;
 import de.upb.hni.vmagic.parser.util.CaseInsensitiveInputStream;
 import de.upb.hni.vmagic.parser.util.CaseInsensitiveStringStream;
 import de.upb.hni.vmagic.parser.util.CaseInsensitiveFileStream;
+import de.upb.hni.vmagic.parser.util.CaseInsensitiveMappedFileStream;
 import de.upb.hni.vmagic.VhdlFile;
 import de.upb.hni.vmagic.parser.annotation.ParseErrors;
+import de.upb.hni.vmagic.parser.annotation.SourcePositions;
+import de.upb.hni.vmagic.parser.antlr.CommentIndex;
 import de.upb.hni.vmagic.parser.antlr.MetaClassCreator;
+import de.upb.hni.vmagic.parser.antlr.TreeAdaptorWithoutErrorNodes;
 import de.upb.hni.vmagic.parser.antlr.VhdlAntlrLexer;
 import de.upb.hni.vmagic.parser.antlr.VhdlAntlrParser;
+import de.upb.hni.vmagic.parser.antlr.VhdlFastLexer;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 import org.antlr.runtime.CharStream;
 import org.antlr.runtime.CommonTokenStream;
+import org.antlr.runtime.Lexer;
 import org.antlr.runtime.RecognitionException;
-import org.antlr.runtime.Token;
-import org.antlr.runtime.TokenStream;
-import org.antlr.runtime.tree.CommonTreeAdaptor;
+import org.antlr.runtime.tree.CommonTree;
 import org.antlr.runtime.tree.CommonTreeNodeStream;
+import org.antlr.runtime.tree.Tree;
 
 /**
  * VHDL parser.
@@ -57,15 +63,80 @@ public class VhdlParser {
     private VhdlParser() {
     }
 
-    private static VhdlFile parse(VhdlParserSettings settings, CharStream stream,
-            RootDeclarativeRegion rootScope, LibraryDeclarativeRegion libraryScope)
+    /**
+     * Creates the char stream for a file.
+     */
+    static CharStream createFileStream(String fileName, VhdlParserSettings settings) throws IOException {
+        if (settings.isMemoryMapFiles()) {
+            return new CaseInsensitiveMappedFileStream(fileName);
+        } else {
+            return new CaseInsensitiveFileStream(fileName);
+        }
+    }
+
+    /**
+     * Creates the lexer which is selected by the parser settings.
+     * Whitespace is discarded by the lexer and comments are only emitted if
+     * comments are parsed.
+     * @param settings the parser settings
+     * @param stream the input stream, which is read from its current position
+     * @return the lexer
+     * @see VhdlParserSettings#setFastLexer(boolean)
+     */
+    public static Lexer createLexer(VhdlParserSettings settings, CharStream stream) {
+        //off-channel tokens are only needed for the comment index
+        if (settings.isFastLexer()) {
+            VhdlFastLexer lexer = new VhdlFastLexer(stream);
+            lexer.setSkipWhitespace(true);
+            lexer.setSkipComments(!settings.isParseComments());
+            return lexer;
+        } else {
+            VhdlAntlrLexer lexer = new VhdlAntlrLexer(stream);
+            lexer.setSkipWhitespace(true);
+            lexer.setSkipComments(!settings.isParseComments());
+            return lexer;
+        }
+    }
+
+    /**
+     * Creates the syntax tree for the given input.
+     * This pass doesn't depend on a declarative region and can be run
+     * concurrently for different inputs.
+     */
+    static SyntaxTree createSyntaxTree(VhdlParserSettings settings, CharStream stream)
             throws VhdlParserException {
-        VhdlAntlrLexer lexer = new VhdlAntlrLexer(stream);
-        CommonTokenStream ts = new CommonTokenStream(lexer);
+        Lexer lexer = createLexer(settings, stream);
+        CommentIndex comments = settings.isParseComments() ? new CommentIndex(lexer) : null;
+        CommonTokenStream ts = new CommonTokenStream(comments != null ? comments : lexer);
 
         VhdlAntlrParser parser = new VhdlAntlrParser(ts);
         parser.setTreeAdaptor(new TreeAdaptorWithoutErrorNodes());
 
+        return createSyntaxTree(settings, stream, ts, parser, comments);
+    }
+
+    /**
+     * Creates the syntax tree for the given input using an existing token
+     * stream and parser.
+     */
+    static SyntaxTree createSyntaxTree(VhdlParserSettings settings, CharStream stream,
+            CommonTokenStream tokens, VhdlAntlrParser parser, CommentIndex comments)
+            throws VhdlParserException {
+        parser.setSkipBodies(settings.isLazyBodies());
+
+        ParseMetrics metrics = null;
+        long start = 0;
+        if (settings.getMetricsListener() != null) {
+            metrics = new ParseMetrics(stream.getSourceName());
+            parser.setCollectMetrics(true);
+
+            //lex the whole input before parsing to measure the lexer separately
+            start = System.nanoTime();
+            tokens.fill();
+            metrics.setLexTime(System.nanoTime() - start);
+            start = System.nanoTime();
+        }
+
         VhdlAntlrParser.design_file_return result;
         try {
             result = parser.design_file();
@@ -73,10 +144,87 @@ public class VhdlParser {
             throw new VhdlParserException(ex.getMessage());
         }
 
-        CommonTreeNodeStream nodes = new CommonTreeNodeStream(result.getTree());
-        nodes.setTokenStream(ts);
+        if (metrics != null) {
+            metrics.setParseTime(System.nanoTime() - start);
+            metrics.setTokenCount(tokens.size());
+            metrics.setSpeculativeRuleCount(parser.getSpeculativeRuleCount());
+            metrics.setMemoizationHitCount(parser.getMemoizationHitCount());
+            parser.setCollectMetrics(false);
+        }
+
+        return new SyntaxTree(stream, tokens, (CommonTree) result.getTree(), comments, metrics);
+    }
+
+    /**
+     * Removes the declarations and statements of architectures and package
+     * bodies from a syntax tree. This is used for syntax trees which were
+     * created without skipping the bodies, because the complete tree is
+     * needed to find the dependencies of the units.
+     */
+    static void removeBodies(Tree tree) {
+        if (tree.isNil()) {
+            for (int i = 0; i < tree.getChildCount(); i++) {
+                removeBodies(tree.getChild(i));
+            }
+            return;
+        }
+
+        int keep;
+        switch (tree.getType()) {
+            case VhdlAntlrParser.ARCHITECTURE:
+                //identifier and entity name
+                keep = 2;
+                break;
+
+            case VhdlAntlrParser.PACKAGE_BODY:
+                //identifier
+                keep = 1;
+                break;
 
-        MetaClassCreator mcc = new MetaClassCreator(nodes, settings, rootScope, libraryScope);
+            default:
+                return;
+        }
+
+        while (tree.getChildCount() > keep) {
+            tree.deleteChild(tree.getChildCount() - 1);
+        }
+    }
+
+    /**
+     * Creates the meta class instances for a syntax tree.
+     */
+    static VhdlFile createMetaClasses(VhdlParserSettings settings, SyntaxTree syntaxTree,
+            RootDeclarativeRegion rootScope, LibraryDeclarativeRegion libraryScope)
+            throws VhdlParserException {
+        return createMetaClasses(settings, syntaxTree, rootScope, libraryScope, null);
+    }
+
+    /**
+     * Creates the meta class instances for a syntax tree.
+     * If a meta class creator is passed it is reused instead of creating
+     * a new one.
+     */
+    static VhdlFile createMetaClasses(VhdlParserSettings settings, SyntaxTree syntaxTree,
+            RootDeclarativeRegion rootScope, LibraryDeclarativeRegion libraryScope,
+            MetaClassCreator mcc) throws VhdlParserException {
+        CommonTreeNodeStream nodes = new CommonTreeNodeStream(syntaxTree.getTree());
+        nodes.setTokenStream(syntaxTree.getTokens());
+
+        if (mcc == null) {
+            mcc = new MetaClassCreator(nodes, settings, rootScope, libraryScope);
+        } else {
+            mcc.reuse(nodes, rootScope, libraryScope);
+        }
+        SourcePositions positions = createSourcePositions(settings, syntaxTree.getInput());
+        mcc.setSourcePositions(positions);
+        mcc.setCommentIndex(syntaxTree.getCommentIndex());
+
+        ParseMetrics metrics = syntaxTree.getMetrics();
+        long start = 0;
+        if (metrics != null) {
+            mcc.setCollectMetrics(true);
+            start = System.nanoTime();
+        }
 
         VhdlFile file = null;
         try {
@@ -85,15 +233,69 @@ public class VhdlParser {
             throw new VhdlParserException(ex.getMessage());
         }
 
-        if (!mcc.getErrors().isEmpty()) {
-            List<ParseError> errors = mcc.getErrors();
+        if (metrics != null) {
+            metrics.setMetaClassTime(System.nanoTime() - start);
+            metrics.setResolveCount(mcc.getResolveCount());
+            metrics.setResolveMissCount(mcc.getResolveMissCount());
+            metrics.setDummyObjectCount(mcc.getDummyObjectCount());
+            mcc.setCollectMetrics(false);
+        }
+
+        if (positions != null) {
+            Annotations.putAnnotation(file, SourcePositions.class, positions);
+        }
+        addErrors(settings, file, mcc.getErrors());
+
+        if (metrics != null) {
+            settings.getMetricsListener().fileParsed(metrics);
+        }
+
+        return file;
+    }
+
+    /**
+     * Creates the source positions annotation for a file if position
+     * information is enabled and stored in a packed table.
+     * @return the source positions or <code>null</code>
+     */
+    static SourcePositions createSourcePositions(VhdlParserSettings settings, CharStream stream) {
+        if (settings.isAddPositionInformation() && settings.isPackedSourcePositions()) {
+            return new SourcePositions(stream);
+        }
+        return null;
+    }
+
+    /**
+     * Adds the errors found by the meta class creator to a file.
+     */
+    static void addErrors(VhdlParserSettings settings, VhdlFile file, List<ParseError> errors) {
+        if (!errors.isEmpty()) {
             Annotations.putAnnotation(file, ParseErrors.class, new ParseErrors(errors));
             if (settings.isPrintErrors()) {
                 reportErrors(errors);
             }
         }
+    }
 
-        return file;
+    private static VhdlFile parse(VhdlParserSettings settings, CharStream stream,
+            RootDeclarativeRegion rootScope, LibraryDeclarativeRegion libraryScope)
+            throws VhdlParserException {
+        return createMetaClasses(settings, createSyntaxTree(settings, stream), rootScope, libraryScope);
+    }
+
+    private static VhdlFile parse(VhdlParserSettings settings, CharStream stream,
+            RootDeclarativeRegion rootScope, LibraryDeclarativeRegion libraryScope,
+            DesignUnitListener listener) throws VhdlParserException {
+        return new StreamingParser(settings, stream, rootScope, libraryScope, listener).parse();
+    }
+
+    private static VhdlFile parse(VhdlParserSettings settings, CharStream stream,
+            DesignUnitListener listener) throws VhdlParserException {
+        RootDeclarativeRegion rootScope = new RootDeclarativeRegion();
+        LibraryDeclarativeRegion libraryScope = new LibraryDeclarativeRegion("work");
+        rootScope.getLibraries().add(libraryScope);
+
+        return parse(settings, stream, rootScope, libraryScope, listener);
     }
 
     private static VhdlFile parse(VhdlParserSettings settings, CharStream stream) throws VhdlParserException {
@@ -110,12 +312,65 @@ public class VhdlParser {
 
     public static VhdlFile parseFile(String fileName, VhdlParserSettings settings)
             throws IOException, VhdlParserException {
-        return parse(settings, new CaseInsensitiveFileStream(fileName));
+        RootDeclarativeRegion rootScope = new RootDeclarativeRegion();
+        LibraryDeclarativeRegion libraryScope = new LibraryDeclarativeRegion("work");
+        rootScope.getLibraries().add(libraryScope);
+
+        return parseFile(fileName, settings, rootScope, libraryScope);
     }
 
     public static VhdlFile parseFile(String fileName, VhdlParserSettings settings, RootDeclarativeRegion rootScope, LibraryDeclarativeRegion libray)
             throws IOException, VhdlParserException {
-        return parse(settings, new CaseInsensitiveFileStream(fileName), rootScope, libray);
+        if (settings.getCacheDirectory() == null || settings.isLazyBodies()) {
+            return parse(settings, createFileStream(fileName, settings), rootScope, libray);
+        }
+
+        ParseCache cache = new ParseCache(settings.getCacheDirectory(), fileName, settings);
+        VhdlFile file = cache.load(rootScope, libray);
+        if (file != null) {
+            if (settings.isPrintErrors()) {
+                reportErrors(getParseErrors(file));
+            }
+            return file;
+        }
+
+        SyntaxTree syntaxTree = createSyntaxTree(settings, createFileStream(fileName, settings));
+        Set<String> missingUnits = ParseCache.getMissingUnits(syntaxTree, rootScope, libray);
+        file = createMetaClasses(settings, syntaxTree, rootScope, libray);
+        cache.store(file, missingUnits);
+        return file;
+    }
+
+    /**
+     * Parses a file in streaming mode.
+     * @param fileName the file name
+     * @param settings the parser settings
+     * @param listener the listener which receives the parsed design units
+     * @return the parsed file without architectures and package bodies
+     * @throws IOException if the file could not be read
+     * @throws VhdlParserException if the file could not be parsed
+     * @see DesignUnitListener
+     */
+    public static VhdlFile parseFile(String fileName, VhdlParserSettings settings, DesignUnitListener listener)
+            throws IOException, VhdlParserException {
+        return parse(settings, createFileStream(fileName, settings), listener);
+    }
+
+    /**
+     * Parses a file in streaming mode.
+     * @param fileName the file name
+     * @param settings the parser settings
+     * @param rootScope the root declarative region
+     * @param libray the library the file is added to
+     * @param listener the listener which receives the parsed design units
+     * @return the parsed file without architectures and package bodies
+     * @throws IOException if the file could not be read
+     * @throws VhdlParserException if the file could not be parsed
+     * @see DesignUnitListener
+     */
+    public static VhdlFile parseFile(String fileName, VhdlParserSettings settings, RootDeclarativeRegion rootScope, LibraryDeclarativeRegion libray,
+            DesignUnitListener listener) throws IOException, VhdlParserException {
+        return parse(settings, createFileStream(fileName, settings), rootScope, libray, listener);
     }
 
     public static VhdlFile parseString(String str) throws IOException, VhdlParserException {
@@ -141,6 +396,21 @@ public class VhdlParser {
         return parse(settings, new CaseInsensitiveInputStream(stream), rootScope, libray);
     }
 
+    /**
+     * Parses a stream in streaming mode.
+     * @param stream the input stream
+     * @param settings the parser settings
+     * @param listener the listener which receives the parsed design units
+     * @return the parsed file without architectures and package bodies
+     * @throws IOException if the stream could not be read
+     * @throws VhdlParserException if the stream could not be parsed
+     * @see DesignUnitListener
+     */
+    public static VhdlFile parseStream(InputStream stream, VhdlParserSettings settings, DesignUnitListener listener)
+            throws IOException, VhdlParserException {
+        return parse(settings, new CaseInsensitiveInputStream(stream), listener);
+    }
+
     public static boolean hasParseErrors(VhdlFile file) {
         return Annotations.getAnnotation(file, ParseErrors.class) != null;
     }
@@ -187,19 +457,15 @@ public class VhdlParser {
         }
     }
 
-    private static void reportErrors(List<ParseError> errors) {
+    /**
+     * Prints parse errors to <code>System.err</code>.
+     * @param errors the errors
+     */
+    public static void reportErrors(List<ParseError> errors) {
         for (ParseError error : errors) {
             System.err.println("line " + error.getPosition().getBegin().getLine() + ": "
                     + errorToMessage(error));
         }
 
     }
-
-    private static class TreeAdaptorWithoutErrorNodes extends CommonTreeAdaptor {
-
-        @Override
-        public Object errorNode(TokenStream input, Token start, Token stop, RecognitionException e) {
-            return null;
-        }
-    }
 }
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2009, 2010 University of Paderborn
+ *
+ * This file is part of vMAGIC parser.
+ *
+ * vMAGIC is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * vMAGIC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with vMAGIC. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Authors: Ralf Fuest <rfuest@users.sourceforge.net>
+ *          Christopher Pohl <cpohl@users.sourceforge.net>
+ */
+package de.upb.hni.vmagic.parser;
+
+import de.upb.hni.vmagic.LibraryDeclarativeRegion;
+import de.upb.hni.vmagic.RootDeclarativeRegion;
+import de.upb.hni.vmagic.VhdlFile;
+import de.upb.hni.vmagic.parser.antlr.CommentIndex;
+import de.upb.hni.vmagic.parser.antlr.MetaClassCreator;
+import de.upb.hni.vmagic.parser.antlr.TreeAdaptorWithoutErrorNodes;
+import de.upb.hni.vmagic.parser.antlr.VhdlAntlrParser;
+import de.upb.hni.vmagic.parser.util.CaseInsensitiveInputStream;
+import de.upb.hni.vmagic.parser.util.CaseInsensitiveStringStream;
+import java.io.IOException;
+import java.io.InputStream;
+import org.antlr.runtime.CharStream;
+import org.antlr.runtime.CommonTokenStream;
+import org.antlr.runtime.Lexer;
+
+/**
+ * Reusable parser session.
+ * A parser session creates the lexer, the token stream, the parser and the
+ * meta class creator once and reuses them for every input. The token buffer
+ * and the memoization tables of the parser are cleared between two inputs
+ * instead of being allocated again. This reduces the overhead of
+ * <code>VhdlParser.parseString</code> if many small inputs are parsed.
+ * <p>
+ * A parser session is not thread safe. Multithreaded applications should
+ * use one session per thread, for example by storing the sessions in a
+ * <code>ThreadLocal</code> or a pool. The objects of the last parsed input
+ * are kept by the session until the next input is parsed.
+ */
+public class VhdlParserSession {
+
+    private final VhdlParserSettings settings;
+    private final Lexer lexer;
+    private final CommonTokenStream tokens;
+    private final VhdlAntlrParser parser;
+    private final MetaClassCreator mcc;
+
+    /**
+     * Creates a parser session with the default settings.
+     */
+    public VhdlParserSession() {
+        this(new VhdlParserSettings());
+    }
+
+    /**
+     * Creates a parser session.
+     * @param settings the parser settings
+     */
+    public VhdlParserSession(VhdlParserSettings settings) {
+        this.settings = settings;
+
+        lexer = VhdlParser.createLexer(settings, null);
+
+        tokens = new CommonTokenStream();
+        parser = new VhdlAntlrParser(tokens);
+        parser.setTreeAdaptor(new TreeAdaptorWithoutErrorNodes());
+        mcc = new MetaClassCreator(null, settings, null, null);
+    }
+
+    /**
+     * Returns the settings of this session.
+     * @return the parser settings
+     */
+    public VhdlParserSettings getSettings() {
+        return settings;
+    }
+
+    /**
+     * Parses a string.
+     * @param str the VHDL source
+     * @return the parsed file
+     * @throws VhdlParserException if the string could not be parsed
+     */
+    public VhdlFile parseString(String str) throws VhdlParserException {
+        RootDeclarativeRegion rootScope = new RootDeclarativeRegion();
+        LibraryDeclarativeRegion libraryScope = new LibraryDeclarativeRegion("work");
+        rootScope.getLibraries().add(libraryScope);
+
+        return parseString(str, rootScope, libraryScope);
+    }
+
+    /**
+     * Parses a string.
+     * @param str the VHDL source
+     * @param rootScope the root declarative region
+     * @param libraryScope the library the file is added to
+     * @return the parsed file
+     * @throws VhdlParserException if the string could not be parsed
+     */
+    public VhdlFile parseString(String str, RootDeclarativeRegion rootScope,
+            LibraryDeclarativeRegion libraryScope) throws VhdlParserException {
+        return parse(new CaseInsensitiveStringStream(str), rootScope, libraryScope);
+    }
+
+    /**
+     * Parses a stream.
+     * @param stream the input stream
+     * @return the parsed file
+     * @throws IOException if the stream could not be read
+     * @throws VhdlParserException if the stream could not be parsed
+     */
+    public VhdlFile parseStream(InputStream stream) throws IOException, VhdlParserException {
+        RootDeclarativeRegion rootScope = new RootDeclarativeRegion();
+        LibraryDeclarativeRegion libraryScope = new LibraryDeclarativeRegion("work");
+        rootScope.getLibraries().add(libraryScope);
+
+        return parseStream(stream, rootScope, libraryScope);
+    }
+
+    /**
+     * Parses a stream.
+     * @param stream the input stream
+     * @param rootScope the root declarative region
+     * @param libraryScope the library the file is added to
+     * @return the parsed file
+     * @throws IOException if the stream could not be read
+     * @throws VhdlParserException if the stream could not be parsed
+     */
+    public VhdlFile parseStream(InputStream stream, RootDeclarativeRegion rootScope,
+            LibraryDeclarativeRegion libraryScope) throws IOException, VhdlParserException {
+        return parse(new CaseInsensitiveInputStream(stream), rootScope, libraryScope);
+    }
+
+    private VhdlFile parse(CharStream stream, RootDeclarativeRegion rootScope,
+            LibraryDeclarativeRegion libraryScope) throws VhdlParserException {
+        lexer.setCharStream(stream);
+        CommentIndex comments = settings.isParseComments() ? new CommentIndex(lexer) : null;
+        tokens.setTokenSource(comments != null ? comments : lexer);
+        parser.reuse(tokens);
+
+        SyntaxTree syntaxTree = VhdlParser.createSyntaxTree(settings, stream, tokens, parser, comments);
+        return VhdlParser.createMetaClasses(settings, syntaxTree, rootScope, libraryScope, mcc);
+    }
+}
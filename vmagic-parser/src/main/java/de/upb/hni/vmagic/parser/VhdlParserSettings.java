@@ -22,6 +22,8 @@
 package de.upb.hni.vmagic.parser;
 
 import de.upb.hni.vmagic.parser.annotation.PositionInformation;
+import de.upb.hni.vmagic.parser.annotation.SourcePositions;
+import java.io.File;
 
 /**
  * Parser settings.
@@ -32,14 +34,26 @@ public class VhdlParserSettings {
     private boolean printErrors;
     private boolean emitResolveErrors;
     private boolean addPositionInformation;
+    private boolean packedSourcePositions;
     private boolean parseComments;
+    private boolean memoryMapFiles;
+    private boolean lazyBodies;
+    private boolean fastLexer;
+    private File cacheDirectory;
+    private ParseMetricsListener metricsListener;
 
     public VhdlParserSettings() {
         printErrors = true;
         createDummyObjects = true;
         emitResolveErrors = false;
         addPositionInformation = false;
+        packedSourcePositions = false;
         parseComments = false;
+        memoryMapFiles = false;
+        lazyBodies = false;
+        fastLexer = false;
+        cacheDirectory = null;
+        metricsListener = null;
     }
 
     /**
@@ -86,14 +100,41 @@ public class VhdlParserSettings {
     /**
      * Sets if informations about the position in the source file should be stored in the meta
      * class instances. A <code>PositionInformation</code> annotation is used to store this
-     * information.
+     * information, unless packed source positions are enabled.
      * @param addPositionInformation <code>true</code>, if the position should be stores
      * @see PositionInformation
+     * @see #setPackedSourcePositions(boolean)
      */
     public void setAddPositionInformation(boolean addPositionInformation) {
         this.addPositionInformation = addPositionInformation;
     }
 
+    /**
+     * Returns if the positions of the meta class instances are stored in a packed table
+     * instead of annotations of the instances.
+     * @return <code>true</code>, if the positions are stored in a packed table
+     */
+    public boolean isPackedSourcePositions() {
+        return packedSourcePositions;
+    }
+
+    /**
+     * Sets if the positions of the meta class instances are stored in a packed table instead
+     * of <code>PositionInformation</code> annotations of the instances. This setting is only
+     * used if position information is enabled. The positions of all meta class instances in a
+     * file are stored in a <code>SourcePositions</code> annotation of the <code>VhdlFile</code>,
+     * which uses less memory than an annotation for every instance. The positions must be
+     * queried with <code>SourcePositions.getPosition</code>, which uses the column of the last
+     * character as the end column. In streaming mode the table keeps all design units of the
+     * file alive, including the units which were passed to the listener.
+     * @param packedSourcePositions <code>true</code>, if the positions should be stored in a
+     *        packed table
+     * @see SourcePositions
+     */
+    public void setPackedSourcePositions(boolean packedSourcePositions) {
+        this.packedSourcePositions = packedSourcePositions;
+    }
+
     /**
      * Returns if error messages should be printed to stderr.
      * @return <code>true</code>, if error messages should be printed to stderr
@@ -127,4 +168,111 @@ public class VhdlParserSettings {
     public void setParseComments(boolean parseComments) {
         this.parseComments = parseComments;
     }
+
+    /**
+     * Returns if input files are memory mapped instead of being read into memory.
+     * @return <code>true</code>, if input files are memory mapped
+     */
+    public boolean isMemoryMapFiles() {
+        return memoryMapFiles;
+    }
+
+    /**
+     * Sets if input files should be memory mapped instead of being read into memory.
+     * Memory mapped files are decoded as ISO-8859-1, the character set used by VHDL,
+     * instead of the default character set of the platform.
+     * @param memoryMapFiles <code>true</code>, if input files should be memory mapped
+     * @see de.upb.hni.vmagic.parser.util.CaseInsensitiveMappedFileStream
+     */
+    public void setMemoryMapFiles(boolean memoryMapFiles) {
+        this.memoryMapFiles = memoryMapFiles;
+    }
+
+    /**
+     * Returns if the content of architectures and package bodies is created
+     * when it is accessed for the first time.
+     * @return <code>true</code>, if the content of bodies is created on first access
+     */
+    public boolean isLazyBodies() {
+        return lazyBodies;
+    }
+
+    /**
+     * Sets if the content of architectures and package bodies should be created
+     * when it is accessed for the first time. The parser skips the tokens inside
+     * architectures and package bodies and only keeps the source text of these
+     * units. The text is parsed when the declarations, statements or the scope
+     * are accessed. Syntax errors and resolve errors in a body are reported and
+     * added to the <code>ParseErrors</code> annotation of the file when the body
+     * is created.
+     * @param lazyBodies <code>true</code>, if the content of bodies should be created
+     *        on first access
+     * @see de.upb.hni.vmagic.libraryunit.BodyLoader
+     */
+    public void setLazyBodies(boolean lazyBodies) {
+        this.lazyBodies = lazyBodies;
+    }
+
+    /**
+     * Returns if the hand written lexer is used instead of the lexer generated by ANTLR.
+     * @return <code>true</code>, if the hand written lexer is used
+     */
+    public boolean isFastLexer() {
+        return fastLexer;
+    }
+
+    /**
+     * Sets if the hand written lexer should be used instead of the lexer generated by ANTLR.
+     * Both lexers create the same tokens for valid input, but the hand written lexer
+     * doesn't need to evaluate predicates and creates no token text. Error messages for
+     * invalid input may differ.
+     * @param fastLexer <code>true</code>, if the hand written lexer should be used
+     * @see de.upb.hni.vmagic.parser.antlr.VhdlFastLexer
+     */
+    public void setFastLexer(boolean fastLexer) {
+        this.fastLexer = fastLexer;
+    }
+
+    /**
+     * Returns the directory which is used to cache parsed files.
+     * @return the cache directory, or <code>null</code> if parsed files aren't cached
+     */
+    public File getCacheDirectory() {
+        return cacheDirectory;
+    }
+
+    /**
+     * Sets the directory which is used to cache parsed files.
+     * If a cache directory is set, <code>VhdlParser.parseFile</code> stores the
+     * parsed files in a binary format and loads them from the cache instead of
+     * parsing them again if neither the file content nor the parser settings have
+     * changed. The cache isn't used in streaming mode or if the content of bodies
+     * is created lazily. <code>parseFile</code> throws an <code>IOException</code>
+     * if a parsed file could not be stored in the cache.
+     * @param cacheDirectory the cache directory, or <code>null</code> to disable caching
+     * @see de.upb.hni.vmagic.util.VhdlSerializer
+     */
+    public void setCacheDirectory(File cacheDirectory) {
+        this.cacheDirectory = cacheDirectory;
+    }
+
+    /**
+     * Returns the listener which receives the metrics of the parsed files.
+     * @return the metrics listener, or <code>null</code> if no metrics are collected
+     */
+    public ParseMetricsListener getMetricsListener() {
+        return metricsListener;
+    }
+
+    /**
+     * Sets the listener which receives the metrics of the parsed files.
+     * The metrics are only collected if a listener is set. The listener doesn't
+     * influence the created meta classes.
+     * @param metricsListener the metrics listener, or <code>null</code> to disable
+     *        the metrics
+     * @see ParseMetrics
+     */
+    public void setMetricsListener(ParseMetricsListener metricsListener) {
+        this.metricsListener = metricsListener;
+    }
 }
@@ -0,0 +1,255 @@
+/*
+ * Copyright 2009, 2010 University of Paderborn
+ *
+ * This file is part of vMAGIC parser.
+ *
+ * vMAGIC is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * vMAGIC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with vMAGIC. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Authors: Ralf Fuest <rfuest@users.sourceforge.net>
+ *          Christopher Pohl <cpohl@users.sourceforge.net>
+ */
+package de.upb.hni.vmagic.parser;
+
+import de.upb.hni.vmagic.LibraryDeclarativeRegion;
+import de.upb.hni.vmagic.RootDeclarativeRegion;
+import de.upb.hni.vmagic.VhdlFile;
+import de.upb.hni.vmagic.util.Identifiers;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Parser for multiple VHDL files.
+ * The files are parsed in two passes. The syntax trees of all files are
+ * created concurrently on a fork join pool. Afterwards the meta class
+ * instances are created sequentially in dependency order, so that references
+ * to entities and packages in other files can be resolved. Files which depend
+ * on each other in a cycle are processed in the order in which they were
+ * passed to the parser.
+ */
+public class VhdlProjectParser {
+
+    private static final VhdlParserSettings DEFAULT_SETTINGS = new VhdlParserSettings();
+
+    /**
+     * Prevent instantiation.
+     */
+    private VhdlProjectParser() {
+    }
+
+    /**
+     * Parses files into a new root declarative region.
+     * @param files a map from library names to the files in each library
+     * @return a map from file names to the parsed files
+     * @throws IOException if a file could not be read
+     * @throws VhdlParserException if a file could not be parsed
+     */
+    public static Map<String, VhdlFile> parseFiles(Map<String, ? extends Collection<String>> files)
+            throws IOException, VhdlParserException {
+        return parseFiles(files, DEFAULT_SETTINGS, new RootDeclarativeRegion());
+    }
+
+    /**
+     * Parses files into a root declarative region using the common fork join pool.
+     * Libraries that don't exist in the root declarative region are created.
+     * @param files a map from library names to the files in each library
+     * @param settings the parser settings
+     * @param rootScope the root declarative region
+     * @return a map from file names to the parsed files
+     * @throws IOException if a file could not be read
+     * @throws VhdlParserException if a file could not be parsed
+     */
+    public static Map<String, VhdlFile> parseFiles(Map<String, ? extends Collection<String>> files,
+            VhdlParserSettings settings, RootDeclarativeRegion rootScope)
+            throws IOException, VhdlParserException {
+        return parseFiles(files, settings, rootScope, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Parses files into a root declarative region.
+     * Libraries that don't exist in the root declarative region are created.
+     * @param files a map from library names to the files in each library
+     * @param settings the parser settings
+     * @param rootScope the root declarative region
+     * @param pool the fork join pool which is used to create the syntax trees
+     * @return a map from file names to the parsed files
+     * @throws IOException if a file could not be read
+     * @throws VhdlParserException if a file could not be parsed
+     */
+    public static Map<String, VhdlFile> parseFiles(Map<String, ? extends Collection<String>> files,
+            VhdlParserSettings settings, RootDeclarativeRegion rootScope, ForkJoinPool pool)
+            throws IOException, VhdlParserException {
+        final List<SourceFile> sources = new ArrayList<SourceFile>();
+        Set<String> libraryNames = new HashSet<String>();
+        for (Map.Entry<String, ? extends Collection<String>> entry : files.entrySet()) {
+            libraryNames.add(Identifiers.getKey(entry.getKey()));
+            LibraryDeclarativeRegion library = getLibrary(rootScope, entry.getKey());
+            for (String fileName : entry.getValue()) {
+                sources.add(new SourceFile(sources.size(), fileName, library, libraryNames, settings));
+            }
+        }
+
+        pool.invoke(new RecursiveAction() {
+
+            @Override
+            protected void compute() {
+                invokeAll(sources);
+            }
+        });
+
+        for (SourceFile source : sources) {
+            if (source.ioException != null) {
+                throw source.ioException;
+            }
+            if (source.parserException != null) {
+                throw source.parserException;
+            }
+        }
+
+        Map<String, VhdlFile> result = new LinkedHashMap<String, VhdlFile>();
+        for (SourceFile source : sort(sources)) {
+            source.file = VhdlParser.createMetaClasses(settings, source.syntaxTree,
+                    rootScope, source.library);
+            source.syntaxTree = null;
+        }
+        for (SourceFile source : sources) {
+            result.put(source.fileName, source.file);
+        }
+
+        return result;
+    }
+
+    private static LibraryDeclarativeRegion getLibrary(RootDeclarativeRegion rootScope, String name) {
+        for (LibraryDeclarativeRegion library : rootScope.getLibraries()) {
+            if (library.getIdentifier().equalsIgnoreCase(name)) {
+                return library;
+            }
+        }
+
+        LibraryDeclarativeRegion library = new LibraryDeclarativeRegion(name);
+        rootScope.getLibraries().add(library);
+        return library;
+    }
+
+    /**
+     * Sorts the files in dependency order. If the remaining files depend on
+     * each other the file with the lowest index is used next.
+     */
+    private static List<SourceFile> sort(List<SourceFile> sources) {
+        Map<String, SourceFile> providers = new HashMap<String, SourceFile>();
+        for (SourceFile source : sources) {
+            for (String unit : source.dependencies.getProvidedUnits()) {
+                if (!providers.containsKey(unit)) {
+                    providers.put(unit, source);
+                }
+            }
+        }
+
+        for (SourceFile source : sources) {
+            for (String unit : source.dependencies.getRequiredUnits()) {
+                SourceFile provider = providers.get(unit);
+                if (provider != null && provider != source && provider.dependants.add(source)) {
+                    source.dependencyCount++;
+                }
+            }
+        }
+
+        List<SourceFile> sorted = new ArrayList<SourceFile>(sources.size());
+        PriorityQueue<SourceFile> ready = new PriorityQueue<SourceFile>();
+        PriorityQueue<SourceFile> waiting = new PriorityQueue<SourceFile>(sources);
+        for (SourceFile source : sources) {
+            if (source.dependencyCount == 0) {
+                ready.add(source);
+            }
+        }
+
+        while (sorted.size() < sources.size()) {
+            SourceFile next = ready.poll();
+            if (next == null) {
+                //dependency cycle
+                next = waiting.peek();
+            }
+
+            next.sorted = true;
+            waiting.remove(next);
+            sorted.add(next);
+
+            for (SourceFile dependant : next.dependants) {
+                dependant.dependencyCount--;
+                if (dependant.dependencyCount == 0 && !dependant.sorted) {
+                    ready.add(dependant);
+                }
+            }
+        }
+
+        return sorted;
+    }
+
+    /**
+     * A file that is parsed by the project parser.
+     * The syntax tree and the dependencies are created in <code>compute</code>.
+     */
+    private static class SourceFile extends RecursiveAction implements Comparable<SourceFile> {
+
+        private final int index;
+        private final String fileName;
+        private final LibraryDeclarativeRegion library;
+        private final VhdlParserSettings settings;
+        private final UnitDependencies dependencies;
+        private final Set<SourceFile> dependants = new HashSet<SourceFile>();
+        private int dependencyCount;
+        private boolean sorted;
+        private SyntaxTree syntaxTree;
+        private VhdlFile file;
+        private IOException ioException;
+        private VhdlParserException parserException;
+
+        public SourceFile(int index, String fileName, LibraryDeclarativeRegion library,
+                Set<String> libraryNames, VhdlParserSettings settings) {
+            this.index = index;
+            this.fileName = fileName;
+            this.library = library;
+            this.settings = settings;
+            this.dependencies = new UnitDependencies(library.getIdentifier(), libraryNames);
+        }
+
+        @Override
+        protected void compute() {
+            try {
+                syntaxTree = VhdlParser.createSyntaxTree(settings, VhdlParser.createFileStream(fileName, settings));
+            } catch (IOException ex) {
+                ioException = ex;
+                return;
+            } catch (VhdlParserException ex) {
+                parserException = ex;
+                return;
+            }
+
+            dependencies.addTree(syntaxTree.getTree());
+        }
+
+        public int compareTo(SourceFile o) {
+            return index < o.index ? -1 : (index == o.index ? 0 : 1);
+        }
+    }
+}
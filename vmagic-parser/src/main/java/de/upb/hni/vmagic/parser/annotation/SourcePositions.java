@@ -0,0 +1,409 @@
+/*
+ * Copyright 2009, 2010 University of Paderborn
+ *
+ * This file is part of vMAGIC parser.
+ *
+ * vMAGIC is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * vMAGIC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with vMAGIC. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Authors: Ralf Fuest <rfuest@users.sourceforge.net>
+ *          Christopher Pohl <cpohl@users.sourceforge.net>
+ */
+
+package de.upb.hni.vmagic.parser.annotation;
+
+import de.upb.hni.vmagic.VhdlElement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.antlr.runtime.CharStream;
+
+/**
+ * Source positions annotation.
+ * The source positions annotation is used to store the positions of all meta
+ * class instances of a parsed file in a <code>VhdlFile</code> instance. The
+ * begin and end offsets of the elements are stored in packed arrays, line
+ * and column numbers are computed on demand from a table of line start
+ * offsets.
+ * <p>
+ * The positions can also be queried by offset, which returns the elements
+ * whose source text contains a given character. The positions of the
+ * elements of a parsed file are nested, because they are derived from the
+ * syntax tree.
+ * <p>
+ * The parser only creates this annotation if packed source positions are
+ * enabled in the parser settings, otherwise every element gets a
+ * <code>PositionInformation</code> annotation.
+ */
+public final class SourcePositions {
+
+    private static final int INITIAL_CAPACITY = 64;
+    private int[] lineStarts = new int[] {0};
+    private int lineCount = 1;
+    private VhdlElement[] elements = new VhdlElement[INITIAL_CAPACITY];
+    private int[] begins = new int[INITIAL_CAPACITY];
+    private int[] ends = new int[INITIAL_CAPACITY];
+    private int size;
+    //the index is created when it is used for the first time and discarded
+    //if the positions are changed
+    private transient volatile Index index;
+
+    /**
+     * Creates an empty source positions annotation.
+     */
+    public SourcePositions() {
+    }
+
+    /**
+     * Creates an empty source positions annotation for a source.
+     * @param stream the source
+     */
+    public SourcePositions(CharStream stream) {
+        setSource(stream);
+    }
+
+    /**
+     * Updates the line start table for a new version of the source.
+     * @param stream the source
+     */
+    public void setSource(CharStream stream) {
+        int[] starts = new int[64];
+        int count = 1;
+        int length = stream.size();
+
+        //the source is read in chunks to avoid copying large inputs
+        for (int chunk = 0; chunk < length; chunk += 4096) {
+            String s = stream.substring(chunk, Math.min(chunk + 4096, length) - 1);
+            for (int i = s.indexOf('\n'); i != -1; i = s.indexOf('\n', i + 1)) {
+                if (count == starts.length) {
+                    starts = grow(starts);
+                }
+                starts[count++] = chunk + i + 1;
+            }
+        }
+
+        lineStarts = starts;
+        lineCount = count;
+    }
+
+    /**
+     * Adds the position of an element. If the element was added before the
+     * new position replaces the old one.
+     * @param element the element
+     * @param begin the index of the first character of the element
+     * @param end the index of the last character of the element
+     */
+    public void add(VhdlElement element, int begin, int end) {
+        if (size == elements.length) {
+            int capacity = size + (size >> 1);
+            VhdlElement[] newElements = new VhdlElement[capacity];
+            System.arraycopy(elements, 0, newElements, 0, size);
+            elements = newElements;
+            begins = copyOf(begins, capacity);
+            ends = copyOf(ends, capacity);
+        }
+
+        elements[size] = element;
+        begins[size] = begin;
+        ends[size] = end;
+        size++;
+        index = null;
+    }
+
+    /**
+     * Adds all positions of another source positions annotation.
+     * @param positions the positions
+     */
+    public void addAll(SourcePositions positions) {
+        for (int i = 0; i < positions.size; i++) {
+            add(positions.elements[i], positions.begins[i], positions.ends[i]);
+        }
+    }
+
+    /**
+     * Removes the positions of all elements that begin in the given range.
+     * @param begin the first index of the range
+     * @param end the index after the last index of the range
+     */
+    public void removeRange(int begin, int end) {
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (begins[i] < begin || begins[i] >= end) {
+                elements[count] = elements[i];
+                begins[count] = begins[i];
+                ends[count] = ends[i];
+                count++;
+            }
+        }
+
+        for (int i = count; i < size; i++) {
+            elements[i] = null;
+        }
+        size = count;
+        index = null;
+    }
+
+    /**
+     * Moves the positions of all elements that begin at or after an offset.
+     * @param offset the offset
+     * @param delta the number of characters the elements are moved
+     */
+    public void shift(int offset, int delta) {
+        if (delta == 0) {
+            return;
+        }
+
+        for (int i = 0; i < size; i++) {
+            if (begins[i] >= offset) {
+                begins[i] += delta;
+                ends[i] += delta;
+            }
+        }
+        index = null;
+    }
+
+    /**
+     * Returns the number of stored positions.
+     * @return the number of positions
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the position of an element.
+     * Unlike the <code>PositionInformation</code> annotations of the elements
+     * the end column is the column of the last character of the element and
+     * not the column of the first character of its last token.
+     * @param element the element
+     * @return the position or <code>null</code>, if the position of the element is unknown
+     */
+    public PositionInformation getPosition(VhdlElement element) {
+        int slot = getIndex().find(element);
+        if (slot == -1) {
+            return null;
+        }
+
+        return new PositionInformation(getSourcePosition(begins[slot]),
+                getSourcePosition(ends[slot]));
+    }
+
+    /**
+     * Returns the line, column and index of a character.
+     * @param index the index of the character
+     * @return the source position
+     */
+    public SourcePosition getSourcePosition(int index) {
+        int line = findLine(index);
+        return new SourcePosition(line + 1, index - lineStarts[line], index);
+    }
+
+    /**
+     * Returns the line of a character.
+     * @param index the index of the character
+     * @return the line, starting at 1
+     */
+    public int getLine(int index) {
+        return findLine(index) + 1;
+    }
+
+    /**
+     * Returns the column of a character.
+     * @param index the index of the character
+     * @return the column, starting at 0
+     */
+    public int getColumn(int index) {
+        return index - lineStarts[findLine(index)];
+    }
+
+    /**
+     * Returns the innermost element that contains a character.
+     * @param index the index of the character
+     * @return the element or <code>null</code>, if no element contains the character
+     */
+    public VhdlElement getElementAt(int index) {
+        Index i = getIndex();
+        int position = i.findCovering(index);
+        return position == -1 ? null : elements[i.order[position]];
+    }
+
+    /**
+     * Returns all elements that contain a character.
+     * @param index the index of the character
+     * @return the elements, from the outermost to the innermost element
+     */
+    public List<VhdlElement> getElementsAt(int index) {
+        Index i = getIndex();
+        List<VhdlElement> result = new ArrayList<VhdlElement>();
+        for (int position = i.findCovering(index); position != -1; position = i.parents[position]) {
+            result.add(elements[i.order[position]]);
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    private int findLine(int index) {
+        int low = 0;
+        int high = lineCount - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (lineStarts[middle] <= index) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+    private Index getIndex() {
+        Index i = index;
+        if (i == null) {
+            i = new Index();
+            index = i;
+        }
+        return i;
+    }
+
+    private static int[] grow(int[] array) {
+        return copyOf(array, array.length + (array.length >> 1));
+    }
+
+    private static int[] copyOf(int[] array, int length) {
+        int[] copy = new int[length];
+        System.arraycopy(array, 0, copy, 0, Math.min(array.length, length));
+        return copy;
+    }
+
+    /**
+     * Lookup structures for the stored positions.
+     * The hash table maps elements to their slot in the packed arrays. The
+     * interval index contains the slots ordered by begin offset and, for
+     * every entry, the position of the innermost entry that contains it.
+     */
+    private final class Index {
+
+        private final int[] table;
+        private final int mask;
+        private final int[] order;
+        private final int[] parents;
+
+        public Index() {
+            int capacity = Integer.highestOneBit(Math.max(size, 8) * 2 - 1) << 1;
+            table = new int[capacity];
+            mask = capacity - 1;
+            for (int slot = 0; slot < size; slot++) {
+                int i = hash(elements[slot]);
+                while (table[i] != 0 && elements[table[i] - 1] != elements[slot]) {
+                    i = (i + 1) & mask;
+                }
+                //a later position of the same element replaces the earlier one
+                table[i] = slot + 1;
+            }
+
+            order = new int[size];
+            for (int slot = 0; slot < size; slot++) {
+                order[slot] = slot;
+            }
+            sort(order, new int[size], 0, size);
+
+            parents = new int[size];
+            int[] stack = new int[size];
+            int depth = 0;
+            for (int position = 0; position < size; position++) {
+                int begin = begins[order[position]];
+                while (depth > 0 && ends[order[stack[depth - 1]]] < begin) {
+                    depth--;
+                }
+                parents[position] = depth > 0 ? stack[depth - 1] : -1;
+                stack[depth++] = position;
+            }
+        }
+
+        private int hash(VhdlElement element) {
+            int h = System.identityHashCode(element);
+            return (h ^ (h >>> 16)) & mask;
+        }
+
+        public int find(VhdlElement element) {
+            for (int i = hash(element); table[i] != 0; i = (i + 1) & mask) {
+                if (elements[table[i] - 1] == element) {
+                    return table[i] - 1;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Returns the position of the innermost entry that contains an index.
+         */
+        public int findCovering(int index) {
+            //last entry that begins at or before the index
+            int low = 0;
+            int high = size - 1;
+            int position = -1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                if (begins[order[middle]] <= index) {
+                    position = middle;
+                    low = middle + 1;
+                } else {
+                    high = middle - 1;
+                }
+            }
+
+            while (position != -1 && ends[order[position]] < index) {
+                position = parents[position];
+            }
+            return position;
+        }
+
+        /**
+         * Sorts slots by ascending begin and descending end offset, so that
+         * an enclosing entry is placed before the entries it contains.
+         */
+        private void sort(int[] a, int[] tmp, int from, int to) {
+            if (to - from < 2) {
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+            sort(a, tmp, from, middle);
+            sort(a, tmp, middle, to);
+
+            int i = from;
+            int j = middle;
+            int k = from;
+            while (i < middle && j < to) {
+                tmp[k++] = compare(a[j], a[i]) < 0 ? a[j++] : a[i++];
+            }
+            while (i < middle) {
+                tmp[k++] = a[i++];
+            }
+            while (j < to) {
+                tmp[k++] = a[j++];
+            }
+            System.arraycopy(tmp, from, a, from, to - from);
+        }
+
+        private int compare(int slot1, int slot2) {
+            if (begins[slot1] != begins[slot2]) {
+                return begins[slot1] < begins[slot2] ? -1 : 1;
+            }
+            if (ends[slot1] != ends[slot2]) {
+                return ends[slot1] > ends[slot2] ? -1 : 1;
+            }
+            return slot1 < slot2 ? -1 : (slot1 == slot2 ? 0 : 1);
+        }
+    }
+}
@@ -26,15 +26,23 @@ import de.upb.hni.vmagic.DeclarativeRegion;
 import de.upb.hni.vmagic.LibraryDeclarativeRegion;
 import de.upb.hni.vmagic.RootDeclarativeRegion;
 import de.upb.hni.vmagic.VhdlElement;
+import de.upb.hni.vmagic.VhdlFile;
+import de.upb.hni.vmagic.annotation.CommentAnnotationAfter;
+import de.upb.hni.vmagic.annotation.CommentAnnotationBefore;
+import de.upb.hni.vmagic.concurrent.ConcurrentStatement;
 import de.upb.hni.vmagic.declaration.DeclarativeItemMarker;
+import de.upb.hni.vmagic.libraryunit.Architecture;
+import de.upb.hni.vmagic.libraryunit.BodyLoader;
+import de.upb.hni.vmagic.libraryunit.LibraryUnit;
+import de.upb.hni.vmagic.libraryunit.PackageBody;
+import de.upb.hni.vmagic.parser.DesignUnitListener;
 import de.upb.hni.vmagic.parser.VhdlParserSettings;
 import de.upb.hni.vmagic.parser.ParseError;
 import de.upb.hni.vmagic.parser.annotation.PositionInformation;
 import de.upb.hni.vmagic.parser.annotation.SourcePosition;
-import de.upb.hni.vmagic.util.Comments;
+import de.upb.hni.vmagic.parser.annotation.SourcePositions;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.LinkedList;
 import java.util.List;
 import org.antlr.runtime.CommonToken;
 import org.antlr.runtime.RecognizerSharedState;
@@ -53,8 +61,16 @@ class AbstractMetaClassCreator extends TreeParser {
     private final List<ParseError> errors = new ArrayList<ParseError>();
     protected DeclarativeRegion currentScope;
     protected final VhdlParserSettings settings;
-    protected final LibraryDeclarativeRegion libraryScope;
-    protected final RootDeclarativeRegion rootScope;
+    protected LibraryDeclarativeRegion libraryScope;
+    protected RootDeclarativeRegion rootScope;
+    private DesignUnitListener listener;
+    private SourcePositions sourcePositions;
+    private List<VhdlElement> positionElements;
+    private CommentIndex commentIndex;
+    private boolean collectMetrics;
+    private int resolveCount;
+    private int resolveMissCount;
+    private int dummyObjectCount;
 
     public AbstractMetaClassCreator(TreeNodeStream input, RecognizerSharedState state) {
         super(input, state);
@@ -74,16 +90,174 @@ class AbstractMetaClassCreator extends TreeParser {
         this.libraryScope = libraryScope;
     }
 
+    /**
+     * Prepares the meta class creator for a new syntax tree. This allows
+     * a meta class creator to be reused for multiple inputs. The errors of
+     * the previous input are discarded.
+     * @param input the tree node stream of the new syntax tree
+     * @param rootScope the root declarative region
+     * @param libraryScope the library the created file is added to
+     */
+    public void reuse(TreeNodeStream input, RootDeclarativeRegion rootScope,
+            LibraryDeclarativeRegion libraryScope) {
+        setTreeNodeStream(input);
+        this.rootScope = rootScope;
+        this.libraryScope = libraryScope;
+        currentScope = null;
+        errors.clear();
+    }
+
+    /**
+     * Sets if the meta class creator counts the resolved names and the
+     * created dummy objects.
+     * @param collectMetrics <code>true</code>, if the metrics should be collected
+     */
+    public void setCollectMetrics(boolean collectMetrics) {
+        this.collectMetrics = collectMetrics;
+        resolveCount = 0;
+        resolveMissCount = 0;
+        dummyObjectCount = 0;
+    }
+
+    /**
+     * Returns the number of names the meta class creator tried to resolve.
+     * @return the number of resolve calls
+     */
+    public int getResolveCount() {
+        return resolveCount;
+    }
+
+    /**
+     * Returns the number of names which couldn't be resolved.
+     * @return the number of resolve misses
+     */
+    public int getResolveMissCount() {
+        return resolveMissCount;
+    }
+
+    /**
+     * Returns the number of dummy objects which were created for names
+     * which couldn't be resolved.
+     * @return the number of dummy objects
+     */
+    public int getDummyObjectCount() {
+        return dummyObjectCount;
+    }
+
+    void resolved(Object result) {
+        if (collectMetrics) {
+            resolveCount++;
+            if (result == null) {
+                resolveMissCount++;
+            }
+        }
+    }
+
+    void dummyObjectCreated() {
+        if (collectMetrics) {
+            dummyObjectCount++;
+        }
+    }
+
     protected VhdlParserSettings getSettings() {
         return settings;
     }
 
+    /**
+     * Sets the listener that is used in streaming mode.
+     * @param listener the listener or <code>null</code> to add all library
+     *        units to the parsed file
+     */
+    public void setDesignUnitListener(DesignUnitListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Sets the source positions annotation to which the positions of the
+     * created elements are added.
+     * @param sourcePositions the source positions or <code>null</code>, if the
+     *        positions should be stored in annotations of the elements or
+     *        not at all
+     */
+    public void setSourcePositions(SourcePositions sourcePositions) {
+        this.sourcePositions = sourcePositions;
+    }
+
+    /**
+     * Sets the list to which the elements are added that get a position annotation.
+     * The list is used to update the positions after an incremental parse.
+     * @param positionElements the list or <code>null</code>
+     */
+    public void setPositionElements(List<VhdlElement> positionElements) {
+        this.positionElements = positionElements;
+    }
+
+    /**
+     * Sets the comment index of the token stream which is used to add the
+     * comment annotations.
+     * @param commentIndex the comment index or <code>null</code>, if no
+     *        comments should be stored
+     */
+    public void setCommentIndex(CommentIndex commentIndex) {
+        this.commentIndex = commentIndex;
+    }
+
+    protected void addLibraryUnit(VhdlFile file, LibraryUnit libraryUnit, CommonTree tree) {
+        if (settings.isLazyBodies() && (libraryUnit instanceof Architecture || libraryUnit instanceof PackageBody)) {
+            CommonToken start = (CommonToken) input.getTokenStream().get(tree.getTokenStartIndex());
+            CommonToken stop = (CommonToken) input.getTokenStream().get(tree.getTokenStopIndex());
+            BodyLoader loader = new DeferredBodyLoader(settings, rootScope, libraryScope, libraryUnit,
+                    start, stop);
+            if (libraryUnit instanceof Architecture) {
+                ((Architecture) libraryUnit).setBodyLoader(loader);
+            } else {
+                ((PackageBody) libraryUnit).setBodyLoader(loader);
+            }
+        }
+
+        if (listener == null || libraryUnit == null) {
+            file.getElements().add(libraryUnit);
+            return;
+        }
+
+        //secondary units cannot be referenced by other design units
+        if (libraryUnit instanceof Architecture || libraryUnit instanceof PackageBody) {
+            libraryUnit.setParent(file);
+        } else {
+            file.getElements().add(libraryUnit);
+        }
+
+        listener.libraryUnitParsed(libraryUnit);
+    }
+
+    protected void addConcurrentStatement(Architecture architecture, ConcurrentStatement statement) {
+        if (listener != null && listener.isStreamConcurrentStatements() && statement != null) {
+            statement.setParent(architecture);
+            listener.concurrentStatementParsed(architecture, statement);
+        } else {
+            architecture.getStatements().add(statement);
+        }
+    }
+
+    /**
+     * Returns the text of a syntax tree node.
+     * The text is stored in the identifier table of the root declarative region,
+     * which makes sure that an identifier is only stored once.
+     * @param tree the syntax tree node
+     * @return the stored text
+     */
+    protected String intern(Tree tree) {
+        return rootScope.getIdentifierTable().intern(tree.getText());
+    }
+
     protected <T> T resolve(String identifier, Class<T> clazz) {
+        T result = null;
         if (currentScope != null) {
-            return currentScope.getScope().resolve(identifier, clazz);
+            result = currentScope.getScope().resolve(identifier, clazz);
         }
 
-        return null;
+        resolved(result);
+        return result;
     }
 
     private SourcePosition tokenToPosition(Token token, boolean start) {
@@ -112,31 +286,32 @@ class AbstractMetaClassCreator extends TreeParser {
         return Collections.unmodifiableList(errors);
     }
 
+    private void addPosition(VhdlElement element, CommonTree tree) {
+        TokenStream tokens = input.getTokenStream();
+        CommonToken start = (CommonToken) tokens.get(tree.getTokenStartIndex());
+        CommonToken stop = (CommonToken) tokens.get(tree.getTokenStopIndex());
+
+        sourcePositions.add(element, start.getStartIndex(), stop.getStopIndex());
+    }
+
     private void addPositionAnnotation(VhdlElement element, CommonTree tree) {
         PositionInformation info = treeToPosition(tree);
         Annotations.putAnnotation(element, PositionInformation.class, info);
+        if (positionElements != null) {
+            positionElements.add(element);
+        }
     }
 
     private void addCommentAnnotation(VhdlElement element, CommonTree tree) {
-        LinkedList<String> comments = null;
-
-        for (int i = tree.getTokenStartIndex() - 1; i >= 0; i--) {
-            Token t = input.getTokenStream().get(i);
-
-            if (t.getChannel() == VhdlAntlrLexer.CHANNEL_COMMENT) {
-                if (comments == null) {
-                    comments = new LinkedList<String>();
-                }
-
-                String text = t.getText().substring(2); //strip leading "--"
-                comments.addFirst(text);
-            } else if (t.getChannel() != VhdlAntlrLexer.HIDDEN) {
-                break;
-            }
+        if (tree.getTokenStartIndex() < 0) {
+            return;
         }
 
-        if (comments != null && !comments.isEmpty()) {
-            Comments.setComments(element, comments);
+        Token start = input.getTokenStream().get(tree.getTokenStartIndex());
+        List<String> comments = commentIndex.getCommentsBefore(start);
+        if (comments != null) {
+            Annotations.putAnnotation(element, CommentAnnotationBefore.class,
+                    new CommentAnnotationBefore(comments, false));
         }
     }
 
@@ -147,29 +322,15 @@ class AbstractMetaClassCreator extends TreeParser {
     }
 
     protected void addListEndComments(VhdlElement element, Tree tree) {
-        if (tree == null) {
+        if (commentIndex == null || tree == null || tree.getTokenStopIndex() < 0) {
             return;
         }
 
-        List<String> comments = null;
-
-        for (int i = tree.getTokenStopIndex() + 1; i < input.getTokenStream().size(); i++) {
-            Token t = input.getTokenStream().get(i);
-
-            if (t.getChannel() == VhdlAntlrLexer.CHANNEL_COMMENT) {
-                if (comments == null) {
-                    comments = new ArrayList<String>();
-                }
-
-                String text = t.getText().substring(2); //strip leading "--"
-                comments.add(text);
-            } else if (t.getChannel() != VhdlAntlrLexer.HIDDEN) {
-                break;
-            }
-        }
-
-        if (comments != null && !comments.isEmpty()) {
-            Comments.setCommentsAfter(element, comments);
+        Token stop = input.getTokenStream().get(tree.getTokenStopIndex());
+        List<String> comments = commentIndex.getCommentsAfter(stop);
+        if (comments != null) {
+            Annotations.putAnnotation(element, CommentAnnotationAfter.class,
+                    new CommentAnnotationAfter(comments, false));
         }
     }
 
@@ -178,11 +339,13 @@ class AbstractMetaClassCreator extends TreeParser {
             return;
         }
 
-        if (settings.isAddPositionInformation()) {
+        if (sourcePositions != null) {
+            addPosition(element, tree);
+        } else if (settings.isAddPositionInformation()) {
             addPositionAnnotation(element, tree);
         }
 
-        if (settings.isParseComments()) {
+        if (commentIndex != null) {
             addCommentAnnotation(element, tree);
         }
     }
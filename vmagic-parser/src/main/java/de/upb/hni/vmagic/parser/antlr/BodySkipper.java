@@ -0,0 +1,207 @@
+/*
+ * Copyright 2009, 2010, 2011 University of Paderborn
+ *
+ * This file is part of vMAGIC parser.
+ *
+ * vMAGIC is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * vMAGIC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with vMAGIC. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Authors: Ralf Fuest <rfuest@users.sourceforge.net>
+ *          Christopher Pohl <cpohl@users.sourceforge.net>
+ */
+package de.upb.hni.vmagic.parser.antlr;
+
+import org.antlr.runtime.Token;
+import org.antlr.runtime.TokenStream;
+
+/**
+ * Skips the declarations and statements of an architecture or a package body
+ * at the token level. The constructs which are closed by <code>END</code> are
+ * tracked on a stack and the body ends with the semicolon after the
+ * <code>END</code> which closes the body. Processes, blocks, generate
+ * statements and subprogram bodies own the next <code>BEGIN</code>, so that
+ * every construct is closed by exactly one <code>END</code>.
+ */
+final class BodySkipper {
+
+    //construct that owns the next BEGIN
+    private static final int BEGIN_OWNER = 0;
+    //construct without a BEGIN or which has seen its BEGIN
+    private static final int PLAIN = 1;
+    //if statement or if generate statement before THEN or GENERATE
+    private static final int IF = 2;
+    //subprogram specification which is followed by IS or a semicolon
+    private static final int SUBPROGRAM = 3;
+
+    private final TokenStream input;
+    private int[] stack = new int[16];
+    private int depth;
+    private int parenthesisDepth;
+    private int previous;
+
+    private BodySkipper(TokenStream input) {
+        this.input = input;
+    }
+
+    /**
+     * Skips the declarations and statements of an architecture or package
+     * body. The tokens up to and including the semicolon which ends the body
+     * are consumed.
+     * @param input the token stream, positioned after the first token of the
+     *        body, which follows the <code>IS</code> in the header
+     * @param architecture <code>true</code> for an architecture, which owns a
+     *        <code>BEGIN</code>, <code>false</code> for a package body
+     */
+    static void skip(TokenStream input, boolean architecture) {
+        BodySkipper skipper = new BodySkipper(input);
+        skipper.push(architecture ? BEGIN_OWNER : PLAIN);
+        skipper.previous = VhdlAntlrParser.IS;
+
+        int type = input.LA(-1);
+        while (!skipper.process(type)) {
+            type = input.LA(1);
+            if (type == Token.EOF) {
+                return;
+            }
+            input.consume();
+        }
+    }
+
+    /**
+     * Processes a consumed token.
+     * @return <code>true</code>, if the token was the end of the body
+     */
+    private boolean process(int type) {
+        switch (type) {
+            case VhdlAntlrParser.END:
+                depth--;
+                //the rest of the end is skipped: END [keyword] [identifier] ;
+                while (input.LA(1) != Token.EOF && input.LA(1) != VhdlAntlrParser.SEMI) {
+                    input.consume();
+                }
+                if (input.LA(1) == VhdlAntlrParser.SEMI) {
+                    input.consume();
+                }
+                previous = VhdlAntlrParser.SEMI;
+                return depth == 0;
+
+            case VhdlAntlrParser.LPAREN:
+                parenthesisDepth++;
+                break;
+
+            case VhdlAntlrParser.RPAREN:
+                if (parenthesisDepth > 0) {
+                    parenthesisDepth--;
+                }
+                break;
+
+            case VhdlAntlrParser.BEGIN:
+                if (top() == BEGIN_OWNER) {
+                    setTop(PLAIN);
+                }
+                break;
+
+            case VhdlAntlrParser.PROCESS:
+            case VhdlAntlrParser.BLOCK:
+                push(BEGIN_OWNER);
+                break;
+
+            case VhdlAntlrParser.GENERATE:
+                //the if of an if generate statement is replaced by the generate
+                if (top() == IF) {
+                    setTop(BEGIN_OWNER);
+                } else {
+                    push(BEGIN_OWNER);
+                }
+                break;
+
+            case VhdlAntlrParser.IF:
+                push(IF);
+                break;
+
+            case VhdlAntlrParser.THEN:
+                if (top() == IF) {
+                    setTop(PLAIN);
+                }
+                break;
+
+            case VhdlAntlrParser.CASE:
+            case VhdlAntlrParser.LOOP:
+            case VhdlAntlrParser.RECORD:
+                push(PLAIN);
+                break;
+
+            case VhdlAntlrParser.COMPONENT:
+            case VhdlAntlrParser.UNITS:
+                if (!isEntityClass()) {
+                    push(PLAIN);
+                }
+                break;
+
+            case VhdlAntlrParser.FUNCTION:
+            case VhdlAntlrParser.PROCEDURE:
+                if (!isEntityClass()) {
+                    push(SUBPROGRAM);
+                }
+                break;
+
+            case VhdlAntlrParser.IS:
+                if (top() == SUBPROGRAM && parenthesisDepth == 0) {
+                    setTop(BEGIN_OWNER);
+                }
+                break;
+
+            case VhdlAntlrParser.SEMI:
+                //subprogram declaration without a body
+                if (top() == SUBPROGRAM && parenthesisDepth == 0) {
+                    depth--;
+                }
+                break;
+
+            default:
+                break;
+        }
+
+        previous = type;
+        return false;
+    }
+
+    /**
+     * Returns if the current token is used as an entity class in an attribute
+     * specification or a group template or as the keyword in a component
+     * instantiation statement.
+     */
+    private boolean isEntityClass() {
+        return previous == VhdlAntlrParser.COLON || previous == VhdlAntlrParser.COMMA
+                || previous == VhdlAntlrParser.LPAREN;
+    }
+
+    private int top() {
+        return depth == 0 ? PLAIN : stack[depth - 1];
+    }
+
+    private void setTop(int kind) {
+        if (depth > 0) {
+            stack[depth - 1] = kind;
+        }
+    }
+
+    private void push(int kind) {
+        if (depth == stack.length) {
+            int[] newStack = new int[depth * 2];
+            System.arraycopy(stack, 0, newStack, 0, depth);
+            stack = newStack;
+        }
+        stack[depth++] = kind;
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2009, 2010 University of Paderborn
+ *
+ * This file is part of vMAGIC parser.
+ *
+ * vMAGIC is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * vMAGIC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with vMAGIC. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Authors: Ralf Fuest <rfuest@users.sourceforge.net>
+ *          Christopher Pohl <cpohl@users.sourceforge.net>
+ */
+
+package de.upb.hni.vmagic.parser.antlr;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import org.antlr.runtime.CharStream;
+import org.antlr.runtime.CommonToken;
+import org.antlr.runtime.Token;
+import org.antlr.runtime.TokenSource;
+
+/**
+ * Token source which indexes the comments of the lexed input.
+ * The comment tokens between two tokens on the default channel are stored
+ * as one comment run, which is associated with both surrounding tokens.
+ * This allows the meta class creator to look up the comments before and
+ * after an element without scanning the token stream.
+ * <p>
+ * The comment runs only store the offsets of the comments and read the
+ * text from the input when it is accessed. Therefore the runs keep the
+ * input alive until the comment annotations are accessed for the first time.
+ */
+public class CommentIndex implements TokenSource {
+
+    private final TokenSource source;
+    private final boolean copyText;
+    private final Map<Token, List<String>> commentsBefore = new IdentityHashMap<Token, List<String>>();
+    private final Map<Token, List<String>> commentsAfter = new IdentityHashMap<Token, List<String>>();
+    private final List<CommonToken> pendingComments = new ArrayList<CommonToken>();
+    private Token previousToken;
+
+    /**
+     * Creates a comment index.
+     * @param source the lexer
+     */
+    public CommentIndex(TokenSource source) {
+        this(source, false);
+    }
+
+    /**
+     * Creates a comment index.
+     * @param source the lexer
+     * @param copyText <code>true</code>, if the comment text should be
+     *        copied immediately instead of being read from the input on demand
+     */
+    public CommentIndex(TokenSource source, boolean copyText) {
+        this.source = source;
+        this.copyText = copyText;
+    }
+
+    public Token nextToken() {
+        Token token = source.nextToken();
+
+        if (token.getChannel() == VhdlAntlrLexer.CHANNEL_COMMENT) {
+            pendingComments.add((CommonToken) token);
+        } else if (token.getChannel() == Token.DEFAULT_CHANNEL || token.getType() == Token.EOF) {
+            if (!pendingComments.isEmpty()) {
+                List<String> comments = createRun();
+                commentsBefore.put(token, comments);
+                if (previousToken != null) {
+                    commentsAfter.put(previousToken, comments);
+                }
+                pendingComments.clear();
+            }
+            previousToken = token;
+        }
+
+        return token;
+    }
+
+    public String getSourceName() {
+        return source.getSourceName();
+    }
+
+    /**
+     * Returns the comments between a token and the previous token on the
+     * default channel.
+     * @param token the token
+     * @return the comments or <code>null</code>, if there are no comments
+     */
+    public List<String> getCommentsBefore(Token token) {
+        return commentsBefore.get(token);
+    }
+
+    /**
+     * Returns the comments between a token and the next token on the
+     * default channel.
+     * @param token the token
+     * @return the comments or <code>null</code>, if there are no comments
+     */
+    public List<String> getCommentsAfter(Token token) {
+        return commentsAfter.get(token);
+    }
+
+    /**
+     * Removes the comments of tokens from the index. This is used to discard
+     * the comments of the parts of the input whose meta classes were created.
+     * @param tokens the tokens
+     */
+    public void remove(List<? extends Token> tokens) {
+        for (Token token : tokens) {
+            commentsBefore.remove(token);
+            commentsAfter.remove(token);
+        }
+    }
+
+    private List<String> createRun() {
+        int[] offsets = new int[pendingComments.size() * 2];
+        for (int i = 0; i < pendingComments.size(); i++) {
+            CommonToken comment = pendingComments.get(i);
+            //strip leading "--"
+            offsets[2 * i] = comment.getStartIndex() + 2;
+            offsets[2 * i + 1] = comment.getStopIndex();
+        }
+
+        CommentRun run = new CommentRun(pendingComments.get(0).getInputStream(), offsets);
+        return copyText ? new ArrayList<String>(run) : run;
+    }
+
+    /**
+     * Comments which are read from the input on demand.
+     */
+    private static class CommentRun extends AbstractList<String> implements RandomAccess {
+
+        private final CharStream input;
+        private final int[] offsets;
+
+        public CommentRun(CharStream input, int[] offsets) {
+            this.input = input;
+            this.offsets = offsets;
+        }
+
+        @Override
+        public String get(int index) {
+            int start = offsets[2 * index];
+            int stop = offsets[2 * index + 1];
+            return start > stop ? "" : input.substring(start, stop);
+        }
+
+        @Override
+        public int size() {
+            return offsets.length / 2;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2009, 2010 University of Paderborn
+ *
+ * This file is part of vMAGIC parser.
+ *
+ * vMAGIC is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * vMAGIC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with vMAGIC. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Authors: Ralf Fuest <rfuest@users.sourceforge.net>
+ *          Christopher Pohl <cpohl@users.sourceforge.net>
+ */
+
+package de.upb.hni.vmagic.parser.antlr;
+
+import de.upb.hni.vmagic.Annotations;
+import de.upb.hni.vmagic.LibraryDeclarativeRegion;
+import de.upb.hni.vmagic.RootDeclarativeRegion;
+import de.upb.hni.vmagic.VhdlFile;
+import de.upb.hni.vmagic.libraryunit.BodyLoader;
+import de.upb.hni.vmagic.libraryunit.LibraryUnit;
+import de.upb.hni.vmagic.parser.ParseError;
+import de.upb.hni.vmagic.parser.VhdlParser;
+import de.upb.hni.vmagic.parser.VhdlParserSettings;
+import de.upb.hni.vmagic.parser.annotation.ParseErrors;
+import de.upb.hni.vmagic.parser.annotation.SourcePositions;
+import de.upb.hni.vmagic.parser.util.CaseInsensitiveSubstringStream;
+import java.util.ArrayList;
+import java.util.List;
+import org.antlr.runtime.CharStream;
+import org.antlr.runtime.CommonToken;
+import org.antlr.runtime.CommonTokenStream;
+import org.antlr.runtime.Lexer;
+import org.antlr.runtime.RecognitionException;
+import org.antlr.runtime.tree.CommonTreeNodeStream;
+
+/**
+ * Body loader which parses an architecture or package body again.
+ * The body is skipped by the parser of the file and only the source text of
+ * the library unit is kept. This text is parsed when the body is loaded, the
+ * positions of the created tokens are equal to the positions in the file.
+ */
+class DeferredBodyLoader implements BodyLoader {
+
+    private final VhdlParserSettings settings;
+    private final RootDeclarativeRegion rootScope;
+    private final LibraryDeclarativeRegion libraryScope;
+    private final LibraryUnit body;
+    private final String source;
+    private final String sourceName;
+    private final int index;
+    private final int line;
+    private final int charPositionInLine;
+
+    /**
+     * Creates a deferred body loader.
+     * @param settings the parser settings
+     * @param rootScope the root declarative region
+     * @param libraryScope the library declarative region
+     * @param body the architecture or package body
+     * @param start the first token of the library unit
+     * @param stop the last token of the library unit
+     */
+    public DeferredBodyLoader(VhdlParserSettings settings, RootDeclarativeRegion rootScope,
+            LibraryDeclarativeRegion libraryScope, LibraryUnit body, CommonToken start,
+            CommonToken stop) {
+        this.settings = settings;
+        this.rootScope = rootScope;
+        this.libraryScope = libraryScope;
+        this.body = body;
+        CharStream stream = start.getInputStream();
+        source = stream.substring(start.getStartIndex(), stop.getStopIndex());
+        sourceName = stream.getSourceName();
+        index = start.getStartIndex();
+        line = start.getLine();
+        charPositionInLine = start.getCharPositionInLine();
+    }
+
+    public void load() {
+        CharStream stream = new CaseInsensitiveSubstringStream(source, index, line,
+                charPositionInLine, sourceName);
+
+        Lexer lexer = VhdlParser.createLexer(settings, stream);
+        CommentIndex comments = settings.isParseComments() ? new CommentIndex(lexer) : null;
+        CommonTokenStream tokens = new CommonTokenStream(comments != null ? comments : lexer);
+        VhdlAntlrParser parser = new VhdlAntlrParser(tokens);
+        parser.setTreeAdaptor(new TreeAdaptorWithoutErrorNodes());
+
+        MetaClassCreator mcc;
+        try {
+            VhdlAntlrParser.secondary_unit_return result = parser.secondary_unit();
+
+            CommonTreeNodeStream nodes = new CommonTreeNodeStream(result.getTree());
+            nodes.setTokenStream(tokens);
+            mcc = new MetaClassCreator(nodes, settings, rootScope, libraryScope);
+            mcc.setCommentIndex(comments);
+            if (body.getParent() instanceof VhdlFile) {
+                mcc.setSourcePositions(Annotations.getAnnotation((VhdlFile) body.getParent(),
+                        SourcePositions.class));
+            }
+            mcc.deferred_body(body);
+        } catch (RecognitionException ex) {
+            //the body was skipped by the parser of the file and is parsed for
+            //the first time, but the loader can't throw a checked exception
+            throw new IllegalStateException("body of " + sourceName + " at line " + line
+                    + " could not be parsed: " + ex.getMessage(), ex);
+        }
+
+        if (!mcc.getErrors().isEmpty() && body.getParent() instanceof VhdlFile) {
+            VhdlFile file = (VhdlFile) body.getParent();
+
+            List<ParseError> errors = new ArrayList<ParseError>();
+            ParseErrors oldErrors = Annotations.getAnnotation(file, ParseErrors.class);
+            if (oldErrors != null) {
+                errors.addAll(oldErrors.getErrors());
+            }
+            errors.addAll(mcc.getErrors());
+            Annotations.putAnnotation(file, ParseErrors.class, new ParseErrors(errors));
+        }
+        if (!mcc.getErrors().isEmpty() && settings.isPrintErrors()) {
+            VhdlParser.reportErrors(mcc.getErrors());
+        }
+    }
+}
@@ -111,6 +111,12 @@ class TemporaryName {
     }
 
     private <T> T resolve(DeclarativeRegion scope, Class<T> clazz) {
+        T result = resolveParts(scope, clazz);
+        mcc.resolved(result);
+        return result;
+    }
+
+    private <T> T resolveParts(DeclarativeRegion scope, Class<T> clazz) {
         parts.resetContinuousIterator();
 
         for (Part part : parts) {
@@ -142,6 +148,7 @@ class TemporaryName {
             mcc.resolveError(tree, Type.UNKNOWN_ENTITY, identifier);
 
             if (mcc.getSettings().isCreateDummyObjects()) {
+                mcc.dummyObjectCreated();
                 Entity dummy = new Entity(identifier);
                 //set parent to allow resolving of names in architectures
                 dummy.setParent(scope);
@@ -161,6 +168,7 @@ class TemporaryName {
             mcc.resolveError(tree, Type.UNKNOWN_CONFIGURATION, identifier);
 
             if (mcc.getSettings().isCreateDummyObjects()) {
+                mcc.dummyObjectCreated();
                 return new Configuration(identifier, null, null);
             } else {
                 return null;
@@ -178,6 +186,7 @@ class TemporaryName {
             mcc.resolveError(tree, Type.UNKNOWN_TYPE, identifier);
 
             if (mcc.getSettings().isCreateDummyObjects()) {
+                mcc.dummyObjectCreated();
                 return new EnumerationType(identifier);
             } else {
                 return null;
@@ -194,6 +203,7 @@ class TemporaryName {
             mcc.resolveError(tree, Type.UNKNOWN_COMPONENT, identifier);
 
             if (mcc.getSettings().isCreateDummyObjects()) {
+                mcc.dummyObjectCreated();
                 return new Component(identifier);
             } else {
                 return null;
@@ -210,6 +220,7 @@ class TemporaryName {
             mcc.resolveError(tree, Type.UNKNOWN_SIGNAL, identifier);
 
             if (mcc.getSettings().isCreateDummyObjects()) {
+                mcc.dummyObjectCreated();
                 return new Signal(identifier, null);
             } else {
                 return null;
@@ -290,6 +301,7 @@ class TemporaryName {
             mcc.resolveError(tree, Type.UNKNOWN_SIGNAL_ASSIGNMENT_TARGET, identifier);
 
             if (mcc.getSettings().isCreateDummyObjects()) {
+                mcc.dummyObjectCreated();
                 Signal dummy = new Signal(identifier, null);
                 obj = addTargetParts(dummy, false);
             }
@@ -312,6 +324,7 @@ class TemporaryName {
             mcc.resolveError(tree, Type.UNKNOWN_VARIABLE_ASSIGNMENT_TARGET, identifier);
 
             if (mcc.getSettings().isCreateDummyObjects()) {
+                mcc.dummyObjectCreated();
                 Variable dummy = new Variable(identifier, null);
                 obj = addTargetParts(dummy, false);
             }
@@ -457,6 +470,7 @@ class TemporaryName {
 
         mcc.resolveError(tree, Type.UNKNOWN_OTHER, toIdentifier());
         if (mcc.getSettings().isCreateDummyObjects()) {
+            mcc.dummyObjectCreated();
             Signal dummy = new Signal(toIdentifier(), null);
             return addPrimaryParts(dummy);
         } else {
@@ -495,6 +509,7 @@ class TemporaryName {
         String identifier = toIdentifier();
         mcc.resolveError(tree, Type.UNKNOWN_OTHER, identifier);
         if (mcc.getSettings().isCreateDummyObjects()) {
+            mcc.dummyObjectCreated();
             RangeAttributeName name = toRangeAttributeName(identifier);
             if (name != null) {
                 return name;
@@ -536,6 +551,7 @@ class TemporaryName {
         mcc.resolveError(tree, Type.UNKNOWN_OTHER, identifier);
 
         if (mcc.getSettings().isCreateDummyObjects()) {
+            mcc.dummyObjectCreated();
             if (parts.remainingParts() == 1) {
                 Part part = parts.iterator.next();
 
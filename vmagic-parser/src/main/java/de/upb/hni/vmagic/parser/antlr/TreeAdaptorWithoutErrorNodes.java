@@ -0,0 +1,159 @@
+/*
+ * Copyright 2009, 2010 University of Paderborn
+ *
+ * This file is part of vMAGIC parser.
+ *
+ * vMAGIC is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * vMAGIC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with vMAGIC. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Authors: Ralf Fuest <rfuest@users.sourceforge.net>
+ *          Christopher Pohl <cpohl@users.sourceforge.net>
+ */
+
+package de.upb.hni.vmagic.parser.antlr;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.antlr.runtime.RecognitionException;
+import org.antlr.runtime.Token;
+import org.antlr.runtime.TokenStream;
+import org.antlr.runtime.tree.CommonTree;
+import org.antlr.runtime.tree.CommonTreeAdaptor;
+import org.antlr.runtime.tree.Tree;
+
+/**
+ * Tree adaptor which doesn't create error nodes for syntax errors.
+ * <p>
+ * The adaptor also reduces the number of temporary objects which are created
+ * while the syntax tree is built. Every parser rule uses a nil node as the root
+ * of its result, which is discarded if the result is a single tree. These nil
+ * nodes are reused by the following rules. The child lists of the nodes are
+ * created with a small initial capacity, because most nodes have only one or
+ * two children, and all imaginary nodes of the same type share one token.
+ */
+public class TreeAdaptorWithoutErrorNodes extends CommonTreeAdaptor {
+
+    private static final int MAX_FREE_NODES = 64;
+    private final Node[] freeNodes = new Node[MAX_FREE_NODES];
+    private int freeNodeCount;
+    //imaginary tokens indexed by the token type
+    private Token[] imaginaryTokens = new Token[0];
+
+    @Override
+    public Object errorNode(TokenStream input, Token start, Token stop, RecognitionException e) {
+        return null;
+    }
+
+    @Override
+    public Object create(Token payload) {
+        return new Node(payload);
+    }
+
+    @Override
+    public Token createToken(int tokenType, String text) {
+        if (tokenType < 0 || text == null) {
+            return super.createToken(tokenType, text);
+        }
+
+        if (tokenType >= imaginaryTokens.length) {
+            Token[] tokens = new Token[Math.max(tokenType + 1, imaginaryTokens.length * 2)];
+            System.arraycopy(imaginaryTokens, 0, tokens, 0, imaginaryTokens.length);
+            imaginaryTokens = tokens;
+        }
+
+        Token token = imaginaryTokens[tokenType];
+        if (token == null || !token.getText().equals(text)) {
+            token = super.createToken(tokenType, text);
+            imaginaryTokens[tokenType] = token;
+        }
+
+        return token;
+    }
+
+    @Override
+    public Object nil() {
+        if (freeNodeCount == 0) {
+            return create(null);
+        }
+
+        freeNodeCount--;
+        Node node = freeNodes[freeNodeCount];
+        freeNodes[freeNodeCount] = null;
+        return node;
+    }
+
+    @Override
+    public Object becomeRoot(Object newRoot, Object oldRoot) {
+        Object root = super.becomeRoot(newRoot, oldRoot);
+        //the children of a nil old root have been moved to the new root
+        if (oldRoot != null && oldRoot != root && isNil(oldRoot)) {
+            release(oldRoot);
+        }
+        return root;
+    }
+
+    @Override
+    public Object rulePostProcessing(Object root) {
+        Object result = super.rulePostProcessing(root);
+        if (result != root) {
+            release(root);
+        }
+        return result;
+    }
+
+    /**
+     * Adds a discarded nil node to the list of reusable nodes.
+     * The child list isn't reused, because it might have been taken over by
+     * the node the children were added to.
+     * @param tree the discarded node
+     */
+    private void release(Object tree) {
+        if (tree instanceof Node && freeNodeCount < MAX_FREE_NODES) {
+            Node node = (Node) tree;
+            node.reset();
+            freeNodes[freeNodeCount++] = node;
+        }
+    }
+
+    /**
+     * Syntax tree node with a small initial child list capacity.
+     */
+    private static class Node extends CommonTree {
+
+        public Node(Token token) {
+            super(token);
+        }
+
+        private Node(Node node) {
+            super(node);
+        }
+
+        @Override
+        protected List createChildrenList() {
+            return new ArrayList<Object>(2);
+        }
+
+        @Override
+        public Tree dupNode() {
+            return new Node(this);
+        }
+
+        private void reset() {
+            children = null;
+            parent = null;
+            childIndex = -1;
+            startIndex = -1;
+            stopIndex = -1;
+        }
+    }
+}
@@ -0,0 +1,785 @@
+/*
+ * Copyright 2009, 2010 University of Paderborn
+ *
+ * This file is part of vMAGIC parser.
+ *
+ * vMAGIC is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * vMAGIC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with vMAGIC. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Authors: Ralf Fuest <rfuest@users.sourceforge.net>
+ *          Christopher Pohl <cpohl@users.sourceforge.net>
+ */
+
+package de.upb.hni.vmagic.parser.antlr;
+
+import org.antlr.runtime.CharStream;
+import org.antlr.runtime.CommonToken;
+import org.antlr.runtime.Lexer;
+import org.antlr.runtime.MismatchedSetException;
+import org.antlr.runtime.MismatchedTokenException;
+import org.antlr.runtime.NoViableAltException;
+import org.antlr.runtime.RecognitionException;
+import org.antlr.runtime.Token;
+
+/**
+ * Hand written VHDL lexer.
+ * This lexer creates the same tokens as the lexer which is generated from the
+ * VhdlAntlr grammar and can be used as the token source of
+ * <code>VhdlAntlrParser</code>. The characters are read in blocks from the
+ * char stream and are classified by lookup tables. Keywords are recognized by
+ * a perfect hash of the case folded identifier, which is calculated while the
+ * identifier is scanned. The tokens only store their offsets in the char
+ * stream and no token text is created.
+ * <p>
+ * The position of the char stream isn't changed by this lexer. For valid
+ * input the created tokens are identical to the tokens of the generated
+ * lexer, but error messages and the recovery from invalid input may differ.
+ */
+public class VhdlFastLexer extends Lexer {
+
+    private static final int EOF = CharStream.EOF;
+    private static final int BUFFER_SIZE = 8192;
+
+    private static final int LETTER = 1;
+    private static final int DIGIT = 2;
+    private static final int IDENTIFIER_PART = 4;
+    private static final int GRAPHIC = 8;
+    private static final char[] LOWER_CASE = new char[256];
+    private static final byte[] CHARACTER_CLASSES = new byte[256];
+
+    //the keyword table is indexed by (hash * HASH_MULTIPLIER) >>> (32 - HASH_BITS),
+    //the multiplier was chosen so that no two keywords share a slot
+    private static final int HASH_BITS = 9;
+    private static final int HASH_MULTIPLIER = 0x917d299b;
+    private static final int MAX_KEYWORD_LENGTH = 13;
+    private static final char[][] KEYWORDS = new char[1 << HASH_BITS][];
+    private static final int[] KEYWORD_TYPES = new int[1 << HASH_BITS];
+
+    static {
+        for (int i = 0; i < LOWER_CASE.length; i++) {
+            LOWER_CASE[i] = Character.toLowerCase((char) i);
+        }
+
+        addClass('a', 'z', LETTER | IDENTIFIER_PART | GRAPHIC);
+        addClass('A', 'Z', LETTER | IDENTIFIER_PART | GRAPHIC);
+        addClass('\u00c0', '\u00d6', LETTER | IDENTIFIER_PART | GRAPHIC);
+        addClass('\u00d8', '\u00de', LETTER | IDENTIFIER_PART | GRAPHIC);
+        addClass('\u00df', '\u00f6', LETTER | IDENTIFIER_PART | GRAPHIC);
+        addClass('\u00f8', '\u00ff', LETTER | IDENTIFIER_PART | GRAPHIC);
+        addClass('0', '9', DIGIT | IDENTIFIER_PART | GRAPHIC);
+        addClass('_', '_', IDENTIFIER_PART);
+        //special characters without '"', space characters and other special
+        //characters without '\' and '%'
+        for (char c : "#&'()*+,-./:;<=>[]_| \u00a0!$@?^`{}~\u00d7\u00f7".toCharArray()) {
+            addClass(c, c, GRAPHIC);
+        }
+        addClass('\u00a1', '\u00bf', GRAPHIC);
+
+        addKeyword("abs", VhdlAntlrLexer.ABS);
+        addKeyword("access", VhdlAntlrLexer.ACCESS);
+        addKeyword("after", VhdlAntlrLexer.AFTER);
+        addKeyword("alias", VhdlAntlrLexer.ALIAS);
+        addKeyword("all", VhdlAntlrLexer.ALL);
+        addKeyword("and", VhdlAntlrLexer.AND);
+        addKeyword("architecture", VhdlAntlrLexer.ARCHITECTURE);
+        addKeyword("array", VhdlAntlrLexer.ARRAY);
+        addKeyword("assert", VhdlAntlrLexer.ASSERT);
+        addKeyword("attribute", VhdlAntlrLexer.ATTRIBUTE);
+        addKeyword("begin", VhdlAntlrLexer.BEGIN);
+        addKeyword("block", VhdlAntlrLexer.BLOCK);
+        addKeyword("body", VhdlAntlrLexer.BODY);
+        addKeyword("buffer", VhdlAntlrLexer.BUFFER);
+        addKeyword("bus", VhdlAntlrLexer.BUS);
+        addKeyword("case", VhdlAntlrLexer.CASE);
+        addKeyword("component", VhdlAntlrLexer.COMPONENT);
+        addKeyword("configuration", VhdlAntlrLexer.CONFIGURATION);
+        addKeyword("constant", VhdlAntlrLexer.CONSTANT);
+        addKeyword("disconnect", VhdlAntlrLexer.DISCONNECT);
+        addKeyword("downto", VhdlAntlrLexer.DOWNTO);
+        addKeyword("else", VhdlAntlrLexer.ELSE);
+        addKeyword("elsif", VhdlAntlrLexer.ELSIF);
+        addKeyword("end", VhdlAntlrLexer.END);
+        addKeyword("entity", VhdlAntlrLexer.ENTITY);
+        addKeyword("exit", VhdlAntlrLexer.EXIT);
+        addKeyword("file", VhdlAntlrLexer.FILE);
+        addKeyword("for", VhdlAntlrLexer.FOR);
+        addKeyword("function", VhdlAntlrLexer.FUNCTION);
+        addKeyword("generate", VhdlAntlrLexer.GENERATE);
+        addKeyword("generic", VhdlAntlrLexer.GENERIC);
+        addKeyword("group", VhdlAntlrLexer.GROUP);
+        addKeyword("guarded", VhdlAntlrLexer.GUARDED);
+        addKeyword("if", VhdlAntlrLexer.IF);
+        addKeyword("impure", VhdlAntlrLexer.IMPURE);
+        addKeyword("inertial", VhdlAntlrLexer.INERTIAL);
+        addKeyword("in", VhdlAntlrLexer.IN);
+        addKeyword("inout", VhdlAntlrLexer.INOUT);
+        addKeyword("is", VhdlAntlrLexer.IS);
+        addKeyword("label", VhdlAntlrLexer.LABEL);
+        addKeyword("library", VhdlAntlrLexer.LIBRARY);
+        addKeyword("linkage", VhdlAntlrLexer.LINKAGE);
+        addKeyword("literal", VhdlAntlrLexer.LITERAL);
+        addKeyword("loop", VhdlAntlrLexer.LOOP);
+        addKeyword("map", VhdlAntlrLexer.MAP);
+        addKeyword("mod", VhdlAntlrLexer.MOD);
+        addKeyword("nand", VhdlAntlrLexer.NAND);
+        addKeyword("new", VhdlAntlrLexer.NEW);
+        addKeyword("next", VhdlAntlrLexer.NEXT);
+        addKeyword("nor", VhdlAntlrLexer.NOR);
+        addKeyword("not", VhdlAntlrLexer.NOT);
+        addKeyword("null", VhdlAntlrLexer.NULLTOK);
+        addKeyword("of", VhdlAntlrLexer.OF);
+        addKeyword("on", VhdlAntlrLexer.ON);
+        addKeyword("open", VhdlAntlrLexer.OPEN);
+        addKeyword("or", VhdlAntlrLexer.OR);
+        addKeyword("others", VhdlAntlrLexer.OTHERS);
+        addKeyword("out", VhdlAntlrLexer.OUT);
+        addKeyword("package", VhdlAntlrLexer.PACKAGE);
+        addKeyword("port", VhdlAntlrLexer.PORT);
+        addKeyword("postponed", VhdlAntlrLexer.POSTPONED);
+        addKeyword("procedure", VhdlAntlrLexer.PROCEDURE);
+        addKeyword("process", VhdlAntlrLexer.PROCESS);
+        addKeyword("pure", VhdlAntlrLexer.PURE);
+        addKeyword("range", VhdlAntlrLexer.RANGETOK);
+        addKeyword("record", VhdlAntlrLexer.RECORD);
+        addKeyword("register", VhdlAntlrLexer.REGISTER);
+        addKeyword("reject", VhdlAntlrLexer.REJECT);
+        addKeyword("rem", VhdlAntlrLexer.REM);
+        addKeyword("report", VhdlAntlrLexer.REPORT);
+        addKeyword("return", VhdlAntlrLexer.RETURN);
+        addKeyword("rol", VhdlAntlrLexer.ROL);
+        addKeyword("ror", VhdlAntlrLexer.ROR);
+        addKeyword("select", VhdlAntlrLexer.SELECT);
+        addKeyword("severity", VhdlAntlrLexer.SEVERITY);
+        addKeyword("shared", VhdlAntlrLexer.SHARED);
+        addKeyword("signal", VhdlAntlrLexer.SIGNAL);
+        addKeyword("sla", VhdlAntlrLexer.SLA);
+        addKeyword("sll", VhdlAntlrLexer.SLL);
+        addKeyword("sra", VhdlAntlrLexer.SRA);
+        addKeyword("srl", VhdlAntlrLexer.SRL);
+        addKeyword("subtype", VhdlAntlrLexer.SUBTYPE);
+        addKeyword("then", VhdlAntlrLexer.THEN);
+        addKeyword("to", VhdlAntlrLexer.TO);
+        addKeyword("transport", VhdlAntlrLexer.TRANSPORT);
+        addKeyword("type", VhdlAntlrLexer.TYPE);
+        addKeyword("unaffected", VhdlAntlrLexer.UNAFFECTED);
+        addKeyword("units", VhdlAntlrLexer.UNITS);
+        addKeyword("until", VhdlAntlrLexer.UNTIL);
+        addKeyword("use", VhdlAntlrLexer.USE);
+        addKeyword("variable", VhdlAntlrLexer.VARIABLE);
+        addKeyword("wait", VhdlAntlrLexer.WAIT);
+        addKeyword("when", VhdlAntlrLexer.WHEN);
+        addKeyword("while", VhdlAntlrLexer.WHILE);
+        addKeyword("with", VhdlAntlrLexer.WITH);
+        addKeyword("xnor", VhdlAntlrLexer.XNOR);
+        addKeyword("xor", VhdlAntlrLexer.XOR);
+    }
+
+    private boolean skipWhitespace = false;
+    private boolean skipComments = false;
+    private char[] buffer = new char[BUFFER_SIZE];
+    //stream index of the first and after the last buffered character
+    private int bufferStart;
+    private int bufferEnd;
+    private int size;
+    private int p;
+    private int line;
+    private int charPositionInLine;
+    private int tokenStart;
+    //type of the previous token including discarded tokens, used to
+    //distinguish character literals from attribute names
+    private int previousType;
+    //expected character of the last error or 0 if no character was expected
+    private int expected;
+    //true if the last error is an invalid character inside of a decimal literal
+    private boolean invalidLiteral;
+
+    /**
+     * Creates a new lexer.
+     * @param input the char stream, which is read from its current position
+     */
+    public VhdlFastLexer(CharStream input) {
+        super(null);
+        setCharStream(input);
+    }
+
+    private static void addClass(char first, char last, int characterClass) {
+        for (char c = first; c <= last; c++) {
+            CHARACTER_CLASSES[c] |= characterClass;
+        }
+    }
+
+    private static int slot(int hash) {
+        return (hash * HASH_MULTIPLIER) >>> (32 - HASH_BITS);
+    }
+
+    private static void addKeyword(String keyword, int type) {
+        int hash = 0;
+        for (int i = 0; i < keyword.length(); i++) {
+            hash = 31 * hash + keyword.charAt(i);
+        }
+        int slot = slot(hash);
+        if (KEYWORDS[slot] != null) {
+            throw new IllegalStateException("keyword hash collision: " + keyword);
+        }
+        KEYWORDS[slot] = keyword.toCharArray();
+        KEYWORD_TYPES[slot] = type;
+    }
+
+    private static boolean is(int c, int characterClass) {
+        return c >= 0 && c < CHARACTER_CLASSES.length && (CHARACTER_CLASSES[c] & characterClass) != 0;
+    }
+
+    /**
+     * Sets the char stream. The stream is read from its current position and
+     * the line and character position of the stream are used for the first
+     * token.
+     * @param input the char stream
+     */
+    @Override
+    public void setCharStream(CharStream input) {
+        super.setCharStream(input);
+        if (input != null) {
+            p = input.index();
+            size = input.size();
+            line = input.getLine();
+            charPositionInLine = input.getCharPositionInLine();
+        } else {
+            p = 0;
+            size = 0;
+        }
+        bufferStart = p;
+        bufferEnd = p;
+        tokenStart = p;
+        previousType = Token.INVALID_TOKEN_TYPE;
+    }
+
+    /**
+     * Sets if whitespace tokens are discarded instead of being emitted on
+     * the hidden channel.
+     * @param skipWhitespace <code>true</code>, if whitespace should be discarded
+     */
+    public void setSkipWhitespace(boolean skipWhitespace) {
+        this.skipWhitespace = skipWhitespace;
+    }
+
+    /**
+     * Sets if comment tokens are discarded instead of being emitted on
+     * the comment channel.
+     * @param skipComments <code>true</code>, if comments should be discarded
+     */
+    public void setSkipComments(boolean skipComments) {
+        this.skipComments = skipComments;
+    }
+
+    /**
+     * Matches the next token and emits it by storing it in the lexer state.
+     * The tokens are created by <code>nextToken</code>, which doesn't call
+     * this method.
+     */
+    @Override
+    public void mTokens() throws RecognitionException {
+        Token token = nextToken();
+        state.token = token;
+        state.type = token.getType();
+        state.channel = token.getChannel();
+        state.tokenStartCharIndex = tokenStart;
+        state.tokenStartLine = token.getLine();
+        state.tokenStartCharPositionInLine = token.getCharPositionInLine();
+    }
+
+    @Override
+    public Token nextToken() {
+        while (true) {
+            tokenStart = p;
+            int startLine = line;
+            int startCharPositionInLine = charPositionInLine;
+            int c = la(p);
+
+            if (c == EOF) {
+                CommonToken eof = new CommonToken(input, Token.EOF, Token.DEFAULT_CHANNEL, p, p);
+                eof.setLine(line);
+                eof.setCharPositionInLine(charPositionInLine);
+                return eof;
+            }
+
+            int type;
+            if (c == ' ' || c == '\t' || c == '\n' || c == '\r') {
+                matchWhitespace(c);
+                type = VhdlAntlrLexer.WHITESPACE;
+            } else {
+                expected = 0;
+                invalidLiteral = false;
+                type = matchToken(c);
+                if (type == Token.INVALID_TOKEN_TYPE) {
+                    recover(startLine, startCharPositionInLine);
+                    continue;
+                }
+                charPositionInLine += p - tokenStart;
+            }
+            previousType = type;
+
+            int channel = Token.DEFAULT_CHANNEL;
+            if (type == VhdlAntlrLexer.WHITESPACE) {
+                if (skipWhitespace) {
+                    continue;
+                }
+                channel = Token.HIDDEN_CHANNEL;
+            } else if (type == VhdlAntlrLexer.COMMENT) {
+                if (skipComments) {
+                    continue;
+                }
+                channel = VhdlAntlrLexer.CHANNEL_COMMENT;
+            }
+
+            CommonToken token = new CommonToken(input, type, channel, tokenStart, p - 1);
+            token.setLine(startLine);
+            token.setCharPositionInLine(startCharPositionInLine);
+            return token;
+        }
+    }
+
+    /**
+     * Returns the lower case character at the given stream index or
+     * <code>EOF</code>.
+     */
+    private int la(int index) {
+        if (index >= bufferEnd && !fill(index)) {
+            return EOF;
+        }
+        char c = buffer[index - bufferStart];
+        return c < LOWER_CASE.length ? LOWER_CASE[c] : Character.toLowerCase(c);
+    }
+
+    /**
+     * Reads the next block of characters. The characters of the current token
+     * are kept in the buffer.
+     */
+    private boolean fill(int index) {
+        while (index >= bufferEnd) {
+            if (bufferEnd >= size) {
+                return false;
+            }
+
+            int kept = bufferEnd - tokenStart;
+            if (kept == buffer.length) {
+                char[] newBuffer = new char[buffer.length * 2];
+                System.arraycopy(buffer, tokenStart - bufferStart, newBuffer, 0, kept);
+                buffer = newBuffer;
+            } else if (tokenStart != bufferStart) {
+                System.arraycopy(buffer, tokenStart - bufferStart, buffer, 0, kept);
+            }
+            bufferStart = tokenStart;
+
+            int count = Math.min(buffer.length - kept, size - bufferEnd);
+            input.substring(bufferEnd, bufferEnd + count - 1).getChars(0, count, buffer, kept);
+            bufferEnd += count;
+        }
+        return true;
+    }
+
+    private void matchWhitespace(int c) {
+        do {
+            if (c == '\n') {
+                line++;
+                charPositionInLine = 0;
+            } else {
+                charPositionInLine++;
+            }
+            c = la(++p);
+        } while (c == ' ' || c == '\t' || c == '\n' || c == '\r');
+    }
+
+    /**
+     * Matches a token which doesn't contain line breaks. If the token is
+     * invalid <code>p</code> is set to the index of the invalid character.
+     */
+    private int matchToken(int c) {
+        switch (c) {
+            case '-':
+                if (la(p + 1) == '-') {
+                    p += 2;
+                    c = la(p);
+                    while (c != EOF && c != '\n' && c != '\r') {
+                        c = la(++p);
+                    }
+                    return VhdlAntlrLexer.COMMENT;
+                }
+                return single(VhdlAntlrLexer.MINUS);
+            case '*':
+                return la(p + 1) == '*' ? pair(VhdlAntlrLexer.DOUBLESTAR) : single(VhdlAntlrLexer.MUL);
+            case '<':
+                c = la(p + 1);
+                if (c == '=') {
+                    return pair(VhdlAntlrLexer.LE);
+                } else if (c == '>') {
+                    return pair(VhdlAntlrLexer.BOX);
+                }
+                return single(VhdlAntlrLexer.LT);
+            case '>':
+                return la(p + 1) == '=' ? pair(VhdlAntlrLexer.GE) : single(VhdlAntlrLexer.GT);
+            case '=':
+                return la(p + 1) == '>' ? pair(VhdlAntlrLexer.ARROW) : single(VhdlAntlrLexer.EQ);
+            case '/':
+                return la(p + 1) == '=' ? pair(VhdlAntlrLexer.NEQ) : single(VhdlAntlrLexer.DIV);
+            case ':':
+                return la(p + 1) == '=' ? pair(VhdlAntlrLexer.VARASGN) : single(VhdlAntlrLexer.COLON);
+            case ';':
+                return single(VhdlAntlrLexer.SEMI);
+            case ',':
+                return single(VhdlAntlrLexer.COMMA);
+            case '&':
+                return single(VhdlAntlrLexer.AMPERSAND);
+            case '(':
+                return single(VhdlAntlrLexer.LPAREN);
+            case ')':
+                return single(VhdlAntlrLexer.RPAREN);
+            case '[':
+                return single(VhdlAntlrLexer.LBRACKET);
+            case ']':
+                return single(VhdlAntlrLexer.RBRACKET);
+            case '+':
+                return single(VhdlAntlrLexer.PLUS);
+            case '|':
+                return single(VhdlAntlrLexer.BAR);
+            case '!':
+                return single(VhdlAntlrLexer.EXCLAMATION);
+            case '.':
+                return single(VhdlAntlrLexer.DOT);
+            case '\'':
+                return matchApostrophe();
+            case '"':
+                return matchString();
+            case '%':
+                return matchPercentString();
+            case '\\':
+                return matchExtendedIdentifier();
+            default:
+                if (is(c, DIGIT)) {
+                    return matchNumber();
+                } else if (is(c, LETTER)) {
+                    return matchIdentifier(c);
+                }
+                return Token.INVALID_TOKEN_TYPE;
+        }
+    }
+
+    private int single(int type) {
+        p++;
+        return type;
+    }
+
+    private int pair(int type) {
+        p += 2;
+        return type;
+    }
+
+    private int matchIdentifier(int c) {
+        if (c == 'b' || c == 'o' || c == 'x') {
+            int delimiter = la(p + 1);
+            if (delimiter == '"' || delimiter == '%') {
+                return matchBitString(c, delimiter);
+            }
+        }
+
+        int hash = 0;
+        int q = p;
+        do {
+            hash = 31 * hash + c;
+            c = la(++q);
+        } while (is(c, IDENTIFIER_PART));
+
+        int length = q - p;
+        int type = VhdlAntlrLexer.BASIC_IDENTIFIER;
+        if (length <= MAX_KEYWORD_LENGTH) {
+            int slot = slot(hash);
+            char[] keyword = KEYWORDS[slot];
+            if (keyword != null && keyword.length == length && isKeyword(keyword)) {
+                type = KEYWORD_TYPES[slot];
+            }
+        }
+        p = q;
+        return type;
+    }
+
+    private boolean isKeyword(char[] keyword) {
+        for (int i = 0; i < keyword.length; i++) {
+            if (la(p + i) != keyword[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int matchBitString(int base, int delimiter) {
+        int q = matchBasedInteger(p + 2);
+        if (q < 0) {
+            q = p + 2;
+        }
+        if (la(q) != delimiter) {
+            expected = delimiter;
+            p = q;
+            return Token.INVALID_TOKEN_TYPE;
+        }
+        p = q + 1;
+
+        if (base == 'b') {
+            return VhdlAntlrLexer.BIT_STRING_LITERAL_BINARY;
+        } else if (base == 'o') {
+            return VhdlAntlrLexer.BIT_STRING_LITERAL_OCTAL;
+        } else {
+            return VhdlAntlrLexer.BIT_STRING_LITERAL_HEX;
+        }
+    }
+
+    /**
+     * Matches a decimal or based literal. Like in the generated lexer a
+     * decimal literal is continued by every '.', '_' and 'e' and an error is
+     * reported if the following character doesn't continue the literal.
+     */
+    private int matchNumber() {
+        int q = matchInteger(p);
+        if (q >= 0) {
+            int c = la(q);
+            if (c == '#' || c == ':') {
+                int end = matchBasedLiteral(q, c);
+                if (end >= 0) {
+                    p = end;
+                    return VhdlAntlrLexer.BASED_LITERAL;
+                }
+            }
+
+            if (c == '.') {
+                q = is(la(q + 1), DIGIT) ? matchInteger(q + 1) : invalid(q + 1);
+            }
+            if (q >= 0) {
+                q = matchExponent(q);
+            }
+        }
+
+        if (q < 0) {
+            invalidLiteral = true;
+            p = -1 - q;
+            return Token.INVALID_TOKEN_TYPE;
+        }
+        p = q;
+        return VhdlAntlrLexer.DECIMAL_LITERAL;
+    }
+
+    /**
+     * Returns the encoded index of an invalid character in a decimal literal,
+     * which is returned by <code>matchInteger</code> and <code>matchExponent</code>.
+     */
+    private static int invalid(int q) {
+        return -1 - q;
+    }
+
+    /**
+     * Returns the end index of a based literal or -1 if the characters
+     * following the base aren't a based literal.
+     */
+    private int matchBasedLiteral(int q, int delimiter) {
+        q = matchBasedInteger(q + 1);
+        if (q < 0) {
+            return -1;
+        }
+        if (la(q) == '.') {
+            q = matchBasedInteger(q + 1);
+            if (q < 0) {
+                return -1;
+            }
+        }
+        if (la(q) != delimiter) {
+            return -1;
+        }
+        //the literal is only a based literal if a following 'e' starts a
+        //valid exponent
+        int end = matchExponent(q + 1);
+        return end < 0 ? -1 : end;
+    }
+
+    /**
+     * Returns the end index of an integer which starts with the digit at the
+     * given index or the encoded index of an invalid character after '_'.
+     */
+    private int matchInteger(int q) {
+        while (true) {
+            int c = la(++q);
+            if (c == '_') {
+                if (!is(la(q + 1), DIGIT)) {
+                    return invalid(q + 1);
+                }
+                q++;
+            } else if (!is(c, DIGIT)) {
+                return q;
+            }
+        }
+    }
+
+    /**
+     * Returns the end index of a based integer or -1 if the character at the
+     * given index isn't an extended digit.
+     */
+    private int matchBasedInteger(int q) {
+        if (!is(la(q), LETTER | DIGIT)) {
+            return -1;
+        }
+        while (true) {
+            int c = la(++q);
+            if (c == '_' && is(la(q + 1), LETTER | DIGIT)) {
+                q++;
+            } else if (!is(c, LETTER | DIGIT)) {
+                return q;
+            }
+        }
+    }
+
+    /**
+     * Returns the end index of an optional exponent or the encoded index of
+     * an invalid character.
+     */
+    private int matchExponent(int q) {
+        if (la(q) == 'e') {
+            int r = q + 1;
+            int c = la(r);
+            if (c == '+' || c == '-') {
+                c = la(++r);
+            }
+            return is(c, DIGIT) ? matchInteger(r) : invalid(r);
+        }
+        return q;
+    }
+
+    private int matchApostrophe() {
+        if (previousType != VhdlAntlrLexer.BASIC_IDENTIFIER
+                && previousType != VhdlAntlrLexer.EXTENDED_IDENTIFIER) {
+            int c = la(p + 1);
+            if (la(p + 2) == '\'' && (c == '"' || c == '\\' || c == '%' || is(c, GRAPHIC))) {
+                p += 3;
+                return VhdlAntlrLexer.CHARACTER_LITERAL;
+            }
+        }
+        return single(VhdlAntlrLexer.APOSTROPHE);
+    }
+
+    private int matchString() {
+        int q = p + 1;
+        while (true) {
+            int c = la(q);
+            if (c == '"') {
+                if (la(q + 1) != '"') {
+                    p = q + 1;
+                    return VhdlAntlrLexer.STRING_LITERAL;
+                }
+                q += 2;
+            } else if (c == '\\' || c == '%' || is(c, GRAPHIC)) {
+                q++;
+            } else if (q == p + 1) {
+                return single(VhdlAntlrLexer.DBLQUOTE);
+            } else {
+                expected = '"';
+                p = q;
+                return Token.INVALID_TOKEN_TYPE;
+            }
+        }
+    }
+
+    private int matchPercentString() {
+        int q = p + 1;
+        while (true) {
+            int c = la(q);
+            if (c == '%') {
+                if (la(q + 1) != '%') {
+                    p = q + 1;
+                    return VhdlAntlrLexer.STRING_LITERAL;
+                }
+                q += 2;
+            } else if (c == '\\' || is(c, GRAPHIC)) {
+                q++;
+            } else {
+                expected = '%';
+                p = q;
+                return Token.INVALID_TOKEN_TYPE;
+            }
+        }
+    }
+
+    private int matchExtendedIdentifier() {
+        int q = p + 1;
+        while (true) {
+            int c = la(q);
+            if (c == '\\') {
+                if (la(q + 1) != '\\') {
+                    break;
+                }
+                q += 2;
+            } else if (c == '"' || c == '%' || is(c, GRAPHIC)) {
+                q++;
+            } else if (q == p + 1) {
+                return single(VhdlAntlrLexer.BACKSLASH);
+            } else {
+                expected = '\\';
+                p = q;
+                return Token.INVALID_TOKEN_TYPE;
+            }
+        }
+
+        if (q == p + 1) {
+            //extended identifiers can't be empty
+            p = q;
+            return Token.INVALID_TOKEN_TYPE;
+        }
+        p = q + 1;
+        return VhdlAntlrLexer.EXTENDED_IDENTIFIER;
+    }
+
+    /**
+     * Reports the invalid character at <code>p</code> and continues after
+     * this character. After an invalid character in a decimal literal the
+     * generated lexer skips the following character too, which is done here
+     * as well.
+     */
+    private void recover(int startLine, int startCharPositionInLine) {
+        RecognitionException ex;
+        if (invalidLiteral) {
+            ex = new MismatchedSetException();
+        } else if (expected != 0) {
+            MismatchedTokenException mte = new MismatchedTokenException();
+            mte.expecting = expected;
+            ex = mte;
+        } else {
+            ex = new NoViableAltException();
+        }
+        ex.input = input;
+        ex.index = p;
+        ex.c = la(p);
+        ex.line = startLine;
+        ex.charPositionInLine = startCharPositionInLine + p - tokenStart;
+        reportError(ex);
+
+        charPositionInLine = ex.charPositionInLine;
+        int count = invalidLiteral ? 2 : 1;
+        for (int i = 0; i < count; i++) {
+            int c = la(p);
+            if (c == EOF) {
+                break;
+            }
+            if (c == '\n') {
+                line++;
+                charPositionInLine = 0;
+            } else {
+                charPositionInLine++;
+            }
+            p++;
+        }
+    }
+}
@@ -0,0 +1,253 @@
+/*
+ * Copyright 2008, 2009, 2010 University of Paderborn
+ *
+ * This file is part of vMAGIC parser.
+ *
+ * vMAGIC is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * vMAGIC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with vMAGIC. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Authors: Ralf Fuest <rfuest@users.sourceforge.net>
+ *          Christopher Pohl <cpohl@users.sourceforge.net>
+ */
+
+package de.upb.hni.vmagic.parser.util;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import org.antlr.runtime.CharStream;
+
+/**
+ * A case insensitive char stream which reads a memory mapped file.
+ * The file is decoded as ISO-8859-1, the character set used by VHDL. The
+ * content of the file isn't copied to the heap and the lookahead is converted
+ * to lower case by a lookup table. The case inside the token text is
+ * preserved for further usage.
+ */
+public class CaseInsensitiveMappedFileStream implements CharStream {
+
+	private static final char[] LOWER_CASE = new char[256];
+
+	static {
+		for (int i = 0; i < LOWER_CASE.length; i++) {
+			LOWER_CASE[i] = Character.toLowerCase((char) i);
+		}
+	}
+
+	private final String fileName;
+	private final MappedByteBuffer data;
+	private final int n;
+	private int p;
+	private int line = 1;
+	private int charPositionInLine;
+	private int markDepth;
+	private List<MarkerState> markers;
+	private int lastMarker;
+
+	/**
+	 * Creates a new stream by mapping a file into memory.
+	 * @param fileName the file to open
+	 * @throws IOException if an IO error occurs or the file is larger than 2 GB
+	 */
+	public CaseInsensitiveMappedFileStream(String fileName) throws IOException {
+		this.fileName = fileName;
+
+		RandomAccessFile file = new RandomAccessFile(fileName, "r");
+		try {
+			FileChannel channel = file.getChannel();
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE) {
+				throw new IOException("file is too large to be mapped: " + fileName);
+			}
+			data = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+			n = (int) size;
+		} finally {
+			//the mapping stays valid after the file is closed
+			file.close();
+		}
+	}
+
+	private int charAt(int index) {
+		return data.get(index) & 0xFF;
+	}
+
+	/**
+	 * Resets the stream to the beginning of the file.
+	 */
+	public void reset() {
+		p = 0;
+		line = 1;
+		charPositionInLine = 0;
+		markDepth = 0;
+	}
+
+	public void consume() {
+		if (p < n) {
+			charPositionInLine++;
+			if (charAt(p) == '\n') {
+				line++;
+				charPositionInLine = 0;
+			}
+			p++;
+		}
+	}
+
+	/**
+	 * Returns the lookahead as a lower case char.
+	 * @param i the amount of lookahead
+	 * @return the character at the position i
+	 */
+	public int LA(int i) {
+		if (i == 0) {
+			return 0;
+		}
+
+		if (i < 0) {
+			i++;
+			if ((p + i - 1) < 0) {
+				return CharStream.EOF;
+			}
+		}
+
+		if ((p + i - 1) >= n) {
+			return CharStream.EOF;
+		}
+
+		return LOWER_CASE[charAt(p + i - 1)];
+	}
+
+	/**
+	 * Returns the character at the position i without changing the case.
+	 * @param i the amount of lookahead
+	 * @return the character at the position i
+	 */
+	public int LT(int i) {
+		if (i == 0) {
+			return 0;
+		}
+
+		if (i < 0) {
+			i++;
+			if ((p + i - 1) < 0) {
+				return CharStream.EOF;
+			}
+		}
+
+		if ((p + i - 1) >= n) {
+			return CharStream.EOF;
+		}
+
+		return charAt(p + i - 1);
+	}
+
+	public int index() {
+		return p;
+	}
+
+	public int size() {
+		return n;
+	}
+
+	public int mark() {
+		if (markers == null) {
+			markers = new ArrayList<MarkerState>();
+			markers.add(null);
+		}
+		markDepth++;
+		MarkerState state;
+		if (markDepth >= markers.size()) {
+			state = new MarkerState();
+			markers.add(state);
+		} else {
+			state = markers.get(markDepth);
+		}
+		state.p = p;
+		state.line = line;
+		state.charPositionInLine = charPositionInLine;
+		lastMarker = markDepth;
+		return markDepth;
+	}
+
+	public void rewind(int marker) {
+		MarkerState state = markers.get(marker);
+		seek(state.p);
+		line = state.line;
+		charPositionInLine = state.charPositionInLine;
+		release(marker);
+	}
+
+	public void rewind() {
+		rewind(lastMarker);
+	}
+
+	public void release(int marker) {
+		markDepth = marker;
+		markDepth--;
+	}
+
+	public void seek(int index) {
+		if (index <= p) {
+			p = index;
+			return;
+		}
+
+		while (p < index) {
+			consume();
+		}
+	}
+
+	public String substring(int start, int stop) {
+		char[] chars = new char[stop - start + 1];
+		for (int i = 0; i < chars.length; i++) {
+			chars[i] = (char) charAt(start + i);
+		}
+		return new String(chars);
+	}
+
+	public int getLine() {
+		return line;
+	}
+
+	public void setLine(int line) {
+		this.line = line;
+	}
+
+	public int getCharPositionInLine() {
+		return charPositionInLine;
+	}
+
+	public void setCharPositionInLine(int pos) {
+		this.charPositionInLine = pos;
+	}
+
+	public String getSourceName() {
+		return fileName;
+	}
+
+	@Override
+	public String toString() {
+		return substring(0, n - 1);
+	}
+
+	/**
+	 * The stream state which is saved by <code>mark</code>.
+	 */
+	private static class MarkerState {
+		private int p;
+		private int line;
+		private int charPositionInLine;
+	}
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2008, 2009, 2010 University of Paderborn
+ *
+ * This file is part of vMAGIC parser.
+ *
+ * vMAGIC is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * vMAGIC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with vMAGIC. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Authors: Ralf Fuest <rfuest@users.sourceforge.net>
+ *          Christopher Pohl <cpohl@users.sourceforge.net>
+ */
+
+package de.upb.hni.vmagic.parser.util;
+
+/**
+ * A case insensitive stream for a part of a larger input.
+ * The indices of this stream are the indices in the original input, which
+ * allows tokens and source positions to be created for the original input
+ * without keeping the whole input in memory.
+ */
+public class CaseInsensitiveSubstringStream extends CaseInsensitiveStringStream {
+	private final int offset;
+	private boolean rewinding;
+
+	/**
+	 * Creates a new stream for a part of an input.
+	 * @param input the text of the part
+	 * @param offset the index of the first character in the original input
+	 * @param line the line of the first character
+	 * @param charPositionInLine the position of the first character in its line
+	 * @param sourceName the name of the original input
+	 */
+	public CaseInsensitiveSubstringStream(String input, int offset, int line,
+			int charPositionInLine, String sourceName) {
+		super(input);
+		this.offset = offset;
+		this.line = line;
+		this.charPositionInLine = charPositionInLine;
+		this.name = sourceName;
+	}
+
+	@Override
+	public int index() {
+		return p + offset;
+	}
+
+	@Override
+	public int size() {
+		return n + offset;
+	}
+
+	@Override
+	public void seek(int index) {
+		super.seek(rewinding ? index : index - offset);
+	}
+
+	/**
+	 * Rewinds the stream to a marker. The markers contain positions inside
+	 * the part, which are passed to <code>seek</code> without the offset.
+	 * @param m the marker
+	 */
+	@Override
+	public void rewind(int m) {
+		rewinding = true;
+		try {
+			super.rewind(m);
+		} finally {
+			rewinding = false;
+		}
+	}
+
+	@Override
+	public String substring(int start, int stop) {
+		return super.substring(start - offset, stop - offset);
+	}
+}
@@ -22,14 +22,15 @@
 
 package de.upb.hni.vmagic;
 
-import java.util.HashMap;
-
 /**
  * Utility class to retrieve and manipulate annotations.
  * Annotations are object of arbitrary classes that can be added to an instance of a meta class.
  * They can be used to add additional informations to a meta class instance. An example of using
  * anotations is the vMAGIC VHDL parser that stores error information in the created meta class
  * instances. Annotations are also used to store information about comments.
+ * <p>
+ * Most elements have no or only a few annotations. The annotations of an
+ * element are therefore stored in a small array instead of a map.
  */
 public class Annotations {
 
@@ -46,27 +47,55 @@ public class Annotations {
      * @return the instance, or <code>null</code>
      */
     public static <T> T getAnnotation(VhdlElement element, Class<T> clazz) {
-        if (element.getAnnotationList() == null) {
-            return null;
-        } else {
-            return clazz.cast(element.getAnnotationList().get(clazz));
+        Object[] annotations = element.getAnnotations();
+        if (annotations != null) {
+            for (int i = 0; i < annotations.length; i += 2) {
+                if (annotations[i] == clazz) {
+                    return clazz.cast(annotations[i + 1]);
+                }
+            }
         }
+
+        return null;
     }
 
     /**
      * Stores an annotation in the given element.
      * If an annotation of the same class existed before the call to this function it is replaced
-     * by the new instance.
+     * by the new instance. Storing <code>null</code> removes the annotation.
      * @param <T>
      * @param element the element
      * @param clazz the class of the instance
      * @param value the instance
      */
     public static <T> void putAnnotation(VhdlElement element, Class<T> clazz, T value) {
-        if (element.getAnnotationList() == null) {
-            element.setAnnotationList(new HashMap<Class<?>, Object>());
+        Object[] annotations = element.getAnnotations();
+        int length = annotations == null ? 0 : annotations.length;
+
+        for (int i = 0; i < length; i += 2) {
+            if (annotations[i] == clazz) {
+                if (value != null) {
+                    annotations[i + 1] = value;
+                } else if (length == 2) {
+                    element.setAnnotations(null);
+                } else {
+                    Object[] newAnnotations = new Object[length - 2];
+                    System.arraycopy(annotations, 0, newAnnotations, 0, i);
+                    System.arraycopy(annotations, i + 2, newAnnotations, i, length - i - 2);
+                    element.setAnnotations(newAnnotations);
+                }
+                return;
+            }
         }
 
-        element.getAnnotationList().put(clazz, value);
+        if (value != null) {
+            Object[] newAnnotations = new Object[length + 2];
+            if (annotations != null) {
+                System.arraycopy(annotations, 0, newAnnotations, 0, length);
+            }
+            newAnnotations[length] = clazz;
+            newAnnotations[length + 1] = value;
+            element.setAnnotations(newAnnotations);
+        }
     }
 }
@@ -22,7 +22,9 @@
 
 package de.upb.hni.vmagic;
 
-import de.upb.hni.vmagic.libraryunit.LibraryUnit;
+import de.upb.hni.vmagic.util.ChangeTrackingList;
+import de.upb.hni.vmagic.util.ElementWalker;
+import de.upb.hni.vmagic.util.Identifiers;
 import de.upb.hni.vmagic.util.ParentSetList;
 import java.util.List;
 
@@ -32,7 +34,19 @@ import java.util.List;
 //TODO: rename class to Library
 public class LibraryDeclarativeRegion extends VhdlElement implements DeclarativeRegion, NamedEntity {
 
-    private final List<VhdlFile> files = ParentSetList.create(this);
+    private final List<VhdlFile> files =
+            new ChangeTrackingList<VhdlFile>(ParentSetList.<VhdlFile>create(this)) {
+
+        @Override
+        protected void changed() {
+            Identifiers.libraryUnitsChanged(LibraryDeclarativeRegion.this);
+        }
+
+        @Override
+        protected void checkModifiable() {
+            LibraryDeclarativeRegion.this.checkModifiable();
+        }
+    };
     private String identifier;
     private final Resolvable resolvable = new ResolvableImpl();
     private final Scope scope = Scopes.createScope(this, resolvable);
@@ -58,7 +72,10 @@ public class LibraryDeclarativeRegion extends VhdlElement implements Declarative
      * @param identifier the identifier
      */
     public void setIdentifier(String identifier) {
+        checkModifiable();
         this.identifier = identifier;
+        Identifiers.identifierChanged(this);
+        Identifiers.libraryUnitsChanged(getParent());
     }
 
     /**
@@ -73,16 +90,30 @@ public class LibraryDeclarativeRegion extends VhdlElement implements Declarative
         return scope;
     }
 
+    /**
+     * Freezes an element and all elements in it, like the declarations in a
+     * package. Frozen elements cannot be modified and can therefore be shared
+     * by multiple root declarative regions. This is used by the builtin
+     * libraries.
+     * @param element the element
+     */
+    protected static void freeze(VhdlElement element) {
+        new ElementWalker() {
+
+            @Override
+            protected boolean enter(VhdlElement e) {
+                e.freeze();
+                return true;
+            }
+        }.walk(element);
+    }
+
     private class ResolvableImpl implements Resolvable {
         public Object resolve(String identifier) {
             for (VhdlFile file : files) {
-                for (LibraryUnit libraryUnit : file.getElements()) {
-                    if (libraryUnit instanceof NamedEntity) {
-                        NamedEntity ie = (NamedEntity) libraryUnit;
-                        if (ie.getIdentifier().equalsIgnoreCase(identifier)) {
-                            return ie;
-                        }
-                    }
+                Object o = file.getScope().resolveLocal(identifier);
+                if (o != null) {
+                    return o;
                 }
             }
 
@@ -26,9 +26,17 @@ import de.upb.hni.vmagic.builtin.Libraries;
 import de.upb.hni.vmagic.builtin.Standard;
 import de.upb.hni.vmagic.libraryunit.LibraryUnit;
 import de.upb.hni.vmagic.libraryunit.UseClause;
+import de.upb.hni.vmagic.literal.PhysicalLiteral;
+import de.upb.hni.vmagic.util.IdentifierTable;
 import de.upb.hni.vmagic.util.ResolvableList;
 import de.upb.hni.vmagic.util.VhdlCollections;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Root declarative region.
@@ -37,10 +45,13 @@ import java.util.List;
  */
 public class RootDeclarativeRegion extends VhdlElement implements DeclarativeRegion {
 
+    //marks identifiers which couldn't be resolved in the use clause cache
+    private static final Object NOT_FOUND = new Object();
     private final ResolvableList<LibraryDeclarativeRegion> libraries =
             VhdlCollections.createNamedEntityList(this);
     private final Scope scope = Scopes.createScope(this, libraries, new UseClauseResolvable());
     private final Scope internalScope = Scopes.createScope(this, libraries);
+    private final IdentifierTable identifierTable = new IdentifierTable();
 
     /**
      * Creates an root declarative region containing the Standard library.
@@ -61,6 +72,16 @@ public class RootDeclarativeRegion extends VhdlElement implements DeclarativeReg
         return scope;
     }
 
+    /**
+     * Returns the identifier table of this root declarative region.
+     * The parser stores the identifiers of all files which are parsed into
+     * this root declarative region in this table.
+     * @return the identifier table
+     */
+    public IdentifierTable getIdentifierTable() {
+        return identifierTable;
+    }
+
     //TODO: move to VhdlFile. Problem:
     //File 1:
     //library ieee;
@@ -75,7 +96,63 @@ public class RootDeclarativeRegion extends VhdlElement implements DeclarativeReg
     //end;
     private class UseClauseResolvable implements Resolvable {
 
-        private Object descentHierarchy(String[] parts, String identifier) {
+        private volatile UseClauses useClauses;
+
+        public Object resolve(String identifier) {
+            UseClauses u = useClauses;
+            if (u == null || !u.isValid()) {
+                u = new UseClauses();
+                useClauses = u;
+            }
+            return u.resolve(identifier);
+        }
+    }
+
+    /**
+     * The scopes referenced by the use clauses in all libraries and the cached
+     * lookup results in these scopes.
+     * The compiled use clauses are discarded if the libraries, files, library
+     * units or use clauses in this root declarative region or the contents of
+     * a scope that was used to compile them are changed. Lookups may run
+     * concurrently, but modifications must not run concurrently with lookups.
+     */
+    private class UseClauses {
+
+        private final List<Scope> scopes = new ArrayList<Scope>();
+        private final List<Scope> dependencies = new ArrayList<Scope>();
+        private final List<Integer> modificationCounts = new ArrayList<Integer>();
+        private final ConcurrentMap<String, Object> cache = new ConcurrentHashMap<String, Object>();
+
+        public UseClauses() {
+            addDependency(scope);
+            addDependency(Standard.PACKAGE.getScope());
+            compileUseClauses();
+        }
+
+        /**
+         * Stores the modification count of a scope before its contents are
+         * used, so that changes during the compilation invalidate the result.
+         */
+        private void addDependency(Scope scope) {
+            for (Scope dependency : dependencies) {
+                if (dependency == scope) {
+                    return;
+                }
+            }
+            dependencies.add(scope);
+            modificationCounts.add(Scopes.getModificationCount(scope));
+        }
+
+        private boolean isValid() {
+            for (int i = 0; i < dependencies.size(); i++) {
+                if (Scopes.getModificationCount(dependencies.get(i)) != modificationCounts.get(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private Scope descentHierarchy(String[] parts) {
             Scope scope = internalScope;
 
             for (int i = 0; i < parts.length - 1; i++) {
@@ -85,12 +162,20 @@ public class RootDeclarativeRegion extends VhdlElement implements DeclarativeReg
                     return null;
                 } else {
                     scope = region.getScope();
+                    addDependency(scope);
                 }
             }
-            return scope.resolveLocal(identifier);
+            return scope;
         }
 
-        public Object resolve(String identifier) {
+        /**
+         * Adds the scopes referenced by the use clauses in all libraries.
+         * Every scope is only contained once, in the order of the first use
+         * clause that references it.
+         */
+        private void compileUseClauses() {
+            Set<Scope> added = Collections.newSetFromMap(new IdentityHashMap<Scope, Boolean>());
+
             for (LibraryDeclarativeRegion library : libraries) {
                 for (VhdlFile file : library.getFiles()) {
                     for (LibraryUnit libraryUnit : file.getElements()) {
@@ -100,9 +185,9 @@ public class RootDeclarativeRegion extends VhdlElement implements DeclarativeReg
                             for (String declaration : useClause.getDeclarations()) {
                                 String[] parts = declaration.split("\\.");
                                 if (parts[parts.length - 1].equalsIgnoreCase("all")) {
-                                    Object o = descentHierarchy(parts, identifier);
-                                    if (o != null) {
-                                        return o;
+                                    Scope scope = descentHierarchy(parts);
+                                    if (scope != null && added.add(scope)) {
+                                        scopes.add(scope);
                                     }
                                 }
                             }
@@ -110,6 +195,30 @@ public class RootDeclarativeRegion extends VhdlElement implements DeclarativeReg
                     }
                 }
             }
+        }
+
+        public Object resolve(String identifier) {
+            String key = identifierTable.lookupKey(identifier);
+            Object o = cache.get(key);
+            if (o != null) {
+                return o == NOT_FOUND ? null : o;
+            }
+
+            o = resolveUncached(identifier);
+            //physical literals are created for every lookup
+            if (!(o instanceof PhysicalLiteral)) {
+                cache.put(key, o == null ? NOT_FOUND : o);
+            }
+            return o;
+        }
+
+        private Object resolveUncached(String identifier) {
+            for (Scope scope : scopes) {
+                Object o = scope.resolveLocal(identifier);
+                if (o != null) {
+                    return o;
+                }
+            }
 
             //implicit use std.standard.all:
             return Standard.PACKAGE.getScope().resolveLocal(identifier);
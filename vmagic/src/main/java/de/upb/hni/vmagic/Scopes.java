@@ -22,6 +22,8 @@
 
 package de.upb.hni.vmagic;
 
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
 /**
  * Default implementations of the Scope interface.
  * This class is used to implement vMAGIC scope feature and isn't usually used by
@@ -39,12 +41,70 @@ public class Scopes {
         return new ResolvableListsScope(parent, list);
     }
 
+    /**
+     * Reports that an identifier which is declared in a scope was changed.
+     * Identifier indices of the lists in the scope are rebuilt on the next
+     * lookup. Scopes which weren't created by this class are ignored.
+     * @param scope the scope
+     */
+    public static void identifierChanged(Scope scope) {
+        if (scope instanceof AbstractScope) {
+            AbstractScope.IDENTIFIER_CHANGES.incrementAndGet((AbstractScope) scope);
+            AbstractScope.MODIFICATIONS.incrementAndGet((AbstractScope) scope);
+        }
+    }
+
+    /**
+     * Reports that a list of declarations or other named elements in a scope
+     * was changed. Scopes which weren't created by this class are ignored.
+     * @param scope the scope
+     */
+    public static void declarationsChanged(Scope scope) {
+        if (scope instanceof AbstractScope) {
+            AbstractScope.MODIFICATIONS.incrementAndGet((AbstractScope) scope);
+        }
+    }
+
+    /**
+     * Returns the number of identifier changes in a scope.
+     * @param scope the scope
+     * @return the modification count or <code>-1</code> if the scope wasn't
+     *         created by this class and doesn't count identifier changes
+     */
+    public static int getIdentifierModificationCount(Scope scope) {
+        if (scope instanceof AbstractScope) {
+            return ((AbstractScope) scope).identifierChanges;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the number of changes in a scope. Identifier changes and changes
+     * to the lists of declarations in the scope are included in this count,
+     * changes in nested scopes are not.
+     * @param scope the scope
+     * @return the modification count or <code>-1</code> if the scope wasn't
+     *         created by this class and doesn't count changes
+     */
+    public static int getModificationCount(Scope scope) {
+        if (scope instanceof AbstractScope) {
+            return ((AbstractScope) scope).modifications;
+        }
+        return -1;
+    }
+
     private Scopes() {
     }
 
     private abstract static class AbstractScope implements Scope {
 
+        private static final AtomicIntegerFieldUpdater<AbstractScope> IDENTIFIER_CHANGES =
+                AtomicIntegerFieldUpdater.newUpdater(AbstractScope.class, "identifierChanges");
+        private static final AtomicIntegerFieldUpdater<AbstractScope> MODIFICATIONS =
+                AtomicIntegerFieldUpdater.newUpdater(AbstractScope.class, "modifications");
         private final VhdlElement parent;
+        private volatile int identifierChanges;
+        private volatile int modifications;
 
         public AbstractScope(VhdlElement parent) {
             this.parent = parent;
@@ -22,34 +22,34 @@
 
 package de.upb.hni.vmagic;
 
-import java.util.Map;
-
 /**
  * An element inside a VHDL file.
  */
 public abstract class VhdlElement {
 
-    private Map<Class<?>, Object> annotationList;
+    private Object[] annotations;
     private DeclarativeRegion parent;
+    private transient boolean frozen;
 
     /**
-     * Returns the annotation list for this VhdlElement.
+     * Returns the annotations of this VhdlElement.
+     * The annotations are stored as alternating class and value entries.
      * The vMAGIC user normally doesn't need to use this function directly.
      * Use the methods provided by the <code>Annotations</code> class instead.
-     * @return the annotation list
+     * @return the annotations or <code>null</code>, if no annotations are stored
      */
-    Map<Class<?>, Object> getAnnotationList() {
-        return annotationList;
+    Object[] getAnnotations() {
+        return annotations;
     }
 
     /**
-     * Sets the annotation list for this VhdlElement.
+     * Sets the annotations of this VhdlElement.
      * The vMAGIC user normally doesn't need to use this function directly.
      * Use the methods provided by the <code>Annotations</code> class instead.
-     * @param list the annotation list
+     * @param annotations the annotations
      */
-    void setAnnotationList(Map<Class<?>, Object> list) {
-        this.annotationList = list;
+    void setAnnotations(Object[] annotations) {
+        this.annotations = annotations;
     }
 
     /**
@@ -57,6 +57,11 @@ public abstract class VhdlElement {
      * @param parent the parent
      */
     public void setParent(DeclarativeRegion parent) {
+        //frozen elements without a parent, like the builtin packages, can be
+        //added to a declarative region once
+        if (this.parent != null && parent != this.parent) {
+            checkModifiable();
+        }
         this.parent = parent;
     }
 
@@ -67,4 +72,33 @@ public abstract class VhdlElement {
     public DeclarativeRegion getParent() {
         return parent;
     }
+
+    /**
+     * Returns if this element is frozen.
+     * Frozen elements are part of the builtin libraries, which are shared by
+     * all root declarative regions, and cannot be modified.
+     * @return <code>true</code>, if this element is frozen
+     */
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    /**
+     * Throws an <code>UnsupportedOperationException</code> if this element
+     * is frozen. This method is called before this element or one of its
+     * lists is modified.
+     * The vMAGIC user normally doesn't need to use this function directly.
+     */
+    public void checkModifiable() {
+        if (frozen) {
+            throw new UnsupportedOperationException("frozen elements cannot be modified");
+        }
+    }
+
+    /**
+     * Freezes this element.
+     */
+    void freeze() {
+        frozen = true;
+    }
 }
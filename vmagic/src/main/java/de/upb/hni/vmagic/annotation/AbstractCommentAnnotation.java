@@ -20,7 +20,9 @@ import java.util.List;
  */
 public abstract class AbstractCommentAnnotation {
 
-    private final List<String> comments;
+    private List<String> comments;
+    //list that is copied when the comments are accessed for the first time
+    private List<String> uncopiedComments;
 
     /**
      * Creates a new comment annotation.
@@ -35,7 +37,23 @@ public abstract class AbstractCommentAnnotation {
      * @param comments a list of line comments
      */
     public AbstractCommentAnnotation(List<String> comments) {
-        this.comments = new ArrayList<String>(comments);
+        this(comments, true);
+    }
+
+    /**
+     * Creates a new comment annotation.
+     * If the list isn't copied immediately it is copied when the comments are
+     * accessed for the first time. This is used by the parser to create the
+     * comment text on demand.
+     * @param comments a list of line comments
+     * @param copy <code>true</code>, if the list should be copied immediately
+     */
+    public AbstractCommentAnnotation(List<String> comments, boolean copy) {
+        if (copy) {
+            this.comments = new ArrayList<String>(comments);
+        } else {
+            this.uncopiedComments = comments;
+        }
     }
 
     /**
@@ -43,6 +61,10 @@ public abstract class AbstractCommentAnnotation {
      * @return a list of line comments
      */
     public List<String> getComments() {
+        if (uncopiedComments != null) {
+            comments = new ArrayList<String>(uncopiedComments);
+            uncopiedComments = null;
+        }
         return comments;
     }
 }
@@ -50,4 +50,14 @@ public class CommentAnnotationBefore extends AbstractCommentAnnotation {
     public CommentAnnotationBefore(List<String> comments) {
         super(comments);
     }
+
+    /**
+     * Creates a new comment annotation.
+     * @param comments a list of line comments
+     * @param copy <code>true</code>, if the list should be copied immediately,
+     *        otherwise it is copied when the comments are accessed for the first time
+     */
+    public CommentAnnotationBefore(List<String> comments, boolean copy) {
+        super(comments, copy);
+    }
 }
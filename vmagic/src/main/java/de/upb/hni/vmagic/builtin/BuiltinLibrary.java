@@ -0,0 +1,74 @@
+/*
+ * Copyright 2009, 2010 University of Paderborn
+ *
+ * This file is part of vMAGIC.
+ *
+ * vMAGIC is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * vMAGIC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with vMAGIC. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Authors: Ralf Fuest <rfuest@users.sourceforge.net>
+ *          Christopher Pohl <cpohl@users.sourceforge.net>
+ */
+
+package de.upb.hni.vmagic.builtin;
+
+import de.upb.hni.vmagic.DeclarativeRegion;
+import de.upb.hni.vmagic.LibraryDeclarativeRegion;
+import de.upb.hni.vmagic.VhdlFile;
+import de.upb.hni.vmagic.libraryunit.PackageDeclaration;
+
+/**
+ * Builtin library.
+ * Builtin libraries are shared by all root declarative regions and can
+ * therefore not be modified. The packages, their declarations and the types
+ * are frozen when the package wrapper classes are initialized, the library
+ * itself when it is created. Adding a builtin library to a root declarative
+ * region doesn't change its parent.
+ */
+class BuiltinLibrary extends LibraryDeclarativeRegion {
+
+    /**
+     * Creates a builtin library.
+     * @param identifier the identifier of the library
+     * @param packages the packages in this library
+     */
+    BuiltinLibrary(String identifier, PackageDeclaration... packages) {
+        super(identifier);
+
+        VhdlFile file = new VhdlFile();
+        for (PackageDeclaration pkg : packages) {
+            file.getElements().add(pkg);
+        }
+        getFiles().add(file);
+
+        freeze(this);
+    }
+
+    /**
+     * Freezes a builtin package and all declarations in it. This is called
+     * by the package wrapper classes after the package was created.
+     * @param pkg the package
+     */
+    static void freezePackage(PackageDeclaration pkg) {
+        freeze(pkg);
+    }
+
+    /**
+     * Does nothing because builtin libraries are shared by all root
+     * declarative regions and never have a parent.
+     * @param parent the parent
+     */
+    @Override
+    public void setParent(DeclarativeRegion parent) {
+    }
+}
@@ -23,32 +23,21 @@
 package de.upb.hni.vmagic.builtin;
 
 import de.upb.hni.vmagic.LibraryDeclarativeRegion;
-import de.upb.hni.vmagic.VhdlFile;
 
 /**
  * Builtin library wrapper.
+ * The builtin libraries cannot be modified and can be shared by multiple
+ * root declarative regions, which can be used in different threads.
  */
 public class Libraries {
 
     /** IEEE library. */
-    public static final LibraryDeclarativeRegion IEEE = new LibraryDeclarativeRegion("ieee");
+    public static final LibraryDeclarativeRegion IEEE = new BuiltinLibrary("ieee",
+            StdLogic1164.PACKAGE, StdLogicArith.PACKAGE, StdLogicSigned.PACKAGE,
+            StdLogicUnsigned.PACKAGE, NumericStd.PACKAGE);
     /** STD library. */
-    public static final LibraryDeclarativeRegion STD = new LibraryDeclarativeRegion("std");
-
-    static {
-        VhdlFile ieeeFile = new VhdlFile();
-        ieeeFile.getElements().add(StdLogic1164.PACKAGE);
-        ieeeFile.getElements().add(StdLogicArith.PACKAGE);
-        ieeeFile.getElements().add(StdLogicSigned.PACKAGE);
-        ieeeFile.getElements().add(StdLogicUnsigned.PACKAGE);
-        ieeeFile.getElements().add(NumericStd.PACKAGE);
-        IEEE.getFiles().add(ieeeFile);
-
-        VhdlFile stdFile = new VhdlFile();
-        stdFile.getElements().add(Standard.PACKAGE);
-        stdFile.getElements().add(TextIO.PACKAGE);
-        STD.getFiles().add(stdFile);
-    }
+    public static final LibraryDeclarativeRegion STD = new BuiltinLibrary("std",
+            Standard.PACKAGE, TextIO.PACKAGE);
 
     //Prevent instantiation.
     private Libraries() {
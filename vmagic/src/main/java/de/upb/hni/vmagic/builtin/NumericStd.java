@@ -160,6 +160,7 @@ public class NumericStd {
         PACKAGE.getDeclarations().add(TO_INTEGER);
         PACKAGE.getDeclarations().add(TO_SIGNED);
         PACKAGE.getDeclarations().add(TO_UNSIGNED);
+        BuiltinLibrary.freezePackage(PACKAGE);
     }
 
     /**
@@ -196,6 +196,7 @@ public class Standard {
         PACKAGE.getDeclarations().add(BIT_VECTOR);
         PACKAGE.getDeclarations().add(FILE_OPEN_KIND);
         PACKAGE.getDeclarations().add(FILE_OPEN_STATUS);
+        BuiltinLibrary.freezePackage(PACKAGE);
     }
 
     //Prevent instantiation.
@@ -229,6 +229,7 @@ public class StdLogic1164 {
         PACKAGE.getDeclarations().add(RISING_EDGE);
         PACKAGE.getDeclarations().add(FALLING_EDGE);
         PACKAGE.getDeclarations().add(IS_X);
+        BuiltinLibrary.freezePackage(PACKAGE);
     }
 
     //Prevent instantiation.
@@ -385,6 +385,7 @@ public class StdLogicArith {
 
         PACKAGE.getDeclarations().add(EXT_SLV_INTEGER_SLV);
         PACKAGE.getDeclarations().add(SXT_SLV_INTEGER_SLV);
+        BuiltinLibrary.freezePackage(PACKAGE);
     }
 
     //Prevent instantiation.
@@ -48,6 +48,7 @@ public class StdLogicUnsigned {
         //PACKAGE.getDeclarations().add(SHL_SLV_SLV_SLV);
         //PACKAGE.getDeclarations().add(SHR_SLV_SLV_SLV);
         PACKAGE.getDeclarations().add(CONV_INTEGER_SLV_INTEGER);
+        BuiltinLibrary.freezePackage(PACKAGE);
     }
 
     //Prevent instantiation.
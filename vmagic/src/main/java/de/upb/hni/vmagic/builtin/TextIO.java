@@ -63,6 +63,7 @@ public class TextIO {
         PACKAGE.getDeclarations().add(new FileDeclaration(INPUT));
         PACKAGE.getDeclarations().add(new FileDeclaration(OUTPUT));
         PACKAGE.getDeclarations().add(ENDFILE);
+        BuiltinLibrary.freezePackage(PACKAGE);
     }
 
     //Prevent instantiation
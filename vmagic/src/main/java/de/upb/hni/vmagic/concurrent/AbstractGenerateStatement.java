@@ -34,7 +34,7 @@ public abstract class AbstractGenerateStatement extends ConcurrentStatement
         implements DeclarativeRegion {
 
     private final List<BlockDeclarativeItem> declarations =
-            VhdlCollections.createDeclarationList();
+            VhdlCollections.createDeclarationList(this);
     private final List<ConcurrentStatement> statements =
             VhdlCollections.createLabeledElementList(this);
 
@@ -93,8 +93,13 @@ public abstract class AbstractProcessStatement extends EntityStatement
                 return result;
             }
 
+            List<ProcessDeclarativeItem> declarations = getDeclarations();
+            if (declarations instanceof Resolvable) {
+                return ((Resolvable) declarations).resolve(identifier);
+            }
+
             ResolvableList<ProcessDeclarativeItem> decls =
-                    VhdlCollections.createDeclarationList(getDeclarations());
+                    VhdlCollections.createDeclarationList(declarations);
             return decls.resolve(identifier);
         }
     }
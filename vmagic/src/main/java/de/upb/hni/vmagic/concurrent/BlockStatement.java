@@ -45,11 +45,11 @@ public class BlockStatement extends ConcurrentStatement implements DeclarativeRe
 
     private Expression guardExpression;
     private final ResolvableList<VhdlObjectProvider<Signal>> port =
-            VhdlCollections.createVhdlObjectList();
+            VhdlCollections.createVhdlObjectList(this);
     private final ResolvableList<VhdlObjectProvider<Constant>> generic =
-            VhdlCollections.createVhdlObjectList();
+            VhdlCollections.createVhdlObjectList(this);
     private final ResolvableList<BlockDeclarativeItem> declarations =
-            VhdlCollections.createDeclarationList();
+            VhdlCollections.createDeclarationList(this);
     private final List<ConcurrentStatement> statements =
             VhdlCollections.createLabeledElementList(this);
     private List<AssociationElement> portMap = new ArrayList<AssociationElement>();
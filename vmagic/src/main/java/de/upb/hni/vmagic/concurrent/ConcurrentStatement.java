@@ -23,6 +23,7 @@
 package de.upb.hni.vmagic.concurrent;
 
 import de.upb.hni.vmagic.LabeledElement;
+import de.upb.hni.vmagic.util.Identifiers;
 
 /**
  * Abstract base class for concurrent statements.
@@ -46,6 +47,7 @@ public abstract class ConcurrentStatement extends LabeledElement {
      */
     public void setLabel(String label) {
         this.label = label;
+        Identifiers.identifierChanged(this);
     }
 
     abstract void accept(ConcurrentStatementVisitor visitor);
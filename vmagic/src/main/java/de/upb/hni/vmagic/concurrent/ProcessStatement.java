@@ -26,6 +26,7 @@ import de.upb.hni.vmagic.object.Signal;
 import de.upb.hni.vmagic.declaration.ProcessDeclarativeItem;
 import de.upb.hni.vmagic.statement.SequentialStatement;
 import de.upb.hni.vmagic.util.ParentSetList;
+import de.upb.hni.vmagic.util.VhdlCollections;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -35,7 +36,7 @@ import java.util.List;
 public class ProcessStatement extends AbstractProcessStatement {
 
     private final List<ProcessDeclarativeItem> declarations =
-            new ArrayList<ProcessDeclarativeItem>();
+            VhdlCollections.createDeclarationList(this);
     private final List<SequentialStatement> statements = ParentSetList.create(this);
     private final List<Signal> sensitivityList = new ArrayList<Signal>();
 
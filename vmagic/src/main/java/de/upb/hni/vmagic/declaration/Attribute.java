@@ -24,6 +24,7 @@ package de.upb.hni.vmagic.declaration;
 
 import de.upb.hni.vmagic.NamedEntity;
 import de.upb.hni.vmagic.type.SubtypeIndication;
+import de.upb.hni.vmagic.util.Identifiers;
 
 /**
  * Attribute declaration.
@@ -59,7 +60,9 @@ public class Attribute extends DeclarativeItem
      * @param identifier the identifier
      */
     public void setIdentifier(String identifier) {
+        checkModifiable();
         this.identifier = identifier;
+        Identifiers.identifierChanged(this);
     }
 
     /**
@@ -75,6 +78,7 @@ public class Attribute extends DeclarativeItem
      * @param type the type
      */
     public void setType(SubtypeIndication type) {
+        checkModifiable();
         this.type = type;
     }
 
@@ -30,6 +30,7 @@ import de.upb.hni.vmagic.NamedEntity;
 import de.upb.hni.vmagic.Scopes;
 import de.upb.hni.vmagic.object.Signal;
 import de.upb.hni.vmagic.object.VhdlObjectProvider;
+import de.upb.hni.vmagic.util.Identifiers;
 import de.upb.hni.vmagic.util.ResolvableList;
 import de.upb.hni.vmagic.util.VhdlCollections;
 import java.util.List;
@@ -42,9 +43,9 @@ public class Component extends DeclarativeItem
 
     private String identifier;
     private final ResolvableList<VhdlObjectProvider<Constant>> generic =
-            VhdlCollections.createVhdlObjectList();
+            VhdlCollections.createVhdlObjectList(this);
     private final ResolvableList<VhdlObjectProvider<Signal>> port =
-            VhdlCollections.createVhdlObjectList();
+            VhdlCollections.createVhdlObjectList(this);
     private final Scope scope = Scopes.createScope(this, generic, port);
 
     /**
@@ -81,6 +82,7 @@ public class Component extends DeclarativeItem
      */
     public void setIdentifier(String identifier) {
         this.identifier = identifier;
+        Identifiers.identifierChanged(this);
     }
 
     /**
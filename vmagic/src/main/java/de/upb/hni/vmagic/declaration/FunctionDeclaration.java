@@ -63,6 +63,7 @@ public class FunctionDeclaration extends SubprogramDeclaration implements Functi
     }
 
     public void setImpure(boolean impure) {
+        checkModifiable();
         this.impure = impure;
     }
 
@@ -71,6 +72,7 @@ public class FunctionDeclaration extends SubprogramDeclaration implements Functi
     }
 
     public void setReturnType(SubtypeIndication returnType) {
+        checkModifiable();
         this.returnType = returnType;
     }
 
@@ -23,6 +23,7 @@
 package de.upb.hni.vmagic.declaration;
 
 import de.upb.hni.vmagic.NamedEntity;
+import de.upb.hni.vmagic.util.Identifiers;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -62,6 +63,7 @@ public class Group extends DeclarativeItem implements BlockDeclarativeItem,
      */
     public void setIdentifier(String identifier) {
         this.identifier = identifier;
+        Identifiers.identifierChanged(this);
     }
 
     /**
@@ -23,6 +23,7 @@
 package de.upb.hni.vmagic.declaration;
 
 import de.upb.hni.vmagic.NamedEntity;
+import de.upb.hni.vmagic.util.Identifiers;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -59,6 +60,7 @@ public class GroupTemplate extends DeclarativeItem implements BlockDeclarativeIt
      */
     public void setIdentifier(String identifier) {
         this.identifier = identifier;
+        Identifiers.identifierChanged(this);
     }
 
     /**
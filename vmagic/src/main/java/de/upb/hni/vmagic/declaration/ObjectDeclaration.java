@@ -22,7 +22,9 @@
 
 package de.upb.hni.vmagic.declaration;
 
+import de.upb.hni.vmagic.DeclarativeRegion;
 import de.upb.hni.vmagic.object.VhdlObject;
+import de.upb.hni.vmagic.util.Identifiers;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -35,7 +37,7 @@ public abstract class ObjectDeclaration<T extends VhdlObject> extends Declarativ
     private final List<T> objects;
 
     ObjectDeclaration(List<T> objects) {
-        this.objects = new ArrayList<T>(objects);
+        this.objects = Identifiers.createObjectList(this, new ArrayList<T>(objects));
     }
 
     /**
@@ -45,4 +47,16 @@ public abstract class ObjectDeclaration<T extends VhdlObject> extends Declarativ
     public List<T> getObjects() {
         return objects;
     }
+
+    /**
+     * Sets the parent of this declaration and of the declared objects.
+     * @param parent the parent
+     */
+    @Override
+    public void setParent(DeclarativeRegion parent) {
+        super.setParent(parent);
+        for (T object : objects) {
+            object.setParent(parent);
+        }
+    }
 }
@@ -28,6 +28,7 @@ import de.upb.hni.vmagic.Scopes;
 import de.upb.hni.vmagic.object.VhdlObject;
 import de.upb.hni.vmagic.object.VhdlObjectProvider;
 import de.upb.hni.vmagic.statement.SequentialStatement;
+import de.upb.hni.vmagic.util.Identifiers;
 import de.upb.hni.vmagic.util.ParentSetList;
 import de.upb.hni.vmagic.util.ResolvableList;
 import de.upb.hni.vmagic.util.VhdlCollections;
@@ -42,10 +43,10 @@ public abstract class SubprogramBody extends DeclarativeItem
         ProcessDeclarativeItem, SubprogramDeclarativeItem, DeclarativeRegion, Subprogram {
 
     private final ResolvableList<VhdlObjectProvider<? extends VhdlObject>> parameters =
-            VhdlCollections.createVhdlObjectList();
+            VhdlCollections.createVhdlObjectList(this);
     private String identifier;
     private final ResolvableList<SubprogramDeclarativeItem> declarations =
-            VhdlCollections.createDeclarationList();
+            VhdlCollections.createDeclarationList(this);
     private final List<SequentialStatement> statements = ParentSetList.create(this);
     private final Scope scope = Scopes.createScope(this, parameters, declarations);
 
@@ -90,6 +91,7 @@ public abstract class SubprogramBody extends DeclarativeItem
     @Override
     public void setIdentifier(String identifier) {
         this.identifier = identifier;
+        Identifiers.identifierChanged(this);
     }
 
     @Override
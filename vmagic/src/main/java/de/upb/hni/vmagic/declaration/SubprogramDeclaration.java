@@ -24,8 +24,10 @@ package de.upb.hni.vmagic.declaration;
 
 import de.upb.hni.vmagic.object.VhdlObject;
 import de.upb.hni.vmagic.object.VhdlObjectProvider;
+import de.upb.hni.vmagic.util.Identifiers;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -70,11 +72,16 @@ public abstract class SubprogramDeclaration extends DeclarativeItem
 
     @Override
     public void setIdentifier(String identifier) {
+        checkModifiable();
         this.identifier = identifier;
+        Identifiers.identifierChanged(this);
     }
 
     @Override
     public List<VhdlObjectProvider<? extends VhdlObject>> getParameters() {
+        if (isFrozen()) {
+            return Collections.unmodifiableList(parameters);
+        }
         return parameters;
     }
 }
@@ -24,6 +24,7 @@ package de.upb.hni.vmagic.declaration;
 
 import de.upb.hni.vmagic.NamedEntity;
 import de.upb.hni.vmagic.type.SubtypeIndication;
+import de.upb.hni.vmagic.util.Identifiers;
 
 /**
  * Subtype declaration.
@@ -58,7 +59,9 @@ public class Subtype extends DeclarativeItem implements BlockDeclarativeItem,
      * @param identifier the identifier
      */
     public void setIdentifier(String identifier) {
+        checkModifiable();
         this.identifier = identifier;
+        Identifiers.identifierChanged(this);
     }
 
     /**
@@ -74,6 +77,7 @@ public class Subtype extends DeclarativeItem implements BlockDeclarativeItem,
      * @param subtypeIndication the subtype indication
      */
     public void setSubtypeIndication(SubtypeIndication subtypeIndication) {
+        checkModifiable();
         this.subtypeIndication = subtypeIndication;
     }
 
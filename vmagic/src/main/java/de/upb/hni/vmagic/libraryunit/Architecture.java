@@ -28,6 +28,7 @@ import de.upb.hni.vmagic.Scope;
 import de.upb.hni.vmagic.Scopes;
 import de.upb.hni.vmagic.concurrent.ConcurrentStatement;
 import de.upb.hni.vmagic.declaration.BlockDeclarativeItem;
+import de.upb.hni.vmagic.util.Identifiers;
 import de.upb.hni.vmagic.util.ResolvableList;
 import de.upb.hni.vmagic.util.VhdlCollections;
 import java.util.List;
@@ -40,10 +41,11 @@ public class Architecture extends LibraryUnit implements NamedEntity {
     private String identifier;
     private Entity entity;
     private final ResolvableList<BlockDeclarativeItem> declarations =
-            VhdlCollections.createDeclarationList();
+            VhdlCollections.createDeclarationList(this);
     private final ResolvableList<ConcurrentStatement> statements =
             VhdlCollections.createLabeledElementList(this);
     private final Resolvable resolvable = new ResolvableImpl();
+    private BodyLoader bodyLoader;
     private final Scope scope = Scopes.createScope(this, declarations, statements, resolvable);
 
     /**
@@ -86,6 +88,8 @@ public class Architecture extends LibraryUnit implements NamedEntity {
      */
     public void setIdentifier(String identifier) {
         this.identifier = identifier;
+        Identifiers.identifierChanged(this);
+        Identifiers.libraryUnitsChanged(getParent());
     }
 
     /**
@@ -93,6 +97,7 @@ public class Architecture extends LibraryUnit implements NamedEntity {
      * @return the list of declarations
      */
     public List<BlockDeclarativeItem> getDeclarations() {
+        loadBody();
         return declarations;
     }
 
@@ -101,13 +106,32 @@ public class Architecture extends LibraryUnit implements NamedEntity {
      * @return the list of statements
      */
     public List<ConcurrentStatement> getStatements() {
+        loadBody();
         return statements;
     }
 
     public Scope getScope() {
+        loadBody();
         return scope;
     }
 
+    /**
+     * Sets a loader which creates the declarations and statements of this architecture when they are
+     * accessed for the first time.
+     * @param bodyLoader the body loader or <code>null</code>
+     */
+    public void setBodyLoader(BodyLoader bodyLoader) {
+        this.bodyLoader = bodyLoader;
+    }
+
+    private void loadBody() {
+        if (bodyLoader != null) {
+            BodyLoader loader = bodyLoader;
+            bodyLoader = null;
+            loader.load();
+        }
+    }
+
     @Override
     void accept(LibraryUnitVisitor visitor) {
         visitor.visitArchitecture(this);
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2009, 2010 University of Paderborn
+ *
+ * This file is part of vMAGIC.
+ *
+ * vMAGIC is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * vMAGIC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with vMAGIC. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Authors: Ralf Fuest <rfuest@users.sourceforge.net>
+ *          Christopher Pohl <cpohl@users.sourceforge.net>
+ */
+
+package de.upb.hni.vmagic.libraryunit;
+
+/**
+ * Loader for the content of an architecture or package body.
+ * A body loader is used to defer the creation of the declarations and
+ * statements in a body until they are accessed for the first time.
+ * @see Architecture#setBodyLoader(BodyLoader)
+ * @see PackageBody#setBodyLoader(BodyLoader)
+ */
+public interface BodyLoader {
+
+    /**
+     * Creates the content of the body.
+     * The body loader is removed from the body before this method is called.
+     */
+    void load();
+}
@@ -26,6 +26,7 @@ import de.upb.hni.vmagic.NamedEntity;
 import de.upb.hni.vmagic.Scope;
 import de.upb.hni.vmagic.configuration.AbstractBlockConfiguration;
 import de.upb.hni.vmagic.declaration.ConfigurationDeclarativeItem;
+import de.upb.hni.vmagic.util.Identifiers;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -83,6 +84,8 @@ public class Configuration extends LibraryUnit implements NamedEntity {
      */
     public void setIdentifier(String identifier) {
         this.identifier = identifier;
+        Identifiers.identifierChanged(this);
+        Identifiers.libraryUnitsChanged(getParent());
     }
 
     /**
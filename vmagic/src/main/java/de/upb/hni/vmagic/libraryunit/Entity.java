@@ -30,6 +30,7 @@ import de.upb.hni.vmagic.object.Signal;
 import de.upb.hni.vmagic.concurrent.EntityStatement;
 import de.upb.hni.vmagic.declaration.EntityDeclarativeItem;
 import de.upb.hni.vmagic.object.VhdlObjectProvider;
+import de.upb.hni.vmagic.util.Identifiers;
 import de.upb.hni.vmagic.util.ResolvableList;
 import de.upb.hni.vmagic.util.VhdlCollections;
 import java.util.ArrayList;
@@ -42,11 +43,11 @@ public class Entity extends LibraryUnit implements NamedEntity {
 
     private String identifier;
     private final ResolvableList<VhdlObjectProvider<Signal>> port =
-            VhdlCollections.createVhdlObjectList();
+            VhdlCollections.createVhdlObjectList(this);
     private final ResolvableList<VhdlObjectProvider<Constant>> generic =
-            VhdlCollections.createVhdlObjectList();
+            VhdlCollections.createVhdlObjectList(this);
     private final ResolvableList<EntityDeclarativeItem> declarations =
-            VhdlCollections.createDeclarationList();
+            VhdlCollections.createDeclarationList(this);
     private final List<EntityStatement> statements = new ArrayList<EntityStatement>();
     private final Scope scope = Scopes.createScope(this, generic, port, declarations);
 
@@ -72,6 +73,8 @@ public class Entity extends LibraryUnit implements NamedEntity {
      */
     public void setIdentifier(String identifier) {
         this.identifier = identifier;
+        Identifiers.identifierChanged(this);
+        Identifiers.libraryUnitsChanged(getParent());
     }
 
     /**
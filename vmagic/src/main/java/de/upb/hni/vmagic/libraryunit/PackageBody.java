@@ -37,8 +37,9 @@ public class PackageBody extends LibraryUnit {
 
     private PackageDeclaration pack;
     private final ResolvableList<PackageBodyDeclarativeItem> declarations =
-            VhdlCollections.createDeclarationList();
+            VhdlCollections.createDeclarationList(this);
     private final Resolvable resolvable = new ResolvableImpl();
+    private BodyLoader bodyLoader;
     private final Scope scope = Scopes.createScope(this, declarations, resolvable);
 
     /**
@@ -70,13 +71,32 @@ public class PackageBody extends LibraryUnit {
      * @return the list of declarations
      */
     public List<PackageBodyDeclarativeItem> getDeclarations() {
+        loadBody();
         return declarations;
     }
 
     public Scope getScope() {
+        loadBody();
         return scope;
     }
 
+    /**
+     * Sets a loader which creates the declarations of this package body when they are
+     * accessed for the first time.
+     * @param bodyLoader the body loader or <code>null</code>
+     */
+    public void setBodyLoader(BodyLoader bodyLoader) {
+        this.bodyLoader = bodyLoader;
+    }
+
+    private void loadBody() {
+        if (bodyLoader != null) {
+            BodyLoader loader = bodyLoader;
+            bodyLoader = null;
+            loader.load();
+        }
+    }
+
     @Override
     void accept(LibraryUnitVisitor visitor) {
         visitor.visitPackageBody(this);
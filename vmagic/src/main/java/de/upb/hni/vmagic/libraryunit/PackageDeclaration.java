@@ -26,6 +26,7 @@ import de.upb.hni.vmagic.NamedEntity;
 import de.upb.hni.vmagic.Scope;
 import de.upb.hni.vmagic.Scopes;
 import de.upb.hni.vmagic.declaration.PackageDeclarativeItem;
+import de.upb.hni.vmagic.util.Identifiers;
 import de.upb.hni.vmagic.util.ResolvableList;
 import de.upb.hni.vmagic.util.VhdlCollections;
 import java.util.List;
@@ -37,7 +38,7 @@ public class PackageDeclaration extends LibraryUnit implements NamedEntity {
 
     private String identifier;
     private final ResolvableList<PackageDeclarativeItem> declarations =
-            VhdlCollections.createDeclarationList();
+            VhdlCollections.createDeclarationList(this);
     //TODO: also resolve the package declaration?
     private final Scope scope = Scopes.createScope(this, declarations);
 
@@ -62,7 +63,10 @@ public class PackageDeclaration extends LibraryUnit implements NamedEntity {
      * @param identifier the identifer
      */
     public void setIdentifier(String identifier) {
+        checkModifiable();
         this.identifier = identifier;
+        Identifiers.identifierChanged(this);
+        Identifiers.libraryUnitsChanged(getParent());
     }
 
     /**
@@ -30,6 +30,8 @@ import de.upb.hni.vmagic.declaration.PackageBodyDeclarativeItem;
 import de.upb.hni.vmagic.declaration.PackageDeclarativeItem;
 import de.upb.hni.vmagic.declaration.ProcessDeclarativeItem;
 import de.upb.hni.vmagic.declaration.SubprogramDeclarativeItem;
+import de.upb.hni.vmagic.util.ChangeTrackingList;
+import de.upb.hni.vmagic.util.Identifiers;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -60,7 +62,13 @@ public class UseClause extends LibraryUnit
      * @param declarations the declarations
      */
     public UseClause(List<String> declarations) {
-        this.declarations = new ArrayList<String>(declarations);
+        this.declarations = new ChangeTrackingList<String>(new ArrayList<String>(declarations)) {
+
+            @Override
+            protected void changed() {
+                Identifiers.libraryUnitsChanged(getParent());
+            }
+        };
     }
 
     /**
@@ -69,11 +69,13 @@ public class Constant extends DefaultVhdlObject<Constant> {
      * @param defaultValue the default value
      */
     public void setDefaultValue(Expression defaultValue) {
+        checkModifiable();
         this.defaultValue = defaultValue;
     }
 
     @Override
     public void setMode(Mode mode) {
+        checkModifiable();
         if (mode != Mode.IN) {
             throw new IllegalArgumentException("Mode " + mode + " is not allowed for a constant");
         }
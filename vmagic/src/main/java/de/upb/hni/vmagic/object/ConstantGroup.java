@@ -22,6 +22,7 @@
 
 package de.upb.hni.vmagic.object;
 
+import de.upb.hni.vmagic.util.Identifiers;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -40,7 +41,7 @@ public class ConstantGroup extends VhdlObjectGroup<Constant> {
      * @param constants a list of constants
      */
     public ConstantGroup(List<Constant> constants) {
-        this.constants = new ArrayList<Constant>(constants);
+        this.constants = Identifiers.createObjectList(this, new ArrayList<Constant>(constants));
     }
 
     /**
@@ -23,6 +23,7 @@
 package de.upb.hni.vmagic.object;
 
 import de.upb.hni.vmagic.type.SubtypeIndication;
+import de.upb.hni.vmagic.util.Identifiers;
 
 /**
  * Default VHDL object.
@@ -54,7 +55,9 @@ abstract class DefaultVhdlObject<T extends VhdlObject> extends VhdlObject<T> {
      */
     @Override
     public void setIdentifier(String identifier) {
+        checkModifiable();
         this.identifier = identifier;
+        Identifiers.identifierChanged(this);
     }
 
     /**
@@ -72,6 +75,7 @@ abstract class DefaultVhdlObject<T extends VhdlObject> extends VhdlObject<T> {
      */
     @Override
     public void setType(SubtypeIndication type) {
+        checkModifiable();
         this.type = type;
     }
 
@@ -90,6 +94,7 @@ abstract class DefaultVhdlObject<T extends VhdlObject> extends VhdlObject<T> {
      */
     @Override
     public void setMode(Mode mode) {
+        checkModifiable();
         if (mode == Mode.NONE) {
             throw new IllegalArgumentException("Setting the mode to NONE is not allowed");
         }
@@ -22,6 +22,7 @@
 
 package de.upb.hni.vmagic.object;
 
+import de.upb.hni.vmagic.util.Identifiers;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -39,7 +40,7 @@ public class FileGroup extends VhdlObjectGroup<FileObject> {
      * @param files a list of files
      */
     public FileGroup(List<FileObject> files) {
-        this.files = new ArrayList<FileObject>(files);
+        this.files = Identifiers.createObjectList(this, new ArrayList<FileObject>(files));
     }
 
     /**
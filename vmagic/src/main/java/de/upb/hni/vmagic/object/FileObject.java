@@ -81,6 +81,7 @@ public class FileObject extends DefaultVhdlObject<FileObject> {
      * @param logicalName the logical name
      */
     public void setLogicalName(Expression logicalName) {
+        checkModifiable();
         this.logicalName = logicalName;
     }
 
@@ -97,6 +98,7 @@ public class FileObject extends DefaultVhdlObject<FileObject> {
      * @param openKind the open kind
      */
     public void setOpenKind(Expression openKind) {
+        checkModifiable();
         this.openKind = openKind;
     }
 
@@ -112,6 +114,7 @@ public class FileObject extends DefaultVhdlObject<FileObject> {
 
     @Override
     public void setMode(Mode mode) {
+        checkModifiable();
         throw new IllegalStateException("Setting the mode is not supported for files");
     }
 }
@@ -99,6 +99,7 @@ public class Signal extends DefaultVhdlObject<Signal> implements SignalAssignmen
      * @param kind the signal kind
      */
     public void setKind(Kind kind) {
+        checkModifiable();
         this.kind = kind;
     }
 
@@ -115,6 +116,7 @@ public class Signal extends DefaultVhdlObject<Signal> implements SignalAssignmen
      * @param defaultValue the default value
      */
     public void setDefaultValue(Expression defaultValue) {
+        checkModifiable();
         this.defaultValue = defaultValue;
     }
 
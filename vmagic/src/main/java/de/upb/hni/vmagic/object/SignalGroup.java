@@ -22,6 +22,7 @@
 
 package de.upb.hni.vmagic.object;
 
+import de.upb.hni.vmagic.util.Identifiers;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -40,7 +41,7 @@ public class SignalGroup extends VhdlObjectGroup<Signal> {
      * @param signals a list of signals
      */
     public SignalGroup(List<Signal> signals) {
-        this.signals = new ArrayList<Signal>(signals);
+        this.signals = Identifiers.createObjectList(this, new ArrayList<Signal>(signals));
     }
 
     /**
@@ -22,6 +22,7 @@
 
 package de.upb.hni.vmagic.object;
 
+import de.upb.hni.vmagic.util.Identifiers;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -39,7 +40,7 @@ public class VariableGroup extends VhdlObjectGroup<Variable> {
      * @param variables a list of variables
      */
     public VariableGroup(List<Variable> variables) {
-        this.variables = new ArrayList<Variable>(variables);
+        this.variables = Identifiers.createObjectList(this, new ArrayList<Variable>(variables));
     }
 
     /**
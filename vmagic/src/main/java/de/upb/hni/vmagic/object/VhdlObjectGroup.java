@@ -22,6 +22,7 @@
 
 package de.upb.hni.vmagic.object;
 
+import de.upb.hni.vmagic.DeclarativeRegion;
 import de.upb.hni.vmagic.VhdlElement;
 import java.util.List;
 
@@ -37,4 +38,16 @@ public abstract class VhdlObjectGroup<E extends VhdlObject> extends VhdlElement
      * @return a list of objects
      */
     public abstract List<E> getElements();
+
+    /**
+     * Sets the parent of this group and of the objects in this group.
+     * @param parent the parent
+     */
+    @Override
+    public void setParent(DeclarativeRegion parent) {
+        super.setParent(parent);
+        for (E element : getElements()) {
+            element.setParent(parent);
+        }
+    }
 }
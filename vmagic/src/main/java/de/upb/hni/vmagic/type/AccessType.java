@@ -52,6 +52,7 @@ public class AccessType extends Type {
      * @param designatedSubtype the subtype
      */
     public void setDesignatedSubtype(SubtypeIndication designatedSubtype) {
+        checkModifiable();
         this.designatedSubtype = designatedSubtype;
     }
 
@@ -52,6 +52,7 @@ public abstract class ArrayType extends Type {
      * @param elementType the type
      */
     public void setElementType(SubtypeIndication elementType) {
+        checkModifiable();
         this.elementType = elementType;
     }
 }
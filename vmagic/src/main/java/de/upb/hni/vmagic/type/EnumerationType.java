@@ -23,6 +23,7 @@
 package de.upb.hni.vmagic.type;
 
 import de.upb.hni.vmagic.literal.EnumerationLiteral;
+import de.upb.hni.vmagic.util.Identifiers;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -31,7 +32,8 @@ import java.util.List;
  */
 public class EnumerationType extends Type {
 
-    private final List<EnumerationLiteral> literals = new ArrayList<EnumerationLiteral>();
+    private final List<EnumerationLiteral> literals =
+            Identifiers.createTrackingList(this, new ArrayList<EnumerationLiteral>());
 
     /**
      * Creates an empty enumeration type.
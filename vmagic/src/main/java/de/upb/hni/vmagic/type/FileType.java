@@ -53,6 +53,7 @@ public class FileType extends Type {
      * @param valueType the type of the values
      */
     public void setValueType(SubtypeIndication valueType) {
+        checkModifiable();
         this.valueType = valueType;
     }
 
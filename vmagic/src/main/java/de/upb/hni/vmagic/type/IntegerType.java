@@ -54,6 +54,7 @@ public class IntegerType extends Type {
      * @param range the range
      */
     public void setRange(RangeProvider range) {
+        checkModifiable();
         this.range = range;
     }
 
@@ -26,6 +26,7 @@ import de.upb.hni.vmagic.NamedEntity;
 import de.upb.hni.vmagic.RangeProvider;
 import de.upb.hni.vmagic.literal.AbstractLiteral;
 import de.upb.hni.vmagic.literal.DecimalLiteral;
+import de.upb.hni.vmagic.util.Identifiers;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -36,7 +37,7 @@ public class PhysicalType extends Type {
 
     private RangeProvider range;
     private String primaryUnit;
-    private final List<Unit> units = new ArrayList<Unit>();
+    private final List<Unit> units = Identifiers.createTrackingList(this, new ArrayList<Unit>());
 
     /**
      * Creates a physical type.
@@ -63,7 +64,9 @@ public class PhysicalType extends Type {
      * @param primaryUnit the identifier of the primary unit
      */
     public void setPrimaryUnit(String primaryUnit) {
+        checkModifiable();
         this.primaryUnit = primaryUnit;
+        Identifiers.identifierChanged(this);
     }
 
     /**
@@ -79,6 +82,7 @@ public class PhysicalType extends Type {
      * @param range the range
      */
     public void setRange(RangeProvider range) {
+        checkModifiable();
         this.range = range;
     }
 
@@ -98,7 +102,7 @@ public class PhysicalType extends Type {
      * @return the created unit
      */
     public Unit createUnit(String identifier, AbstractLiteral factor, String baseUnit) {
-        Unit unit = new Unit(identifier, factor, baseUnit);
+        Unit unit = new Unit(this, identifier, factor, baseUnit);
         units.add(unit);
 
         return unit;
@@ -112,7 +116,7 @@ public class PhysicalType extends Type {
      * @return the created unit
      */
     public Unit createUnit(String identifier, int factor, String baseUnit) {
-        Unit unit = new Unit(identifier, new DecimalLiteral(factor), baseUnit);
+        Unit unit = new Unit(this, identifier, new DecimalLiteral(factor), baseUnit);
         units.add(unit);
 
         return unit;
@@ -126,7 +130,7 @@ public class PhysicalType extends Type {
      * @return the created unit
      */
     public Unit createUnit(String identifier, String baseUnit) {
-        Unit unit = new Unit(identifier, null, baseUnit);
+        Unit unit = new Unit(this, identifier, null, baseUnit);
         units.add(unit);
 
         return unit;
@@ -142,11 +146,13 @@ public class PhysicalType extends Type {
      */
     public static class Unit implements NamedEntity {
 
+        private final PhysicalType type;
         private String identifier;
         private AbstractLiteral factor;
         private String baseUnit;
 
-        private Unit(String identifier, AbstractLiteral factor, String baseUnit) {
+        private Unit(PhysicalType type, String identifier, AbstractLiteral factor, String baseUnit) {
+            this.type = type;
             this.identifier = identifier;
             this.factor = factor;
             this.baseUnit = baseUnit;
@@ -165,6 +171,7 @@ public class PhysicalType extends Type {
          * @param baseUnit the base unit
          */
         public void setBaseUnit(String baseUnit) {
+            type.checkModifiable();
             this.baseUnit = baseUnit;
         }
 
@@ -181,6 +188,7 @@ public class PhysicalType extends Type {
          * @param factor the factor
          */
         public void setFactor(AbstractLiteral factor) {
+            type.checkModifiable();
             this.factor = factor;
         }
 
@@ -197,7 +205,9 @@ public class PhysicalType extends Type {
          * @param identifier the identifier
          */
         public void setIdentifier(String identifier) {
+            type.checkModifiable();
             this.identifier = identifier;
+            Identifiers.identifierChanged(type);
         }
     }
 }
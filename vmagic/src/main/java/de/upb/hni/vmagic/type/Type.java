@@ -30,6 +30,7 @@ import de.upb.hni.vmagic.declaration.PackageBodyDeclarativeItem;
 import de.upb.hni.vmagic.declaration.PackageDeclarativeItem;
 import de.upb.hni.vmagic.declaration.ProcessDeclarativeItem;
 import de.upb.hni.vmagic.declaration.SubprogramDeclarativeItem;
+import de.upb.hni.vmagic.util.Identifiers;
 
 /**
  * Type.
@@ -62,7 +63,9 @@ public abstract class Type extends VhdlElement
      * @param identifier the identifier
      */
     public void setIdentifier(String identifier) {
+        checkModifiable();
         this.identifier = identifier;
+        Identifiers.identifierChanged(this);
     }
 
     abstract void accept(TypeVisitor visitor);
@@ -24,6 +24,7 @@ package de.upb.hni.vmagic.type;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -58,9 +59,13 @@ public class UnconstrainedArray extends ArrayType {
 
     /**
      * Returns the index subtypes.
-     * @return a modifiable list of subtype indications
+     * @return a modifiable list of subtype indications, which is unmodifiable
+     *         if this type is frozen
      */
     public List<SubtypeIndication> getIndexSubtypes() {
+        if (isFrozen()) {
+            return Collections.unmodifiableList(indexSubtypes);
+        }
         return indexSubtypes;
     }
 
@@ -0,0 +1,195 @@
+/*
+ * Copyright 2009, 2010 University of Paderborn
+ *
+ * This file is part of vMAGIC.
+ *
+ * vMAGIC is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * vMAGIC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with vMAGIC. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Authors: Ralf Fuest <rfuest@users.sourceforge.net>
+ *          Christopher Pohl <cpohl@users.sourceforge.net>
+ */
+
+package de.upb.hni.vmagic.util;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+
+/**
+ * Implementation of the <code>List</code> interface that is notified about
+ * every modification of the list. Modifications through iterators and sub lists
+ * are also reported.
+ * @param <E> the type of the list elements
+ */
+public abstract class ChangeTrackingList<E> extends ForwardingList<E> {
+
+    /**
+     * Creates a change tracking list.
+     * @param list the list used for element storage
+     */
+    protected ChangeTrackingList(List<E> list) {
+        super(list);
+    }
+
+    /**
+     * Called after this list was modified.
+     */
+    protected abstract void changed();
+
+    /**
+     * Called before this list is modified. The default implementation does
+     * nothing, lists of frozen elements throw an
+     * <code>UnsupportedOperationException</code>.
+     */
+    protected void checkModifiable() {
+    }
+
+    @Override
+    public boolean add(E e) {
+        checkModifiable();
+        boolean result = super.add(e);
+        changed();
+        return result;
+    }
+
+    @Override
+    public void add(int index, E element) {
+        checkModifiable();
+        super.add(index, element);
+        changed();
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends E> c) {
+        checkModifiable();
+        boolean result = super.addAll(c);
+        changed();
+        return result;
+    }
+
+    @Override
+    public boolean addAll(int index, Collection<? extends E> c) {
+        checkModifiable();
+        boolean result = super.addAll(index, c);
+        changed();
+        return result;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        checkModifiable();
+        boolean result = super.remove(o);
+        changed();
+        return result;
+    }
+
+    @Override
+    public E remove(int index) {
+        checkModifiable();
+        E element = super.remove(index);
+        changed();
+        return element;
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        checkModifiable();
+        boolean result = super.removeAll(c);
+        changed();
+        return result;
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        checkModifiable();
+        boolean result = super.retainAll(c);
+        changed();
+        return result;
+    }
+
+    @Override
+    public void clear() {
+        checkModifiable();
+        super.clear();
+        changed();
+    }
+
+    @Override
+    public E set(int index, E element) {
+        checkModifiable();
+        E old = super.set(index, element);
+        changed();
+        return old;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return listIterator();
+    }
+
+    @Override
+    public ListIterator<E> listIterator() {
+        return new ListIteratorImpl(super.listIterator());
+    }
+
+    @Override
+    public ListIterator<E> listIterator(int index) {
+        return new ListIteratorImpl(super.listIterator(index));
+    }
+
+    @Override
+    public List<E> subList(int fromIndex, int toIndex) {
+        return new ChangeTrackingList<E>(super.subList(fromIndex, toIndex)) {
+
+            @Override
+            protected void changed() {
+                ChangeTrackingList.this.changed();
+            }
+
+            @Override
+            protected void checkModifiable() {
+                ChangeTrackingList.this.checkModifiable();
+            }
+        };
+    }
+
+    private class ListIteratorImpl extends ForwardingListIterator<E> {
+
+        public ListIteratorImpl(ListIterator<E> iterator) {
+            super(iterator);
+        }
+
+        @Override
+        public void remove() {
+            checkModifiable();
+            super.remove();
+            changed();
+        }
+
+        @Override
+        public void set(E e) {
+            checkModifiable();
+            super.set(e);
+            changed();
+        }
+
+        @Override
+        public void add(E e) {
+            checkModifiable();
+            super.add(e);
+            changed();
+        }
+    }
+}
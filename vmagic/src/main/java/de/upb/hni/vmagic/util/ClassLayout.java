@@ -0,0 +1,275 @@
+/*
+ * Copyright 2009, 2010 University of Paderborn
+ *
+ * This file is part of vMAGIC.
+ *
+ * vMAGIC is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * vMAGIC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with vMAGIC. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Authors: Ralf Fuest <rfuest@users.sourceforge.net>
+ *          Christopher Pohl <cpohl@users.sourceforge.net>
+ */
+
+package de.upb.hni.vmagic.util;
+
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import sun.reflect.ReflectionFactory;
+
+/**
+ * Field layout of a class which is serialized by <code>VhdlSerializer</code>.
+ * All non static and non transient fields of the class and its superclasses
+ * are serialized. Instances are created without calling a constructor of the
+ * class, see {@link #newInstance()}, and all fields are set afterwards.
+ * <p>
+ * Only classes in the vMAGIC model packages are serialized, which prevents
+ * a stream from creating instances of arbitrary classes.
+ */
+final class ClassLayout {
+
+    private static final ConcurrentMap<Class<?>, ClassLayout> LAYOUTS =
+            new ConcurrentHashMap<Class<?>, ClassLayout>();
+    private static final Set<String> MODEL_PACKAGES = new HashSet<String>(Arrays.asList(
+            "de.upb.hni.vmagic",
+            "de.upb.hni.vmagic.annotation",
+            "de.upb.hni.vmagic.builtin",
+            "de.upb.hni.vmagic.concurrent",
+            "de.upb.hni.vmagic.configuration",
+            "de.upb.hni.vmagic.declaration",
+            "de.upb.hni.vmagic.expression",
+            "de.upb.hni.vmagic.libraryunit",
+            "de.upb.hni.vmagic.literal",
+            "de.upb.hni.vmagic.object",
+            "de.upb.hni.vmagic.statement",
+            "de.upb.hni.vmagic.type",
+            "de.upb.hni.vmagic.util",
+            "de.upb.hni.vmagic.parser.annotation"));
+    //classes outside of the model packages which are referenced by annotations
+    private static final Set<String> MODEL_CLASSES = new HashSet<String>(Arrays.asList(
+            "de.upb.hni.vmagic.parser.ParseError",
+            "de.upb.hni.vmagic.parser.ParseError$Type"));
+    private static final Set<String> RUNTIME_CLASSES = new HashSet<String>(Arrays.asList(
+            "java.lang.Object",
+            "java.lang.String"));
+    private final Class<?> type;
+    private final Field[] fields;
+    private final String[] descriptors;
+    private volatile Constructor<?> constructor;
+
+    private ClassLayout(Class<?> type) {
+        this.type = type;
+
+        List<Field> fieldList = new ArrayList<Field>();
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if (!Modifier.isStatic(modifiers) && !Modifier.isTransient(modifiers)) {
+                    field.setAccessible(true);
+                    fieldList.add(field);
+                }
+            }
+        }
+
+        fields = fieldList.toArray(new Field[fieldList.size()]);
+        descriptors = new String[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            descriptors[i] = getDescriptor(fields[i]);
+        }
+    }
+
+    /**
+     * Returns the layout of a class.
+     * @param type the class
+     * @return the layout
+     */
+    static ClassLayout get(Class<?> type) {
+        ClassLayout layout = LAYOUTS.get(type);
+        if (layout == null) {
+            layout = new ClassLayout(type);
+            ClassLayout old = LAYOUTS.putIfAbsent(type, layout);
+            if (old != null) {
+                layout = old;
+            }
+        }
+        return layout;
+    }
+
+    /**
+     * Returns if instances of a class are serialized field by field.
+     * Instances of the classes in the Java runtime library, except
+     * <code>Object</code>, are serialized by <code>VhdlSerializer</code>
+     * itself or aren't supported.
+     * @param type the class
+     * @return <code>true</code>, if the instances are serialized field by field
+     */
+    static boolean isFieldSerialized(Class<?> type) {
+        if (type == Object.class) {
+            return true;
+        }
+        if (type.isArray() || type.isEnum() || type.isPrimitive()) {
+            return false;
+        }
+        String name = type.getName();
+        return !(name.startsWith("java.") || name.startsWith("javax.") || name.startsWith("sun."));
+    }
+
+    /**
+     * Returns if a class may be written to and read from a stream.
+     * These are the classes in the model packages, the parse errors stored in
+     * the <code>ParseErrors</code> annotation, <code>Object</code>,
+     * <code>String</code>, the primitive types and arrays of these classes.
+     * The check uses the name, so that other classes are rejected before
+     * they are loaded.
+     * @param name the class name as returned by <code>Class.getName</code>
+     * @return <code>true</code>, if the class is allowed
+     */
+    static boolean isAllowed(String name) {
+        int dimensions = 0;
+        while (dimensions < name.length() && name.charAt(dimensions) == '[') {
+            dimensions++;
+        }
+        if (dimensions > 0) {
+            if (name.length() == dimensions + 1) {
+                //primitive array, like [I
+                return "ZBCSIJFD".indexOf(name.charAt(dimensions)) != -1;
+            }
+            if (name.charAt(dimensions) != 'L' || !name.endsWith(";")) {
+                return false;
+            }
+            name = name.substring(dimensions + 1, name.length() - 1);
+        }
+
+        if (RUNTIME_CLASSES.contains(name) || MODEL_CLASSES.contains(name)) {
+            return true;
+        }
+        int index = name.lastIndexOf('.');
+        return index != -1 && MODEL_PACKAGES.contains(name.substring(0, index));
+    }
+
+    /**
+     * Returns the serialized fields.
+     * @return the fields
+     */
+    Field[] getFields() {
+        return fields;
+    }
+
+    /**
+     * Returns the descriptors of the serialized fields. A descriptor contains
+     * the declaring class, the name and the type of a field and is used to
+     * detect incompatible class changes.
+     * @return the field descriptors
+     */
+    String[] getDescriptors() {
+        return descriptors;
+    }
+
+    /**
+     * Checks if the serialized fields match the fields of the local class.
+     * @param serializedDescriptors the field descriptors read from the stream
+     * @throws InvalidClassException if the fields don't match
+     */
+    void checkDescriptors(String[] serializedDescriptors) throws InvalidClassException {
+        if (serializedDescriptors.length != descriptors.length) {
+            throw new InvalidClassException(type.getName(), "incompatible field count");
+        }
+        for (int i = 0; i < descriptors.length; i++) {
+            if (!descriptors[i].equals(serializedDescriptors[i])) {
+                throw new InvalidClassException(type.getName(),
+                        "incompatible field " + serializedDescriptors[i]);
+            }
+        }
+    }
+
+    /**
+     * Creates an instance of the class without calling one of its constructors.
+     * Like <code>ObjectInputStream</code> only the no argument constructor of
+     * the first superclass which isn't serialized field by field is called,
+     * which is <code>Object()</code> for all model classes. Constructors of
+     * the model classes have side effects, like creating scopes or adding the
+     * new element to its parent, which must not happen for instances whose
+     * fields are overwritten afterwards. Transient fields keep their default
+     * values and must be recreated on demand.
+     * @return the new instance
+     * @throws IOException if the instance could not be created
+     */
+    Object newInstance() throws IOException {
+        Constructor<?> c = constructor;
+        if (c == null) {
+            c = createConstructor();
+            constructor = c;
+        }
+
+        try {
+            return c.newInstance();
+        } catch (Exception ex) {
+            throw newInstanceException(ex);
+        }
+    }
+
+    private Constructor<?> createConstructor() throws IOException {
+        if (type.isInterface() || Modifier.isAbstract(type.getModifiers())) {
+            throw new InvalidClassException(type.getName(), "abstract class");
+        }
+
+        Class<?> superclass = type;
+        while (superclass != Object.class && isFieldSerialized(superclass)) {
+            superclass = superclass.getSuperclass();
+        }
+
+        try {
+            Constructor<?> superConstructor = superclass.getDeclaredConstructor();
+            if (Modifier.isPrivate(superConstructor.getModifiers())) {
+                throw new InvalidClassException(type.getName(),
+                        "no accessible constructor in " + superclass.getName());
+            }
+            if (superclass == type) {
+                return superConstructor;
+            }
+            Constructor<?> c = ReflectionFactory.getReflectionFactory().
+                    newConstructorForSerialization(type, superConstructor);
+            if (c == null) {
+                throw new InvalidClassException(type.getName(),
+                        "instances can't be created without a constructor call");
+            }
+            return c;
+        } catch (NoSuchMethodException ex) {
+            throw newInstanceException(ex);
+        } catch (SecurityException ex) {
+            throw newInstanceException(ex);
+        }
+    }
+
+    private InvalidClassException newInstanceException(Exception cause) {
+        InvalidClassException ice = new InvalidClassException(type.getName(),
+                "could not create instance");
+        ice.initCause(cause);
+        return ice;
+    }
+
+    private static String getDescriptor(Field field) {
+        Class<?> fieldType = field.getType();
+        String typeName = fieldType.isPrimitive() ? fieldType.getName() : "L";
+        return field.getDeclaringClass().getName() + '.' + field.getName() + ':' + typeName;
+    }
+}
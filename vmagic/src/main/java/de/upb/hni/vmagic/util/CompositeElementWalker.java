@@ -0,0 +1,106 @@
+/*
+ * Copyright 2009, 2010 University of Paderborn
+ *
+ * This file is part of vMAGIC.
+ *
+ * vMAGIC is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * vMAGIC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with vMAGIC. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Authors: Ralf Fuest <rfuest@users.sourceforge.net>
+ *          Christopher Pohl <cpohl@users.sourceforge.net>
+ */
+
+package de.upb.hni.vmagic.util;
+
+import de.upb.hni.vmagic.VhdlElement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Element walker which combines multiple walkers.
+ * Every element is passed to all walkers in a single traversal of the tree.
+ * The <code>enter</code> methods of the walkers are called in the order in
+ * which the walkers were added, the <code>leave</code> methods in the same
+ * order. If a walker skips the children of an element only this walker
+ * doesn't see the children, the other walkers continue to walk them. Every
+ * walker sees exactly the same calls as if it had walked the tree alone.
+ */
+public class CompositeElementWalker extends ElementWalker {
+
+    private final List<ElementWalker> walkers = new ArrayList<ElementWalker>();
+    //depth of the element whose children are skipped by a walker, 0 if the walker is active
+    private int[] skipDepths = new int[0];
+    private int activeCount;
+    private int depth;
+
+    /**
+     * Creates a composite walker.
+     * @param walkers the combined walkers
+     */
+    public CompositeElementWalker(ElementWalker... walkers) {
+        for (ElementWalker walker : walkers) {
+            addWalker(walker);
+        }
+    }
+
+    /**
+     * Adds a walker.
+     * Walkers must not be added while the tree is walked.
+     * @param walker the walker
+     */
+    public void addWalker(ElementWalker walker) {
+        if (walker == null) {
+            throw new NullPointerException("walker is null");
+        }
+        walkers.add(walker);
+        skipDepths = Arrays.copyOf(skipDepths, walkers.size());
+        activeCount++;
+    }
+
+    /**
+     * Returns the combined walkers.
+     * @return an unmodifiable list of walkers
+     */
+    public List<ElementWalker> getWalkers() {
+        return Collections.unmodifiableList(walkers);
+    }
+
+    @Override
+    protected boolean enter(VhdlElement element) {
+        depth++;
+        for (int i = 0; i < skipDepths.length; i++) {
+            if (skipDepths[i] == 0 && !walkers.get(i).enter(element)) {
+                skipDepths[i] = depth;
+                activeCount--;
+            }
+        }
+        return activeCount > 0;
+    }
+
+    @Override
+    protected void leave(VhdlElement element) {
+        for (int i = 0; i < skipDepths.length; i++) {
+            int skipDepth = skipDepths[i];
+            if (skipDepth == 0) {
+                walkers.get(i).leave(element);
+            } else if (skipDepth == depth) {
+                walkers.get(i).leave(element);
+                skipDepths[i] = 0;
+                activeCount++;
+            }
+        }
+        depth--;
+    }
+}
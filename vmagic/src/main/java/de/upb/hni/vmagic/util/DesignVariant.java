@@ -0,0 +1,225 @@
+/*
+ * Copyright 2009, 2010 University of Paderborn
+ *
+ * This file is part of vMAGIC.
+ *
+ * vMAGIC is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * vMAGIC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with vMAGIC. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Authors: Ralf Fuest <rfuest@users.sourceforge.net>
+ *          Christopher Pohl <cpohl@users.sourceforge.net>
+ */
+
+package de.upb.hni.vmagic.util;
+
+import de.upb.hni.vmagic.DeclarativeRegion;
+import de.upb.hni.vmagic.VhdlElement;
+import java.lang.reflect.Field;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Copy-on-write variant of a VHDL element tree.
+ * A variant shares all elements with the design it was created from. Before an
+ * element is modified it is made editable by {@link #edit}, which copies the
+ * element and replaces it in its editable parent. Only the path from the root
+ * to the modified element is copied, all unchanged statements, declarations
+ * and expressions stay shared with the original design and with other
+ * variants:
+ * <pre>
+ * DesignVariant&lt;VhdlFile&gt; variant = new DesignVariant&lt;VhdlFile&gt;(file);
+ * VhdlFile variantFile = variant.editRoot();
+ * Architecture rtl = variant.edit(variantFile, architecture);
+ * rtl.getStatements().add(probe);
+ * </pre>
+ * Shared elements must not be modified directly, because the modification
+ * would be visible in every variant. The parent of a shared element is the
+ * element it was created in, so names in shared elements are resolved in the
+ * original design. References to a copied declaration, for example uses of a
+ * signal whose declaration was edited, are not replaced.
+ */
+public class DesignVariant<T extends VhdlElement> {
+
+    private T root;
+    //maps replaced elements to their copies
+    private final Map<Object, Object> replacements;
+    //copies which were created by this variant and can be modified
+    private final Set<VhdlElement> editable =
+            Collections.newSetFromMap(new IdentityHashMap<VhdlElement, Boolean>());
+
+    /**
+     * Creates a variant of an element tree.
+     * @param root the root element, e.g. a file or an architecture
+     */
+    public DesignVariant(T root) {
+        this(root, new IdentityHashMap<Object, Object>());
+    }
+
+    private DesignVariant(T root, Map<Object, Object> replacements) {
+        if (root == null) {
+            throw new NullPointerException("root is null");
+        }
+        this.root = root;
+        this.replacements = replacements;
+    }
+
+    /**
+     * Returns the root of this variant.
+     * @return the root element
+     */
+    public T getRoot() {
+        return root;
+    }
+
+    /**
+     * Returns an editable copy of the root element.
+     * @return the editable root element
+     */
+    public T editRoot() {
+        if (!editable.contains(root)) {
+            T copy = ElementCopier.shallowCopy(root);
+            replacements.put(root, copy);
+            editable.add(copy);
+            root = copy;
+        }
+        return root;
+    }
+
+    /**
+     * Returns an editable copy of a child element. The parent must be editable,
+     * i.e. it must have been returned by {@link #editRoot} or by this method.
+     * The elements of the original design can be used as arguments, they are
+     * replaced by their copies in this variant.
+     * @param <E> the element type
+     * @param parent the editable parent
+     * @param child an element which is directly contained in the parent
+     * @return the editable child element
+     * @throws IllegalArgumentException if the parent isn't editable or doesn't
+     *         contain the child
+     */
+    public <E extends VhdlElement> E edit(VhdlElement parent, E child) {
+        Object owner = resolve(parent);
+        if (!editable.contains(owner)) {
+            throw new IllegalArgumentException("parent isn't editable");
+        }
+
+        @SuppressWarnings("unchecked")
+        E current = (E) resolve(child);
+        if (editable.contains(current)) {
+            return current;
+        }
+
+        E copy = ElementCopier.shallowCopy(current);
+        DeclarativeRegion oldParent = current.getParent();
+        Set<Object> visited = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+        if (!replaceChild(owner, current, copy, visited)) {
+            throw new IllegalArgumentException("element isn't a child of the parent");
+        }
+
+        //the original element is still part of the original design
+        current.setParent(oldParent);
+        if (copy.getParent() == oldParent && owner instanceof DeclarativeRegion
+                && resolve(oldParent) == owner) {
+            copy.setParent((DeclarativeRegion) owner);
+        }
+
+        replacements.put(current, copy);
+        editable.add(copy);
+        return copy;
+    }
+
+    /**
+     * Creates a new variant of this variant. Both variants share all elements
+     * after this call, and elements which were editable in this variant must be
+     * made editable again before they are modified.
+     * @return the new variant
+     */
+    public DesignVariant<T> derive() {
+        editable.clear();
+        return new DesignVariant<T>(root, new IdentityHashMap<Object, Object>(replacements));
+    }
+
+    private Object resolve(Object element) {
+        Object result = element;
+        Object replacement = replacements.get(result);
+        while (replacement != null) {
+            result = replacement;
+            replacement = replacements.get(result);
+        }
+        return result;
+    }
+
+    /**
+     * Replaces a reference in the fields of an object. Lists and helper objects
+     * which aren't VHDL elements, like the parts of an if statement, are
+     * searched too.
+     */
+    private static boolean replaceChild(Object owner, Object original, Object replacement,
+            Set<Object> visited) {
+        try {
+            for (Field field : ClassLayout.get(owner.getClass()).getFields()) {
+                if (field.getType().isPrimitive()) {
+                    continue;
+                }
+
+                Object value = field.get(owner);
+                if (value == original) {
+                    field.set(owner, replacement);
+                    return true;
+                }
+                if (value instanceof List) {
+                    if (replaceInList((List<?>) value, original, replacement, visited)) {
+                        return true;
+                    }
+                } else if (isHelperObject(value) && visited.add(value)
+                        && replaceChild(value, original, replacement, visited)) {
+                    return true;
+                }
+            }
+        } catch (IllegalAccessException ex) {
+            throw new IllegalStateException(ex);
+        }
+        return false;
+    }
+
+    private static boolean replaceInList(List<?> list, Object original, Object replacement,
+            Set<Object> visited) {
+        if (!visited.add(list)) {
+            return false;
+        }
+
+        for (int i = 0; i < list.size(); i++) {
+            Object element = list.get(i);
+            if (element == original) {
+                @SuppressWarnings("unchecked")
+                List<Object> l = (List<Object>) list;
+                l.set(i, replacement);
+                return true;
+            }
+            if (isHelperObject(element) && visited.add(element)
+                    && replaceChild(element, original, replacement, visited)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isHelperObject(Object o) {
+        return o != null && !(o instanceof VhdlElement)
+                && ClassLayout.isFieldSerialized(o.getClass())
+                && !ExternalReferences.isConstant(o);
+    }
+}
@@ -0,0 +1,387 @@
+/*
+ * Copyright 2009, 2010 University of Paderborn
+ *
+ * This file is part of vMAGIC.
+ *
+ * vMAGIC is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * vMAGIC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with vMAGIC. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Authors: Ralf Fuest <rfuest@users.sourceforge.net>
+ *          Christopher Pohl <cpohl@users.sourceforge.net>
+ */
+
+package de.upb.hni.vmagic.util;
+
+import de.upb.hni.vmagic.VhdlElement;
+import de.upb.hni.vmagic.concurrent.BlockStatement;
+import de.upb.hni.vmagic.concurrent.ForGenerateStatement;
+import de.upb.hni.vmagic.declaration.Component;
+import de.upb.hni.vmagic.declaration.ObjectDeclaration;
+import de.upb.hni.vmagic.declaration.SubprogramBody;
+import de.upb.hni.vmagic.declaration.SubprogramDeclaration;
+import de.upb.hni.vmagic.libraryunit.Entity;
+import de.upb.hni.vmagic.literal.EnumerationLiteral;
+import de.upb.hni.vmagic.object.VhdlObject;
+import de.upb.hni.vmagic.object.VhdlObjectProvider;
+import de.upb.hni.vmagic.statement.ForStatement;
+import de.upb.hni.vmagic.type.EnumerationType;
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+
+/**
+ * Creates deep copies of VHDL elements.
+ * Any element can be copied, for example a statement, a declaration, a
+ * design unit or a whole file. All elements inside the copied element are
+ * copied, and references between them are replaced by references to the
+ * copies. For example a signal which is declared in a copied architecture
+ * and used in its statements is copied once and the copied statements use
+ * the copied signal. References to elements outside of the copied element,
+ * like signals of an enclosing architecture, the entity of a copied
+ * architecture or elements of the builtin libraries, are kept. Objects which
+ * aren't declared anywhere, like the placeholders the parser creates for
+ * unresolved names, are kept too. The copy has no parent.
+ * <p>
+ * The copier remembers all copied elements. References to an element which
+ * was copied before by the same copier are replaced by the copy, which
+ * allows design units to be copied one after another. An element is only
+ * copied once, a new copier must be used to create another copy.
+ * Elements are copied field by field, like <code>VhdlSerializer</code>
+ * serializes them, and annotations are copied together with the elements.
+ */
+public class ElementCopier {
+
+    private static final Class<?> FIXED_SIZE_LIST_CLASS = Arrays.asList().getClass();
+    private static final Class<?> UNMODIFIABLE_LIST_CLASS =
+            Collections.unmodifiableList(new ArrayList<Object>()).getClass();
+    private static final Class<?> UNMODIFIABLE_SEQUENTIAL_LIST_CLASS =
+            Collections.unmodifiableList(new LinkedList<Object>()).getClass();
+    private static final Class<?> SINGLETON_LIST_CLASS = Collections.singletonList(null).getClass();
+    private static final Class<?> EMPTY_LIST_CLASS = Collections.emptyList().getClass();
+    private final Map<Object, Object> copies = new IdentityHashMap<Object, Object>();
+    //elements which are part of the currently copied tree
+    private Set<VhdlElement> contained;
+
+    /**
+     * Creates a deep copy of an element.
+     * @param <T> the element type
+     * @param element the element
+     * @return the copy, or <code>null</code> if the element is <code>null</code>
+     * @throws IllegalArgumentException if the element contains an object which
+     *         cannot be copied
+     */
+    public <T extends VhdlElement> T copy(T element) {
+        if (element == null) {
+            return null;
+        }
+
+        contained = collectContainedElements(element);
+        try {
+            @SuppressWarnings("unchecked")
+            T copy = (T) copyObject(element);
+            if (copy != element) {
+                copy.setParent(null);
+            }
+            return copy;
+        } finally {
+            contained = null;
+        }
+    }
+
+    /**
+     * Returns the copy of an element.
+     * @param <T> the element type
+     * @param original the original element
+     * @return the copy, or <code>null</code> if the element wasn't copied by
+     *         this copier
+     */
+    public <T> T getCopy(T original) {
+        @SuppressWarnings("unchecked")
+        T copy = (T) copies.get(original);
+        return copy;
+    }
+
+    /**
+     * Returns a deep copy of an element.
+     * @param <T> the element type
+     * @param element the element
+     * @return the copy
+     * @see #copy(VhdlElement)
+     */
+    public static <T extends VhdlElement> T deepCopy(T element) {
+        return new ElementCopier().copy(element);
+    }
+
+    /**
+     * Creates a shallow copy of an element. Only the element itself and the
+     * lists and helper objects it owns are copied, the child elements and the
+     * parent are shared with the original element.
+     * @param <T> the element type
+     * @param element the element
+     * @return the copy
+     */
+    static <T extends VhdlElement> T shallowCopy(T element) {
+        ElementCopier copier = new ElementCopier();
+        copier.contained = Collections.newSetFromMap(new IdentityHashMap<VhdlElement, Boolean>());
+        copier.contained.add(element);
+        if (element.getParent() != null) {
+            //the parent is kept even if it is a proxy region
+            copier.copies.put(element.getParent(), element.getParent());
+        }
+        @SuppressWarnings("unchecked")
+        T copy = (T) copier.copyObject(element);
+        return copy;
+    }
+
+    /**
+     * Collects the elements in the tree. Objects and enumeration literals
+     * which are used in expressions are only part of the tree if they are
+     * declared inside the tree.
+     */
+    private static Set<VhdlElement> collectContainedElements(VhdlElement root) {
+        final Set<VhdlElement> elements =
+                Collections.newSetFromMap(new IdentityHashMap<VhdlElement, Boolean>());
+        final Set<VhdlElement> declared =
+                Collections.newSetFromMap(new IdentityHashMap<VhdlElement, Boolean>());
+        final List<VhdlElement> used = new ArrayList<VhdlElement>();
+
+        new ElementWalker() {
+
+            @Override
+            protected boolean enter(VhdlElement element) {
+                if (element instanceof VhdlObject || element instanceof EnumerationLiteral) {
+                    used.add(element);
+                } else {
+                    elements.add(element);
+                    addDeclaredElements(element, declared);
+                }
+                return true;
+            }
+        }.walk(root);
+
+        for (VhdlElement element : used) {
+            if (declared.contains(element) || element == root) {
+                elements.add(element);
+            }
+        }
+
+        return elements;
+    }
+
+    private static void addDeclaredElements(VhdlElement element, Set<VhdlElement> declared) {
+        if (element instanceof ObjectDeclaration) {
+            declared.addAll(((ObjectDeclaration<?>) element).getObjects());
+        } else if (element instanceof VhdlObjectProvider) {
+            //object groups
+            declared.addAll(((VhdlObjectProvider<?>) element).getVhdlObjects());
+        } else if (element instanceof Entity) {
+            addObjects(((Entity) element).getGeneric(), declared);
+            addObjects(((Entity) element).getPort(), declared);
+        } else if (element instanceof Component) {
+            addObjects(((Component) element).getGeneric(), declared);
+            addObjects(((Component) element).getPort(), declared);
+        } else if (element instanceof BlockStatement) {
+            addObjects(((BlockStatement) element).getGeneric(), declared);
+            addObjects(((BlockStatement) element).getPort(), declared);
+        } else if (element instanceof SubprogramDeclaration) {
+            addObjects(((SubprogramDeclaration) element).getParameters(), declared);
+        } else if (element instanceof SubprogramBody) {
+            addObjects(((SubprogramBody) element).getParameters(), declared);
+        } else if (element instanceof ForStatement) {
+            declared.add(((ForStatement) element).getParameter());
+        } else if (element instanceof ForGenerateStatement) {
+            declared.add(((ForGenerateStatement) element).getParameter());
+        } else if (element instanceof EnumerationType) {
+            declared.addAll(((EnumerationType) element).getLiterals());
+        }
+    }
+
+    private static void addObjects(List<? extends VhdlObjectProvider<?>> providers,
+            Set<VhdlElement> declared) {
+        for (VhdlObjectProvider<?> provider : providers) {
+            declared.addAll(provider.getVhdlObjects());
+        }
+    }
+
+    private Object copyObject(Object o) {
+        if (o == null) {
+            return null;
+        }
+
+        Object copy = copies.get(o);
+        if (copy != null) {
+            return copy;
+        }
+
+        Class<?> type = o.getClass();
+        if (type == String.class || type == Class.class || o instanceof Enum
+                || o instanceof Number || o instanceof Boolean || o instanceof Character) {
+            //immutable
+            return o;
+        }
+        if (o instanceof VhdlElement && !contained.contains(o)) {
+            return o;
+        }
+        if (ExternalReferences.isConstant(o)) {
+            return o;
+        }
+
+        if (type.isArray()) {
+            return copyArray(o);
+        } else if (ClassLayout.isFieldSerialized(type)) {
+            return copyFields(o);
+        } else if (o instanceof List) {
+            return copyList((List<?>) o);
+        } else if (o instanceof Set) {
+            return copySet((Set<?>) o);
+        } else if (o instanceof Map) {
+            return copyMap((Map<?, ?>) o);
+        }
+        throw new IllegalArgumentException("cannot copy instance of " + type.getName());
+    }
+
+    private Object copyFields(Object o) {
+        ModelOutput.createLazyContent(o);
+
+        ClassLayout layout = ClassLayout.get(o.getClass());
+        Object copy;
+        try {
+            copy = layout.newInstance();
+        } catch (IOException ex) {
+            throw new IllegalArgumentException(ex);
+        }
+        copies.put(o, copy);
+
+        try {
+            for (Field field : layout.getFields()) {
+                Object value = field.get(o);
+                if (!field.getType().isPrimitive()) {
+                    value = copyObject(value);
+                }
+                field.set(copy, value);
+            }
+        } catch (IllegalAccessException ex) {
+            throw new IllegalStateException(ex);
+        }
+
+        return copy;
+    }
+
+    private Object copyArray(Object array) {
+        Class<?> componentType = array.getClass().getComponentType();
+        int length = Array.getLength(array);
+        if (componentType.isPrimitive()) {
+            Object copy = Array.newInstance(componentType, length);
+            System.arraycopy(array, 0, copy, 0, length);
+            copies.put(array, copy);
+            return copy;
+        }
+
+        Object[] elements = (Object[]) array;
+        Object[] copy = (Object[]) Array.newInstance(componentType, length);
+        copies.put(array, copy);
+        for (int i = 0; i < length; i++) {
+            copy[i] = copyObject(elements[i]);
+        }
+        return copy;
+    }
+
+    private Object copyList(List<?> list) {
+        Class<?> type = list.getClass();
+        if (type == ArrayList.class) {
+            List<Object> copy = new ArrayList<Object>(list.size());
+            return copyElements(list, copy, copy);
+        } else if (type == LinkedList.class) {
+            List<Object> copy = new LinkedList<Object>();
+            return copyElements(list, copy, copy);
+        } else if (type == FIXED_SIZE_LIST_CLASS) {
+            Object[] array = new Object[list.size()];
+            List<Object> copy = Arrays.asList(array);
+            copies.put(list, copy);
+            for (int i = 0; i < array.length; i++) {
+                array[i] = copyObject(list.get(i));
+            }
+            return copy;
+        } else if (type == UNMODIFIABLE_LIST_CLASS || type == UNMODIFIABLE_SEQUENTIAL_LIST_CLASS) {
+            List<Object> elements = list instanceof RandomAccess
+                    ? new ArrayList<Object>(list.size()) : new LinkedList<Object>();
+            return copyElements(list, elements, Collections.unmodifiableList(elements));
+        } else if (type == SINGLETON_LIST_CLASS) {
+            List<Object> copy = Collections.singletonList(copyObject(list.get(0)));
+            copies.put(list, copy);
+            return copy;
+        } else if (type == EMPTY_LIST_CLASS) {
+            return list;
+        }
+        throw new IllegalArgumentException("cannot copy instance of " + type.getName());
+    }
+
+    private Object copySet(Set<?> set) {
+        Class<?> type = set.getClass();
+        if (type == HashSet.class) {
+            Set<Object> copy = new HashSet<Object>();
+            return copyElements(set, copy, copy);
+        } else if (type == LinkedHashSet.class) {
+            Set<Object> copy = new LinkedHashSet<Object>();
+            return copyElements(set, copy, copy);
+        }
+        throw new IllegalArgumentException("cannot copy instance of " + type.getName());
+    }
+
+    /**
+     * Copies the elements of a collection into a new collection.
+     * The result is registered as the copy of the original collection before
+     * the elements are copied, which allows cyclic references.
+     */
+    private Object copyElements(Collection<?> original, Collection<Object> elements, Object result) {
+        copies.put(original, result);
+        for (Object element : original) {
+            elements.add(copyObject(element));
+        }
+        return result;
+    }
+
+    private Object copyMap(Map<?, ?> map) {
+        Class<?> type = map.getClass();
+        Map<Object, Object> copy;
+        if (type == HashMap.class) {
+            copy = new HashMap<Object, Object>();
+        } else if (type == LinkedHashMap.class) {
+            copy = new LinkedHashMap<Object, Object>();
+        } else if (type == IdentityHashMap.class) {
+            copy = new IdentityHashMap<Object, Object>();
+        } else {
+            throw new IllegalArgumentException("cannot copy instance of " + type.getName());
+        }
+
+        copies.put(map, copy);
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            copy.put(copyObject(entry.getKey()), copyObject(entry.getValue()));
+        }
+        return copy;
+    }
+}
@@ -0,0 +1,835 @@
+/*
+ * Copyright 2009, 2010 University of Paderborn
+ *
+ * This file is part of vMAGIC.
+ *
+ * vMAGIC is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * vMAGIC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with vMAGIC. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Authors: Ralf Fuest <rfuest@users.sourceforge.net>
+ *          Christopher Pohl <cpohl@users.sourceforge.net>
+ */
+
+package de.upb.hni.vmagic.util;
+
+import de.upb.hni.vmagic.AssociationElement;
+import de.upb.hni.vmagic.DelayMechanism;
+import de.upb.hni.vmagic.LibraryDeclarativeRegion;
+import de.upb.hni.vmagic.Range;
+import de.upb.hni.vmagic.RangeAttributeName;
+import de.upb.hni.vmagic.RootDeclarativeRegion;
+import de.upb.hni.vmagic.SubtypeDiscreteRange;
+import de.upb.hni.vmagic.VhdlElement;
+import de.upb.hni.vmagic.VhdlFile;
+import de.upb.hni.vmagic.WaveformElement;
+import de.upb.hni.vmagic.concurrent.AbstractComponentInstantiation;
+import de.upb.hni.vmagic.concurrent.AbstractGenerateStatement;
+import de.upb.hni.vmagic.concurrent.AbstractProcessStatement;
+import de.upb.hni.vmagic.concurrent.ArchitectureInstantiation;
+import de.upb.hni.vmagic.concurrent.BlockStatement;
+import de.upb.hni.vmagic.concurrent.ComponentInstantiation;
+import de.upb.hni.vmagic.concurrent.ConcurrentAssertionStatement;
+import de.upb.hni.vmagic.concurrent.ConcurrentProcedureCall;
+import de.upb.hni.vmagic.concurrent.ConcurrentStatement;
+import de.upb.hni.vmagic.concurrent.ConcurrentStatementVisitor;
+import de.upb.hni.vmagic.concurrent.ConditionalSignalAssignment;
+import de.upb.hni.vmagic.concurrent.ConfigurationInstantiation;
+import de.upb.hni.vmagic.concurrent.EntityInstantiation;
+import de.upb.hni.vmagic.concurrent.ForGenerateStatement;
+import de.upb.hni.vmagic.concurrent.IfGenerateStatement;
+import de.upb.hni.vmagic.concurrent.SelectedSignalAssignment;
+import de.upb.hni.vmagic.configuration.AbstractBlockConfiguration;
+import de.upb.hni.vmagic.configuration.ArchitectureConfiguration;
+import de.upb.hni.vmagic.configuration.BlockStatementConfiguration;
+import de.upb.hni.vmagic.configuration.ComponentConfiguration;
+import de.upb.hni.vmagic.configuration.ConfigurationItem;
+import de.upb.hni.vmagic.configuration.ConfigurationVisitor;
+import de.upb.hni.vmagic.configuration.GenerateStatementConfiguration;
+import de.upb.hni.vmagic.declaration.Alias;
+import de.upb.hni.vmagic.declaration.Attribute;
+import de.upb.hni.vmagic.declaration.AttributeSpecification;
+import de.upb.hni.vmagic.declaration.Component;
+import de.upb.hni.vmagic.declaration.ConfigurationSpecification;
+import de.upb.hni.vmagic.declaration.ConstantDeclaration;
+import de.upb.hni.vmagic.declaration.DeclarationVisitor;
+import de.upb.hni.vmagic.declaration.DeclarativeItem;
+import de.upb.hni.vmagic.declaration.DisconnectionSpecification;
+import de.upb.hni.vmagic.declaration.FileDeclaration;
+import de.upb.hni.vmagic.declaration.FunctionBody;
+import de.upb.hni.vmagic.declaration.FunctionDeclaration;
+import de.upb.hni.vmagic.declaration.ObjectDeclaration;
+import de.upb.hni.vmagic.declaration.ProcedureBody;
+import de.upb.hni.vmagic.declaration.ProcedureDeclaration;
+import de.upb.hni.vmagic.declaration.SignalDeclaration;
+import de.upb.hni.vmagic.declaration.Subtype;
+import de.upb.hni.vmagic.declaration.VariableDeclaration;
+import de.upb.hni.vmagic.expression.Aggregate;
+import de.upb.hni.vmagic.expression.BinaryExpression;
+import de.upb.hni.vmagic.expression.Expression;
+import de.upb.hni.vmagic.expression.ExpressionVisitor;
+import de.upb.hni.vmagic.expression.FunctionCall;
+import de.upb.hni.vmagic.expression.Name;
+import de.upb.hni.vmagic.expression.Parentheses;
+import de.upb.hni.vmagic.expression.QualifiedExpression;
+import de.upb.hni.vmagic.expression.QualifiedExpressionAllocator;
+import de.upb.hni.vmagic.expression.SubtypeIndicationAllocator;
+import de.upb.hni.vmagic.expression.TypeConversion;
+import de.upb.hni.vmagic.expression.UnaryExpression;
+import de.upb.hni.vmagic.libraryunit.Architecture;
+import de.upb.hni.vmagic.libraryunit.Configuration;
+import de.upb.hni.vmagic.libraryunit.Entity;
+import de.upb.hni.vmagic.libraryunit.LibraryUnit;
+import de.upb.hni.vmagic.libraryunit.LibraryUnitVisitor;
+import de.upb.hni.vmagic.libraryunit.PackageBody;
+import de.upb.hni.vmagic.libraryunit.PackageDeclaration;
+import de.upb.hni.vmagic.object.ArrayElement;
+import de.upb.hni.vmagic.object.AttributeExpression;
+import de.upb.hni.vmagic.object.Constant;
+import de.upb.hni.vmagic.object.FileObject;
+import de.upb.hni.vmagic.object.RecordElement;
+import de.upb.hni.vmagic.object.Signal;
+import de.upb.hni.vmagic.object.Slice;
+import de.upb.hni.vmagic.object.Variable;
+import de.upb.hni.vmagic.object.VhdlObject;
+import de.upb.hni.vmagic.object.VhdlObjectGroup;
+import de.upb.hni.vmagic.object.VhdlObjectProvider;
+import de.upb.hni.vmagic.statement.AssertionStatement;
+import de.upb.hni.vmagic.statement.CaseStatement;
+import de.upb.hni.vmagic.statement.ExitStatement;
+import de.upb.hni.vmagic.statement.ForStatement;
+import de.upb.hni.vmagic.statement.IfStatement;
+import de.upb.hni.vmagic.statement.LoopStatement;
+import de.upb.hni.vmagic.statement.NextStatement;
+import de.upb.hni.vmagic.statement.ProcedureCall;
+import de.upb.hni.vmagic.statement.ReportStatement;
+import de.upb.hni.vmagic.statement.ReturnStatement;
+import de.upb.hni.vmagic.statement.SequentialStatement;
+import de.upb.hni.vmagic.statement.SequentialStatementVisitor;
+import de.upb.hni.vmagic.statement.SignalAssignment;
+import de.upb.hni.vmagic.statement.VariableAssignment;
+import de.upb.hni.vmagic.statement.WaitStatement;
+import de.upb.hni.vmagic.statement.WhileStatement;
+import de.upb.hni.vmagic.type.AccessType;
+import de.upb.hni.vmagic.type.ConstrainedArray;
+import de.upb.hni.vmagic.type.EnumerationType;
+import de.upb.hni.vmagic.type.FileType;
+import de.upb.hni.vmagic.type.IndexSubtypeIndication;
+import de.upb.hni.vmagic.type.IntegerType;
+import de.upb.hni.vmagic.type.PhysicalType;
+import de.upb.hni.vmagic.type.RangeSubtypeIndication;
+import de.upb.hni.vmagic.type.RecordType;
+import de.upb.hni.vmagic.type.ResolvedSubtypeIndication;
+import de.upb.hni.vmagic.type.SubtypeIndication;
+import de.upb.hni.vmagic.type.Type;
+import de.upb.hni.vmagic.type.TypeVisitor;
+import de.upb.hni.vmagic.type.UnconstrainedArray;
+import java.util.List;
+
+/**
+ * Element walker.
+ * The element walker visits all VHDL elements in a tree, independent of their
+ * category: library units, declarations, types, statements, configuration
+ * items, expressions and the elements they consist of. The elements are
+ * visited in the order in which they appear in the VHDL output. References to
+ * elements, like the signal in a signal assignment target or the type of an
+ * object, are visited as leafs if they are <code>VhdlElement</code>s that
+ * are part of the VHDL output and aren't visited otherwise.
+ * <p>
+ * The walker uses an explicit stack instead of recursion, so arbitrarily deep
+ * trees, like long chains of binary expressions, can be walked. To use this
+ * class you need to subclass it and override the <code>enter</code> and
+ * <code>leave</code> methods.
+ */
+public class ElementWalker {
+
+    private static final Object LEAVE = new Object();
+    private Object[] stack = new Object[64];
+    private int size;
+    private final ExpressionChildren expressionChildren = new ExpressionChildren();
+    private final SequentialStatementChildren sequentialStatementChildren =
+            new SequentialStatementChildren();
+    private final ConcurrentStatementChildren concurrentStatementChildren =
+            new ConcurrentStatementChildren();
+    private final DeclarationChildren declarationChildren = new DeclarationChildren();
+    private final TypeChildren typeChildren = new TypeChildren();
+    private final LibraryUnitChildren libraryUnitChildren = new LibraryUnitChildren();
+    private final ConfigurationChildren configurationChildren = new ConfigurationChildren();
+
+    /**
+     * Walks the tree with the given root element.
+     * No method is called when the parameter is <code>null</code>. If a root
+     * declarative region is walked the builtin libraries are walked too,
+     * unless they are skipped by the <code>enter</code> method.
+     * @param element the root element
+     */
+    public void walk(VhdlElement element) {
+        if (element == null) {
+            return;
+        }
+
+        //the base allows enter and leave to walk other trees
+        int base = size;
+        push(element);
+        while (size > base) {
+            Object top = stack[--size];
+            stack[size] = null;
+            if (top == LEAVE) {
+                VhdlElement e = (VhdlElement) stack[--size];
+                stack[size] = null;
+                leave(e);
+            } else {
+                VhdlElement e = (VhdlElement) top;
+                push(e);
+                push(LEAVE);
+                if (enter(e)) {
+                    int start = size;
+                    addChildren(e);
+                    reverse(start, size);
+                }
+            }
+        }
+    }
+
+    /**
+     * Walks a list of trees.
+     * @param elements the root elements
+     */
+    public void walk(List<? extends VhdlElement> elements) {
+        for (VhdlElement element : elements) {
+            walk(element);
+        }
+    }
+
+    /**
+     * Is called before the children of an element are walked.
+     * @param element the element
+     * @return <code>true</code>, if the children of the element should be
+     *         walked, <code>false</code> to skip the children
+     */
+    protected boolean enter(VhdlElement element) {
+        return true;
+    }
+
+    /**
+     * Is called after the children of an element were walked or skipped.
+     * @param element the element
+     */
+    protected void leave(VhdlElement element) {
+    }
+
+    private void push(Object o) {
+        if (size == stack.length) {
+            Object[] newStack = new Object[stack.length * 2];
+            System.arraycopy(stack, 0, newStack, 0, size);
+            stack = newStack;
+        }
+        stack[size++] = o;
+    }
+
+    //the children are added in visiting order and reversed afterwards,
+    //so that the first child is on the top of the stack
+    private void reverse(int start, int end) {
+        for (int i = start, j = end - 1; i < j; i++, j--) {
+            Object tmp = stack[i];
+            stack[i] = stack[j];
+            stack[j] = tmp;
+        }
+    }
+
+    private void add(Object child) {
+        if (child instanceof VhdlElement) {
+            push(child);
+        }
+    }
+
+    private void addAll(List<?> children) {
+        for (int i = 0; i < children.size(); i++) {
+            add(children.get(i));
+        }
+    }
+
+    private void addObjectProviders(List<? extends VhdlObjectProvider<?>> providers) {
+        for (VhdlObjectProvider<?> provider : providers) {
+            add(provider);
+            List<? extends VhdlObject> objects = provider.getVhdlObjects();
+            if (!objects.isEmpty()) {
+                addObjectSuffix(objects.get(0));
+            }
+        }
+    }
+
+    private void addObjectDeclaration(ObjectDeclaration<?> declaration) {
+        List<? extends VhdlObject> objects = declaration.getObjects();
+        addAll(objects);
+        if (!objects.isEmpty()) {
+            addObjectSuffix(objects.get(0));
+        }
+    }
+
+    //objects which are declared in a list share the type and the default value
+    //of the first object
+    private void addObjectSuffix(VhdlObject object) {
+        addSubtypeIndication(object.getType());
+        if (object instanceof Signal) {
+            add(((Signal) object).getDefaultValue());
+        } else if (object instanceof Constant) {
+            add(((Constant) object).getDefaultValue());
+        } else if (object instanceof Variable) {
+            add(((Variable) object).getDefaultValue());
+        } else if (object instanceof FileObject) {
+            add(((FileObject) object).getOpenKind());
+            add(((FileObject) object).getLogicalName());
+        }
+    }
+
+    //only the constraints of a subtype indication are part of the tree,
+    //the referenced types are declared elsewhere
+    private void addSubtypeIndication(SubtypeIndication indication) {
+        if (indication instanceof IndexSubtypeIndication) {
+            IndexSubtypeIndication isi = (IndexSubtypeIndication) indication;
+            addSubtypeIndication(isi.getBaseType());
+            addAll(isi.getRanges());
+        } else if (indication instanceof RangeSubtypeIndication) {
+            RangeSubtypeIndication rsi = (RangeSubtypeIndication) indication;
+            addSubtypeIndication(rsi.getBaseType());
+            add(rsi.getRange());
+        } else if (indication instanceof ResolvedSubtypeIndication) {
+            addSubtypeIndication(((ResolvedSubtypeIndication) indication).getBaseType());
+        }
+    }
+
+    private void addWaveform(List<WaveformElement> waveform) {
+        for (WaveformElement element : waveform) {
+            add(element.getValue());
+            add(element.getAfter());
+        }
+    }
+
+    private void addChildren(VhdlElement element) {
+        if (element instanceof Expression) {
+            expressionChildren.visit((Expression) element);
+        } else if (element instanceof SequentialStatement) {
+            sequentialStatementChildren.visit((SequentialStatement) element);
+        } else if (element instanceof ConcurrentStatement) {
+            concurrentStatementChildren.visit((ConcurrentStatement) element);
+        } else if (element instanceof DeclarativeItem) {
+            declarationChildren.visit((DeclarativeItem) element);
+        } else if (element instanceof Type) {
+            typeChildren.visit((Type) element);
+        } else if (element instanceof LibraryUnit) {
+            libraryUnitChildren.visit((LibraryUnit) element);
+        } else if (element instanceof ConfigurationItem) {
+            configurationChildren.visit((ConfigurationItem) element);
+        } else if (element instanceof Range) {
+            add(((Range) element).getFrom());
+            add(((Range) element).getTo());
+        } else if (element instanceof RangeAttributeName) {
+            add(((RangeAttributeName) element).getIndex());
+        } else if (element instanceof SubtypeDiscreteRange) {
+            addSubtypeIndication(((SubtypeDiscreteRange) element).getSubtypeIndication());
+        } else if (element instanceof AssociationElement) {
+            add(((AssociationElement) element).getActual());
+        } else if (element instanceof Aggregate.ElementAssociation) {
+            Aggregate.ElementAssociation association = (Aggregate.ElementAssociation) element;
+            addAll(association.getChoices());
+            add(association.getExpression());
+        } else if (element instanceof DelayMechanism) {
+            add(((DelayMechanism) element).getPulseRejectionLimit());
+        } else if (element instanceof VhdlObjectGroup) {
+            addAll(((VhdlObjectGroup<?>) element).getElements());
+        } else if (element instanceof AttributeSpecification.EntityNameList) {
+            addAll(((AttributeSpecification.EntityNameList) element).getDesignators());
+        } else if (element instanceof AttributeSpecification.EntityNameList.EntityDesignator) {
+            add(((AttributeSpecification.EntityNameList.EntityDesignator) element).getSignature());
+        } else if (element instanceof DisconnectionSpecification.SignalList) {
+            addAll(((DisconnectionSpecification.SignalList) element).getSignals());
+        } else if (element instanceof VhdlFile) {
+            addAll(((VhdlFile) element).getElements());
+        } else if (element instanceof LibraryDeclarativeRegion) {
+            addAll(((LibraryDeclarativeRegion) element).getFiles());
+        } else if (element instanceof RootDeclarativeRegion) {
+            addAll(((RootDeclarativeRegion) element).getLibraries());
+        }
+    }
+
+    private class ExpressionChildren extends ExpressionVisitor {
+
+        @Override
+        protected void visitAggregate(Aggregate expression) {
+            addAll(expression.getAssociations());
+        }
+
+        @Override
+        protected void visitBinaryExpression(BinaryExpression expression) {
+            add(expression.getLeft());
+            add(expression.getRight());
+        }
+
+        @Override
+        protected void visitFunctionCall(FunctionCall expression) {
+            addAll(expression.getParameters());
+        }
+
+        @Override
+        protected void visitParentheses(Parentheses expression) {
+            add(expression.getExpression());
+        }
+
+        @Override
+        protected void visitQualifiedExpression(QualifiedExpression expression) {
+            addSubtypeIndication(expression.getType());
+            add(expression.getOperand());
+        }
+
+        @Override
+        protected void visitQualifiedExpressionAllocator(QualifiedExpressionAllocator expression) {
+            add(expression.getExpression());
+        }
+
+        @Override
+        protected void visitSubtypeIndicationAllocator(SubtypeIndicationAllocator expression) {
+            addSubtypeIndication(expression.getType());
+        }
+
+        @Override
+        protected void visitTypeConversion(TypeConversion expression) {
+            addSubtypeIndication(expression.getType());
+            add(expression.getExpression());
+        }
+
+        @Override
+        protected void visitUnaryExpression(UnaryExpression expression) {
+            add(expression.getExpression());
+        }
+
+        @Override
+        protected void visitName(Name name) {
+            if (name instanceof ArrayElement) {
+                ArrayElement<?> arrayElement = (ArrayElement<?>) name;
+                add(arrayElement.getPrefix());
+                addAll(arrayElement.getIndices());
+            } else if (name instanceof RecordElement) {
+                add(((RecordElement<?>) name).getPrefix());
+            } else if (name instanceof Slice) {
+                Slice<?> slice = (Slice<?>) name;
+                add(slice.getPrefix());
+                add(slice.getRange());
+            } else if (name instanceof AttributeExpression) {
+                AttributeExpression<?> expression = (AttributeExpression<?>) name;
+                add(expression.getPrefix());
+                add(expression.getParameter());
+            }
+        }
+    }
+
+    private class SequentialStatementChildren extends SequentialStatementVisitor {
+
+        @Override
+        protected void visitAssertionStatement(AssertionStatement statement) {
+            add(statement.getCondition());
+            add(statement.getReportedExpression());
+            add(statement.getSeverity());
+        }
+
+        @Override
+        protected void visitCaseStatement(CaseStatement statement) {
+            add(statement.getExpression());
+            for (CaseStatement.Alternative alternative : statement.getAlternatives()) {
+                addAll(alternative.getChoices());
+                addAll(alternative.getStatements());
+            }
+        }
+
+        @Override
+        protected void visitExitStatement(ExitStatement statement) {
+            add(statement.getCondition());
+        }
+
+        @Override
+        protected void visitForStatement(ForStatement statement) {
+            add(statement.getParameter());
+            add(statement.getRange());
+            addAll(statement.getStatements());
+        }
+
+        @Override
+        protected void visitIfStatement(IfStatement statement) {
+            add(statement.getCondition());
+            addAll(statement.getStatements());
+            for (IfStatement.ElsifPart part : statement.getElsifParts()) {
+                add(part.getCondition());
+                addAll(part.getStatements());
+            }
+            addAll(statement.getElseStatements());
+        }
+
+        @Override
+        protected void visitLoopStatement(LoopStatement statement) {
+            addAll(statement.getStatements());
+        }
+
+        @Override
+        protected void visitNextStatement(NextStatement statement) {
+            add(statement.getCondition());
+        }
+
+        @Override
+        protected void visitProcedureCall(ProcedureCall statement) {
+            addAll(statement.getParameters());
+        }
+
+        @Override
+        protected void visitReportStatement(ReportStatement statement) {
+            add(statement.getReportExpression());
+            add(statement.getSeverity());
+        }
+
+        @Override
+        protected void visitReturnStatement(ReturnStatement statement) {
+            add(statement.getReturnedExpression());
+        }
+
+        @Override
+        protected void visitSignalAssignment(SignalAssignment statement) {
+            add(statement.getTarget());
+            add(statement.getDelayMechanism());
+            addWaveform(statement.getWaveform());
+        }
+
+        @Override
+        protected void visitVariableAssignment(VariableAssignment statement) {
+            add(statement.getTarget());
+            add(statement.getValue());
+        }
+
+        @Override
+        protected void visitWaitStatement(WaitStatement statement) {
+            addAll(statement.getSensitivityList());
+            add(statement.getCondition());
+            add(statement.getTimeout());
+        }
+
+        @Override
+        protected void visitWhileStatement(WhileStatement statement) {
+            add(statement.getCondition());
+            addAll(statement.getStatements());
+        }
+    }
+
+    private class ConcurrentStatementChildren extends ConcurrentStatementVisitor {
+
+        private void addGenerateStatementSuffix(AbstractGenerateStatement statement) {
+            addAll(statement.getDeclarations());
+            addAll(statement.getStatements());
+        }
+
+        private void addMaps(AbstractComponentInstantiation instantiation) {
+            addAll(instantiation.getGenericMap());
+            addAll(instantiation.getPortMap());
+        }
+
+        @Override
+        protected void visitArchitectureInstantiation(ArchitectureInstantiation statement) {
+            addMaps(statement);
+        }
+
+        @Override
+        protected void visitBlockStatement(BlockStatement statement) {
+            add(statement.getGuardExpression());
+            addObjectProviders(statement.getGeneric());
+            addAll(statement.getGenericMap());
+            addObjectProviders(statement.getPort());
+            addAll(statement.getPortMap());
+            addAll(statement.getDeclarations());
+            addAll(statement.getStatements());
+        }
+
+        @Override
+        protected void visitComponentInstantiation(ComponentInstantiation statement) {
+            addMaps(statement);
+        }
+
+        @Override
+        protected void visitConcurrentAssertionStatement(ConcurrentAssertionStatement statement) {
+            add(statement.getCondition());
+            add(statement.getReportedExpression());
+            add(statement.getSeverity());
+        }
+
+        @Override
+        protected void visitConcurrentProcedureCall(ConcurrentProcedureCall statement) {
+            addAll(statement.getParameters());
+        }
+
+        @Override
+        protected void visitConditionalSignalAssignment(ConditionalSignalAssignment statement) {
+            add(statement.getTarget());
+            add(statement.getDelayMechanism());
+            for (ConditionalSignalAssignment.ConditionalWaveformElement element
+                    : statement.getConditionalWaveforms()) {
+                addWaveform(element.getWaveform());
+                add(element.getCondition());
+            }
+        }
+
+        @Override
+        protected void visitConfigurationInstantiation(ConfigurationInstantiation statement) {
+            addMaps(statement);
+        }
+
+        @Override
+        protected void visitEntityInstantiation(EntityInstantiation statement) {
+            addMaps(statement);
+        }
+
+        @Override
+        protected void visitForGenerateStatement(ForGenerateStatement statement) {
+            add(statement.getParameter());
+            add(statement.getRange());
+            addGenerateStatementSuffix(statement);
+        }
+
+        @Override
+        protected void visitIfGenerateStatement(IfGenerateStatement statement) {
+            add(statement.getCondition());
+            addGenerateStatementSuffix(statement);
+        }
+
+        @Override
+        protected void visitProcessStatement(AbstractProcessStatement statement) {
+            addAll(statement.getSensitivityList());
+            addAll(statement.getDeclarations());
+            addAll(statement.getStatements());
+        }
+
+        @Override
+        protected void visitSelectedSignalAssignment(SelectedSignalAssignment statement) {
+            add(statement.getExpression());
+            add(statement.getTarget());
+            add(statement.getDelayMechanism());
+            for (SelectedSignalAssignment.SelectedWaveform waveform : statement.getSelectedWaveforms()) {
+                addWaveform(waveform.getWaveform());
+                addAll(waveform.getChoices());
+            }
+        }
+    }
+
+    private class DeclarationChildren extends DeclarationVisitor {
+
+        @Override
+        protected void visitAliasDeclaration(Alias declaration) {
+            addSubtypeIndication(declaration.getSubtypeIndication());
+            add(declaration.getSignature());
+        }
+
+        @Override
+        protected void visitAttributeDeclaration(Attribute declaration) {
+            addSubtypeIndication(declaration.getType());
+        }
+
+        @Override
+        protected void visitAttributeSpecification(AttributeSpecification specification) {
+            add(specification.getEntities());
+            add(specification.getValue());
+        }
+
+        @Override
+        protected void visitComponentDeclaration(Component declaration) {
+            addObjectProviders(declaration.getGeneric());
+            addObjectProviders(declaration.getPort());
+        }
+
+        @Override
+        protected void visitConfigurationSpecification(ConfigurationSpecification specification) {
+            add(specification.getComponentSpecification());
+            add(specification.getEntityAspect());
+            addAll(specification.getGenericMap());
+            addAll(specification.getPortMap());
+        }
+
+        @Override
+        protected void visitConstantDeclaration(ConstantDeclaration declaration) {
+            addObjectDeclaration(declaration);
+        }
+
+        @Override
+        protected void visitDisconnectionSpecification(DisconnectionSpecification specification) {
+            add(specification.getSignals());
+            addSubtypeIndication(specification.getType());
+            add(specification.getAfter());
+        }
+
+        @Override
+        protected void visitFileDeclaration(FileDeclaration declaration) {
+            addObjectDeclaration(declaration);
+        }
+
+        @Override
+        protected void visitFunctionBody(FunctionBody declaration) {
+            addObjectProviders(declaration.getParameters());
+            addSubtypeIndication(declaration.getReturnType());
+            addAll(declaration.getDeclarations());
+            addAll(declaration.getStatements());
+        }
+
+        @Override
+        protected void visitFunctionDeclaration(FunctionDeclaration declaration) {
+            addObjectProviders(declaration.getParameters());
+            addSubtypeIndication(declaration.getReturnType());
+        }
+
+        @Override
+        protected void visitProcedureBody(ProcedureBody declaration) {
+            addObjectProviders(declaration.getParameters());
+            addAll(declaration.getDeclarations());
+            addAll(declaration.getStatements());
+        }
+
+        @Override
+        protected void visitProcedureDeclaration(ProcedureDeclaration declaration) {
+            addObjectProviders(declaration.getParameters());
+        }
+
+        @Override
+        protected void visitSignalDeclaration(SignalDeclaration declaration) {
+            addObjectDeclaration(declaration);
+        }
+
+        @Override
+        protected void visitSubtypeDeclaration(Subtype declaration) {
+            addSubtypeIndication(declaration.getSubtypeIndication());
+        }
+
+        @Override
+        protected void visitVariableDeclaration(VariableDeclaration declaration) {
+            addObjectDeclaration(declaration);
+        }
+    }
+
+    private class TypeChildren extends TypeVisitor {
+
+        @Override
+        protected void visitAccessType(AccessType type) {
+            addSubtypeIndication(type.getDesignatedSubtype());
+        }
+
+        @Override
+        protected void visitConstrainedArray(ConstrainedArray type) {
+            addAll(type.getIndexRanges());
+            addSubtypeIndication(type.getElementType());
+        }
+
+        @Override
+        protected void visitEnumerationType(EnumerationType type) {
+            addAll(type.getLiterals());
+        }
+
+        @Override
+        protected void visitFileType(FileType type) {
+            addSubtypeIndication(type.getValueType());
+        }
+
+        @Override
+        protected void visitIntegerType(IntegerType type) {
+            add(type.getRange());
+        }
+
+        @Override
+        protected void visitPhysicalType(PhysicalType type) {
+            add(type.getRange());
+            for (PhysicalType.Unit unit : type.getUnits()) {
+                add(unit.getFactor());
+            }
+        }
+
+        @Override
+        protected void visitRecordType(RecordType type) {
+            for (RecordType.ElementDeclaration element : type.getElements()) {
+                addSubtypeIndication(element.getType());
+            }
+        }
+
+        @Override
+        protected void visitUnconstrainedArray(UnconstrainedArray type) {
+            for (SubtypeIndication subtype : type.getIndexSubtypes()) {
+                addSubtypeIndication(subtype);
+            }
+            addSubtypeIndication(type.getElementType());
+        }
+    }
+
+    private class LibraryUnitChildren extends LibraryUnitVisitor {
+
+        @Override
+        protected void visitArchitecture(Architecture architecture) {
+            addAll(architecture.getDeclarations());
+            addAll(architecture.getStatements());
+        }
+
+        @Override
+        protected void visitConfiguration(Configuration configuration) {
+            addAll(configuration.getDeclarations());
+            add(configuration.getBlockConfiguration());
+        }
+
+        @Override
+        protected void visitEntity(Entity entity) {
+            addObjectProviders(entity.getGeneric());
+            addObjectProviders(entity.getPort());
+            addAll(entity.getDeclarations());
+            addAll(entity.getStatements());
+        }
+
+        @Override
+        protected void visitPackageBody(PackageBody packageBody) {
+            addAll(packageBody.getDeclarations());
+        }
+
+        @Override
+        protected void visitPackageDeclaration(PackageDeclaration packageDeclaration) {
+            addAll(packageDeclaration.getDeclarations());
+        }
+    }
+
+    private class ConfigurationChildren extends ConfigurationVisitor {
+
+        private void addBlockConfiguration(AbstractBlockConfiguration configuration) {
+            addAll(configuration.getUseClauses());
+            addAll(configuration.getConfigurationItems());
+        }
+
+        @Override
+        protected void visitArchitectureConfiguration(ArchitectureConfiguration configuration) {
+            addBlockConfiguration(configuration);
+        }
+
+        @Override
+        protected void visitBlockStatementConfiguration(BlockStatementConfiguration configuration) {
+            addBlockConfiguration(configuration);
+        }
+
+        @Override
+        protected void visitComponentConfiguration(ComponentConfiguration configuration) {
+            add(configuration.getComponentSpecification());
+            add(configuration.getEntityAspect());
+            addAll(configuration.getGenericMap());
+            addAll(configuration.getPortMap());
+            add(configuration.getBlockConfiguration());
+        }
+
+        @Override
+        protected void visitGenerateStatementConfiguration(GenerateStatementConfiguration configuration) {
+            addBlockConfiguration(configuration);
+        }
+    }
+}
@@ -0,0 +1,434 @@
+/*
+ * Copyright 2009, 2010 University of Paderborn
+ *
+ * This file is part of vMAGIC.
+ *
+ * vMAGIC is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * vMAGIC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with vMAGIC. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Authors: Ralf Fuest <rfuest@users.sourceforge.net>
+ *          Christopher Pohl <cpohl@users.sourceforge.net>
+ */
+
+package de.upb.hni.vmagic.util;
+
+import de.upb.hni.vmagic.Choices;
+import de.upb.hni.vmagic.DelayMechanism;
+import de.upb.hni.vmagic.LibraryDeclarativeRegion;
+import de.upb.hni.vmagic.RootDeclarativeRegion;
+import de.upb.hni.vmagic.VhdlFile;
+import de.upb.hni.vmagic.builtin.Libraries;
+import de.upb.hni.vmagic.builtin.NumericStd;
+import de.upb.hni.vmagic.builtin.SignalAttributes;
+import de.upb.hni.vmagic.builtin.Standard;
+import de.upb.hni.vmagic.builtin.StdLogic1164;
+import de.upb.hni.vmagic.builtin.StdLogicArith;
+import de.upb.hni.vmagic.builtin.StdLogicSigned;
+import de.upb.hni.vmagic.builtin.StdLogicUnsigned;
+import de.upb.hni.vmagic.builtin.TextIO;
+import de.upb.hni.vmagic.declaration.AttributeSpecification;
+import de.upb.hni.vmagic.declaration.Component;
+import de.upb.hni.vmagic.declaration.DisconnectionSpecification;
+import de.upb.hni.vmagic.declaration.ObjectDeclaration;
+import de.upb.hni.vmagic.libraryunit.Architecture;
+import de.upb.hni.vmagic.libraryunit.Configuration;
+import de.upb.hni.vmagic.libraryunit.Entity;
+import de.upb.hni.vmagic.libraryunit.LibraryUnit;
+import de.upb.hni.vmagic.libraryunit.PackageBody;
+import de.upb.hni.vmagic.libraryunit.PackageDeclaration;
+import de.upb.hni.vmagic.literal.Literals;
+import de.upb.hni.vmagic.object.VhdlObjectProvider;
+import de.upb.hni.vmagic.type.EnumerationType;
+import de.upb.hni.vmagic.type.PhysicalType;
+import de.upb.hni.vmagic.type.UnresolvedType;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * References to elements which aren't part of the serialized tree.
+ * Elements in other files, builtin libraries and constants like
+ * <code>Choices.OTHERS</code> are not serialized. A reference to such an
+ * element is stored as a path instead, which consists of the library, the
+ * design unit and the indices of the declarations, ports, generics, objects,
+ * enumeration literals and physical units that lead to the element. The path
+ * is resolved in the root declarative region the tree is read into.
+ */
+final class ExternalReferences {
+
+    static final int CONSTANT = 0;
+    static final int ROOT = 1;
+    static final int TARGET_LIBRARY = 2;
+    static final int LIBRARY = 3;
+    static final int BUILTIN_LIBRARY = 4;
+    private static final int[] NO_PATH = new int[0];
+    private static final Class<?>[] CONSTANT_CLASSES = {
+        Libraries.class, Standard.class, TextIO.class, StdLogic1164.class,
+        StdLogicArith.class, StdLogicSigned.class, StdLogicUnsigned.class,
+        NumericStd.class, SignalAttributes.class, Choices.class,
+        DelayMechanism.class, Literals.class, UnresolvedType.class,
+        AttributeSpecification.EntityNameList.class,
+        DisconnectionSpecification.SignalList.class
+    };
+    //created on first use, the map isn't modified afterwards
+    private static volatile Map<Object, Reference> constants;
+    private final RootDeclarativeRegion root;
+    private final LibraryDeclarativeRegion targetLibrary;
+    private final Map<Object, Reference> references = new IdentityHashMap<Object, Reference>();
+    private final Map<LibraryDeclarativeRegion, Map<String, LibraryUnit>> units =
+            new IdentityHashMap<LibraryDeclarativeRegion, Map<String, LibraryUnit>>();
+
+    private ExternalReferences(RootDeclarativeRegion root, LibraryDeclarativeRegion targetLibrary) {
+        this.root = root;
+        this.targetLibrary = targetLibrary;
+    }
+
+    /**
+     * Collects the referenceable elements outside of a serialized tree.
+     * @param root the root declarative region, or <code>null</code>
+     * @param targetLibrary the library that contains the serialized file, or <code>null</code>
+     * @param written the serialized file or library
+     * @return the external references
+     */
+    static ExternalReferences forWriting(RootDeclarativeRegion root,
+            LibraryDeclarativeRegion targetLibrary, Object written) {
+        ExternalReferences refs = new ExternalReferences(root, targetLibrary);
+        refs.references.putAll(getConstants());
+
+        refs.addLibrary(Libraries.STD, BUILTIN_LIBRARY, written);
+        refs.addLibrary(Libraries.IEEE, BUILTIN_LIBRARY, written);
+        if (targetLibrary != null) {
+            refs.addLibrary(targetLibrary, TARGET_LIBRARY, written);
+        }
+        if (root != null) {
+            refs.references.put(root, new Reference(ROOT, null, null, NO_PATH, null));
+            for (LibraryDeclarativeRegion library : root.getLibraries()) {
+                if (library != written && library != targetLibrary) {
+                    refs.addLibrary(library, LIBRARY, written);
+                }
+            }
+        }
+
+        return refs;
+    }
+
+    /**
+     * Returns if an object is a constant like <code>Choices.OTHERS</code> or
+     * an element of a builtin library which is accessible by a constant.
+     * @param o the object
+     * @return <code>true</code>, if the object is a constant
+     */
+    static boolean isConstant(Object o) {
+        return getConstants().containsKey(o);
+    }
+
+    private static Map<Object, Reference> getConstants() {
+        Map<Object, Reference> map = constants;
+        if (map == null) {
+            map = new IdentityHashMap<Object, Reference>();
+            for (Class<?> c : CONSTANT_CLASSES) {
+                for (Field field : c.getFields()) {
+                    int modifiers = field.getModifiers();
+                    if (Modifier.isStatic(modifiers) && Modifier.isFinal(modifiers)
+                            && !field.getType().isPrimitive()) {
+                        try {
+                            Object value = field.get(null);
+                            if (value != null && !map.containsKey(value)) {
+                                map.put(value,
+                                        new Reference(CONSTANT, c.getName(), field.getName(), NO_PATH, null));
+                            }
+                        } catch (IllegalAccessException ex) {
+                            throw new IllegalStateException(ex);
+                        }
+                    }
+                }
+            }
+            constants = map;
+        }
+        return map;
+    }
+
+    /**
+     * Creates the external references used to resolve the paths read from a stream.
+     * @param root the root declarative region, or <code>null</code>
+     * @param targetLibrary the library the file is read into, or <code>null</code>
+     * @return the external references
+     */
+    static ExternalReferences forReading(RootDeclarativeRegion root,
+            LibraryDeclarativeRegion targetLibrary) {
+        return new ExternalReferences(root, targetLibrary);
+    }
+
+    /**
+     * Returns the reference to an external element.
+     * @param element the element
+     * @return the reference or <code>null</code>, if the element is part of
+     *         the serialized tree
+     */
+    Reference get(Object element) {
+        return references.get(element);
+    }
+
+    /**
+     * Resolves a reference read from a stream.
+     * @param reference the reference
+     * @return the referenced element
+     * @throws IOException if the reference cannot be resolved
+     */
+    Object resolve(Reference reference) throws IOException {
+        switch (reference.kind) {
+            case CONSTANT:
+                return resolveConstant(reference);
+
+            case ROOT:
+                if (root == null) {
+                    throw new InvalidObjectException("no root declarative region");
+                }
+                return root;
+
+            default:
+                break;
+        }
+
+        LibraryDeclarativeRegion library = getLibrary(reference.kind, reference.owner);
+        if (library == null) {
+            throw new InvalidObjectException("unknown library: " + reference.owner);
+        }
+        if (reference.name == null) {
+            return library;
+        }
+
+        Object element = getUnits(library).get(reference.name);
+        for (int index : reference.path) {
+            List<?> children = element == null ? Collections.emptyList() : getChildren(element);
+            element = index < children.size() ? children.get(index) : null;
+        }
+
+        if (element == null || !element.getClass().getName().equals(reference.type)) {
+            throw new InvalidObjectException("unresolved reference to "
+                    + reference.type + " in " + reference.owner + "." + reference.name);
+        }
+
+        return element;
+    }
+
+    private Object resolveConstant(Reference reference) throws IOException {
+        for (Class<?> c : CONSTANT_CLASSES) {
+            if (c.getName().equals(reference.owner)) {
+                try {
+                    return c.getField(reference.name).get(null);
+                } catch (Exception ex) {
+                    InvalidObjectException ioe = new InvalidObjectException(
+                            "unknown constant: " + reference.owner + "." + reference.name);
+                    ioe.initCause(ex);
+                    throw ioe;
+                }
+            }
+        }
+        throw new InvalidObjectException("unknown constant class: " + reference.owner);
+    }
+
+    private LibraryDeclarativeRegion getLibrary(int kind, String identifier) {
+        switch (kind) {
+            case TARGET_LIBRARY:
+                return targetLibrary;
+
+            case BUILTIN_LIBRARY:
+                if (Libraries.IEEE.getIdentifier().equalsIgnoreCase(identifier)) {
+                    return Libraries.IEEE;
+                } else if (Libraries.STD.getIdentifier().equalsIgnoreCase(identifier)) {
+                    return Libraries.STD;
+                }
+                return null;
+
+            default:
+                if (root != null) {
+                    for (LibraryDeclarativeRegion library : root.getLibraries()) {
+                        if (identifier.equalsIgnoreCase(library.getIdentifier())) {
+                            return library;
+                        }
+                    }
+                }
+                return null;
+        }
+    }
+
+    private Map<String, LibraryUnit> getUnits(LibraryDeclarativeRegion library) {
+        Map<String, LibraryUnit> map = units.get(library);
+        if (map == null) {
+            map = new HashMap<String, LibraryUnit>();
+            for (VhdlFile file : library.getFiles()) {
+                for (LibraryUnit unit : file.getElements()) {
+                    String key = getUnitKey(unit);
+                    if (key != null && !map.containsKey(key)) {
+                        map.put(key, unit);
+                    }
+                }
+            }
+            units.put(library, map);
+        }
+        return map;
+    }
+
+    private void addLibrary(LibraryDeclarativeRegion library, int kind, Object written) {
+        String identifier = library.getIdentifier();
+        if (!references.containsKey(library)) {
+            references.put(library, new Reference(kind, identifier, null, NO_PATH, null));
+        }
+
+        for (VhdlFile file : library.getFiles()) {
+            if (file == written) {
+                continue;
+            }
+            for (LibraryUnit unit : file.getElements()) {
+                String key = getUnitKey(unit);
+                if (key != null) {
+                    addElement(unit, kind, identifier, key, NO_PATH);
+                }
+            }
+        }
+    }
+
+    private void addElement(Object element, int kind, String library, String unit, int[] path) {
+        if (element == null || references.containsKey(element)) {
+            return;
+        }
+        references.put(element, new Reference(kind, library, unit, path, element.getClass().getName()));
+
+        List<?> children = getChildren(element);
+        for (int i = 0; i < children.size(); i++) {
+            int[] childPath = Arrays.copyOf(path, path.length + 1);
+            childPath[path.length] = i;
+            addElement(children.get(i), kind, library, unit, childPath);
+        }
+    }
+
+    /**
+     * Returns the key of a design unit inside its library.
+     */
+    private static String getUnitKey(LibraryUnit unit) {
+        if (unit instanceof Entity) {
+            return getKey("entity", ((Entity) unit).getIdentifier());
+        } else if (unit instanceof PackageDeclaration) {
+            return getKey("package", ((PackageDeclaration) unit).getIdentifier());
+        } else if (unit instanceof PackageBody) {
+            PackageDeclaration pkg = ((PackageBody) unit).getPackage();
+            return pkg == null ? null : getKey("package body", pkg.getIdentifier());
+        } else if (unit instanceof Configuration) {
+            return getKey("configuration", ((Configuration) unit).getIdentifier());
+        } else if (unit instanceof Architecture) {
+            Architecture architecture = (Architecture) unit;
+            Entity entity = architecture.getEntity();
+            if (entity == null || entity.getIdentifier() == null) {
+                return null;
+            }
+            return getKey("architecture " + Identifiers.getKey(entity.getIdentifier()),
+                    architecture.getIdentifier());
+        }
+        return null;
+    }
+
+    private static String getKey(String kind, String identifier) {
+        return identifier == null ? null : kind + " " + Identifiers.getKey(identifier);
+    }
+
+    /**
+     * Returns the elements which can be referenced from other design units.
+     * The content of architectures and package bodies isn't visible outside
+     * the unit and therefore never accessed, which would load lazily created
+     * bodies.
+     */
+    private static List<?> getChildren(Object element) {
+        if (element instanceof Entity) {
+            Entity entity = (Entity) element;
+            List<Object> children = new ArrayList<Object>();
+            children.addAll(entity.getGeneric());
+            children.addAll(entity.getPort());
+            children.addAll(entity.getDeclarations());
+            return children;
+        } else if (element instanceof Component) {
+            Component component = (Component) element;
+            List<Object> children = new ArrayList<Object>();
+            children.addAll(component.getGeneric());
+            children.addAll(component.getPort());
+            return children;
+        } else if (element instanceof PackageDeclaration) {
+            return ((PackageDeclaration) element).getDeclarations();
+        } else if (element instanceof ObjectDeclaration) {
+            return ((ObjectDeclaration<?>) element).getObjects();
+        } else if (element instanceof VhdlObjectProvider) {
+            return ((VhdlObjectProvider<?>) element).getVhdlObjects();
+        } else if (element instanceof EnumerationType) {
+            return ((EnumerationType) element).getLiterals();
+        } else if (element instanceof PhysicalType) {
+            return ((PhysicalType) element).getUnits();
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * Path to an external element.
+     */
+    static final class Reference {
+
+        private final int kind;
+        private final String owner;
+        private final String name;
+        private final int[] path;
+        private final String type;
+
+        /**
+         * Creates a reference.
+         * @param kind the kind of the reference
+         * @param owner the constant class or the library identifier
+         * @param name the constant name or the design unit key
+         * @param path the indices of the element inside the design unit
+         * @param type the class name of the element
+         */
+        Reference(int kind, String owner, String name, int[] path, String type) {
+            this.kind = kind;
+            this.owner = owner;
+            this.name = name;
+            this.path = path;
+            this.type = type;
+        }
+
+        int getKind() {
+            return kind;
+        }
+
+        String getOwner() {
+            return owner;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        int[] getPath() {
+            return path;
+        }
+
+        String getType() {
+            return type;
+        }
+    }
+}
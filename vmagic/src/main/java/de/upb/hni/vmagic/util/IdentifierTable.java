@@ -0,0 +1,112 @@
+/*
+ * Copyright 2009, 2010 University of Paderborn
+ *
+ * This file is part of vMAGIC.
+ *
+ * vMAGIC is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * vMAGIC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with vMAGIC. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Authors: Ralf Fuest <rfuest@users.sourceforge.net>
+ *          Christopher Pohl <cpohl@users.sourceforge.net>
+ */
+
+package de.upb.hni.vmagic.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Identifier table.
+ * The identifier table stores a single instance of every identifier together
+ * with its case folded lookup key (see {@link Identifiers#getKey(String)}).
+ * The keys are added to the table too, so all identifiers which are equal
+ * when the case is ignored share the same key instance and their keys can be
+ * compared by identity. Every root declarative region contains an identifier
+ * table, which is used by the parser to avoid storing a separate copy of an
+ * identifier for every occurrence in the source. This class is thread safe.
+ */
+public class IdentifierTable {
+
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+
+    /**
+     * Returns the stored instance of an identifier.
+     * If the identifier isn't contained in the table it is added.
+     * @param identifier the identifier
+     * @return the stored identifier or <code>null</code>, if the identifier
+     *         was <code>null</code>
+     */
+    public String intern(String identifier) {
+        return identifier == null ? null : getEntry(identifier).identifier;
+    }
+
+    /**
+     * Returns the stored lookup key of an identifier.
+     * If the identifier isn't contained in the table it is added.
+     * @param identifier the identifier
+     * @return the lookup key
+     */
+    public String getKey(String identifier) {
+        return getEntry(identifier).key;
+    }
+
+    /**
+     * Returns the lookup key of an identifier without adding the identifier
+     * to the table. If the identifier is contained in the table the stored
+     * key is returned, otherwise a new key is created by
+     * {@link Identifiers#getKey(String)}. This method is used for lookups,
+     * which would otherwise add every looked up string to the table.
+     * @param identifier the identifier
+     * @return the lookup key
+     */
+    public String lookupKey(String identifier) {
+        Entry entry = entries.get(identifier);
+        return entry != null ? entry.key : Identifiers.getKey(identifier);
+    }
+
+    /**
+     * Returns the number of identifiers and keys in this table.
+     * @return the number of stored strings
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    private Entry getEntry(String identifier) {
+        Entry entry = entries.get(identifier);
+        if (entry != null) {
+            return entry;
+        }
+
+        String key = Identifiers.getKey(identifier);
+        //getKey returns the identifier itself if it is already case folded
+        if (key != identifier) {
+            key = getEntry(key).identifier;
+        }
+
+        entry = new Entry(identifier, key);
+        Entry previous = entries.putIfAbsent(identifier, entry);
+        return previous == null ? entry : previous;
+    }
+
+    private static final class Entry {
+
+        private final String identifier;
+        private final String key;
+
+        private Entry(String identifier, String key) {
+            this.identifier = identifier;
+            this.key = key;
+        }
+    }
+}
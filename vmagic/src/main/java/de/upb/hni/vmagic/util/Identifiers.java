@@ -0,0 +1,166 @@
+/*
+ * Copyright 2009, 2010 University of Paderborn
+ *
+ * This file is part of vMAGIC.
+ *
+ * vMAGIC is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * vMAGIC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with vMAGIC. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Authors: Ralf Fuest <rfuest@users.sourceforge.net>
+ *          Christopher Pohl <cpohl@users.sourceforge.net>
+ */
+
+package de.upb.hni.vmagic.util;
+
+import de.upb.hni.vmagic.DeclarativeRegion;
+import de.upb.hni.vmagic.Scopes;
+import de.upb.hni.vmagic.VhdlElement;
+import java.util.List;
+
+/**
+ * Identifier utility functions.
+ * VHDL identifiers are case insensitive. This class is used to create case
+ * folded lookup keys and to report changes which invalidate cached lookup
+ * results. Identifier changes are reported to the scope of the declarative
+ * region which contains the changed element, changes to the libraries, files
+ * and use clauses of a design to the scope of the root declarative region.
+ */
+public class Identifiers {
+
+    private Identifiers() {
+    }
+
+    /**
+     * Returns the case folded lookup key of an identifier.
+     * Two identifiers have the same key if and only if they are equal when the
+     * case is ignored (see <code>String.equalsIgnoreCase</code>).
+     * @param identifier the identifier
+     * @return the lookup key
+     */
+    public static String getKey(String identifier) {
+        int length = identifier.length();
+        int i = 0;
+        while (i < length) {
+            char c = identifier.charAt(i);
+            if (fold(c) != c) {
+                break;
+            }
+            i++;
+        }
+
+        if (i == length) {
+            return identifier;
+        }
+
+        char[] key = identifier.toCharArray();
+        for (; i < length; i++) {
+            key[i] = fold(key[i]);
+        }
+        return new String(key);
+    }
+
+    private static char fold(char c) {
+        if (c < 0x80) {
+            return (c >= 'A' && c <= 'Z') ? (char) (c + ('a' - 'A')) : c;
+        }
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    /**
+     * Reports that the identifier of an element or a list of named elements
+     * inside an element was changed. The identifier indices of the declarative
+     * region which contains the element are rebuilt on the next lookup.
+     * @param element the changed element
+     */
+    public static void identifierChanged(VhdlElement element) {
+        DeclarativeRegion parent = element.getParent();
+        if (parent != null) {
+            Scopes.identifierChanged(parent.getScope());
+        }
+    }
+
+    /**
+     * Reports that the libraries, files, library units or use clauses inside a
+     * declarative region were changed. The change is reported to the scope of
+     * the outermost region that contains the given region, which is usually a
+     * root declarative region.
+     * @param region the changed region or <code>null</code>
+     */
+    public static void libraryUnitsChanged(DeclarativeRegion region) {
+        if (region == null) {
+            return;
+        }
+
+        while (region instanceof VhdlElement && ((VhdlElement) region).getParent() != null) {
+            region = ((VhdlElement) region).getParent();
+        }
+        Scopes.declarationsChanged(region.getScope());
+    }
+
+    /**
+     * Creates a list which reports all modifications as identifier changes of
+     * an element. This is used for lists of named elements inside declarations,
+     * like enumeration literals or physical units.
+     * @param <E> the type of the list elements
+     * @param owner the element which contains the list
+     * @param list the list used for element storage
+     * @return the list
+     */
+    public static <E> List<E> createTrackingList(final VhdlElement owner, List<E> list) {
+        return new ChangeTrackingList<E>(list) {
+
+            @Override
+            protected void changed() {
+                identifierChanged(owner);
+            }
+
+            @Override
+            protected void checkModifiable() {
+                owner.checkModifiable();
+            }
+        };
+    }
+
+    /**
+     * Creates a list of objects which are declared by an element, like the
+     * objects in an object declaration or in a group. The parent of the objects
+     * is kept equal to the parent of the owner, which allows identifier changes
+     * of the objects to be reported to the declarative region, and all
+     * modifications are reported as identifier changes of the owner.
+     * @param <E> the type of the list elements
+     * @param owner the element which contains the list
+     * @param list the list used for element storage
+     * @return the list
+     */
+    public static <E extends VhdlElement> List<E> createObjectList(final VhdlElement owner, List<E> list) {
+        return new ChangeTrackingList<E>(list) {
+
+            @Override
+            protected void changed() {
+                DeclarativeRegion parent = owner.getParent();
+                for (int i = 0; i < size(); i++) {
+                    E element = get(i);
+                    if (element != null) {
+                        element.setParent(parent);
+                    }
+                }
+                identifierChanged(owner);
+            }
+
+            @Override
+            protected void checkModifiable() {
+                owner.checkModifiable();
+            }
+        };
+    }
+}
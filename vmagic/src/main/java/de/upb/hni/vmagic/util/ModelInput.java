@@ -0,0 +1,401 @@
+/*
+ * Copyright 2009, 2010 University of Paderborn
+ *
+ * This file is part of vMAGIC.
+ *
+ * vMAGIC is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * vMAGIC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with vMAGIC. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Authors: Ralf Fuest <rfuest@users.sourceforge.net>
+ *          Christopher Pohl <cpohl@users.sourceforge.net>
+ */
+
+package de.upb.hni.vmagic.util;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.StreamCorruptedException;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads an object graph written by <code>ModelOutput</code>.
+ */
+final class ModelInput {
+
+    private final DataInputStream in;
+    private final ExternalReferences externals;
+    private final List<Object> handles = new ArrayList<Object>();
+    private final List<Class<?>> classes = new ArrayList<Class<?>>();
+
+    ModelInput(InputStream in, ExternalReferences externals) {
+        this.in = new DataInputStream(in);
+        this.externals = externals;
+    }
+
+    void readHeader(int magic, int version) throws IOException {
+        if (in.readInt() != magic) {
+            throw new StreamCorruptedException("invalid stream header");
+        }
+        if (readInt() != version) {
+            throw new StreamCorruptedException("unsupported format version");
+        }
+    }
+
+    Object readObject() throws IOException {
+        int tag = in.readByte();
+        switch (tag) {
+            case ModelOutput.TAG_NULL:
+                return null;
+
+            case ModelOutput.TAG_HANDLE:
+                int handle = readInt();
+                if (handle < 0 || handle >= handles.size()) {
+                    throw new StreamCorruptedException("invalid handle");
+                }
+                return handles.get(handle);
+
+            case ModelOutput.TAG_EXTERNAL:
+                return addHandle(readExternal());
+
+            case ModelOutput.TAG_OBJECT:
+                return readFields();
+
+            case ModelOutput.TAG_STRING:
+                return addHandle(readString());
+
+            case ModelOutput.TAG_ENUM:
+                return readEnum();
+
+            case ModelOutput.TAG_CLASS:
+                return readClass();
+
+            case ModelOutput.TAG_ARRAY:
+                return readArray();
+
+            case ModelOutput.TAG_LIST:
+                return readList();
+
+            case ModelOutput.TAG_SET:
+                return readSet();
+
+            case ModelOutput.TAG_MAP:
+                return readMap();
+
+            case ModelOutput.TAG_BOOLEAN:
+                return readPrimitive(boolean.class);
+
+            case ModelOutput.TAG_BYTE:
+                return readPrimitive(byte.class);
+
+            case ModelOutput.TAG_CHARACTER:
+                return readPrimitive(char.class);
+
+            case ModelOutput.TAG_SHORT:
+                return readPrimitive(short.class);
+
+            case ModelOutput.TAG_INTEGER:
+                return readPrimitive(int.class);
+
+            case ModelOutput.TAG_LONG:
+                return readPrimitive(long.class);
+
+            case ModelOutput.TAG_FLOAT:
+                return readPrimitive(float.class);
+
+            case ModelOutput.TAG_DOUBLE:
+                return readPrimitive(double.class);
+
+            default:
+                throw new StreamCorruptedException("invalid tag: " + tag);
+        }
+    }
+
+    private Object readExternal() throws IOException {
+        int kind = readInt();
+        String owner = readString();
+        String name = readString();
+        int[] path = new int[readLength()];
+        for (int i = 0; i < path.length; i++) {
+            path[i] = readInt();
+        }
+        String type = readString();
+
+        return externals.resolve(new ExternalReferences.Reference(kind, owner, name, path, type));
+    }
+
+    private Object readFields() throws IOException {
+        Class<?> type = readClass();
+        if (!ClassLayout.isFieldSerialized(type)) {
+            throw new InvalidClassException(type.getName(), "not serialized field by field");
+        }
+
+        ClassLayout layout = ClassLayout.get(type);
+        Object o = addHandle(layout.newInstance());
+
+        try {
+            for (Field field : layout.getFields()) {
+                Class<?> fieldType = field.getType();
+                if (fieldType.isPrimitive()) {
+                    field.set(o, readPrimitive(fieldType));
+                } else {
+                    field.set(o, readObject());
+                }
+            }
+        } catch (IllegalAccessException ex) {
+            throw new IllegalStateException(ex);
+        } catch (IllegalArgumentException ex) {
+            InvalidClassException ice = new InvalidClassException(type.getName(),
+                    "incompatible field value");
+            ice.initCause(ex);
+            throw ice;
+        }
+
+        return o;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Object readEnum() throws IOException {
+        Class type = readClass();
+        String name = readString();
+        if (!type.isEnum()) {
+            throw new InvalidClassException(type.getName(), "not an enum");
+        }
+        try {
+            return Enum.valueOf(type, name);
+        } catch (IllegalArgumentException ex) {
+            InvalidClassException ice = new InvalidClassException(type.getName(),
+                    "unknown constant " + name);
+            ice.initCause(ex);
+            throw ice;
+        }
+    }
+
+    private Object readArray() throws IOException {
+        Class<?> type = readClass();
+        if (!type.isArray()) {
+            throw new InvalidClassException(type.getName(), "not an array");
+        }
+        Class<?> componentType = type.getComponentType();
+        int length = readLength();
+        Object array = addHandle(Array.newInstance(componentType, length));
+
+        for (int i = 0; i < length; i++) {
+            if (componentType.isPrimitive()) {
+                Array.set(array, i, readPrimitive(componentType));
+            } else {
+                Array.set(array, i, readObject());
+            }
+        }
+
+        return array;
+    }
+
+    private Object readList() throws IOException {
+        int kind = readInt();
+        int size = readLength();
+
+        switch (kind) {
+            case ModelOutput.ARRAY_LIST:
+                return readElements(new ArrayList<Object>(size), size);
+
+            case ModelOutput.LINKED_LIST:
+                return readElements(new LinkedList<Object>(), size);
+
+            case ModelOutput.FIXED_SIZE_LIST:
+                Object[] array = new Object[size];
+                List<Object> fixedSizeList = Arrays.asList(array);
+                addHandle(fixedSizeList);
+                for (int i = 0; i < size; i++) {
+                    array[i] = readObject();
+                }
+                return fixedSizeList;
+
+            case ModelOutput.UNMODIFIABLE_LIST:
+                List<Object> list = new ArrayList<Object>(size);
+                List<Object> unmodifiableList = Collections.unmodifiableList(list);
+                addHandle(unmodifiableList);
+                for (int i = 0; i < size; i++) {
+                    list.add(readObject());
+                }
+                return unmodifiableList;
+
+            case ModelOutput.EMPTY_LIST:
+                return addHandle(Collections.emptyList());
+
+            default:
+                throw new StreamCorruptedException("invalid list kind: " + kind);
+        }
+    }
+
+    private Object readSet() throws IOException {
+        int kind = readInt();
+        int size = readLength();
+
+        switch (kind) {
+            case ModelOutput.HASH_SET:
+                return readElements(new HashSet<Object>(), size);
+
+            case ModelOutput.LINKED_HASH_SET:
+                return readElements(new LinkedHashSet<Object>(), size);
+
+            default:
+                throw new StreamCorruptedException("invalid set kind: " + kind);
+        }
+    }
+
+    private Collection<Object> readElements(Collection<Object> collection, int size)
+            throws IOException {
+        addHandle(collection);
+        for (int i = 0; i < size; i++) {
+            collection.add(readObject());
+        }
+        return collection;
+    }
+
+    private Object readMap() throws IOException {
+        int kind = readInt();
+        int size = readLength();
+
+        Map<Object, Object> map;
+        switch (kind) {
+            case ModelOutput.HASH_MAP:
+                map = new HashMap<Object, Object>();
+                break;
+
+            case ModelOutput.LINKED_HASH_MAP:
+                map = new LinkedHashMap<Object, Object>();
+                break;
+
+            case ModelOutput.IDENTITY_HASH_MAP:
+                map = new IdentityHashMap<Object, Object>();
+                break;
+
+            default:
+                throw new StreamCorruptedException("invalid map kind: " + kind);
+        }
+
+        addHandle(map);
+        for (int i = 0; i < size; i++) {
+            Object key = readObject();
+            map.put(key, readObject());
+        }
+
+        return map;
+    }
+
+    private Object readPrimitive(Class<?> type) throws IOException {
+        if (type == boolean.class) {
+            return in.readBoolean();
+        } else if (type == byte.class) {
+            return in.readByte();
+        } else if (type == char.class) {
+            return in.readChar();
+        } else if (type == short.class) {
+            return (short) readInt();
+        } else if (type == int.class) {
+            return readInt();
+        } else if (type == long.class) {
+            return in.readLong();
+        } else if (type == float.class) {
+            return in.readFloat();
+        } else {
+            return in.readDouble();
+        }
+    }
+
+    private Class<?> readClass() throws IOException {
+        int index = readInt();
+        if (index > 0) {
+            if (index > classes.size()) {
+                throw new StreamCorruptedException("invalid class index");
+            }
+            return classes.get(index - 1);
+        }
+
+        String name = readString();
+        if (name == null || !ClassLayout.isAllowed(name)) {
+            throw new InvalidClassException(name, "class not allowed");
+        }
+        Class<?> type;
+        try {
+            type = Class.forName(name, false, ModelInput.class.getClassLoader());
+        } catch (ClassNotFoundException ex) {
+            InvalidClassException ice = new InvalidClassException(name, "class not found");
+            ice.initCause(ex);
+            throw ice;
+        }
+
+        if (ClassLayout.isFieldSerialized(type)) {
+            String[] descriptors = new String[readLength()];
+            for (int i = 0; i < descriptors.length; i++) {
+                descriptors[i] = readString();
+            }
+            ClassLayout.get(type).checkDescriptors(descriptors);
+        }
+
+        classes.add(type);
+        return type;
+    }
+
+    private Object addHandle(Object o) {
+        handles.add(o);
+        return o;
+    }
+
+    private String readString() throws IOException {
+        int length = readInt();
+        if (length == -1) {
+            return null;
+        } else if (length < 0) {
+            throw new StreamCorruptedException("invalid string length");
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, ModelOutput.UTF8);
+    }
+
+    private int readLength() throws IOException {
+        int length = readInt();
+        if (length < 0) {
+            throw new StreamCorruptedException("invalid length");
+        }
+        return length;
+    }
+
+    private int readInt() throws IOException {
+        int v = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.readUnsignedByte();
+            v |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return (v >>> 1) ^ -(v & 1);
+            }
+        }
+        throw new StreamCorruptedException("invalid int");
+    }
+}
@@ -0,0 +1,391 @@
+/*
+ * Copyright 2009, 2010 University of Paderborn
+ *
+ * This file is part of vMAGIC.
+ *
+ * vMAGIC is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * vMAGIC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with vMAGIC. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Authors: Ralf Fuest <rfuest@users.sourceforge.net>
+ *          Christopher Pohl <cpohl@users.sourceforge.net>
+ */
+
+package de.upb.hni.vmagic.util;
+
+import de.upb.hni.vmagic.annotation.AbstractCommentAnnotation;
+import de.upb.hni.vmagic.libraryunit.Architecture;
+import de.upb.hni.vmagic.libraryunit.PackageBody;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.OutputStream;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Writes an object graph in the binary format used by <code>VhdlSerializer</code>.
+ * Every object is written only once, later occurrences are written as a
+ * handle to the first occurrence, which preserves cross references inside the
+ * tree.
+ */
+final class ModelOutput {
+
+    static final int TAG_NULL = 0;
+    static final int TAG_HANDLE = 1;
+    static final int TAG_EXTERNAL = 2;
+    static final int TAG_OBJECT = 3;
+    static final int TAG_STRING = 4;
+    static final int TAG_ENUM = 5;
+    static final int TAG_CLASS = 6;
+    static final int TAG_ARRAY = 7;
+    static final int TAG_LIST = 8;
+    static final int TAG_SET = 9;
+    static final int TAG_MAP = 10;
+    static final int TAG_BOOLEAN = 11;
+    static final int TAG_BYTE = 12;
+    static final int TAG_CHARACTER = 13;
+    static final int TAG_SHORT = 14;
+    static final int TAG_INTEGER = 15;
+    static final int TAG_LONG = 16;
+    static final int TAG_FLOAT = 17;
+    static final int TAG_DOUBLE = 18;
+    static final int ARRAY_LIST = 0;
+    static final int LINKED_LIST = 1;
+    static final int FIXED_SIZE_LIST = 2;
+    static final int UNMODIFIABLE_LIST = 3;
+    static final int EMPTY_LIST = 4;
+    static final int HASH_SET = 0;
+    static final int LINKED_HASH_SET = 1;
+    static final int HASH_MAP = 0;
+    static final int LINKED_HASH_MAP = 1;
+    static final int IDENTITY_HASH_MAP = 2;
+    static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final Class<?> FIXED_SIZE_LIST_CLASS = java.util.Arrays.asList().getClass();
+    private static final Class<?> UNMODIFIABLE_LIST_CLASS =
+            java.util.Collections.unmodifiableList(new ArrayList<Object>()).getClass();
+    private static final Class<?> UNMODIFIABLE_SEQUENTIAL_LIST_CLASS =
+            java.util.Collections.unmodifiableList(new LinkedList<Object>()).getClass();
+    private static final Class<?> EMPTY_LIST_CLASS = java.util.Collections.emptyList().getClass();
+    private final DataOutputStream out;
+    private final ExternalReferences externals;
+    private final Map<Object, Integer> handles = new IdentityHashMap<Object, Integer>();
+    private final Map<Class<?>, Integer> classes = new HashMap<Class<?>, Integer>();
+
+    ModelOutput(OutputStream out, ExternalReferences externals) {
+        this.out = new DataOutputStream(out);
+        this.externals = externals;
+    }
+
+    void writeHeader(int magic, int version) throws IOException {
+        out.writeInt(magic);
+        writeInt(version);
+    }
+
+    void flush() throws IOException {
+        out.flush();
+    }
+
+    void writeObject(Object o) throws IOException {
+        if (o == null) {
+            out.writeByte(TAG_NULL);
+            return;
+        }
+
+        Integer handle = handles.get(o);
+        if (handle != null) {
+            out.writeByte(TAG_HANDLE);
+            writeInt(handle);
+            return;
+        }
+
+        ExternalReferences.Reference reference = externals.get(o);
+        if (reference != null) {
+            out.writeByte(TAG_EXTERNAL);
+            writeInt(reference.getKind());
+            writeString(reference.getOwner());
+            writeString(reference.getName());
+            int[] path = reference.getPath();
+            writeInt(path.length);
+            for (int index : path) {
+                writeInt(index);
+            }
+            writeString(reference.getType());
+            addHandle(o);
+            return;
+        }
+
+        Class<?> type = o.getClass();
+        if (type == String.class) {
+            out.writeByte(TAG_STRING);
+            writeString((String) o);
+            addHandle(o);
+        } else if (o instanceof Enum) {
+            out.writeByte(TAG_ENUM);
+            writeClass(((Enum<?>) o).getDeclaringClass());
+            writeString(((Enum<?>) o).name());
+        } else if (type == Class.class) {
+            out.writeByte(TAG_CLASS);
+            writeClass((Class<?>) o);
+        } else if (!writeBoxed(o)) {
+            if (type.isArray()) {
+                writeArray(o);
+            } else if (ClassLayout.isFieldSerialized(type)) {
+                writeFields(o);
+            } else if (o instanceof List) {
+                writeList((List<?>) o);
+            } else if (o instanceof Set) {
+                writeSet((Set<?>) o);
+            } else if (o instanceof Map) {
+                writeMap((Map<?, ?>) o);
+            } else {
+                throw new NotSerializableException(type.getName());
+            }
+        }
+    }
+
+    /**
+     * Creates the content of lazily created bodies and comments, which must be
+     * done before the fields of an object are accessed.
+     * @param o the object
+     */
+    static void createLazyContent(Object o) {
+        if (o instanceof Architecture) {
+            ((Architecture) o).getScope();
+        } else if (o instanceof PackageBody) {
+            ((PackageBody) o).getScope();
+        } else if (o instanceof AbstractCommentAnnotation) {
+            ((AbstractCommentAnnotation) o).getComments();
+        }
+    }
+
+    private void writeFields(Object o) throws IOException {
+        createLazyContent(o);
+
+        ClassLayout layout = ClassLayout.get(o.getClass());
+        out.writeByte(TAG_OBJECT);
+        writeClass(o.getClass());
+        addHandle(o);
+
+        try {
+            for (Field field : layout.getFields()) {
+                Class<?> fieldType = field.getType();
+                if (fieldType.isPrimitive()) {
+                    writePrimitive(fieldType, field.get(o));
+                } else {
+                    writeObject(field.get(o));
+                }
+            }
+        } catch (IllegalAccessException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private void writeArray(Object array) throws IOException {
+        Class<?> componentType = array.getClass().getComponentType();
+        int length = Array.getLength(array);
+        out.writeByte(TAG_ARRAY);
+        writeClass(array.getClass());
+        writeInt(length);
+        addHandle(array);
+
+        for (int i = 0; i < length; i++) {
+            if (componentType.isPrimitive()) {
+                writePrimitive(componentType, Array.get(array, i));
+            } else {
+                writeObject(Array.get(array, i));
+            }
+        }
+    }
+
+    private void writeList(List<?> list) throws IOException {
+        Class<?> type = list.getClass();
+        int kind;
+        if (type == ArrayList.class) {
+            kind = ARRAY_LIST;
+        } else if (type == LinkedList.class) {
+            kind = LINKED_LIST;
+        } else if (type == FIXED_SIZE_LIST_CLASS) {
+            kind = FIXED_SIZE_LIST;
+        } else if (type == UNMODIFIABLE_LIST_CLASS || type == UNMODIFIABLE_SEQUENTIAL_LIST_CLASS) {
+            kind = UNMODIFIABLE_LIST;
+        } else if (type == EMPTY_LIST_CLASS) {
+            kind = EMPTY_LIST;
+        } else {
+            throw new NotSerializableException(type.getName());
+        }
+
+        out.writeByte(TAG_LIST);
+        writeInt(kind);
+        writeElements(list);
+    }
+
+    private void writeSet(Set<?> set) throws IOException {
+        Class<?> type = set.getClass();
+        int kind;
+        if (type == HashSet.class) {
+            kind = HASH_SET;
+        } else if (type == LinkedHashSet.class) {
+            kind = LINKED_HASH_SET;
+        } else {
+            throw new NotSerializableException(type.getName());
+        }
+
+        out.writeByte(TAG_SET);
+        writeInt(kind);
+        writeElements(set);
+    }
+
+    private void writeElements(Collection<?> collection) throws IOException {
+        writeInt(collection.size());
+        addHandle(collection);
+        for (Object element : collection) {
+            writeObject(element);
+        }
+    }
+
+    private void writeMap(Map<?, ?> map) throws IOException {
+        Class<?> type = map.getClass();
+        int kind;
+        if (type == HashMap.class) {
+            kind = HASH_MAP;
+        } else if (type == LinkedHashMap.class) {
+            kind = LINKED_HASH_MAP;
+        } else if (type == IdentityHashMap.class) {
+            kind = IDENTITY_HASH_MAP;
+        } else {
+            throw new NotSerializableException(type.getName());
+        }
+
+        out.writeByte(TAG_MAP);
+        writeInt(kind);
+        writeInt(map.size());
+        addHandle(map);
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            writeObject(entry.getKey());
+            writeObject(entry.getValue());
+        }
+    }
+
+    private boolean writeBoxed(Object o) throws IOException {
+        if (o instanceof Boolean) {
+            out.writeByte(TAG_BOOLEAN);
+        } else if (o instanceof Byte) {
+            out.writeByte(TAG_BYTE);
+        } else if (o instanceof Character) {
+            out.writeByte(TAG_CHARACTER);
+        } else if (o instanceof Short) {
+            out.writeByte(TAG_SHORT);
+        } else if (o instanceof Integer) {
+            out.writeByte(TAG_INTEGER);
+        } else if (o instanceof Long) {
+            out.writeByte(TAG_LONG);
+        } else if (o instanceof Float) {
+            out.writeByte(TAG_FLOAT);
+        } else if (o instanceof Double) {
+            out.writeByte(TAG_DOUBLE);
+        } else {
+            return false;
+        }
+        writePrimitive(o.getClass(), o);
+        return true;
+    }
+
+    private void writePrimitive(Class<?> type, Object value) throws IOException {
+        if (type == boolean.class || type == Boolean.class) {
+            out.writeBoolean((Boolean) value);
+        } else if (type == byte.class || type == Byte.class) {
+            out.writeByte((Byte) value);
+        } else if (type == char.class || type == Character.class) {
+            out.writeChar((Character) value);
+        } else if (type == short.class || type == Short.class) {
+            writeInt((Short) value);
+        } else if (type == int.class || type == Integer.class) {
+            writeInt((Integer) value);
+        } else if (type == long.class || type == Long.class) {
+            out.writeLong((Long) value);
+        } else if (type == float.class || type == Float.class) {
+            out.writeFloat((Float) value);
+        } else {
+            out.writeDouble((Double) value);
+        }
+    }
+
+    /**
+     * Writes a class. The name and the field descriptors are only written for
+     * the first occurrence of a class, later occurrences are written as an index.
+     */
+    private void writeClass(Class<?> type) throws IOException {
+        Integer index = classes.get(type);
+        if (index != null) {
+            writeInt(index + 1);
+            return;
+        }
+
+        if (!ClassLayout.isAllowed(type.getName())) {
+            throw new NotSerializableException(type.getName());
+        }
+
+        classes.put(type, classes.size());
+        writeInt(0);
+        writeString(type.getName());
+        if (ClassLayout.isFieldSerialized(type)) {
+            String[] descriptors = ClassLayout.get(type).getDescriptors();
+            writeInt(descriptors.length);
+            for (String descriptor : descriptors) {
+                writeString(descriptor);
+            }
+        }
+    }
+
+    private void addHandle(Object o) {
+        handles.put(o, handles.size());
+    }
+
+    /**
+     * Writes a string, <code>null</code> is allowed.
+     */
+    private void writeString(String s) throws IOException {
+        if (s == null) {
+            writeInt(-1);
+        } else {
+            byte[] bytes = s.getBytes(UTF8);
+            writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Writes an int using a variable length encoding.
+     * Small positive and negative values are stored in a single byte.
+     */
+    private void writeInt(int value) throws IOException {
+        int v = (value << 1) ^ (value >> 31);
+        while ((v & ~0x7F) != 0) {
+            out.writeByte((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        out.writeByte(v);
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright 2009, 2010 University of Paderborn
+ *
+ * This file is part of vMAGIC.
+ *
+ * vMAGIC is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * vMAGIC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with vMAGIC. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Authors: Ralf Fuest <rfuest@users.sourceforge.net>
+ *          Christopher Pohl <cpohl@users.sourceforge.net>
+ */
+
+package de.upb.hni.vmagic.util;
+
+import de.upb.hni.vmagic.VhdlElement;
+import de.upb.hni.vmagic.VhdlFile;
+import de.upb.hni.vmagic.concurrent.ProcessStatement;
+import de.upb.hni.vmagic.libraryunit.Architecture;
+import de.upb.hni.vmagic.libraryunit.PackageBody;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Walks independent subtrees of a design concurrently.
+ * The walked tree is split into subtrees at files, architectures, package
+ * bodies and processes. Every subtree is walked by a new walker, which is
+ * created by the walker factory, on a fork join pool. Subtrees are only
+ * forked while there are few queued tasks, otherwise they are walked directly
+ * by the current thread. The subtrees of nested
+ * split points are excluded from the walk of the enclosing subtree, so that
+ * every element is passed to exactly one walker. Apart from this the walkers
+ * see the same calls as a single walker which walks the whole tree.
+ * <p>
+ * The results of the walkers are combined by the reducer. The result of an
+ * enclosing subtree is combined with the results of the nested subtrees in
+ * the order in which they appear in the tree, so that the reducer doesn't
+ * need to be commutative.
+ * <p>
+ * The walkers must not modify the tree. Lazily loaded architecture and
+ * package bodies must be loaded before the walk, because body loading
+ * isn't thread safe.
+ *
+ * @param <T> the result type
+ */
+public class ParallelElementWalker<T> {
+
+    //number of queued tasks above which subtrees aren't forked
+    private static final int SURPLUS_TASKS = 3;
+    private final WalkerFactory<T> factory;
+    private final Reducer<T> reducer;
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates a parallel walker which uses the common fork join pool.
+     * @param factory the factory which creates the walker for each subtree
+     * @param reducer the reducer which combines the results of the walkers
+     */
+    public ParallelElementWalker(WalkerFactory<T> factory, Reducer<T> reducer) {
+        this(factory, reducer, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a parallel walker.
+     * @param factory the factory which creates the walker for each subtree
+     * @param reducer the reducer which combines the results of the walkers
+     * @param pool the fork join pool
+     */
+    public ParallelElementWalker(WalkerFactory<T> factory, Reducer<T> reducer, ForkJoinPool pool) {
+        this.factory = factory;
+        this.reducer = reducer;
+        this.pool = pool;
+    }
+
+    /**
+     * Walks a tree.
+     * The tree is usually a root declarative region, a library or a file.
+     * @param root the root element of the tree
+     * @return the combined result of all walkers
+     */
+    public T walk(VhdlElement root) {
+        return pool.invoke(new SubtreeTask(root));
+    }
+
+    /**
+     * Returns if an element is the root of an independent subtree.
+     * Returns <code>true</code> for files, architectures, package bodies and
+     * processes. Subclasses can override this method to split the tree at
+     * other elements.
+     * @param element the element
+     * @return <code>true</code>, if the subtree is walked by a separate walker
+     */
+    protected boolean isSplitPoint(VhdlElement element) {
+        return element instanceof VhdlFile || element instanceof Architecture
+                || element instanceof PackageBody || element instanceof ProcessStatement;
+    }
+
+    /**
+     * Walker which returns a result after a subtree was walked.
+     * @param <T> the result type
+     */
+    public static abstract class SubtreeWalker<T> extends ElementWalker {
+
+        /**
+         * Returns the result of the walk.
+         * @return the result
+         */
+        public abstract T getResult();
+    }
+
+    /**
+     * Factory for subtree walkers.
+     * @param <T> the result type
+     */
+    public interface WalkerFactory<T> {
+
+        /**
+         * Creates a new walker.
+         * This method is called concurrently and must return a new walker
+         * for every call.
+         * @return the walker
+         */
+        SubtreeWalker<T> createWalker();
+    }
+
+    /**
+     * Combines the results of two walkers.
+     * @param <T> the result type
+     */
+    public interface Reducer<T> {
+
+        /**
+         * Combines two results.
+         * This method is called concurrently.
+         * @param first the first result
+         * @param second the second result, which belongs to a subtree after
+         *        the first subtree
+         * @return the combined result
+         */
+        T reduce(T first, T second);
+    }
+
+    private class SubtreeTask extends RecursiveTask<T> {
+
+        private final VhdlElement root;
+
+        public SubtreeTask(VhdlElement root) {
+            this.root = root;
+        }
+
+        @Override
+        protected T compute() {
+            SplittingWalker walker = new SplittingWalker(root, factory.createWalker());
+            walker.walk(root);
+
+            T result = walker.walker.getResult();
+            for (SubtreeTask task : walker.tasks) {
+                result = reducer.reduce(result, task.join());
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Walker which forks a new task for every nested split point and passes
+     * all other elements to the walker of the subtree.
+     */
+    private class SplittingWalker extends ElementWalker {
+
+        private final VhdlElement root;
+        private final SubtreeWalker<T> walker;
+        private final List<SubtreeTask> tasks = new ArrayList<SubtreeTask>();
+        private VhdlElement splitElement;
+
+        public SplittingWalker(VhdlElement root, SubtreeWalker<T> walker) {
+            this.root = root;
+            this.walker = walker;
+        }
+
+        @Override
+        protected boolean enter(VhdlElement element) {
+            if (element != root && isSplitPoint(element)) {
+                SubtreeTask task = new SubtreeTask(element);
+                if (ForkJoinTask.getSurplusQueuedTaskCount() < SURPLUS_TASKS) {
+                    task.fork();
+                } else {
+                    task.invoke();
+                }
+                tasks.add(task);
+                splitElement = element;
+                return false;
+            }
+            return walker.enter(element);
+        }
+
+        @Override
+        protected void leave(VhdlElement element) {
+            //leave is called directly after enter for skipped elements
+            if (element == splitElement) {
+                splitElement = null;
+            } else {
+                walker.leave(element);
+            }
+        }
+    }
+}
@@ -167,10 +167,16 @@ public class ParentSetList<E extends VhdlElement> extends ForwardingList<E> {
         return removed;
     }
 
-    //TODO: implement
     @Override
     public boolean retainAll(Collection<?> c) {
-        throw new UnsupportedOperationException();
+        boolean removed = false;
+        for (Iterator<E> it = iterator(); it.hasNext();) {
+            if (!c.contains(it.next())) {
+                it.remove();
+                removed = true;
+            }
+        }
+        return removed;
     }
 
     @Override
@@ -183,10 +189,17 @@ public class ParentSetList<E extends VhdlElement> extends ForwardingList<E> {
         super.clear();
     }
 
-    //TODO: implement
     @Override
     public E set(int index, E element) {
-        throw new UnsupportedOperationException();
+        if (element != null) {
+            element.setParent(parent);
+        }
+
+        E old = super.set(index, element);
+        if (old != null && old != element) {
+            old.setParent(null);
+        }
+        return old;
     }
 
     @Override
@@ -211,28 +224,53 @@ public class ParentSetList<E extends VhdlElement> extends ForwardingList<E> {
 
     private class ListIteratorImpl extends ForwardingListIterator<E> {
 
+        //element returned by the last call to next or previous
+        private E last;
+
         public ListIteratorImpl(ListIterator<E> iterator) {
             super(iterator);
         }
 
+        @Override
+        public E next() {
+            last = super.next();
+            return last;
+        }
+
+        @Override
+        public E previous() {
+            last = super.previous();
+            return last;
+        }
+
         @Override
         public void add(E e) {
             if (e != null) {
                 e.setParent(parent);
             }
             super.add(e);
+            last = null;
         }
 
-        //TODO: implement
         @Override
         public void set(E e) {
-            throw new UnsupportedOperationException();
+            if (e != null) {
+                e.setParent(parent);
+            }
+            super.set(e);
+            if (last != null && last != e) {
+                last.setParent(null);
+            }
+            last = e;
         }
 
-        //TODO: implement
         @Override
         public void remove() {
-            throw new UnsupportedOperationException();
+            super.remove();
+            if (last != null) {
+                last.setParent(null);
+            }
+            last = null;
         }
     }
 
@@ -25,6 +25,8 @@ package de.upb.hni.vmagic.util;
 import de.upb.hni.vmagic.DeclarativeRegion;
 import de.upb.hni.vmagic.LabeledElement;
 import de.upb.hni.vmagic.NamedEntity;
+import de.upb.hni.vmagic.RootDeclarativeRegion;
+import de.upb.hni.vmagic.Scopes;
 import de.upb.hni.vmagic.VhdlElement;
 import de.upb.hni.vmagic.declaration.DeclarativeItemMarker;
 import de.upb.hni.vmagic.declaration.ObjectDeclaration;
@@ -35,7 +37,10 @@ import de.upb.hni.vmagic.object.VhdlObjectProvider;
 import de.upb.hni.vmagic.type.EnumerationType;
 import de.upb.hni.vmagic.type.PhysicalType;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Vhdl collection utility class.
@@ -100,40 +105,80 @@ public class VhdlCollections {
 
     /**
      * Creates a declaration list.
+     * The list has no parent and is always searched linearly, because identifier
+     * changes of its elements cannot be tracked.
      * @param <E> the element type
      * @return the list
      */
     public static <E extends DeclarativeItemMarker> ResolvableList<E> createDeclarationList() {
-        return new DeclarationList<E>();
+        return new DeclarationList<E>(null, new ArrayList<E>());
     }
 
     /**
      * Creates a declaration list.
+     * The list has no parent and is always searched linearly, because identifier
+     * changes of its elements cannot be tracked.
      * @param <E> the element type
      * @param list a list that is used to initialize the list
      * @return the list
      */
     public static <E extends DeclarativeItemMarker> ResolvableList<E> createDeclarationList(List<E> list) {
-        return new DeclarationList<E>(list);
+        return new DeclarationList<E>(null, new ArrayList<E>(list));
+    }
+
+    /**
+     * Creates a declaration list which sets the parent of the added declarations.
+     * @param <E> the element type
+     * @param parent the parent
+     * @return the list
+     */
+    public static <E extends DeclarativeItemMarker> ResolvableList<E> createDeclarationList(DeclarativeRegion parent) {
+        return new DeclarationList<E>(parent, new ArrayList<E>());
+    }
+
+    /**
+     * Creates a declaration list which sets the parent of the added declarations.
+     * The parents of the declarations in the initial list aren't changed.
+     * @param <E> the element type
+     * @param parent the parent
+     * @param list a list that is used to initialize the list
+     * @return the list
+     */
+    public static <E extends DeclarativeItemMarker> ResolvableList<E> createDeclarationList(DeclarativeRegion parent, List<E> list) {
+        return new DeclarationList<E>(parent, new ArrayList<E>(list));
     }
 
     /**
      * Creates a list of VHDL objects.
+     * The list has no parent and is always searched linearly, because identifier
+     * changes of its elements cannot be tracked.
      * @param <E> the element type
      * @return the list
      */
     public static <E extends VhdlObjectProvider<? extends VhdlObject>> ResolvableList<E> createVhdlObjectList() {
-        return new VhdlObjectList<E>();
+        return new VhdlObjectList<E>(null, new ArrayList<E>());
     }
 
     /**
      * Creates a list of VHDL objects.
+     * The list has no parent and is always searched linearly, because identifier
+     * changes of its elements cannot be tracked.
      * @param <E> the element type
      * @param list a list that is used to initialize the list
      * @return the list
      */
     public static <E extends VhdlObjectProvider<? extends VhdlObject>> ResolvableList<E> createVhdlObjectList(List<E> list) {
-        return new VhdlObjectList<E>(list);
+        return new VhdlObjectList<E>(null, new ArrayList<E>(list));
+    }
+
+    /**
+     * Creates a list of VHDL objects which sets the parent of the added objects.
+     * @param <E> the element type
+     * @param parent the parent
+     * @return the list
+     */
+    public static <E extends VhdlObjectProvider<? extends VhdlObject>> ResolvableList<E> createVhdlObjectList(DeclarativeRegion parent) {
+        return new VhdlObjectList<E>(parent, new ArrayList<E>());
     }
 
     /**
@@ -178,121 +223,413 @@ public class VhdlCollections {
         return new NamedEntityList<E>(parent, list);
     }
 
+    /**
+     * Returns a list which sets the parent of the added elements, or the list
+     * itself if no parent is given. All elements of the resolvable lists are VHDL
+     * elements.
+     */
+    @SuppressWarnings("unchecked")
+    private static <E> List<E> setParents(DeclarativeRegion parent, List<E> list) {
+        if (parent == null) {
+            return list;
+        }
+        List<?> elements = list;
+        return (List<E>) ParentSetList.create(parent, (List<VhdlElement>) elements);
+    }
+
+    /**
+     * Abstract base class for resolvable lists.
+     * Small lists and lists which are rarely used to resolve identifiers are
+     * searched linearly. Otherwise a case insensitive identifier index is
+     * created, which is discarded if the list is changed or if an identifier in
+     * the scope of the parent is changed. Lists without a parent are always
+     * searched linearly.
+     * Lookups may run concurrently, but modifications must not run concurrently
+     * with other modifications or lookups.
+     */
+    private abstract static class IndexedList<E> extends ChangeTrackingList<E>
+            implements ResolvableList<E> {
+
+        private static final int MIN_INDEXED_SIZE = 8;
+        private static final int MIN_INDEXED_LOOKUPS = 4;
+        private final DeclarativeRegion parent;
+        //volatile because lookups in shared lists, like the lists in the builtin
+        //libraries, can run in multiple threads
+        private volatile int modificationCount;
+        //only a heuristic, concurrent lookups may lose increments
+        private volatile int lookupCount;
+        //transient because the index is recreated on demand after deserialization
+        private transient volatile Index index;
+
+        private IndexedList(DeclarativeRegion parent, List<E> list) {
+            super(list);
+            this.parent = parent;
+        }
+
+        /**
+         * Returns the declarative region which contains this list.
+         * @return the parent or <code>null</code>
+         */
+        DeclarativeRegion getParent() {
+            return parent;
+        }
+
+        @Override
+        protected void changed() {
+            modificationCount++;
+            if (parent != null) {
+                Scopes.declarationsChanged(parent.getScope());
+            }
+        }
+
+        @Override
+        protected void checkModifiable() {
+            if (parent instanceof VhdlElement) {
+                ((VhdlElement) parent).checkModifiable();
+            }
+        }
+
+        //elements which are appended to the end of the list are added to
+        //a valid index instead of discarding it
+        @Override
+        public boolean add(E e) {
+            Index i = getValidIndex();
+            boolean result = super.add(e);
+            if (i != null) {
+                addToIndex(e, i);
+                i.modificationCount = modificationCount;
+            }
+            return result;
+        }
+
+        @Override
+        public boolean addAll(Collection<? extends E> c) {
+            Index i = getValidIndex();
+            boolean result = super.addAll(c);
+            if (i != null) {
+                for (E e : c) {
+                    addToIndex(e, i);
+                }
+                i.modificationCount = modificationCount;
+            }
+            return result;
+        }
+
+        /**
+         * Resolves an identifier in a single list element.
+         * @param element the list element
+         * @param identifier the identifier
+         * @return the matching object or <code>null</code>
+         */
+        abstract Object resolve(E element, String identifier);
+
+        /**
+         * Adds the identifiers declared by a list element to the index.
+         * @param element the list element
+         * @param index the index
+         */
+        abstract void addToIndex(E element, Index index);
+
+        public Object resolve(String identifier) {
+            int size = size();
+
+            Index i = getIndex(size);
+            if (i != null) {
+                return i.get(identifier);
+            }
+
+            for (int j = 0; j < size; j++) {
+                Object o = resolve(get(j), identifier);
+                if (o != null) {
+                    return o;
+                }
+            }
+
+            return null;
+        }
+
+        /**
+         * Returns the number of identifier changes in the scope of the parent.
+         */
+        private int getIdentifierChanges() {
+            if (parent == null) {
+                return -1;
+            }
+            return Scopes.getIdentifierModificationCount(parent.getScope());
+        }
+
+        /**
+         * Returns the identifier table of the root declarative region which
+         * contains this list.
+         */
+        private IdentifierTable getIdentifierTable() {
+            DeclarativeRegion region = parent;
+            while (region instanceof VhdlElement && ((VhdlElement) region).getParent() != null) {
+                region = ((VhdlElement) region).getParent();
+            }
+            if (region instanceof RootDeclarativeRegion) {
+                return ((RootDeclarativeRegion) region).getIdentifierTable();
+            }
+            return null;
+        }
+
+        private Index getValidIndex() {
+            Index i = index;
+            if (i != null && i.modificationCount == modificationCount
+                    && i.identifierChanges == getIdentifierChanges()) {
+                return i;
+            }
+            return null;
+        }
+
+        private Index getIndex(int size) {
+            if (size < MIN_INDEXED_SIZE) {
+                return null;
+            }
+
+            Index i = getValidIndex();
+            if (i != null) {
+                return i;
+            }
+
+            //the lookups are counted again after an index was discarded, appends
+            //to a list without an index don't reset the count
+            if (index != null) {
+                index = null;
+                lookupCount = 0;
+            }
+
+            if (lookupCount < MIN_INDEXED_LOOKUPS) {
+                lookupCount++;
+                return null;
+            }
+
+            int identifierChanges = getIdentifierChanges();
+            if (identifierChanges < 0) {
+                return null;
+            }
+
+            i = new Index(modificationCount, identifierChanges, getIdentifierTable());
+            for (int j = 0; j < size; j++) {
+                addToIndex(get(j), i);
+            }
+            index = i;
+
+            return i;
+        }
+    }
+
+    /**
+     * Case insensitive identifier index.
+     * If an identifier is declared more than once the first declaration is used,
+     * which is the same object a linear search would return. The keys of
+     * identifiers which are stored in the identifier table of the design are
+     * shared with the table instead of being created for every index.
+     */
+    private static final class Index {
+
+        private final Map<String, Object> map = new HashMap<String, Object>();
+        private int modificationCount;
+        private final int identifierChanges;
+        private final IdentifierTable identifierTable;
+
+        private Index(int modificationCount, int identifierChanges, IdentifierTable identifierTable) {
+            this.modificationCount = modificationCount;
+            this.identifierChanges = identifierChanges;
+            this.identifierTable = identifierTable;
+        }
+
+        private String getKey(String identifier) {
+            if (identifierTable != null) {
+                return identifierTable.lookupKey(identifier);
+            }
+            return Identifiers.getKey(identifier);
+        }
+
+        private void put(String identifier, Object value) {
+            if (identifier != null) {
+                String key = getKey(identifier);
+                if (!map.containsKey(key)) {
+                    map.put(key, value);
+                }
+            }
+        }
+
+        private Object get(String identifier) {
+            return map.get(getKey(identifier));
+        }
+    }
+
     /**
      * Declaration list.
      */
-    //TODO: use map to resolve identifiers
     private static final class DeclarationList<E extends DeclarativeItemMarker>
-            extends ForwardingList<E> implements ResolvableList<E> {
+            extends IndexedList<E> {
 
-        private DeclarationList() {
-            super(new ArrayList<E>());
+        private DeclarationList(DeclarativeRegion parent, List<E> list) {
+            super(parent, setParents(parent, list));
         }
 
-        private DeclarationList(List<E> list) {
-            super(new ArrayList<E>(list));
+        @Override
+        public Object resolve(String identifier) {
+            Object o = super.resolve(identifier);
+
+            //TODO: don't use strings for the physical literals
+            if (o instanceof PhysicalUnit) {
+                return new PhysicalLiteral(((PhysicalUnit) o).identifier);
+            }
+
+            return o;
         }
 
         @Override
-        public Object resolve(String identifier) {
-            for (E declaration : this) {
-                if (declaration instanceof EnumerationType) {
-                    EnumerationType type = (EnumerationType) declaration;
-                    if (identifier.equalsIgnoreCase(type.getIdentifier())) {
-                        return type;
-                    }
+        Object resolve(E declaration, String identifier) {
+            if (declaration instanceof EnumerationType) {
+                EnumerationType type = (EnumerationType) declaration;
+                if (identifier.equalsIgnoreCase(type.getIdentifier())) {
+                    return type;
+                }
 
-                    //TODO: support overloading
-                    for (EnumerationLiteral literal : type.getLiterals()) {
-                        if (identifier.equalsIgnoreCase(literal.toString())) {
-                            return literal;
-                        }
-                    }
-                } else if (declaration instanceof PhysicalType) {
-                    PhysicalType type = (PhysicalType) declaration;
-                    if (identifier.equalsIgnoreCase(type.getIdentifier())) {
-                        return type;
+                //TODO: support overloading
+                for (EnumerationLiteral literal : type.getLiterals()) {
+                    if (identifier.equalsIgnoreCase(literal.toString())) {
+                        return literal;
                     }
+                }
+            } else if (declaration instanceof PhysicalType) {
+                PhysicalType type = (PhysicalType) declaration;
+                if (identifier.equalsIgnoreCase(type.getIdentifier())) {
+                    return type;
+                }
 
-                    //TODO: don't use strings for the physical literals
-                    if (identifier.equalsIgnoreCase(type.getPrimaryUnit())) {
-                        return new PhysicalLiteral(type.getPrimaryUnit());
-                    }
+                if (identifier.equalsIgnoreCase(type.getPrimaryUnit())) {
+                    return new PhysicalUnit(type.getPrimaryUnit());
+                }
 
-                    for (PhysicalType.Unit unit : type.getUnits()) {
-                        if (identifier.equalsIgnoreCase(unit.getIdentifier())) {
-                            return new PhysicalLiteral(unit.getIdentifier());
-                        }
-                    }
-                } else if (declaration instanceof NamedEntity) {
-                    NamedEntity identElement = (NamedEntity) declaration;
-                    if (identifier.equalsIgnoreCase(identElement.getIdentifier())) {
-                        return declaration;
+                for (PhysicalType.Unit unit : type.getUnits()) {
+                    if (identifier.equalsIgnoreCase(unit.getIdentifier())) {
+                        return new PhysicalUnit(unit.getIdentifier());
                     }
-                } else if (declaration instanceof ObjectDeclaration) {
-                    ObjectDeclaration<?> objDecl = (ObjectDeclaration) declaration;
-                    for (VhdlObject object : objDecl.getObjects()) {
-                        if (object.getIdentifier().equalsIgnoreCase(identifier)) {
-                            return object;
-                        }
+                }
+            } else if (declaration instanceof NamedEntity) {
+                NamedEntity identElement = (NamedEntity) declaration;
+                if (identifier.equalsIgnoreCase(identElement.getIdentifier())) {
+                    return declaration;
+                }
+            } else if (declaration instanceof ObjectDeclaration) {
+                ObjectDeclaration<?> objDecl = (ObjectDeclaration) declaration;
+                for (VhdlObject object : objDecl.getObjects()) {
+                    if (object.getIdentifier().equalsIgnoreCase(identifier)) {
+                        return object;
                     }
                 }
             }
 
             return null;
         }
+
+        @Override
+        void addToIndex(E declaration, Index index) {
+            if (declaration instanceof EnumerationType) {
+                EnumerationType type = (EnumerationType) declaration;
+                index.put(type.getIdentifier(), type);
+
+                for (EnumerationLiteral literal : type.getLiterals()) {
+                    index.put(literal.toString(), literal);
+                }
+            } else if (declaration instanceof PhysicalType) {
+                PhysicalType type = (PhysicalType) declaration;
+                index.put(type.getIdentifier(), type);
+                index.put(type.getPrimaryUnit(), new PhysicalUnit(type.getPrimaryUnit()));
+
+                for (PhysicalType.Unit unit : type.getUnits()) {
+                    index.put(unit.getIdentifier(), new PhysicalUnit(unit.getIdentifier()));
+                }
+            } else if (declaration instanceof NamedEntity) {
+                index.put(((NamedEntity) declaration).getIdentifier(), declaration);
+            } else if (declaration instanceof ObjectDeclaration) {
+                ObjectDeclaration<?> objDecl = (ObjectDeclaration) declaration;
+                for (VhdlObject object : objDecl.getObjects()) {
+                    index.put(object.getIdentifier(), object);
+                }
+            }
+        }
+
+        /**
+         * Physical unit index entry. A new literal is created for every lookup.
+         */
+        private static final class PhysicalUnit {
+
+            private final String identifier;
+
+            private PhysicalUnit(String identifier) {
+                this.identifier = identifier;
+            }
+        }
     }
 
     /**
      * VHDL object list.
      */
     private static final class VhdlObjectList<E extends VhdlObjectProvider<? extends VhdlObject>>
-            extends ForwardingList<E> implements ResolvableList<E> {
+            extends IndexedList<E> {
 
-        private VhdlObjectList() {
-            super(new ArrayList<E>());
+        private VhdlObjectList(DeclarativeRegion parent, List<E> list) {
+            super(parent, setParents(parent, list));
         }
 
-        private VhdlObjectList(List<E> list) {
-            super(new ArrayList<E>(list));
+        @Override
+        public VhdlObject resolve(String identifier) {
+            return (VhdlObject) super.resolve(identifier);
         }
 
         @Override
-        public VhdlObject resolve(String identifier) {
-            for (E provider : this) {
-                for (VhdlObject object : provider.getVhdlObjects()) {
-                    if (object.getIdentifier().equalsIgnoreCase(identifier)) {
-                        return object;
-                    }
+        Object resolve(E provider, String identifier) {
+            for (VhdlObject object : provider.getVhdlObjects()) {
+                if (object.getIdentifier().equalsIgnoreCase(identifier)) {
+                    return object;
                 }
             }
 
             return null;
         }
+
+        @Override
+        void addToIndex(E provider, Index index) {
+            for (VhdlObject object : provider.getVhdlObjects()) {
+                index.put(object.getIdentifier(), object);
+            }
+        }
     }
 
     /**
      * Labeled element list.
      */
     private static final class LabeledElementList<E extends LabeledElement>
-            extends ForwardingList<E> implements ResolvableList<E> {
+            extends IndexedList<E> {
 
         private LabeledElementList(DeclarativeRegion parent) {
-            super(ParentSetList.<E>create(parent));
+            super(parent, ParentSetList.<E>create(parent));
         }
 
         private LabeledElementList(DeclarativeRegion parent, List<E> list) {
-            super(ParentSetList.<E>create(parent, list));
+            super(parent, ParentSetList.<E>create(parent, list));
         }
 
         @Override
+        @SuppressWarnings("unchecked")
         public E resolve(String identifier) {
-            for (E element : this) {
-                if (identifier.equalsIgnoreCase(element.getLabel())) {
-                    return element;
-                }
-            }
-            return null;
+            return (E) super.resolve(identifier);
+        }
+
+        @Override
+        Object resolve(E element, String identifier) {
+            return identifier.equalsIgnoreCase(element.getLabel()) ? element : null;
+        }
+
+        @Override
+        void addToIndex(E element, Index index) {
+            index.put(element.getLabel(), element);
         }
     }
 
@@ -300,27 +637,45 @@ public class VhdlCollections {
      * Named entity list.
      */
     private static final class NamedEntityList<E extends VhdlElement>
-            extends ForwardingList<E> implements ResolvableList<E> {
+            extends IndexedList<E> {
 
         private NamedEntityList(DeclarativeRegion parent) {
-            super(ParentSetList.<E>create(parent));
+            super(parent, ParentSetList.<E>create(parent));
         }
 
         private NamedEntityList(DeclarativeRegion parent, List<E> list) {
-            super(ParentSetList.<E>create(parent, list));
+            super(parent, ParentSetList.<E>create(parent, list));
         }
 
+        //named entity lists are used for libraries and library units
         @Override
+        protected void changed() {
+            super.changed();
+            Identifiers.libraryUnitsChanged(getParent());
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
         public E resolve(String identifier) {
-            for (E element : this) {
-                if (element instanceof NamedEntity) {
-                    NamedEntity namedEntity = (NamedEntity) element;
-                    if (namedEntity.getIdentifier().equalsIgnoreCase(identifier)) {
-                        return element;
-                    }
+            return (E) super.resolve(identifier);
+        }
+
+        @Override
+        Object resolve(E element, String identifier) {
+            if (element instanceof NamedEntity) {
+                NamedEntity namedEntity = (NamedEntity) element;
+                if (namedEntity.getIdentifier().equalsIgnoreCase(identifier)) {
+                    return element;
                 }
             }
             return null;
         }
+
+        @Override
+        void addToIndex(E element, Index index) {
+            if (element instanceof NamedEntity) {
+                index.put(((NamedEntity) element).getIdentifier(), element);
+            }
+        }
     }
 }
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2009, 2010 University of Paderborn
+ *
+ * This file is part of vMAGIC.
+ *
+ * vMAGIC is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * vMAGIC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with vMAGIC. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Authors: Ralf Fuest <rfuest@users.sourceforge.net>
+ *          Christopher Pohl <cpohl@users.sourceforge.net>
+ */
+
+package de.upb.hni.vmagic.util;
+
+import de.upb.hni.vmagic.DeclarativeRegion;
+import de.upb.hni.vmagic.LibraryDeclarativeRegion;
+import de.upb.hni.vmagic.RootDeclarativeRegion;
+import de.upb.hni.vmagic.VhdlElement;
+import de.upb.hni.vmagic.VhdlFile;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidObjectException;
+import java.io.OutputStream;
+
+/**
+ * Binary serialization of VHDL files and libraries.
+ * The serialized tree keeps all references between the elements inside the
+ * tree, like signals used in expressions or the entity of an architecture.
+ * References to design units in other files of the same root declarative
+ * region and to the builtin libraries are stored by name and are resolved
+ * when the tree is read. Reading fails with an <code>IOException</code> if an
+ * external reference cannot be resolved or if the stream was written by an
+ * incompatible version of vMAGIC. The stream contains the name and type of every
+ * serialized field, so that streams written before a field of a model class
+ * was added, removed or renamed are rejected. Elements are read without calling
+ * the constructors of the model classes.
+ * <p>
+ * Architectures and package bodies which are created lazily are loaded before
+ * they are written. Annotations are serialized together with the elements.
+ * Only instances of the classes in the vMAGIC model packages, including the
+ * annotations and parse errors of the parser, can be serialized. Streams which contain other
+ * classes are rejected before the classes are loaded.
+ */
+public class VhdlSerializer {
+
+    private static final int MAGIC = 0x764D4147;
+    private static final int VERSION = 1;
+
+    /**
+     * Prevent instantiation.
+     */
+    private VhdlSerializer() {
+    }
+
+    /**
+     * Writes a file to a stream.
+     * @param file the file
+     * @param out the output stream
+     * @throws IOException if the file could not be written
+     */
+    public static void writeFile(VhdlFile file, OutputStream out) throws IOException {
+        LibraryDeclarativeRegion library = getParent(file, LibraryDeclarativeRegion.class);
+        RootDeclarativeRegion root =
+                library == null ? null : getParent(library, RootDeclarativeRegion.class);
+
+        write(file, out, ExternalReferences.forWriting(root, library, file));
+    }
+
+    /**
+     * Reads a file from a stream and adds it to a library.
+     * External references are resolved in the given root declarative region
+     * and library. References to the library the file was written from are
+     * resolved in the library the file is added to.
+     * @param in the input stream
+     * @param rootScope the root declarative region
+     * @param libraryScope the library the file is added to
+     * @return the file
+     * @throws IOException if the file could not be read
+     */
+    public static VhdlFile readFile(InputStream in, RootDeclarativeRegion rootScope,
+            LibraryDeclarativeRegion libraryScope) throws IOException {
+        VhdlFile file = read(in, ExternalReferences.forReading(rootScope, libraryScope),
+                VhdlFile.class);
+        libraryScope.getFiles().add(file);
+        return file;
+    }
+
+    /**
+     * Writes a library to a stream.
+     * @param library the library
+     * @param out the output stream
+     * @throws IOException if the library could not be written
+     */
+    public static void writeLibrary(LibraryDeclarativeRegion library, OutputStream out)
+            throws IOException {
+        RootDeclarativeRegion root = getParent(library, RootDeclarativeRegion.class);
+
+        write(library, out, ExternalReferences.forWriting(root, null, library));
+    }
+
+    /**
+     * Reads a library from a stream and adds it to a root declarative region.
+     * @param in the input stream
+     * @param rootScope the root declarative region
+     * @return the library
+     * @throws IOException if the library could not be read
+     */
+    public static LibraryDeclarativeRegion readLibrary(InputStream in,
+            RootDeclarativeRegion rootScope) throws IOException {
+        LibraryDeclarativeRegion library = read(in, ExternalReferences.forReading(rootScope, null),
+                LibraryDeclarativeRegion.class);
+        rootScope.getLibraries().add(library);
+        return library;
+    }
+
+    private static void write(Object o, OutputStream out, ExternalReferences externals)
+            throws IOException {
+        ModelOutput output = new ModelOutput(new BufferedOutputStream(out), externals);
+        output.writeHeader(MAGIC, VERSION);
+        output.writeObject(o);
+        output.flush();
+    }
+
+    private static <T> T read(InputStream in, ExternalReferences externals, Class<T> type)
+            throws IOException {
+        ModelInput input = new ModelInput(new BufferedInputStream(in), externals);
+        input.readHeader(MAGIC, VERSION);
+        Object o = input.readObject();
+        if (!type.isInstance(o)) {
+            throw new InvalidObjectException("stream doesn't contain a " + type.getSimpleName());
+        }
+        return type.cast(o);
+    }
+
+    private static <T> T getParent(VhdlElement element, Class<T> type) {
+        DeclarativeRegion parent = element.getParent();
+        return type.isInstance(parent) ? type.cast(parent) : null;
+    }
+}